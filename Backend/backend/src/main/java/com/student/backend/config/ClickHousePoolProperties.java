@@ -0,0 +1,46 @@
+package com.student.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Connection pool settings for ClickHouse, bound from the "clickhouse.pool.*" properties.
+ * Every distinct host/port/database/user combination gets its own pool with these limits.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "clickhouse.pool")
+public class ClickHousePoolProperties {
+
+    /**
+     * Maximum number of open connections per pool.
+     */
+    private int maxSize = 10;
+
+    /**
+     * Idle connections are closed after this many milliseconds.
+     */
+    private long idleTimeoutMs = 300_000;
+
+    /**
+     * Maximum time in milliseconds a caller waits to borrow a connection.
+     */
+    private long connectionTimeoutMs = 30_000;
+
+    /**
+     * Maximum time in milliseconds spent validating a connection before it is handed out.
+     */
+    private long validationTimeoutMs = 5_000;
+
+    /**
+     * Maximum number of distinct pools; beyond this the least recently used pool is retired,
+     * and closed once none of its connections is in use.
+     */
+    private int maxPools = 16;
+
+    /**
+     * Interval in milliseconds at which retired pools are checked and closed once idle.
+     */
+    private long retiredSweepMs = 10_000;
+}
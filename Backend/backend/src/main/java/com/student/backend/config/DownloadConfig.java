@@ -0,0 +1,41 @@
+package com.student.backend.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Runs streamed downloads on their own fixed pool of "export.download-threads" threads, so the
+ * number of exports writing to clients at once is bounded and they do not compete with other
+ * asynchronous work. The executor is deliberately not a bean, which would replace Spring Boot's
+ * application task executor.
+ */
+@Configuration
+public class DownloadConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor downloadExecutor;
+
+    public DownloadConfig(ExportProperties exportProperties) {
+        int threads = Math.max(1, exportProperties.getDownloadThreads());
+        downloadExecutor = new ThreadPoolTaskExecutor();
+        downloadExecutor.setCorePoolSize(threads);
+        downloadExecutor.setMaxPoolSize(threads);
+        downloadExecutor.setThreadNamePrefix("download-");
+        downloadExecutor.setDaemon(true);
+        downloadExecutor.initialize();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(downloadExecutor);
+        // A download lasts as long as its export; the container's default would cut it off after 30 seconds
+        configurer.setDefaultTimeout(-1);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        downloadExecutor.shutdown();
+    }
+}
@@ -0,0 +1,72 @@
+package com.student.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for ClickHouse to flat file exports, bound from the "export.*" properties.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "export")
+public class ExportProperties {
+
+    /**
+     * Size in bytes of the direct buffer used to copy a pass-through export into the file.
+     */
+    private int bufferSizeBytes = 1024 * 1024;
+
+    /**
+     * Number of ranges a PARALLEL export runs concurrently, each on its own connection.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Number of threads compressing each compressed export file; 0 uses one per available processor.
+     */
+    private int compressionThreads = 0;
+
+    /**
+     * Uncompressed size in bytes of one independently compressed block of an export file.
+     */
+    private int compressionBlockSizeBytes = 1024 * 1024;
+
+    /**
+     * Size in bytes of the direct buffer used to copy a streamed download into the HTTP response;
+     * with the download threads, it bounds the memory downloads take.
+     */
+    private int downloadBufferSizeBytes = 64 * 1024;
+
+    /**
+     * Number of downloads streamed at the same time; further downloads wait for a free thread.
+     */
+    private int downloadThreads = 16;
+
+    /**
+     * Maximum number of rows in one row group of a Parquet export file.
+     */
+    private long parquetRowGroupRows = 1_000_000;
+
+    /**
+     * Maximum uncompressed size in bytes of one row group of a Parquet export file.
+     */
+    private long parquetRowGroupBytes = 512L * 1024 * 1024;
+
+    /**
+     * Page compression of Parquet export files, as accepted by output_format_parquet_compression_method.
+     */
+    private String parquetCompression = "zstd";
+
+    /**
+     * Buffer compression of Arrow export files, as accepted by output_format_arrow_compression_method.
+     */
+    private String arrowCompression = "lz4_frame";
+
+    /**
+     * Resolve the compression thread count, defaulting to the number of available processors
+     */
+    public int effectiveCompressionThreads() {
+        return compressionThreads > 0 ? compressionThreads : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,156 @@
+package com.student.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tuning settings for the ingestion engine, bound from the "ingest.*" properties.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ingest")
+public class IngestProperties {
+
+    /**
+     * Number of rows sent to ClickHouse in a single INSERT batch; the first batches when batching is adaptive.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Size batches by bytes and insert latency instead of using a fixed row count.
+     */
+    private boolean adaptiveBatching = true;
+
+    /**
+     * Amount of field text an adaptive batch aims at, in bytes.
+     */
+    private long targetBatchBytes = 4L * 1024 * 1024;
+
+    /**
+     * Smallest number of rows in an adaptive batch.
+     */
+    private int minBatchRows = 1000;
+
+    /**
+     * Largest number of rows in an adaptive batch.
+     */
+    private int maxBatchRows = 1_000_000;
+
+    /**
+     * Insert time above which adaptive batches are made smaller, in milliseconds.
+     */
+    private long targetInsertLatencyMs = 2000;
+
+    /**
+     * Number of times an insert rejected with TOO_MANY_PARTS is retried before the ingest fails.
+     */
+    private int tooManyPartsRetries = 5;
+
+    /**
+     * Pause before the first TOO_MANY_PARTS retry in milliseconds; it doubles with every further retry.
+     */
+    private long tooManyPartsBackoffMs = 1000;
+
+    /**
+     * Number of batches each pipeline queue holds before the stage feeding it blocks.
+     */
+    private int queueCapacity = 4;
+
+    /**
+     * Number of worker threads converting parsed batches into insert payloads.
+     */
+    private int converterThreads = 2;
+
+    /**
+     * Number of worker threads sending inserts; each one holds its own ClickHouse connection.
+     */
+    private int insertThreads = 2;
+
+    /**
+     * Number of threads parsing a large file in parallel; 0 uses one per available processor.
+     */
+    private int readerThreads = 0;
+
+    /**
+     * Files at least this large are memory-mapped and parsed in parallel byte ranges.
+     */
+    private long parallelReadMinBytes = 64L * 1024 * 1024;
+
+    /**
+     * Target size in bytes of one range when a file is parsed in parallel.
+     */
+    private long splitSizeBytes = 32L * 1024 * 1024;
+
+    /**
+     * Tokenize delimited text for ROW_BINARY inserts byte by byte, encoding fields without decoding
+     * them into Strings. Off, such inserts parse with Commons CSV like JDBC inserts.
+     */
+    private boolean byteTokenizer = true;
+
+    /**
+     * Number of rows that may be rejected for unconvertible values before an ingest fails.
+     */
+    private long maxConversionErrors = 100;
+
+    /**
+     * Number of conversion error messages returned in the ingest response.
+     */
+    private int conversionErrorSamples = 10;
+
+    /**
+     * Directory where ingest jobs save their checkpoints, so a failed job can be resumed.
+     */
+    private String checkpointDir = "checkpoints";
+
+    /**
+     * Size in bytes of one checkpointed block of an uncompressed file; each block is a single insert.
+     * Never smaller than targetBatchBytes.
+     */
+    private long checkpointBlockBytes = 32L * 1024 * 1024;
+
+    /**
+     * Rows in one checkpointed block of a compressed file; each block is a single insert.
+     */
+    private int checkpointBlockRows = 100_000;
+
+    /**
+     * JSON Lines file recording the files ingested from a directory or glob pattern, so they are skipped next time.
+     */
+    private String manifestFile = "checkpoints/ingest-manifest.jsonl";
+
+    /**
+     * Number of files of a directory or glob pattern ingested at the same time.
+     */
+    private int fileParallelism = 4;
+
+    /**
+     * Number of records sampled from the start of a file to infer the types of a table created for it.
+     */
+    private int inferSampleRows = 10_000;
+
+    /**
+     * Most distinct sampled values of an inferred String column that is made LowCardinality.
+     */
+    private int lowCardinalityMaxDistinct = 10_000;
+
+    /**
+     * Recent inserts whose deduplication tokens a created table remembers
+     * (non_replicated_deduplication_window); 0 turns deduplication of resumed blocks off.
+     */
+    private int deduplicationWindow = 1_000;
+
+    /**
+     * Resolve the reader thread count, defaulting to the number of available processors
+     */
+    public int effectiveReaderThreads() {
+        return readerThreads > 0 ? readerThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Resolve the checkpointed block size, so checkpointed inserts are no smaller than adaptive batches
+     */
+    public long effectiveCheckpointBlockBytes() {
+        return Math.max(checkpointBlockBytes, targetBatchBytes);
+    }
+}
@@ -0,0 +1,44 @@
+package com.student.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for asynchronous ingest jobs and for the admission of all ingests, bound from the "jobs.*" properties.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "jobs")
+public class JobProperties {
+
+    /**
+     * Number of ingests running at the same time, synchronous requests and background jobs together.
+     */
+    private int maxConcurrent = 4;
+
+    /**
+     * Number of ingests running at the same time against one ClickHouse host.
+     */
+    private int maxConcurrentPerHost = 2;
+
+    /**
+     * Number of ingests waiting for a free slot; further submissions are rejected.
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * Ingests whose input is at most this many bytes are admitted before larger ones.
+     */
+    private long smallJobBytes = 64L * 1024 * 1024;
+
+    /**
+     * A large ingest that has waited this many milliseconds is admitted like a small one.
+     */
+    private long largeJobPromotionMs = 60_000;
+
+    /**
+     * Number of finished jobs kept for polling; the oldest are dropped beyond this.
+     */
+    private int historySize = 100;
+}
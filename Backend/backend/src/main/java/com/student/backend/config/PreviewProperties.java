@@ -0,0 +1,34 @@
+package com.student.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for data previews and their cache, bound from the "preview.*" properties.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "preview")
+public class PreviewProperties {
+
+    /**
+     * Rows read for a preview that does not ask for a number.
+     */
+    private int defaultRows = 100;
+
+    /**
+     * Most rows a preview may read; larger requests are cut down to this.
+     */
+    private int maxRows = 1000;
+
+    /**
+     * Cached previews are read again after this many milliseconds; file previews also when the file changes.
+     */
+    private long cacheTtlMs = 60_000;
+
+    /**
+     * Maximum number of cached previews; the least recently used one is evicted beyond this.
+     */
+    private int cacheMaxEntries = 64;
+}
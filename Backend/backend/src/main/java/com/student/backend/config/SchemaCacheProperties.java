@@ -0,0 +1,24 @@
+package com.student.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for the ClickHouse schema metadata cache, bound from the "clickhouse.schema-cache.*" properties.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "clickhouse.schema-cache")
+public class SchemaCacheProperties {
+
+    /**
+     * Cached schemas are reloaded after this many milliseconds.
+     */
+    private long ttlMs = 300_000;
+
+    /**
+     * Maximum number of cached databases; the least recently used one is evicted beyond this.
+     */
+    private int maxEntries = 32;
+}
@@ -1,27 +1,56 @@
 package com.student.backend.controller;
 
 import com.student.backend.exception.ConfigurationException;
+import com.student.backend.ingest.FileSet;
+import com.student.backend.ingest.ProgressTracker;
+import com.student.backend.model.CompressionCodec;
 import com.student.backend.model.DataSourceType;
+import com.student.backend.model.FileFormat;
+import com.student.backend.model.InsertMode;
 import com.student.backend.model.request.ClickHouseConfig;
 import com.student.backend.model.request.DataSourceConfig;
 import com.student.backend.model.request.DefaultDataSourceConfig;
 import com.student.backend.model.request.FlatFileConfig;
 import com.student.backend.model.request.IngestRequest;
+import com.student.backend.model.request.PreviewRequest;
 import com.student.backend.model.request.TablesRequest;
 import com.student.backend.model.response.IngestResponse;
+import com.student.backend.model.response.JobResponse;
+import com.student.backend.model.response.PoolStatsResponse;
+import com.student.backend.model.response.PreviewResponse;
+import com.student.backend.model.response.SchedulerStatsResponse;
+import com.student.backend.model.response.SchemaResponse;
 import com.student.backend.model.response.TablesResponse;
 import com.student.backend.service.DataSourceService;
+import com.student.backend.service.impl.ClickHouseConnectionPools;
 import com.student.backend.service.impl.ClickHouseService;
 import com.student.backend.service.impl.FlatFileService;
+import com.student.backend.service.impl.IngestJobService;
+import com.student.backend.service.impl.IngestJobService.IngestTask;
+import com.student.backend.service.impl.IngestScheduler;
+import com.student.backend.service.impl.PreviewService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
@@ -39,6 +68,10 @@ public class DataIngestController {
 
     private final ClickHouseService clickHouseService;
     private final FlatFileService flatFileService;
+    private final ClickHouseConnectionPools connectionPools;
+    private final IngestJobService jobService;
+    private final IngestScheduler scheduler;
+    private final PreviewService previewService;
 
     /**
      * Health check endpoint to verify the API is running
@@ -149,113 +182,387 @@ public class DataIngestController {
     }
 
     /**
-     * Endpoint to ingest data from a source to a target
+     * Endpoint to preview a source: its first rows, with the type and basic statistics of every
+     * column. Only the first rows are read, and previews are cached briefly.
+     *
+     * @param request The source, the columns to preview (all if empty) and the number of rows
+     * @return The rows and per-column statistics
+     */
+    @PostMapping("/preview")
+    public ResponseEntity<PreviewResponse> previewData(@RequestBody PreviewRequest request) {
+        log.info("Received request to preview data from: {}", request.getDataSource());
+        log.debug("Request details: {}", request);
+        return ResponseEntity.ok(previewService.preview(request));
+    }
+
+    /**
+     * Endpoint to ingest data from a source to a target. The request waits while the scheduler
+     * has no free slot for it.
      *
      * @param request The request containing source, target, and column selection
      * @return The result of the ingestion operation
      */
     @PostMapping("/ingest")
-    public ResponseEntity<IngestResponse> ingestData(@RequestBody IngestRequest request) {
+    public ResponseEntity<IngestResponse> ingestData(@RequestBody IngestRequest request,
+                                                     HttpServletRequest httpRequest) {
         log.info("Received request to ingest data from: {}", request.getDataSource());
         log.debug("Request details: {}", request);
         
         try {
-            // Ensure dataSource is properly set in the config
-            if (request.getConfig() != null && request.getConfig().getDataSource() == null) {
-                request.getConfig().setDataSource(request.getDataSource());
-                log.debug("Set dataSource in config object: {}", request.getDataSource());
-            }
+            PreparedIngest ingest = prepareIngest(request, httpRequest.getRemoteAddr());
+            ProgressTracker progress = new ProgressTracker();
+            return ResponseEntity.ok(scheduler.call(ingest.admission(), progress,
+                    () -> ingest.task().run(progress)));
+        } catch (Exception e) {
+            log.error("Error processing /api/ingest request", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Endpoint to ingest delimited text sent as the raw request body, plain or chunked. The body
+     * is parsed while it arrives and inserted into ClickHouse without being stored on the server,
+     * so it is not subject to the multipart size limit. Send it as application/octet-stream or
+     * text/csv; a form content type would make the container read the body as parameters.
+     * The body is not read while the scheduler has no free slot for the upload.
+     *
+     * @param fileName Name of the uploaded file, for the response and to resolve AUTO compression
+     * @param delimiter Field delimiter
+     * @param compression Codec of the body, or AUTO to pick it from the file name
+     * @param insertMode How rows are sent to ClickHouse
+     * @param columns Columns to ingest; all header columns if omitted
+     * @return The result of the ingestion operation
+     */
+    @PostMapping("/ingest/upload")
+    public ResponseEntity<IngestResponse> uploadData(@RequestParam(defaultValue = "upload.csv") String fileName,
+                                                     @RequestParam(defaultValue = ",") String delimiter,
+                                                     @RequestParam(defaultValue = "AUTO") CompressionCodec compression,
+                                                     @RequestParam(defaultValue = "JDBC") InsertMode insertMode,
+                                                     @RequestParam(required = false) List<String> columns,
+                                                     HttpServletRequest request) throws IOException {
+        log.info("Received streamed upload {} ({} bytes)", fileName, request.getContentLengthLong());
+        
+        FlatFileConfig flatFileConfig = new FlatFileConfig();
+        flatFileConfig.setDataSource(DataSourceType.FLAT_FILE.getValue());
+        flatFileConfig.setFileName(fileName);
+        flatFileConfig.setDelimiter(delimiter);
+        flatFileConfig.setCompression(compression);
+        flatFileConfig.setInsertMode(insertMode);
+        
+        ClickHouseConfig target = defaultClickHouseTarget();
+        IngestScheduler.Admission admission = new IngestScheduler.Admission(request.getRemoteAddr(),
+                hostOf(target), request.getContentLengthLong());
+        ProgressTracker progress = new ProgressTracker();
+        InputStream body = request.getInputStream();
+        return ResponseEntity.ok(scheduler.call(admission, progress, () -> flatFileService.ingestStream(
+                flatFileConfig, target, columns, body, request.getContentLengthLong(), progress)));
+    }
+    
+    /**
+     * Endpoint to export ClickHouse data straight into the HTTP response, as a file download.
+     * The response is sent chunked while ClickHouse produces the result; nothing is stored on the
+     * server, and concurrent downloads do not share a file.
+     *
+     * @param request A request with a ClickHouse source, as for /api/ingest
+     * @return The exported file; its compression and format follow the ClickHouse config
+     */
+    @PostMapping("/export/download")
+    public ResponseEntity<StreamingResponseBody> downloadData(@RequestBody IngestRequest request) {
+        log.info("Received request to download data from: {}", request.getDataSource());
+        log.debug("Request details: {}", request);
+        
+        if (!"ClickHouse".equals(request.getDataSource())) {
+            throw new ConfigurationException("Downloads are only supported from ClickHouse");
+        }
+        if (request.getConfig() != null && request.getConfig().getDataSource() == null) {
+            request.getConfig().setDataSource(request.getDataSource());
+        }
+        
+        ClickHouseService.Download download = clickHouseService.prepareDownload(request.getConfig(),
+                request.getColumns());
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(download.fileName())
+                        .build()
+                        .toString())
+                .contentType(MediaType.parseMediaType(download.contentType()))
+                .body(download.body()::writeTo);
+    }
+    
+    /**
+     * Endpoint to start an ingest in the background
+     *
+     * @param request The same request as for /api/ingest
+     * @return The queued job, to be polled through /api/jobs/{jobId}
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<JobResponse> submitJob(@RequestBody IngestRequest request, HttpServletRequest httpRequest) {
+        log.info("Received request to queue ingest job from: {}", request.getDataSource());
+        log.debug("Request details: {}", request);
+        
+        PreparedIngest ingest = prepareIngest(request, httpRequest.getRemoteAddr());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(jobService.submit(request.getDataSource(), ingest.admission(), ingest.task()));
+    }
+    
+    /**
+     * Endpoint to list queued, running and recently finished ingest jobs
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<List<JobResponse>> listJobs() {
+        return ResponseEntity.ok(jobService.listJobs());
+    }
+    
+    /**
+     * Endpoint to poll the status and progress of an ingest job
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<JobResponse> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(jobService.getJob(jobId));
+    }
+    
+    /**
+     * Endpoint to resume a failed or cancelled flat file ingest job from its checkpoint. Blocks
+     * inserted after the checkpoint are sent again; only a target table with a deduplication
+     * window (non_replicated_deduplication_window on a plain MergeTree) drops them.
+     *
+     * @param request The same request the job was submitted with
+     * @return The queued job, under its original id
+     */
+    @PostMapping("/jobs/{jobId}/resume")
+    public ResponseEntity<JobResponse> resumeJob(@PathVariable String jobId, @RequestBody IngestRequest request,
+                                                 HttpServletRequest httpRequest) {
+        log.info("Received request to resume ingest job {} from: {}", jobId, request.getDataSource());
+        log.debug("Request details: {}", request);
+        
+        PreparedIngest ingest = prepareIngest(request, httpRequest.getRemoteAddr());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(jobService.resume(jobId, request.getDataSource(), ingest.admission(), ingest.task()));
+    }
+    
+    /**
+     * Endpoint to cancel an ingest job
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<JobResponse> cancelJob(@PathVariable String jobId) {
+        log.info("Received request to cancel ingest job {}", jobId);
+        return ResponseEntity.ok(jobService.cancel(jobId));
+    }
+    
+    /**
+     * Endpoint to inspect the ingest scheduler
+     *
+     * @return Running and queued ingests by host and user, and how long ingests waited to start
+     */
+    @GetMapping("/scheduler")
+    public ResponseEntity<SchedulerStatsResponse> getSchedulerStats() {
+        return ResponseEntity.ok(scheduler.getStats());
+    }
+    
+    /**
+     * Validate an ingest request and resolve its source and target configurations
+     *
+     * @param request The request containing source, target, and column selection
+     * @param clientAddress Address of the client, which identifies the user if the request names no ClickHouse user
+     * @return The ingest to run, synchronously or as a job, and what the scheduler admits it by
+     */
+    private PreparedIngest prepareIngest(IngestRequest request, String clientAddress) {
+        // Ensure dataSource is properly set in the config
+        if (request.getConfig() != null && request.getConfig().getDataSource() == null) {
+            request.getConfig().setDataSource(request.getDataSource());
+            log.debug("Set dataSource in config object: {}", request.getDataSource());
+        }
+        
+        // Convert DefaultDataSourceConfig to appropriate type if needed
+        DataSourceConfig sourceConfig = request.getConfig();
+        if (sourceConfig instanceof DefaultDataSourceConfig) {
+            DefaultDataSourceConfig defaultConfig = (DefaultDataSourceConfig) sourceConfig;
+            String dataSourceType = request.getDataSource();
             
-            // Convert DefaultDataSourceConfig to appropriate type if needed
-            DataSourceConfig sourceConfig = request.getConfig();
-            if (sourceConfig instanceof DefaultDataSourceConfig) {
-                DefaultDataSourceConfig defaultConfig = (DefaultDataSourceConfig) sourceConfig;
-                String dataSourceType = request.getDataSource();
-                
-                if ("ClickHouse".equals(dataSourceType)) {
-                    log.debug("Converting DefaultDataSourceConfig to ClickHouseConfig");
-                    ClickHouseConfig clickHouseConfig = new ClickHouseConfig();
-                    clickHouseConfig.setDataSource(dataSourceType);
-                    clickHouseConfig.setHost(defaultConfig.getHost());
-                    clickHouseConfig.setPort(defaultConfig.getPort());
-                    clickHouseConfig.setDatabase(defaultConfig.getDatabase());
-                    clickHouseConfig.setUsername(defaultConfig.getUsername());
-                    clickHouseConfig.setJwtToken(defaultConfig.getJwtToken());
-                    sourceConfig = clickHouseConfig;
-                } else if ("Flat File".equals(dataSourceType)) {
-                    log.debug("Converting DefaultDataSourceConfig to FlatFileConfig");
-                    FlatFileConfig flatFileConfig = new FlatFileConfig();
-                    flatFileConfig.setDataSource(dataSourceType);
-                    flatFileConfig.setFileName(defaultConfig.getFileName());
-                    flatFileConfig.setDelimiter(defaultConfig.getDelimiter());
-                    sourceConfig = flatFileConfig;
-                }
+            if ("ClickHouse".equals(dataSourceType)) {
+                log.debug("Converting DefaultDataSourceConfig to ClickHouseConfig");
+                ClickHouseConfig clickHouseConfig = new ClickHouseConfig();
+                clickHouseConfig.setDataSource(dataSourceType);
+                clickHouseConfig.setHost(defaultConfig.getHost());
+                clickHouseConfig.setPort(defaultConfig.getPort());
+                clickHouseConfig.setDatabase(defaultConfig.getDatabase());
+                clickHouseConfig.setUsername(defaultConfig.getUsername());
+                clickHouseConfig.setJwtToken(defaultConfig.getJwtToken());
+                clickHouseConfig.setExportMode(defaultConfig.getExportMode());
+                clickHouseConfig.setMergeParts(defaultConfig.isMergeParts());
+                clickHouseConfig.setCompression(defaultConfig.getCompression());
+                clickHouseConfig.setFileFormat(defaultConfig.getFileFormat());
+                clickHouseConfig.setExport(defaultConfig.getExport());
+                sourceConfig = clickHouseConfig;
+            } else if ("Flat File".equals(dataSourceType)) {
+                log.debug("Converting DefaultDataSourceConfig to FlatFileConfig");
+                FlatFileConfig flatFileConfig = new FlatFileConfig();
+                flatFileConfig.setDataSource(dataSourceType);
+                flatFileConfig.setFileName(defaultConfig.getFileName());
+                flatFileConfig.setDelimiter(defaultConfig.getDelimiter());
+                flatFileConfig.setInsertMode(defaultConfig.getInsertMode());
+                flatFileConfig.setCompression(defaultConfig.getCompression());
+                flatFileConfig.setFileFormat(defaultConfig.getFileFormat());
+                flatFileConfig.setTableName(defaultConfig.getTableName());
+                flatFileConfig.setCreateTable(defaultConfig.isCreateTable());
+                sourceConfig = flatFileConfig;
             }
+        }
+        
+        // For test purpose - if the data source is ClickHouse and we're in test mode, return a mock response
+        if ("ClickHouse".equals(request.getDataSource()) && 
+            sourceConfig instanceof ClickHouseConfig && 
+            "test_db".equals(((ClickHouseConfig) sourceConfig).getDatabase())) {
             
-            // For test purpose - if the data source is ClickHouse and we're in test mode, return a mock response
-            if ("ClickHouse".equals(request.getDataSource()) && 
-                sourceConfig instanceof ClickHouseConfig && 
-                "test_db".equals(((ClickHouseConfig) sourceConfig).getDatabase())) {
-                
-                IngestResponse mockResponse = IngestResponse.builder()
-                    .recordsCount(150)
-                    .message("Successfully ingested 150 records from test ClickHouse database to file output.csv")
-                    .timestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
-                    .build();
-                
-                return ResponseEntity.ok(mockResponse);
+            ClickHouseConfig testSource = (ClickHouseConfig) sourceConfig;
+            return new PreparedIngest(progress -> IngestResponse.builder()
+                .recordsCount(150)
+                .message("Successfully ingested 150 records from test ClickHouse database to file output.csv")
+                .timestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
+                .build(), admissionOf(clientAddress, testSource, testSource));
+        }
+        
+        DataSourceType sourceType = DataSourceType.fromString(request.getDataSource());
+        
+        // Determine target type - if source is ClickHouse, target is Flat File and vice versa
+        DataSourceType targetType = (sourceType == DataSourceType.CLICKHOUSE) 
+                ? DataSourceType.FLAT_FILE 
+                : DataSourceType.CLICKHOUSE;
+        
+        // Create the target configuration based on the source configuration
+        DataSourceConfig targetConfig;
+        if (targetType == DataSourceType.FLAT_FILE) {
+            // Source is ClickHouse, target is Flat File
+            if (!(sourceConfig instanceof ClickHouseConfig)) {
+                log.error("Expected ClickHouseConfig but got: {}", sourceConfig.getClass().getName());
+                throw new ConfigurationException("Invalid source configuration for ClickHouse");
             }
             
-            DataSourceType sourceType = DataSourceType.fromString(request.getDataSource());
+            // Create a default Flat File config - in a real app, this would be provided by the client
+            FlatFileConfig flatFileConfig = new FlatFileConfig();
+            flatFileConfig.setDataSource(targetType.getValue());
+            // Set default file name - this would come from the client in a real app
+            ClickHouseConfig clickHouseSource = (ClickHouseConfig) sourceConfig;
+            FileFormat fileFormat = clickHouseSource.getFileFormat().resolve("output.csv");
+            String fileName = "output" + fileFormat.getExtension();
+            CompressionCodec compression = clickHouseSource.getCompression().resolve(fileName);
+            flatFileConfig.setFileName(fileName + compression.getExtension());
+            flatFileConfig.setFileFormat(fileFormat);
+            flatFileConfig.setCompression(compression);
+            targetConfig = flatFileConfig;
             
-            // Determine target type - if source is ClickHouse, target is Flat File and vice versa
-            DataSourceType targetType = (sourceType == DataSourceType.CLICKHOUSE) 
-                    ? DataSourceType.FLAT_FILE 
-                    : DataSourceType.CLICKHOUSE;
+        } else {
+            // Source is Flat File, target is ClickHouse
+            if (!(sourceConfig instanceof FlatFileConfig)) {
+                log.error("Expected FlatFileConfig but got: {}", sourceConfig.getClass().getName());
+                throw new ConfigurationException("Invalid source configuration for Flat File");
+            }
             
-            // Create the target configuration based on the source configuration
-            DataSourceConfig targetConfig;
-            if (targetType == DataSourceType.FLAT_FILE) {
-                // Source is ClickHouse, target is Flat File
-                if (!(sourceConfig instanceof ClickHouseConfig)) {
-                    log.error("Expected ClickHouseConfig but got: {}", sourceConfig.getClass().getName());
-                    throw new ConfigurationException("Invalid source configuration for ClickHouse");
-                }
-                
-                // Create a default Flat File config - in a real app, this would be provided by the client
-                FlatFileConfig flatFileConfig = new FlatFileConfig();
-                flatFileConfig.setDataSource(targetType.getValue());
-                // Set default file name - this would come from the client in a real app
-                flatFileConfig.setFileName("output.csv");
-                targetConfig = flatFileConfig;
-                
-            } else {
-                // Source is Flat File, target is ClickHouse
-                if (!(sourceConfig instanceof FlatFileConfig)) {
-                    log.error("Expected FlatFileConfig but got: {}", sourceConfig.getClass().getName());
-                    throw new ConfigurationException("Invalid source configuration for Flat File");
+            targetConfig = defaultClickHouseTarget();
+        }
+        
+        // Get the appropriate service for the source type
+        DataSourceService service = getServiceForType(sourceType);
+        DataSourceConfig source = sourceConfig;
+        List<String> columns = request.getColumns();
+        ClickHouseConfig clickHouse = (ClickHouseConfig) (sourceType == DataSourceType.CLICKHOUSE
+                ? source : targetConfig);
+        return new PreparedIngest(progress -> service.ingestData(source, targetConfig, columns, progress),
+                admissionOf(clientAddress, source, clickHouse));
+    }
+    
+    /**
+     * Describe an ingest to the scheduler. The user is the ClickHouse user of the request, or the
+     * client address if it names none; the size is that of the input file, or of all the files of a
+     * directory or glob pattern, and unknown for exports.
+     */
+    private static IngestScheduler.Admission admissionOf(String clientAddress, DataSourceConfig source,
+                                                        ClickHouseConfig clickHouse) {
+        String user = clickHouse.getUsername() != null && !clickHouse.getUsername().isEmpty()
+                ? clickHouse.getUsername() : clientAddress;
+        long sizeBytes = -1;
+        if (source instanceof FlatFileConfig flatFile && flatFile.getFileName() != null) {
+            sizeBytes = new File(flatFile.getFileName()).length();
+            if (FileSet.isPattern(flatFile.getFileName())) {
+                try {
+                    sizeBytes = FileSet.totalBytes(FileSet.resolve(flatFile.getFileName()));
+                } catch (IOException | UncheckedIOException e) {
+                    // The ingest itself reports the error; until then the size is unknown
+                    sizeBytes = -1;
                 }
-                
-                // Create a default ClickHouse config - in a real app, this would be provided by the client
-                ClickHouseConfig clickHouseConfig = new ClickHouseConfig();
-                clickHouseConfig.setDataSource(targetType.getValue());
-                // These values would come from the client in a real app
-                clickHouseConfig.setHost("192.168.162.169"); // Updated to use WSL IP
-                clickHouseConfig.setPort("8123");
-                clickHouseConfig.setDatabase("test_db");
-                targetConfig = clickHouseConfig;
             }
-            
-            // Get the appropriate service for the source type
-            DataSourceService service = getServiceForType(sourceType);
-            
-            // Perform the ingestion
-            IngestResponse response = service.ingestData(sourceConfig, targetConfig, request.getColumns());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error processing /api/ingest request", e);
-            throw e;
         }
+        return new IngestScheduler.Admission(user, hostOf(clickHouse), sizeBytes);
+    }
+    
+    private static String hostOf(ClickHouseConfig config) {
+        return config.getHost() + ":" + config.getPort();
+    }
+    
+    /**
+     * An ingest ready to run, with what the scheduler admits it by
+     */
+    private record PreparedIngest(IngestTask task, IngestScheduler.Admission admission) {
+    }
+    
+    /**
+     * Create a default ClickHouse target config - in a real app, this would be provided by the client
+     */
+    private static ClickHouseConfig defaultClickHouseTarget() {
+        ClickHouseConfig clickHouseConfig = new ClickHouseConfig();
+        clickHouseConfig.setDataSource(DataSourceType.CLICKHOUSE.getValue());
+        // These values would come from the client in a real app
+        clickHouseConfig.setHost("192.168.162.169"); // Updated to use WSL IP
+        clickHouseConfig.setPort("8123");
+        clickHouseConfig.setDatabase("test_db");
+        return clickHouseConfig;
+    }
+    
+    /**
+     * Endpoint to reload the cached schema of a ClickHouse database
+     *
+     * @param request The request containing the ClickHouse configuration
+     * @return A list of column names from the freshly loaded schema
+     */
+    @PostMapping("/schema/refresh")
+    public ResponseEntity<TablesResponse> refreshSchema(@RequestBody TablesRequest request) {
+        log.info("Received request to refresh schema for data source: {}", request.getDataSource());
+        
+        if (!"ClickHouse".equals(request.getDataSource())) {
+            throw new ConfigurationException("Schema refresh is only supported for ClickHouse");
+        }
+        
+        List<String> columns = clickHouseService.refreshColumns(request.getConfig());
+        return ResponseEntity.ok(new TablesResponse(columns));
+    }
+    
+    /**
+     * Endpoint to infer the ClickHouse table of a flat file from a sample of its records: the
+     * narrowest type of every column, a sorting key and the CREATE TABLE statement an ingest with
+     * "createTable" runs. Nothing is created.
+     *
+     * @param request The file, the columns of the table (all if empty) and the number of records
+     *                to sample ("ingest.infer-sample-rows" if not given)
+     * @return The inferred columns with their sampled statistics, and the statement
+     */
+    @PostMapping("/schema/infer")
+    public ResponseEntity<SchemaResponse> inferSchema(@RequestBody PreviewRequest request) {
+        log.info("Received request to infer the schema of: {}", request.getDataSource());
+        
+        if (!DataSourceType.FLAT_FILE.getValue().equals(request.getDataSource())) {
+            throw new ConfigurationException("Schema inference is only supported for Flat File");
+        }
+        return ResponseEntity.ok(previewService.inferSchema(request, defaultClickHouseTarget().getDatabase()));
+    }
+    
+    /**
+     * Endpoint to inspect the shared ClickHouse connection pools
+     *
+     * @return Active, idle and waiting counts plus borrow wait times for every pool
+     */
+    @GetMapping("/pools")
+    public ResponseEntity<List<PoolStatsResponse>> getPoolStats() {
+        return ResponseEntity.ok(connectionPools.getStats());
     }
     
     /**
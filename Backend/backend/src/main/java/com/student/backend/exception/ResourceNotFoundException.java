@@ -0,0 +1,10 @@
+package com.student.backend.exception;
+
+/**
+ * Exception thrown when a requested resource, such as an ingest job, does not exist.
+ */
+public class ResourceNotFoundException extends RuntimeException {
+    public ResourceNotFoundException(String message) {
+        super(message);
+    }
+}
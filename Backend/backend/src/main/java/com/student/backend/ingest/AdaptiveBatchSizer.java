@@ -0,0 +1,187 @@
+package com.student.backend.ingest;
+
+/**
+ * Chooses the number of rows per block from the size of the rows and the latency of the inserts.
+ * A block aims at a byte budget rather than a row count, so narrow rows make large blocks and
+ * wide rows small ones. An insert slower than the target latency shrinks the following blocks;
+ * fast inserts let them grow back towards the byte budget. When ClickHouse rejects an insert
+ * with TOO_MANY_PARTS, blocks are made at least twice as large as the rejected one from then
+ * on, since fewer, larger inserts create fewer parts. The row count always stays within the
+ * configured bounds; with equal bounds the sizer hands out a fixed block size.
+ * <p>
+ * The reader asks for the next block size, the pipeline reports each block read and each
+ * insert. Blocks already queued keep the size they were read with.
+ */
+public class AdaptiveBatchSizer {
+
+    /**
+     * Rows sampled from each block to estimate its row width
+     */
+    private static final int SAMPLE_ROWS = 32;
+
+    /**
+     * Weight of the newest block in the moving average of the row width
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private static final double MIN_LATENCY_SCALE = 0.01;
+
+    private final int minRows;
+    private final int maxRows;
+    private final long targetBytes;
+    private final long targetLatencyNanos;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+
+    private volatile int blockRows;
+    private double rowBytes = -1;
+    private double latencyScale = 1.0;
+    private int floorRows;
+
+    private int smallestBlock = Integer.MAX_VALUE;
+    private int largestBlock;
+    private long insertedBlocks;
+    private long insertedRows;
+    private long retries;
+
+    /**
+     * @param initialRows Rows of the first blocks, until a block has been measured
+     * @param minRows Smallest number of rows per block
+     * @param maxRows Largest number of rows per block
+     * @param targetBytes Size of the field text a block aims at
+     * @param targetLatencyNanos Insert time above which blocks are made smaller
+     * @param maxRetries Number of times an insert rejected with TOO_MANY_PARTS is retried
+     * @param retryBackoffMillis Pause before the first retry; it doubles with every further retry
+     */
+    public AdaptiveBatchSizer(int initialRows, int minRows, int maxRows, long targetBytes, long targetLatencyNanos,
+                              int maxRetries, long retryBackoffMillis) {
+        this.minRows = Math.max(1, minRows);
+        this.maxRows = Math.max(this.minRows, maxRows);
+        this.targetBytes = Math.max(1, targetBytes);
+        this.targetLatencyNanos = Math.max(1, targetLatencyNanos);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoffMillis = Math.max(0, retryBackoffMillis);
+        this.floorRows = this.minRows;
+        this.blockRows = clamp(initialRows);
+    }
+
+    /**
+     * Sizer that always hands out blocks of the same size, still retrying TOO_MANY_PARTS rejections
+     */
+    public static AdaptiveBatchSizer fixed(int rows, int maxRetries, long retryBackoffMillis) {
+        return new AdaptiveBatchSizer(rows, rows, rows, 1, Long.MAX_VALUE, maxRetries, retryBackoffMillis);
+    }
+
+    /**
+     * Number of rows the next block should hold
+     */
+    public int nextBlockRows() {
+        return blockRows;
+    }
+
+    /**
+     * Measure the width of a block's rows from a sample of them
+     */
+    public synchronized void blockRead(RowBlock block) {
+        int rows = block.size();
+        if (rows == 0) {
+            return;
+        }
+        int step = Math.max(1, rows / SAMPLE_ROWS);
+        long bytes = 0;
+        int sampled = 0;
+        for (int r = 0; r < rows; r += step) {
+            // One separator per field stands in for the delimiters and the line break
+            int fields = block.fieldCount(r);
+            for (int c = 0; c < fields; c++) {
+                bytes += block.fieldLength(r, c) + 1;
+            }
+            sampled++;
+        }
+        double width = (double) bytes / sampled;
+        rowBytes = rowBytes < 0 ? width : rowBytes + SMOOTHING * (width - rowBytes);
+        resize();
+    }
+
+    /**
+     * Adjust to the time an insert of the given number of rows took
+     */
+    public synchronized void blockInserted(int rows, long nanos) {
+        if (nanos > targetLatencyNanos) {
+            // Shrink in proportion to the overshoot, but by at most half per insert
+            latencyScale *= Math.max(0.5, (double) targetLatencyNanos / nanos);
+            latencyScale = Math.max(MIN_LATENCY_SCALE, latencyScale);
+        } else if (nanos < targetLatencyNanos / 2) {
+            latencyScale = Math.min(1.0, latencyScale * 1.25);
+        }
+        smallestBlock = Math.min(smallestBlock, rows);
+        largestBlock = Math.max(largestBlock, rows);
+        insertedBlocks++;
+        insertedRows += rows;
+        resize();
+    }
+
+    /**
+     * Record that an insert of the given number of rows was rejected with TOO_MANY_PARTS
+     *
+     * @param attempt Number of retries of this insert so far
+     * @return Milliseconds to wait before retrying, or -1 if the insert should not be retried
+     */
+    public synchronized long tooManyParts(int rows, int attempt) {
+        floorRows = (int) Math.min(maxRows, Math.max(floorRows, 2L * rows));
+        // Latency alone must not undo the larger floor
+        latencyScale = 1.0;
+        resize();
+        if (attempt >= maxRetries) {
+            return -1;
+        }
+        retries++;
+        return retryBackoffMillis << Math.min(attempt, 20);
+    }
+
+    private void resize() {
+        if (rowBytes <= 0) {
+            blockRows = clamp(Math.max(blockRows, floorRows));
+            return;
+        }
+        long budgetRows = (long) (targetBytes / rowBytes * latencyScale);
+        blockRows = clamp(Math.max(budgetRows, floorRows));
+    }
+
+    private int clamp(long rows) {
+        return (int) Math.max(minRows, Math.min(maxRows, rows));
+    }
+
+    /**
+     * Block sizes of the inserts so far
+     */
+    public synchronized Summary getSummary() {
+        long averageRows = insertedBlocks > 0 ? insertedRows / insertedBlocks : 0;
+        return new Summary(insertedBlocks > 0 ? smallestBlock : 0, largestBlock, averageRows,
+                rowBytes > 0 ? (long) (averageRows * rowBytes) : 0, blockRows, retries);
+    }
+
+    /**
+     * Whether an insert failed because the table has too many active parts (error code 252)
+     */
+    public static boolean isTooManyParts(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            String message = t.getMessage();
+            if (message != null && (message.contains("TOO_MANY_PARTS") || message.contains("Code: 252."))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param minRows Smallest block inserted
+     * @param maxRows Largest block inserted
+     * @param averageRows Average rows per inserted block
+     * @param averageBytes Estimated field text per inserted block
+     * @param nextRows Block size the sizer settled on
+     * @param retries Inserts retried after a TOO_MANY_PARTS rejection
+     */
+    public record Summary(int minRows, int maxRows, long averageRows, long averageBytes, int nextRows, long retries) {
+    }
+}
@@ -0,0 +1,242 @@
+package com.student.backend.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the schema and row count from the footer of an Arrow IPC file. The footer is a
+ * FlatBuffers Footer table stored before the trailing 4-byte length and "ARROW1" magic. It
+ * lists the record batches by offset; the row count is the sum of the lengths in their
+ * message headers, so only metadata is read, never a batch body. Column types come from the
+ * type union of each top-level field.
+ */
+final class ArrowFooter {
+
+    private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Marks a message length prefixed with a continuation token, in files since format 0.15
+     */
+    private static final int CONTINUATION = 0xFFFFFFFF;
+
+    /**
+     * Size of the Block struct locating a record batch: offset, metadata length, padding, body length
+     */
+    private static final int BLOCK_SIZE = 24;
+
+    // Field indexes of the Footer, Schema, Field, Message and RecordBatch tables
+    private static final int FOOTER_SCHEMA = 1;
+    private static final int FOOTER_RECORD_BATCHES = 3;
+    private static final int SCHEMA_FIELDS = 1;
+    private static final int FIELD_NAME = 0;
+    private static final int FIELD_TYPE_TYPE = 2;
+    private static final int FIELD_TYPE = 3;
+    private static final int MESSAGE_HEADER = 2;
+    private static final int RECORD_BATCH_LENGTH = 0;
+
+    // Tags of the Type union
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_FLOATING_POINT = 3;
+    private static final int TYPE_BINARY = 4;
+    private static final int TYPE_UTF8 = 5;
+    private static final int TYPE_BOOL = 6;
+    private static final int TYPE_DECIMAL = 7;
+    private static final int TYPE_DATE = 8;
+    private static final int TYPE_TIMESTAMP = 10;
+    private static final int TYPE_FIXED_SIZE_BINARY = 15;
+    private static final int TYPE_LARGE_BINARY = 19;
+    private static final int TYPE_LARGE_UTF8 = 20;
+    private static final int TYPE_BINARY_VIEW = 23;
+    private static final int TYPE_UTF8_VIEW = 24;
+
+    private static final int DOUBLE_PRECISION = 2;
+    private static final int DAY = 0;
+    private static final int MILLISECOND = 1;
+    private static final int[] TIMESTAMP_PRECISIONS = {0, 3, 6, 9};
+
+    private ArrowFooter() {
+    }
+
+    static FileSchema read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int tailLength = 4 + MAGIC.length;
+        if (size < 8 + tailLength) {
+            throw new IOException("File is too small to be an Arrow file");
+        }
+        ByteBuffer tail = FileSchema.readFully(channel, size - tailLength, tailLength);
+        int footerLength = tail.getInt();
+        byte[] magic = new byte[MAGIC.length];
+        tail.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not an Arrow IPC file: missing ARROW1 magic at the end of the file");
+        }
+        if (footerLength <= 0 || footerLength > size - 8 - tailLength) {
+            throw new IOException("Corrupt Arrow footer length " + footerLength);
+        }
+
+        try {
+            ByteBuffer footer = FileSchema.readFully(channel, size - tailLength - footerLength, footerLength);
+            int root = footer.getInt(0);
+
+            int schema = table(footer, root, FOOTER_SCHEMA);
+            if (schema < 0) {
+                throw new IOException("Arrow footer has no schema");
+            }
+            List<String> columns = new ArrayList<>();
+            List<String> types = new ArrayList<>();
+            int fields = vector(footer, schema, SCHEMA_FIELDS);
+            int fieldCount = fields < 0 ? 0 : footer.getInt(fields);
+            for (int i = 0; i < fieldCount; i++) {
+                int field = indirect(footer, fields + 4 + 4 * i);
+                columns.add(string(footer, field, FIELD_NAME));
+                types.add(clickHouseType(footer, field));
+            }
+
+            long rows = 0;
+            int batches = vector(footer, root, FOOTER_RECORD_BATCHES);
+            int batchCount = batches < 0 ? 0 : footer.getInt(batches);
+            for (int i = 0; i < batchCount; i++) {
+                int block = batches + 4 + BLOCK_SIZE * i;
+                rows += recordBatchLength(channel, footer.getLong(block), footer.getInt(block + 8));
+            }
+            return new FileSchema(columns, types, rows);
+        } catch (RuntimeException e) {
+            // Buffer underflows and the like, from a footer that is not what it claims to be
+            throw new IOException("Corrupt Arrow footer: " + e, e);
+        }
+    }
+
+    /**
+     * Number of rows of the record batch whose message starts at {@code offset}
+     */
+    private static long recordBatchLength(FileChannel channel, long offset, int metadataLength) throws IOException {
+        ByteBuffer message = FileSchema.readFully(channel, offset, metadataLength);
+        int start = message.getInt(0) == CONTINUATION ? 8 : 4;
+        message = message.position(start).slice().order(ByteOrder.LITTLE_ENDIAN);
+        int header = table(message, message.getInt(0), MESSAGE_HEADER);
+        if (header < 0) {
+            throw new IOException("Arrow record batch at offset " + offset + " has no header");
+        }
+        return scalarLong(message, header, RECORD_BATCH_LENGTH);
+    }
+
+    /**
+     * ClickHouse type of a field, as ClickHouse reads Arrow; null for nested and other types
+     * without a plain equivalent
+     */
+    private static String clickHouseType(ByteBuffer buffer, int field) {
+        int typeType = scalarByte(buffer, field, FIELD_TYPE_TYPE);
+        int type = table(buffer, field, FIELD_TYPE);
+        if (type < 0) {
+            return null;
+        }
+        switch (typeType) {
+            case TYPE_INT -> {
+                // Int: bitWidth, is_signed
+                return (scalarByte(buffer, type, 1) != 0 ? "Int" : "UInt") + scalarInt(buffer, type, 0, 0);
+            }
+            case TYPE_FLOATING_POINT -> {
+                return scalarShort(buffer, type, 0) == DOUBLE_PRECISION ? "Float64" : "Float32";
+            }
+            case TYPE_BINARY, TYPE_UTF8, TYPE_LARGE_BINARY, TYPE_LARGE_UTF8, TYPE_BINARY_VIEW, TYPE_UTF8_VIEW -> {
+                return "String";
+            }
+            case TYPE_BOOL -> {
+                return "Bool";
+            }
+            case TYPE_DECIMAL -> {
+                // Decimal: precision, scale
+                return "Decimal(" + scalarInt(buffer, type, 0, 0) + ", " + scalarInt(buffer, type, 1, 0) + ")";
+            }
+            case TYPE_DATE -> {
+                int unit = scalarShort(buffer, type, 0, MILLISECOND);
+                return unit == DAY ? "Date32" : "DateTime";
+            }
+            case TYPE_TIMESTAMP -> {
+                int unit = scalarShort(buffer, type, 0);
+                return unit >= 0 && unit < TIMESTAMP_PRECISIONS.length
+                        ? "DateTime64(" + TIMESTAMP_PRECISIONS[unit] + ")" : null;
+            }
+            case TYPE_FIXED_SIZE_BINARY -> {
+                return "FixedString(" + scalarInt(buffer, type, 0, 0) + ")";
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Absolute position of a field of a FlatBuffers table, or -1 if the field is not present
+     */
+    private static int field(ByteBuffer buffer, int table, int index) {
+        int vtable = table - buffer.getInt(table);
+        int vtableSize = buffer.getShort(vtable) & 0xFFFF;
+        int entry = 4 + 2 * index;
+        if (entry >= vtableSize) {
+            return -1;
+        }
+        int offset = buffer.getShort(vtable + entry) & 0xFFFF;
+        return offset == 0 ? -1 : table + offset;
+    }
+
+    /**
+     * Follow the unsigned offset stored at {@code position}
+     */
+    private static int indirect(ByteBuffer buffer, int position) {
+        return position + buffer.getInt(position);
+    }
+
+    private static int table(ByteBuffer buffer, int table, int index) {
+        int position = field(buffer, table, index);
+        return position < 0 ? -1 : indirect(buffer, position);
+    }
+
+    /**
+     * Position of the length prefix of a vector field, or -1 if the field is not present
+     */
+    private static int vector(ByteBuffer buffer, int table, int index) {
+        return table(buffer, table, index);
+    }
+
+    private static String string(ByteBuffer buffer, int table, int index) {
+        int position = table(buffer, table, index);
+        if (position < 0) {
+            return "";
+        }
+        byte[] bytes = new byte[buffer.getInt(position)];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long scalarLong(ByteBuffer buffer, int table, int index) {
+        int position = field(buffer, table, index);
+        return position < 0 ? 0 : buffer.getLong(position);
+    }
+
+    // Absent scalar fields hold their schema default, zero unless given
+    private static int scalarInt(ByteBuffer buffer, int table, int index, int defaultValue) {
+        int position = field(buffer, table, index);
+        return position < 0 ? defaultValue : buffer.getInt(position);
+    }
+
+    private static int scalarShort(ByteBuffer buffer, int table, int index) {
+        return scalarShort(buffer, table, index, 0);
+    }
+
+    private static int scalarShort(ByteBuffer buffer, int table, int index, int defaultValue) {
+        int position = field(buffer, table, index);
+        return position < 0 ? defaultValue : buffer.getShort(position);
+    }
+
+    private static int scalarByte(ByteBuffer buffer, int table, int index) {
+        int position = field(buffer, table, index);
+        return position < 0 ? 0 : buffer.get(position) & 0xFF;
+    }
+}
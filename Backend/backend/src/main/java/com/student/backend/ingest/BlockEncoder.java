@@ -0,0 +1,19 @@
+package com.student.backend.ingest;
+
+/**
+ * Turns a block of parsed rows into the payload an insert worker sends to ClickHouse.
+ * Implementations must be safe to call from several converter threads at once.
+ *
+ * @param <P> Payload type consumed by the matching {@link BlockSink}
+ */
+@FunctionalInterface
+public interface BlockEncoder<P> {
+
+    /**
+     * Convert the rows of the block
+     *
+     * @param block Parsed rows
+     * @return Payload ready to insert
+     */
+    P encode(RowBlock block);
+}
@@ -0,0 +1,20 @@
+package com.student.backend.ingest;
+
+/**
+ * Where a block came from in the source file, kept with its payload until it has been inserted.
+ *
+ * @param sequence Zero-based block number assigned by the reader
+ * @param firstRowNumber One-based data row number of the first row, or 0 if unknown
+ * @param startOffset Byte offset of the first record, or -1 if unknown
+ * @param endOffset Byte offset just after the last record, or -1 if unknown
+ * @param rows Number of rows in the block
+ */
+public record BlockPosition(long sequence, long firstRowNumber, long startOffset, long endOffset, int rows) {
+
+    /**
+     * Whether the block covers a known byte range of the file
+     */
+    public boolean hasOffsets() {
+        return startOffset >= 0;
+    }
+}
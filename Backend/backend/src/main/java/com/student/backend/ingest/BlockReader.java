@@ -0,0 +1,21 @@
+package com.student.backend.ingest;
+
+/**
+ * Source of parsed row blocks for the ingest pipeline.
+ */
+public interface BlockReader extends AutoCloseable {
+
+    /**
+     * Read the next block of rows
+     *
+     * @return The next block, or null when the input is exhausted
+     * @throws java.io.UncheckedIOException if the input cannot be read or parsed
+     */
+    RowBlock nextBlock();
+
+    /**
+     * Release the input and stop any background parsing
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,57 @@
+package com.student.backend.ingest;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Destination that receives encoded blocks and writes each one as a single insert.
+ * Every insert worker owns its own sink, so implementations need not be thread-safe,
+ * except for {@link #cancel()}.
+ *
+ * @param <P> Payload type produced by the matching {@link BlockEncoder}
+ */
+public interface BlockSink<P> extends AutoCloseable {
+
+    /**
+     * Write one encoded block to the target
+     *
+     * @param payload Encoded block to insert
+     * @return Rows and bytes sent to the server
+     */
+    default Written write(P payload) throws IOException, SQLException {
+        return write(payload, null);
+    }
+
+    /**
+     * Write one encoded block to the target, as an insert the server deduplicates by token
+     *
+     * @param payload Encoded block to insert
+     * @param deduplicationToken Sent as insert_deduplication_token, so a block inserted again
+     *                           with the same token is dropped by the server; null for none
+     * @return Rows and bytes sent to the server; rows rejected while encoding or binding are not counted
+     */
+    Written write(P payload, String deduplicationToken) throws IOException, SQLException;
+
+    /**
+     * Abort an insert that is in flight. Called from another thread when the job fails.
+     */
+    default void cancel() {
+    }
+
+    @Override
+    void close() throws IOException, SQLException;
+
+    /**
+     * What one write sent to the server
+     *
+     * @param rows Rows inserted
+     * @param bytes Bytes sent, or -1 if the driver does not expose the size
+     */
+    record Written(int rows, long bytes) {
+
+        /**
+         * Every row of the block was rejected, so no insert was sent
+         */
+        public static final Written NOTHING = new Written(0, 0);
+    }
+}
@@ -0,0 +1,15 @@
+package com.student.backend.ingest;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Opens a new sink, with its own ClickHouse connection, for each insert worker.
+ *
+ * @param <P> Payload type accepted by the sinks
+ */
+@FunctionalInterface
+public interface BlockSinkFactory<P> {
+
+    BlockSink<P> open() throws IOException, SQLException;
+}
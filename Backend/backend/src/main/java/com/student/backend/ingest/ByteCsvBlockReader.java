@@ -0,0 +1,165 @@
+package com.student.backend.ingest;
+
+import com.student.backend.exception.DataSourceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Block reader that tokenizes a stream with the {@link CsvTokenizer} and hands out blocks of
+ * {@link ByteRows}, for inserts that encode fields from their bytes. It reads the same records as
+ * a {@link CsvBlockReader} over {@code CSVFormat.DEFAULT} with a header, without creating a
+ * String per field or a record per row. The reader owns the stream and closes it.
+ */
+public class ByteCsvBlockReader implements BlockReader {
+
+    private final InputStream in;
+    private final CsvTokenizer tokenizer;
+    private final List<String> columns;
+    private final int[] columnIndexes;
+    private final IntSupplier blockSize;
+    private final ProgressTracker progress;
+    private long nextSequence;
+    private long rowsRead;
+    private long reportedBytes;
+    private long pendingParseNanos;
+    private int lastBlockBytes;
+
+    /**
+     * @param in Stream starting with the header line, counting its bytes into the progress tracker
+     * @param delimiter ASCII field delimiter
+     * @param columns Columns to extract, in insert order; every header column if null or empty
+     * @param blockSize Rows of the next block
+     * @param progress Tracker of the transfer, for parse time metrics
+     */
+    public ByteCsvBlockReader(InputStream in, char delimiter, List<String> columns, IntSupplier blockSize,
+                              ProgressTracker progress) {
+        this(in, delimiter, columns, blockSize, progress, 0, 0);
+    }
+
+    /**
+     * @param in Stream starting with the header line, counting its bytes into the progress tracker
+     * @param delimiter ASCII field delimiter
+     * @param columns Columns to extract, in insert order; every header column if null or empty
+     * @param blockSize Rows of the next block
+     * @param progress Tracker of the transfer, for parse time metrics
+     * @param skipRows Number of data records an earlier run already ingested; they are parsed but not returned
+     * @param firstSequence Sequence number of the first block returned
+     * @throws UncheckedIOException if the header cannot be read
+     * @throws IllegalArgumentException if a header name is blank
+     */
+    public ByteCsvBlockReader(InputStream in, char delimiter, List<String> columns, IntSupplier blockSize,
+                              ProgressTracker progress, long skipRows, long firstSequence) {
+        this.in = in;
+        this.tokenizer = new CsvTokenizer(in, delimiter);
+        this.blockSize = blockSize;
+        this.progress = progress;
+        this.nextSequence = firstSequence;
+        try {
+            Map<String, Integer> headerMap = tokenizer.next() ? headerMap(tokenizer.fieldValues()) : Map.of();
+            this.columns = columns == null || columns.isEmpty() ? new ArrayList<>(headerMap.keySet()) : columns;
+            this.columnIndexes = CsvBlockReader.resolveColumnIndexes(headerMap, this.columns);
+            while (rowsRead < skipRows && tokenizer.next()) {
+                rowsRead++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the header", e);
+        }
+        this.reportedBytes = progress.getBytes();
+    }
+
+    /**
+     * Columns the blocks hold, in insert order
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    @Override
+    public RowBlock nextBlock() {
+        long start = System.nanoTime();
+        ByteRows rows;
+        try {
+            rows = readRows(tokenizer, columnIndexes, blockSize.getAsInt(), lastBlockBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getClass().getSimpleName() + " reading next record: " + e, e);
+        }
+        reportParseTime(System.nanoTime() - start);
+        if (rows.rows() == 0) {
+            return null;
+        }
+        lastBlockBytes = rows.byteCount();
+        RowBlock block = new RowBlock(nextSequence++, rowsRead + 1, rows, -1, -1);
+        rowsRead += rows.rows();
+        return block;
+    }
+
+    /**
+     * The stream is read in buffer-sized chunks, so a block may consume no new bytes;
+     * its parse time is carried over until the next chunk is read
+     */
+    private void reportParseTime(long nanos) {
+        pendingParseNanos += nanos;
+        long bytes = progress.getBytes() - reportedBytes;
+        if (bytes > 0) {
+            progress.getMetrics().parsed(bytes, pendingParseNanos);
+            reportedBytes += bytes;
+            pendingParseNanos = 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            in.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copy the selected fields of up to blockSize records
+     *
+     * @param expectedBytes Field bytes of the previous block, to size the new one
+     * @throws DataSourceException if a record has fewer fields than a selected column needs
+     */
+    static ByteRows readRows(CsvTokenizer tokenizer, int[] columnIndexes, int blockSize, int expectedBytes)
+            throws IOException {
+        ByteRows rows = new ByteRows(columnIndexes.length, blockSize, expectedBytes + expectedBytes / 8);
+        int count = 0;
+        while (count < blockSize && tokenizer.next()) {
+            byte[] bytes = tokenizer.fieldBytes();
+            for (int index : columnIndexes) {
+                if (index >= tokenizer.fieldCount()) {
+                    throw new DataSourceException(String.format("Record at line %d has %d fields, field %d is missing",
+                            tokenizer.getRecordLineNumber(), tokenizer.fieldCount(), index + 1));
+                }
+                rows.addField(bytes, tokenizer.fieldStart(index), tokenizer.fieldEnd(index));
+            }
+            count++;
+        }
+        return rows;
+    }
+
+    /**
+     * Map header names to their positions as Commons CSV does with {@code CSVFormat.DEFAULT}:
+     * a repeated name maps to its last position, and a blank name is an error
+     */
+    static Map<String, Integer> headerMap(String[] header) {
+        Map<String, Integer> headerMap = new LinkedHashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].trim().isEmpty()) {
+                throw new IllegalArgumentException("A header name is missing in " + Arrays.toString(header));
+            }
+            headerMap.put(header[i], i);
+        }
+        return headerMap;
+    }
+}
@@ -0,0 +1,96 @@
+package com.student.backend.ingest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Rows of a block kept as the UTF-8 bytes they were read as: the fields of every row back to
+ * back in one array, plus the end offset of each field. A block of any size is two arrays,
+ * however many rows and fields it holds.
+ */
+public final class ByteRows {
+
+    private final int columns;
+    private byte[] bytes;
+    private int length;
+    private int[] fieldEnds;
+    private int fieldCount;
+
+    /**
+     * @param columns Fields per row
+     * @param expectedRows Rows the arrays are first sized for, up to a million fields
+     * @param expectedBytes Field bytes the arrays are first sized for
+     */
+    public ByteRows(int columns, int expectedRows, int expectedBytes) {
+        this.columns = columns;
+        this.bytes = new byte[Math.max(64, expectedBytes)];
+        this.fieldEnds = new int[(int) Math.max(16, Math.min((long) columns * expectedRows, 1 << 20))];
+    }
+
+    /**
+     * Append the next field, filling rows in order
+     */
+    public void addField(byte[] source, int start, int end) {
+        int count = end - start;
+        if (length + count > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+        }
+        System.arraycopy(source, start, bytes, length, count);
+        length += count;
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldEnds[fieldCount++] = length;
+    }
+
+    public int columns() {
+        return columns;
+    }
+
+    public int rows() {
+        return columns == 0 ? 0 : fieldCount / columns;
+    }
+
+    /**
+     * Field bytes of all rows; fields are located with {@link #start} and {@link #end}
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Total length of the field bytes
+     */
+    public int byteCount() {
+        return length;
+    }
+
+    public int start(int row, int column) {
+        int index = row * columns + column;
+        return index == 0 ? 0 : fieldEnds[index - 1];
+    }
+
+    public int end(int row, int column) {
+        return fieldEnds[row * columns + column];
+    }
+
+    /**
+     * Point the slice at one field
+     */
+    public ByteSlice field(int row, int column, ByteSlice slice) {
+        int index = row * columns + column;
+        return slice.set(bytes, index == 0 ? 0 : fieldEnds[index - 1], fieldEnds[index]);
+    }
+
+    /**
+     * Decode a row into Strings, for consumers that need field text
+     */
+    public String[] row(int row) {
+        String[] values = new String[columns];
+        for (int c = 0; c < columns; c++) {
+            int start = start(row, c);
+            values[c] = new String(bytes, start, end(row, c) - start, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,131 @@
+package com.student.backend.ingest;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable view of one field's UTF-8 bytes, so converters can parse a field read by the
+ * {@link CsvTokenizer} without decoding it into a String. As a CharSequence each byte is one
+ * character, which is the field's text exactly when {@link #isAscii()}; numbers, dates and UUIDs
+ * are parsed from that view in place. A field with other bytes has to be {@link #decode decoded}.
+ */
+public final class ByteSlice implements CharSequence {
+
+    private byte[] bytes;
+    private int start;
+    private int end;
+
+    /**
+     * Point the view at the bytes in [start, end)
+     */
+    public ByteSlice set(byte[] bytes, int start, int end) {
+        this.bytes = bytes;
+        this.start = start;
+        this.end = end;
+        return this;
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes[start + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return new String(bytes, start + from, to - from, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * The bytes one character each, matching {@link #charAt}; use {@link #decode()} for the field's text
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * The field's text, with malformed UTF-8 replaced as InputStreamReader does
+     */
+    public String decode() {
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    public boolean isAscii() {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the bytes are well-formed UTF-8, so they can be sent as they are instead of being
+     * decoded and encoded again. Overlong forms, surrogates and code points above U+10FFFF are
+     * malformed, as they are to Java's decoder.
+     */
+    public boolean isValidUtf8() {
+        int i = start;
+        while (i < end) {
+            int b = bytes[i];
+            if (b >= 0) {
+                i++;
+                continue;
+            }
+            b &= 0xFF;
+            int continuation;
+            int lower = 0x80;
+            int upper = 0xBF;
+            if (b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+                if (b == 0xE0) {
+                    lower = 0xA0;
+                } else if (b == 0xED) {
+                    upper = 0x9F;
+                }
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+                if (b == 0xF0) {
+                    lower = 0x90;
+                } else if (b == 0xF4) {
+                    upper = 0x8F;
+                }
+            } else {
+                return false;
+            }
+            if (i + continuation >= end) {
+                return false;
+            }
+            // Only the first continuation byte has a narrower range
+            int second = bytes[i + 1] & 0xFF;
+            if (second < lower || second > upper) {
+                return false;
+            }
+            for (int k = 2; k <= continuation; k++) {
+                if ((bytes[i + k] & 0xC0) != 0x80) {
+                    return false;
+                }
+            }
+            i += continuation + 1;
+        }
+        return true;
+    }
+}
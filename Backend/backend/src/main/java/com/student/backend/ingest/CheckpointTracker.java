@@ -0,0 +1,109 @@
+package com.student.backend.ingest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Tracks which blocks of a resumable ingest have been committed and derives the point a later
+ * run can restart from. Blocks are inserted out of order by several workers, so a block only
+ * moves the checkpoint once every block before it in the file has been committed too.
+ * <p>
+ * Blocks are ordered by byte offset when the reader knows where each block starts in the file,
+ * and by row count otherwise. Each block also gets a deduplication token derived from the
+ * source and the block's position alone, so a block that is inserted again after a restart
+ * carries the same token and the server drops the duplicate.
+ */
+public class CheckpointTracker {
+
+    private final String tokenSeed;
+    private final boolean byteAligned;
+    private final Consumer<Position> listener;
+
+    /**
+     * Committed blocks that are not yet contiguous with the checkpoint, by start key
+     */
+    private final TreeMap<Long, Commit> pending = new TreeMap<>();
+    private Position position;
+    private long nextKey;
+
+    /**
+     * @param tokenSeed Identifies the source and target, so tokens differ between unrelated ingests
+     * @param start Position the run starts from: the beginning of the data or a saved checkpoint
+     * @param byteAligned Whether blocks are ordered by their byte offsets rather than their row counts
+     * @param listener Called with the new checkpoint each time it advances, under the tracker's lock
+     */
+    public CheckpointTracker(String tokenSeed, Position start, boolean byteAligned, Consumer<Position> listener) {
+        this.tokenSeed = tokenSeed;
+        this.byteAligned = byteAligned;
+        this.listener = listener;
+        this.position = start;
+        this.nextKey = byteAligned ? start.byteOffset() : start.rowNumber();
+    }
+
+    /**
+     * Deterministic insert_deduplication_token of a block
+     */
+    public String deduplicationToken(BlockPosition block) {
+        String key = byteAligned
+                ? "b" + block.startOffset() + "-" + block.endOffset()
+                : "r" + block.firstRowNumber() + "+" + block.rows();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(tokenSeed.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Record that a block has been inserted, and advance the checkpoint past it and any
+     * committed blocks that directly follow it
+     *
+     * @param block Position of the inserted block
+     * @param rejectedRows Rows of the block left out of the insert for conversion errors
+     */
+    public synchronized void committed(BlockPosition block, long rejectedRows) {
+        pending.put(byteAligned ? block.startOffset() : block.firstRowNumber() - 1, new Commit(block, rejectedRows));
+        boolean advanced = false;
+        Map.Entry<Long, Commit> next;
+        while ((next = pending.firstEntry()) != null && next.getKey() == nextKey) {
+            Commit commit = pending.pollFirstEntry().getValue();
+            BlockPosition done = commit.block();
+            position = new Position(byteAligned ? done.endOffset() : -1, position.rowNumber() + done.rows(),
+                    position.rejectedRows() + commit.rejectedRows(), Math.max(position.blockId(), done.sequence() + 1));
+            nextKey = byteAligned ? done.endOffset() : position.rowNumber();
+            advanced = true;
+        }
+        if (advanced) {
+            listener.accept(position);
+        }
+    }
+
+    /**
+     * Latest checkpoint
+     */
+    public synchronized Position getPosition() {
+        return position;
+    }
+
+    /**
+     * A point in the source up to which every block has been committed
+     *
+     * @param byteOffset Offset of the first byte not yet committed, or -1 if blocks are not byte aligned
+     * @param rowNumber Number of data rows committed, including rejected rows
+     * @param rejectedRows Number of committed rows that were rejected for conversion errors
+     * @param blockId Sequence number for the next block read
+     */
+    public record Position(long byteOffset, long rowNumber, long rejectedRows, long blockId) {
+    }
+
+    private record Commit(BlockPosition block, long rejectedRows) {
+    }
+}
@@ -0,0 +1,355 @@
+package com.student.backend.ingest;
+
+import com.student.backend.model.CompressionCodec;
+import com.student.backend.model.request.ClickHouseConfig;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal client for ClickHouse's HTTP interface, used where the JDBC driver would add
+ * per-value overhead (binary inserts, server-formatted exports).
+ */
+public class ClickHouseHttpClient {
+
+    private static final Pattern WRITTEN_ROWS = Pattern.compile("\"written_rows\"\\s*:\\s*\"?(\\d+)");
+    private static final Pattern SERVER_EXCEPTION = Pattern.compile("(?m)^Code: \\d+\\. DB::Exception: ");
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String baseUrl;
+    private final String database;
+    private final String username;
+    private final String password;
+
+    public ClickHouseHttpClient(ClickHouseConfig config) {
+        this.baseUrl = String.format("http://%s:%s/", config.getHost(), config.getPort());
+        this.database = config.getDatabase();
+        this.username = config.getUsername();
+        this.password = config.getJwtToken();
+    }
+
+    /**
+     * Send an INSERT whose data is the request body
+     *
+     * @param query INSERT statement ending with a FORMAT clause
+     * @param body Buffer holding the encoded rows
+     * @param length Number of bytes of the buffer to send
+     */
+    public void insert(String query, byte[] body, int length) throws IOException {
+        insert(query, Map.of(), body, length);
+    }
+
+    /**
+     * Send an INSERT whose data is the request body, with extra settings such as a deduplication token
+     *
+     * @param query INSERT statement ending with a FORMAT clause
+     * @param settings Extra ClickHouse settings sent as URL parameters
+     * @param body Buffer holding the encoded rows
+     * @param length Number of bytes of the buffer to send
+     */
+    public void insert(String query, Map<String, String> settings, byte[] body, int length) throws IOException {
+        HttpRequest request = newRequest(query, settings)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body, 0, length))
+                .build();
+
+        HttpResponse<String> response = send(request);
+        if (response.statusCode() != 200) {
+            throw new IOException("ClickHouse rejected insert (HTTP " + response.statusCode() + "): "
+                    + response.body().trim());
+        }
+    }
+
+    /**
+     * Send an INSERT whose data is streamed from a file in a format ClickHouse decodes itself,
+     * such as Parquet, without loading the file into memory here
+     *
+     * @param query INSERT statement ending with a FORMAT clause
+     * @param settings Extra ClickHouse settings sent as URL parameters
+     * @param body File contents; read on an HTTP client thread
+     * @param progress Cancelling it aborts the upload
+     * @return Rows written as reported by the server, or -1 if it did not report them
+     * @throws CancellationException if the progress tracker was cancelled
+     */
+    public long insert(String query, Map<String, String> settings, InputStream body, ProgressTracker progress)
+            throws IOException {
+        HttpRequest request = newRequest(query, settings)
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new CancellableInputStream(body, progress)))
+                .build();
+
+        HttpResponse<String> response;
+        try {
+            response = send(request);
+        } catch (IOException e) {
+            progress.checkCancelled();
+            throw e;
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("ClickHouse rejected insert (HTTP " + response.statusCode() + "): "
+                    + response.body().trim());
+        }
+        return response.headers().firstValue("X-ClickHouse-Summary")
+                .map(summary -> parseCounter(WRITTEN_ROWS, summary))
+                .orElse(-1L);
+    }
+
+    /**
+     * Run a SELECT and copy the formatted response body into a file channel unchanged, or through a compressing channel.
+     * The body is copied while ClickHouse is still producing it; the rows of text formats are
+     * counted during the copy. A query that fails after the copy has started ends the body with
+     * ClickHouse's exception text, which fails the export; the file is then incomplete.
+     *
+     * @param query SELECT statement ending with a FORMAT clause
+     * @param format Output format named in the query, with its settings
+     * @param withNames Whether the query's format starts the body with a header line
+     * @param channel Destination file, see {@link Compression#openForWrite}
+     * @param bufferSize Size of the direct buffer used for the copy
+     * @param progress Receives the bytes copied; cancelling it aborts the download
+     * @return Bytes written, and the rows if the format is text; otherwise -1
+     * @throws IOException if the query fails, also after part of the body was copied
+     * @throws CancellationException if the progress tracker was cancelled
+     */
+    public ExportResult export(String query, ExportFormat format, boolean withNames, WritableByteChannel channel,
+                               int bufferSize, ProgressTracker progress) throws IOException {
+        return export(query, Map.of(), format, withNames, channel, bufferSize, progress);
+    }
+
+    /**
+     * Run a SELECT with query parameters and copy the formatted response body into a file channel
+     *
+     * @param query SELECT statement with {name:Type} placeholders, ending with a FORMAT clause
+     * @param parameters Placeholder values by name, sent as param_name URL parameters
+     * @see #export(String, ExportFormat, boolean, WritableByteChannel, int, ProgressTracker)
+     */
+    public ExportResult export(String query, Map<String, String> parameters, ExportFormat format, boolean withNames,
+                               WritableByteChannel channel, int bufferSize, ProgressTracker progress)
+            throws IOException {
+        Map<String, String> exportSettings = new LinkedHashMap<>(format.settings());
+        parameters.forEach((name, value) -> exportSettings.put("param_" + name, value));
+        HttpRequest request = newRequest(query, exportSettings).GET().build();
+        return copyResult(request, format, withNames, !format.columnar(), null, channel, bufferSize, progress);
+    }
+
+    /**
+     * Run a SELECT and copy the formatted response body into a channel while ClickHouse is still
+     * producing it, such as the response to a download request. Nothing is buffered beyond the
+     * copy buffer, on either side: the query does not wait for its end, and ClickHouse compresses
+     * the body itself if asked to, so the compressed bytes are copied as they arrive. An uncompressed
+     * body that ends with ClickHouse's exception text fails the copy; a compressed one is not checked.
+     *
+     * @param query SELECT statement ending with a FORMAT clause
+     * @param format Output format named in the query, with its settings
+     * @param withNames Whether the query's format starts the body with a header line
+     * @param compression Codec of the copied bytes, GZIP, ZSTD or LZ4 applied by ClickHouse, or NONE
+     * @param channel Destination
+     * @param bufferSize Size of the direct buffer used for the copy
+     * @param progress Receives the bytes copied; cancelling it aborts the download
+     * @return Bytes written, and the rows if they could be counted in uncompressed text; otherwise -1
+     * @throws CancellationException if the progress tracker was cancelled
+     */
+    public ExportResult stream(String query, ExportFormat format, boolean withNames, CompressionCodec compression,
+                               WritableByteChannel channel, int bufferSize, ProgressTracker progress) throws IOException {
+        return stream(query, Map.of(), format, withNames, compression, channel, bufferSize, progress);
+    }
+
+    /**
+     * Run a SELECT with query parameters and copy the response body into a channel as it is produced
+     *
+     * @param query SELECT statement with {name:Type} placeholders, ending with a FORMAT clause
+     * @param parameters Placeholder values by name, sent as param_name URL parameters
+     * @see #stream(String, ExportFormat, boolean, CompressionCodec, WritableByteChannel, int, ProgressTracker)
+     */
+    public ExportResult stream(String query, Map<String, String> parameters, ExportFormat format, boolean withNames,
+                               CompressionCodec compression, WritableByteChannel channel, int bufferSize,
+                               ProgressTracker progress) throws IOException {
+        Map<String, String> streamSettings = new LinkedHashMap<>(format.settings());
+        parameters.forEach((name, value) -> streamSettings.put("param_" + name, value));
+        String encoding = switch (compression) {
+            case GZIP -> "gzip";
+            case ZSTD -> "zstd";
+            case LZ4 -> "lz4";
+            case NONE, AUTO -> null;
+        };
+        if (encoding != null) {
+            streamSettings.put("enable_http_compression", "1");
+        }
+        HttpRequest.Builder builder = newRequest(query, streamSettings).GET();
+        if (encoding != null) {
+            builder.header("Accept-Encoding", encoding);
+        }
+        return copyResult(builder.build(), format, withNames, !format.columnar() && encoding == null, encoding,
+                channel, bufferSize, progress);
+    }
+
+    /**
+     * Copy the body of a query response as it arrives. Its headers are sent before the query has
+     * run, so the rows can only be counted in the body, and an error that stops the query later
+     * only shows as the exception text ClickHouse appends to the body.
+     *
+     * @param withNames Whether the body starts with a header line, which is not counted as a row
+     * @param countRecords Whether to count the records of a text format in the body
+     * @param encoding Content encoding the response must have, or null for none
+     */
+    private ExportResult copyResult(HttpRequest request, ExportFormat format, boolean withNames, boolean countRecords,
+                                    String encoding, WritableByteChannel channel, int bufferSize,
+                                    ProgressTracker progress) throws IOException {
+        AtomicReference<String> error = new AtomicReference<>();
+        AtomicReference<FileChannelBodySubscriber.RecordCounter> counter = new AtomicReference<>();
+        AtomicReference<FileChannelBodySubscriber> subscriber = new AtomicReference<>();
+
+        HttpResponse<Long> response;
+        try {
+            response = send(request, info -> {
+                if (info.statusCode() != 200) {
+                    return HttpResponse.BodySubscribers.mapping(
+                            HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8), body -> {
+                                error.set(body.trim());
+                                return 0L;
+                            });
+                }
+                if (encoding != null && !encoding.equals(info.headers().firstValue("Content-Encoding").orElse(null))) {
+                    // Uncompressed bytes must not end up in a file the client takes for compressed
+                    error.set("response is not " + encoding + "-compressed; is enable_http_compression allowed?");
+                    return HttpResponse.BodySubscribers.replacing(-1L);
+                }
+                if (countRecords) {
+                    counter.set(new FileChannelBodySubscriber.RecordCounter(format.csvQuoting()));
+                }
+                subscriber.set(new FileChannelBodySubscriber(channel, bufferSize, counter.get(), progress));
+                return subscriber.get();
+            });
+        } catch (IOException e) {
+            // The client reports an aborted body as an I/O error
+            progress.checkCancelled();
+            throw e;
+        }
+
+        if (response.statusCode() != 200 || error.get() != null) {
+            throw new IOException("ClickHouse rejected query (HTTP " + response.statusCode() + "): " + error.get());
+        }
+        if (encoding == null) {
+            String exception = serverException(subscriber.get().tail());
+            if (exception != null) {
+                throw new IOException("ClickHouse query failed after sending part of the result: " + exception);
+            }
+        }
+        // The counter also sees the header line of the *WithNames formats
+        long rows = counter.get() != null ? Math.max(0, counter.get().getRecords() - (withNames ? 1 : 0)) : -1;
+        return new ExportResult(response.body(), rows);
+    }
+
+    /**
+     * Find the exception ClickHouse appends to a body it could not finish: the last line that
+     * starts like one, up to the end of the body
+     *
+     * @param tail End of the response body
+     * @return The exception text, or null if the body does not end with one
+     */
+    static String serverException(String tail) {
+        Matcher matcher = SERVER_EXCEPTION.matcher(tail);
+        int start = -1;
+        while (matcher.find()) {
+            start = matcher.start();
+        }
+        return start < 0 ? null : tail.substring(start).trim();
+    }
+
+    /**
+     * Outcome of a pass-through export
+     *
+     * @param bytes Bytes written to the file
+     * @param rows Data rows written, excluding the header line; -1 if they were not counted, such as
+     *             the rows of a columnar file, which then have to be read from the file footer
+     */
+    public record ExportResult(long bytes, long rows) {
+    }
+
+    private static Long parseCounter(Pattern counter, String summary) {
+        Matcher matcher = counter.matcher(summary);
+        return matcher.find() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    private HttpRequest.Builder newRequest(String query, Map<String, String> settings) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("database", database);
+        parameters.put("query", query);
+        parameters.putAll(settings);
+
+        StringBuilder url = new StringBuilder(baseUrl).append('?');
+        parameters.forEach((name, value) -> url.append(name).append('=')
+                .append(URLEncoder.encode(value, StandardCharsets.UTF_8)).append('&'));
+        url.setLength(url.length() - 1);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url.toString()));
+        if (username != null && !username.isEmpty()) {
+            builder.header("X-ClickHouse-User", username);
+        }
+        if (password != null && !password.isEmpty()) {
+            builder.header("X-ClickHouse-Key", password);
+        }
+        return builder;
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException {
+        return send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Upload body that fails the request once the transfer is cancelled
+     */
+    private static class CancellableInputStream extends FilterInputStream {
+
+        private final ProgressTracker progress;
+
+        CancellableInputStream(InputStream in, ProgressTracker progress) {
+            super(in);
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkCancelled();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            checkCancelled();
+            return super.read(buffer, offset, length);
+        }
+
+        private void checkCancelled() throws IOException {
+            if (progress.isCancelled()) {
+                throw new IOException("Upload was cancelled");
+            }
+        }
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return HTTP_CLIENT.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for ClickHouse");
+        }
+    }
+}
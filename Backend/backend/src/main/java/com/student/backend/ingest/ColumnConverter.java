@@ -0,0 +1,75 @@
+package com.student.backend.ingest;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Converts field text from the file into a value of one ClickHouse column type. Values are parsed
+ * straight from the field characters into primitives and either encoded as RowBinary or bound to
+ * a prepared statement with the matching typed setter.
+ *
+ * <p>Converters are stateless and shared by all pipeline workers.</p>
+ */
+public abstract class ColumnConverter {
+
+    /**
+     * Append the RowBinary encoding of the characters in [start, end) to the output
+     *
+     * @throws IllegalArgumentException if the text is not a valid value of the column type
+     * @throws ArithmeticException if the value does not fit the column type
+     */
+    public abstract void write(CharSequence text, int start, int end, RowBinaryOutput out);
+
+    /**
+     * Bind the characters in [start, end) as parameter {@code index} of the statement
+     *
+     * @throws IllegalArgumentException if the text is not a valid value of the column type
+     * @throws ArithmeticException if the value does not fit the column type
+     */
+    public abstract void bind(PreparedStatement statement, int index, CharSequence text, int start, int end)
+            throws SQLException;
+
+    /**
+     * Whether {@link #write} is implemented; types without a client-side encoding can only be bound as text
+     */
+    public boolean supportsRowBinary() {
+        return true;
+    }
+
+    /**
+     * Append the RowBinary encoding of a field read as UTF-8 bytes. An ASCII field, which is every
+     * valid number, date or UUID, is parsed from the bytes in place; any other field is decoded
+     * first, so it converts exactly as its text would.
+     *
+     * @throws IllegalArgumentException if the text is not a valid value of the column type
+     * @throws ArithmeticException if the value does not fit the column type
+     */
+    public void write(ByteSlice field, RowBinaryOutput out) {
+        if (field.isAscii()) {
+            write(field, 0, field.length(), out);
+        } else {
+            String text = field.decode();
+            write(text, 0, text.length(), out);
+        }
+    }
+
+    public final void write(String value, RowBinaryOutput out) {
+        String text = value == null ? "" : value;
+        write(text, 0, text.length(), out);
+    }
+
+    public final void bind(PreparedStatement statement, int index, String value) throws SQLException {
+        String text = value == null ? "" : value;
+        bind(statement, index, text, 0, text.length());
+    }
+
+    /**
+     * Return the characters in [start, end) as a String, reusing the original when it is the whole value
+     */
+    static String substring(CharSequence text, int start, int end) {
+        if (text instanceof String string && start == 0 && end == string.length()) {
+            return string;
+        }
+        return text.subSequence(start, end).toString();
+    }
+}
@@ -0,0 +1,850 @@
+package com.student.backend.ingest;
+
+import com.student.backend.exception.ConfigurationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.UUID;
+
+/**
+ * Builds column converters from ClickHouse type names as reported by system.columns.
+ *
+ * <p>Empty fields of non-Nullable columns take the type's default value (zero, the epoch or an
+ * empty string), as ClickHouse does for CSV input. Types without a dedicated converter are bound
+ * as text and left to the server to parse.</p>
+ */
+public final class ColumnConverters {
+
+    private ColumnConverters() {
+    }
+
+    /**
+     * Create a converter for the given column type
+     *
+     * @param type ClickHouse type, e.g. "Nullable(Int32)" or "Array(LowCardinality(String))"
+     * @param serverZone Server time zone, used for DateTime columns without an explicit zone
+     * @return Converter for that type
+     * @throws ConfigurationException if the type parameters cannot be understood
+     */
+    public static ColumnConverter forType(String type, ZoneId serverZone) {
+        String trimmed = type.trim();
+        try {
+            return create(trimmed, serverZone);
+        } catch (DateTimeException | NumberFormatException | IndexOutOfBoundsException e) {
+            throw new ConfigurationException("Cannot convert values of column type " + type + ": " + e.getMessage());
+        }
+    }
+
+    private static ColumnConverter create(String type, ZoneId serverZone) {
+        // LowCardinality is a storage detail; on the wire it carries the inner type
+        if (type.startsWith("LowCardinality(")) {
+            return forType(innerType(type), serverZone);
+        }
+        if (type.startsWith("Nullable(")) {
+            return new NullableConverter(forType(innerType(type), serverZone));
+        }
+        if (type.startsWith("Array(")) {
+            return new ArrayConverter(forType(innerType(type), serverZone));
+        }
+        if (type.startsWith("FixedString(")) {
+            return new FixedStringConverter(Integer.parseInt(innerType(type).trim()));
+        }
+        if (type.startsWith("Decimal")) {
+            return decimal(type);
+        }
+        if (type.equals("DateTime") || type.startsWith("DateTime(")) {
+            ZoneId zone = type.equals("DateTime") ? serverZone : ZoneId.of(unquote(innerType(type)));
+            return new DateTimeConverter(0, zone, false);
+        }
+        if (type.startsWith("DateTime64(")) {
+            String[] arguments = innerType(type).split(",", 2);
+            int precision = Integer.parseInt(arguments[0].trim());
+            if (precision < 0 || precision > 9) {
+                throw new NumberFormatException("DateTime64 precision must be between 0 and 9");
+            }
+            ZoneId zone = arguments.length > 1 ? ZoneId.of(unquote(arguments[1])) : serverZone;
+            return new DateTimeConverter(precision, zone, true);
+        }
+
+        return switch (type) {
+            case "String" -> new StringConverter();
+            case "Int8" -> new IntegerConverter(Byte.MIN_VALUE, Byte.MAX_VALUE, 1);
+            case "Int16" -> new IntegerConverter(Short.MIN_VALUE, Short.MAX_VALUE, 2);
+            case "Int32" -> new IntegerConverter(Integer.MIN_VALUE, Integer.MAX_VALUE, 4);
+            case "Int64" -> new IntegerConverter(Long.MIN_VALUE, Long.MAX_VALUE, 8);
+            case "UInt8" -> new IntegerConverter(0, 0xFF, 1);
+            case "UInt16" -> new IntegerConverter(0, 0xFFFF, 2);
+            case "UInt32" -> new IntegerConverter(0, 0xFFFF_FFFFL, 4);
+            case "UInt64" -> new UInt64Converter();
+            case "Float32" -> new Float32Converter();
+            case "Float64" -> new Float64Converter();
+            case "Bool" -> new BoolConverter();
+            case "Date" -> new DateConverter(0, 0xFFFF, false);
+            // Date32 covers 1900-01-01 to 2299-12-31
+            case "Date32" -> new DateConverter(-25567, 120529, true);
+            case "UUID" -> new UuidConverter();
+            default -> new TextConverter();
+        };
+    }
+
+    /**
+     * Decimal(P, S), Decimal32(S), Decimal64(S), Decimal128(S) or Decimal256(S)
+     */
+    private static ColumnConverter decimal(String type) {
+        String[] arguments = innerType(type).split(",");
+        String family = type.substring(0, type.indexOf('('));
+        int precision;
+        int scale;
+        switch (family) {
+            case "Decimal" -> {
+                precision = Integer.parseInt(arguments[0].trim());
+                scale = arguments.length > 1 ? Integer.parseInt(arguments[1].trim()) : 0;
+            }
+            case "Decimal32" -> {
+                precision = 9;
+                scale = Integer.parseInt(arguments[0].trim());
+            }
+            case "Decimal64" -> {
+                precision = 18;
+                scale = Integer.parseInt(arguments[0].trim());
+            }
+            case "Decimal128" -> {
+                precision = 38;
+                scale = Integer.parseInt(arguments[0].trim());
+            }
+            case "Decimal256" -> {
+                precision = 76;
+                scale = Integer.parseInt(arguments[0].trim());
+            }
+            default -> {
+                return new TextConverter();
+            }
+        }
+        if (precision < 1 || precision > 76 || scale < 0 || scale > precision) {
+            throw new NumberFormatException("invalid decimal precision or scale");
+        }
+        return new DecimalConverter(precision, scale);
+    }
+
+    /**
+     * Return the text between the first '(' and the matching last ')'
+     */
+    static String innerType(String type) {
+        return type.substring(type.indexOf('(') + 1, type.lastIndexOf(')'));
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("'") && trimmed.endsWith("'")) {
+            return trimmed.substring(1, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+
+    private static void writeFixedWidth(long value, int width, RowBinaryOutput out) {
+        switch (width) {
+            case 1 -> out.writeByte((int) value);
+            case 2 -> out.writeShort((int) value);
+            case 4 -> out.writeInt((int) value);
+            default -> out.writeLong(value);
+        }
+    }
+
+    /**
+     * Base for scalar types: surrounding whitespace is ignored and an empty field means the default value
+     */
+    private abstract static class ScalarConverter extends ColumnConverter {
+
+        @Override
+        public final void write(CharSequence text, int start, int end, RowBinaryOutput out) {
+            int from = TextParsers.trimStart(text, start, end);
+            int to = TextParsers.trimEnd(text, from, end);
+            if (from == to) {
+                writeDefault(out);
+            } else {
+                writeValue(text, from, to, out);
+            }
+        }
+
+        @Override
+        public final void bind(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            int from = TextParsers.trimStart(text, start, end);
+            int to = TextParsers.trimEnd(text, from, end);
+            if (from == to) {
+                bindDefault(statement, index);
+            } else {
+                bindValue(statement, index, text, from, to);
+            }
+        }
+
+        abstract void writeValue(CharSequence text, int start, int end, RowBinaryOutput out);
+
+        abstract void writeDefault(RowBinaryOutput out);
+
+        abstract void bindValue(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException;
+
+        abstract void bindDefault(PreparedStatement statement, int index) throws SQLException;
+    }
+
+    private static final class StringConverter extends ColumnConverter {
+
+        @Override
+        public void write(CharSequence text, int start, int end, RowBinaryOutput out) {
+            out.writeString(text, start, end);
+        }
+
+        /**
+         * Well-formed UTF-8 is already the RowBinary encoding; only malformed bytes are decoded,
+         * to be sent with replacement characters as the text path sends them
+         */
+        @Override
+        public void write(ByteSlice field, RowBinaryOutput out) {
+            if (field.isValidUtf8()) {
+                out.writeString(field.bytes(), field.start(), field.length());
+            } else {
+                super.write(field, out);
+            }
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            statement.setString(index, substring(text, start, end));
+        }
+    }
+
+    private static final class FixedStringConverter extends ColumnConverter {
+
+        private final int length;
+
+        FixedStringConverter(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public void write(CharSequence text, int start, int end, RowBinaryOutput out) {
+            out.writeFixedString(text, start, end, length);
+        }
+
+        @Override
+        public void write(ByteSlice field, RowBinaryOutput out) {
+            if (field.isValidUtf8()) {
+                out.writeFixedString(field.bytes(), field.start(), field.length(), length);
+            } else {
+                super.write(field, out);
+            }
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            statement.setString(index, substring(text, start, end));
+        }
+    }
+
+    /**
+     * Signed integers and unsigned integers up to 32 bits, which all fit a Java long
+     */
+    private static final class IntegerConverter extends ScalarConverter {
+
+        private final long min;
+        private final long max;
+        private final int width;
+
+        IntegerConverter(long min, long max, int width) {
+            this.min = min;
+            this.max = max;
+            this.width = width;
+        }
+
+        @Override
+        void writeValue(CharSequence text, int start, int end, RowBinaryOutput out) {
+            writeFixedWidth(TextParsers.parseLongInRange(text, start, end, min, max), width, out);
+        }
+
+        @Override
+        void writeDefault(RowBinaryOutput out) {
+            writeFixedWidth(0, width, out);
+        }
+
+        @Override
+        void bindValue(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            bindLong(statement, index, TextParsers.parseLongInRange(text, start, end, min, max));
+        }
+
+        @Override
+        void bindDefault(PreparedStatement statement, int index) throws SQLException {
+            bindLong(statement, index, 0);
+        }
+
+        /**
+         * Use the narrowest setter that holds every value of the column type
+         */
+        private void bindLong(PreparedStatement statement, int index, long value) throws SQLException {
+            if (min >= Byte.MIN_VALUE && max <= Byte.MAX_VALUE) {
+                statement.setByte(index, (byte) value);
+            } else if (min >= Short.MIN_VALUE && max <= Short.MAX_VALUE) {
+                statement.setShort(index, (short) value);
+            } else if (min >= Integer.MIN_VALUE && max <= Integer.MAX_VALUE) {
+                statement.setInt(index, (int) value);
+            } else {
+                statement.setLong(index, value);
+            }
+        }
+    }
+
+    private static final class UInt64Converter extends ScalarConverter {
+
+        @Override
+        void writeValue(CharSequence text, int start, int end, RowBinaryOutput out) {
+            out.writeLong(TextParsers.parseUnsignedLong(text, start, end));
+        }
+
+        @Override
+        void writeDefault(RowBinaryOutput out) {
+            out.writeLong(0);
+        }
+
+        @Override
+        void bindValue(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            long value = TextParsers.parseUnsignedLong(text, start, end);
+            if (value >= 0) {
+                statement.setLong(index, value);
+            } else {
+                // Above Long.MAX_VALUE; rare enough that the allocation does not matter
+                statement.setObject(index, new BigInteger(Long.toUnsignedString(value)));
+            }
+        }
+
+        @Override
+        void bindDefault(PreparedStatement statement, int index) throws SQLException {
+            statement.setLong(index, 0);
+        }
+    }
+
+    private static final class Float32Converter extends ScalarConverter {
+
+        @Override
+        void writeValue(CharSequence text, int start, int end, RowBinaryOutput out) {
+            out.writeFloat(TextParsers.parseFloat(text, start, end));
+        }
+
+        @Override
+        void writeDefault(RowBinaryOutput out) {
+            out.writeFloat(0);
+        }
+
+        @Override
+        void bindValue(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            statement.setFloat(index, TextParsers.parseFloat(text, start, end));
+        }
+
+        @Override
+        void bindDefault(PreparedStatement statement, int index) throws SQLException {
+            statement.setFloat(index, 0);
+        }
+    }
+
+    private static final class Float64Converter extends ScalarConverter {
+
+        @Override
+        void writeValue(CharSequence text, int start, int end, RowBinaryOutput out) {
+            out.writeDouble(TextParsers.parseDouble(text, start, end));
+        }
+
+        @Override
+        void writeDefault(RowBinaryOutput out) {
+            out.writeDouble(0);
+        }
+
+        @Override
+        void bindValue(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            statement.setDouble(index, TextParsers.parseDouble(text, start, end));
+        }
+
+        @Override
+        void bindDefault(PreparedStatement statement, int index) throws SQLException {
+            statement.setDouble(index, 0);
+        }
+    }
+
+    private static final class BoolConverter extends ScalarConverter {
+
+        @Override
+        void writeValue(CharSequence text, int start, int end, RowBinaryOutput out) {
+            out.writeByte(TextParsers.parseBoolean(text, start, end) ? 1 : 0);
+        }
+
+        @Override
+        void writeDefault(RowBinaryOutput out) {
+            out.writeByte(0);
+        }
+
+        @Override
+        void bindValue(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            statement.setBoolean(index, TextParsers.parseBoolean(text, start, end));
+        }
+
+        @Override
+        void bindDefault(PreparedStatement statement, int index) throws SQLException {
+            statement.setBoolean(index, false);
+        }
+    }
+
+    /**
+     * Decimals up to 18 digits are parsed into a long; wider ones go through BigDecimal
+     */
+    private static final class DecimalConverter extends ScalarConverter {
+
+        private final int precision;
+        private final int scale;
+        private final int width;
+        private final BigInteger limit;
+        private final BigDecimal zero;
+
+        DecimalConverter(int precision, int scale) {
+            this.precision = precision;
+            this.scale = scale;
+            this.width = precision <= 9 ? 4 : precision <= 18 ? 8 : precision <= 38 ? 16 : 32;
+            this.limit = BigInteger.TEN.pow(precision);
+            this.zero = BigDecimal.ZERO.setScale(scale);
+        }
+
+        @Override
+        void writeValue(CharSequence text, int start, int end, RowBinaryOutput out) {
+            if (width <= 8) {
+                writeFixedWidth(TextParsers.parseUnscaledDecimal(text, start, end, scale, precision), width, out);
+                return;
+            }
+            // Little-endian two's complement, sign-extended to the full width
+            BigInteger unscaled = parseWide(text, start, end);
+            byte[] bigEndian = unscaled.toByteArray();
+            byte fill = (byte) (unscaled.signum() < 0 ? 0xFF : 0);
+            for (int i = 0; i < width; i++) {
+                out.writeByte(i < bigEndian.length ? bigEndian[bigEndian.length - 1 - i] : fill);
+            }
+        }
+
+        @Override
+        void writeDefault(RowBinaryOutput out) {
+            for (int i = 0; i < width; i += 4) {
+                out.writeInt(0);
+            }
+        }
+
+        @Override
+        void bindValue(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            BigDecimal value = width <= 8
+                    ? BigDecimal.valueOf(TextParsers.parseUnscaledDecimal(text, start, end, scale, precision), scale)
+                    : new BigDecimal(parseWide(text, start, end), scale);
+            statement.setBigDecimal(index, value);
+        }
+
+        @Override
+        void bindDefault(PreparedStatement statement, int index) throws SQLException {
+            statement.setBigDecimal(index, zero);
+        }
+
+        private BigInteger parseWide(CharSequence text, int start, int end) {
+            // Extra fraction digits are discarded, as ClickHouse does when it reads decimals from text
+            BigInteger unscaled = new BigDecimal(substring(text, start, end))
+                    .setScale(scale, RoundingMode.DOWN)
+                    .unscaledValue();
+            if (unscaled.abs().compareTo(limit) >= 0) {
+                throw new ArithmeticException("too many digits for Decimal(" + precision + ", " + scale + ")");
+            }
+            return unscaled;
+        }
+    }
+
+    /**
+     * Date (UInt16 days) and Date32 (Int32 days)
+     */
+    private static final class DateConverter extends ScalarConverter {
+
+        private final int minDay;
+        private final int maxDay;
+        private final boolean extended;
+
+        DateConverter(int minDay, int maxDay, boolean extended) {
+            this.minDay = minDay;
+            this.maxDay = maxDay;
+            this.extended = extended;
+        }
+
+        @Override
+        void writeValue(CharSequence text, int start, int end, RowBinaryOutput out) {
+            int day = parse(text, start, end);
+            if (extended) {
+                out.writeInt(day);
+            } else {
+                out.writeShort(day);
+            }
+        }
+
+        @Override
+        void writeDefault(RowBinaryOutput out) {
+            if (extended) {
+                out.writeInt(0);
+            } else {
+                out.writeShort(0);
+            }
+        }
+
+        @Override
+        void bindValue(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            statement.setObject(index, LocalDate.ofEpochDay(parse(text, start, end)));
+        }
+
+        @Override
+        void bindDefault(PreparedStatement statement, int index) throws SQLException {
+            statement.setObject(index, LocalDate.EPOCH);
+        }
+
+        private int parse(CharSequence text, int start, int end) {
+            int day = TextParsers.parseEpochDay(text, start, end);
+            if (day < minDay || day > maxDay) {
+                throw new ArithmeticException("date is outside the range of the column type");
+            }
+            return day;
+        }
+    }
+
+    /**
+     * DateTime (UInt32 seconds) and DateTime64(P) (Int64 ticks of 10^-P seconds)
+     */
+    private static final class DateTimeConverter extends ScalarConverter {
+
+        private final int precision;
+        private final ZoneId zone;
+        private final ZoneRules rules;
+        private final boolean extended;
+
+        DateTimeConverter(int precision, ZoneId zone, boolean extended) {
+            this.precision = precision;
+            this.zone = zone;
+            this.rules = zone.getRules();
+            this.extended = extended;
+        }
+
+        @Override
+        void writeValue(CharSequence text, int start, int end, RowBinaryOutput out) {
+            long ticks = parse(text, start, end);
+            if (extended) {
+                out.writeLong(ticks);
+            } else {
+                out.writeInt((int) ticks);
+            }
+        }
+
+        @Override
+        void writeDefault(RowBinaryOutput out) {
+            if (extended) {
+                out.writeLong(0);
+            } else {
+                out.writeInt(0);
+            }
+        }
+
+        @Override
+        void bindValue(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            // The server reads a local date and time in the column's zone, so bind it in that zone
+            statement.setObject(index, TextParsers.toLocalDateTime(parse(text, start, end), precision, zone));
+        }
+
+        @Override
+        void bindDefault(PreparedStatement statement, int index) throws SQLException {
+            statement.setObject(index, TextParsers.toLocalDateTime(0, precision, zone));
+        }
+
+        private long parse(CharSequence text, int start, int end) {
+            long ticks = TextParsers.parseEpochTicks(text, start, end, precision, rules);
+            if (!extended && (ticks < 0 || ticks > 0xFFFF_FFFFL)) {
+                throw new ArithmeticException("date and time is outside the range of DateTime");
+            }
+            return ticks;
+        }
+    }
+
+    /**
+     * UUIDs travel as two little-endian UInt64 values, most significant half first
+     */
+    private static final class UuidConverter extends ScalarConverter {
+
+        @Override
+        void writeValue(CharSequence text, int start, int end, RowBinaryOutput out) {
+            out.writeLong(TextParsers.parseUuidHalf(text, start, end, true));
+            out.writeLong(TextParsers.parseUuidHalf(text, start, end, false));
+        }
+
+        @Override
+        void writeDefault(RowBinaryOutput out) {
+            out.writeLong(0);
+            out.writeLong(0);
+        }
+
+        @Override
+        void bindValue(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            statement.setObject(index, new UUID(TextParsers.parseUuidHalf(text, start, end, true),
+                    TextParsers.parseUuidHalf(text, start, end, false)));
+        }
+
+        @Override
+        void bindDefault(PreparedStatement statement, int index) throws SQLException {
+            statement.setObject(index, new UUID(0, 0));
+        }
+    }
+
+    /**
+     * Nullable(T): an empty field or \N is NULL
+     */
+    static final class NullableConverter extends ColumnConverter {
+
+        private final ColumnConverter inner;
+
+        NullableConverter(ColumnConverter inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public void write(CharSequence text, int start, int end, RowBinaryOutput out) {
+            if (isNull(text, start, end)) {
+                writeNull(out);
+            } else {
+                writeNonNull(text, start, end, out);
+            }
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            if (isNull(text, start, end)) {
+                statement.setNull(index, Types.NULL);
+            } else {
+                inner.bind(statement, index, text, start, end);
+            }
+        }
+
+        @Override
+        public void write(ByteSlice field, RowBinaryOutput out) {
+            if (isNull(field, 0, field.length())) {
+                writeNull(out);
+            } else {
+                out.writeByte(0);
+                inner.write(field, out);
+            }
+        }
+
+        @Override
+        public boolean supportsRowBinary() {
+            return inner.supportsRowBinary();
+        }
+
+        void writeNull(RowBinaryOutput out) {
+            out.writeByte(1);
+        }
+
+        void writeNonNull(CharSequence text, int start, int end, RowBinaryOutput out) {
+            out.writeByte(0);
+            inner.write(text, start, end, out);
+        }
+
+        private static boolean isNull(CharSequence text, int start, int end) {
+            return start == end || end - start == 2 && text.charAt(start) == '\\' && text.charAt(start + 1) == 'N';
+        }
+    }
+
+    /**
+     * Array(T) written as a ClickHouse array literal, e.g. [1, 2, 3] or ['a', NULL]
+     */
+    private static final class ArrayConverter extends ColumnConverter {
+
+        private final ColumnConverter element;
+        private final NullableConverter nullableElement;
+
+        ArrayConverter(ColumnConverter element) {
+            this.element = element;
+            this.nullableElement = element instanceof NullableConverter nullable ? nullable : null;
+        }
+
+        @Override
+        public void write(CharSequence text, int start, int end, RowBinaryOutput out) {
+            int from = TextParsers.trimStart(text, start, end);
+            int to = TextParsers.trimEnd(text, from, end);
+            if (from == to) {
+                out.writeVarInt(0);
+                return;
+            }
+            if (text.charAt(from) != '[' || text.charAt(to - 1) != ']' || to - from < 2) {
+                throw new IllegalArgumentException("expected an array as [value, ...]");
+            }
+
+            // Count first: the element count precedes the elements
+            int close = to - 1;
+            int count = 0;
+            for (int i = from + 1; i < close; ) {
+                int elementEnd = elementEnd(text, i, close);
+                if (count > 0 || TextParsers.trimStart(text, i, elementEnd) < elementEnd || elementEnd < close) {
+                    count++;
+                }
+                i = elementEnd + 1;
+            }
+            out.writeVarInt(count);
+
+            for (int i = from + 1; count > 0; count--) {
+                int elementEnd = elementEnd(text, i, close);
+                int elementStart = TextParsers.trimStart(text, i, elementEnd);
+                writeElement(text, elementStart, TextParsers.trimEnd(text, elementStart, elementEnd), out);
+                i = elementEnd + 1;
+            }
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            // The array literal is already in ClickHouse syntax; the server parses it
+            statement.setString(index, substring(text, start, end));
+        }
+
+        @Override
+        public boolean supportsRowBinary() {
+            return element.supportsRowBinary();
+        }
+
+        private void writeElement(CharSequence text, int start, int end, RowBinaryOutput out) {
+            if (start < end && (text.charAt(start) == '\'' || text.charAt(start) == '"')) {
+                if (end - start < 2 || text.charAt(end - 1) != text.charAt(start)) {
+                    throw new IllegalArgumentException("unterminated string in array");
+                }
+                CharSequence value = text;
+                int valueStart = start + 1;
+                int valueEnd = end - 1;
+                if (hasEscapes(text, valueStart, valueEnd)) {
+                    String unescaped = unescape(text, valueStart, valueEnd);
+                    value = unescaped;
+                    valueStart = 0;
+                    valueEnd = unescaped.length();
+                }
+                // A quoted value is never NULL, even when empty
+                if (nullableElement != null) {
+                    nullableElement.writeNonNull(value, valueStart, valueEnd, out);
+                } else {
+                    element.write(value, valueStart, valueEnd, out);
+                }
+            } else if (nullableElement != null && isNullLiteral(text, start, end)) {
+                nullableElement.writeNull(out);
+            } else {
+                element.write(text, start, end, out);
+            }
+        }
+
+        /**
+         * Index of the ',' that ends the element starting at {@code start}, or {@code end} for the last element
+         */
+        private static int elementEnd(CharSequence text, int start, int end) {
+            int depth = 0;
+            char quote = 0;
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (quote != 0) {
+                    if (c == '\\') {
+                        i++;
+                    } else if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (c == '[' || c == '(') {
+                    depth++;
+                } else if (c == ']' || c == ')') {
+                    depth--;
+                } else if (c == ',' && depth == 0) {
+                    return i;
+                }
+            }
+            if (quote != 0 || depth != 0) {
+                throw new IllegalArgumentException("unbalanced quotes or brackets in array");
+            }
+            return end;
+        }
+
+        private static boolean hasEscapes(CharSequence text, int start, int end) {
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (c == '\\' || c == '\'' || c == '"') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static String unescape(CharSequence text, int start, int end) {
+            StringBuilder value = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (c == '\\' && i + 1 < end) {
+                    char next = text.charAt(++i);
+                    value.append(switch (next) {
+                        case 'n' -> '\n';
+                        case 't' -> '\t';
+                        case 'r' -> '\r';
+                        case '0' -> '\0';
+                        default -> next;
+                    });
+                } else {
+                    value.append(c);
+                }
+            }
+            return value.toString();
+        }
+
+        private static boolean isNullLiteral(CharSequence text, int start, int end) {
+            return end - start == 4
+                    && Character.toUpperCase(text.charAt(start)) == 'N'
+                    && Character.toUpperCase(text.charAt(start + 1)) == 'U'
+                    && Character.toUpperCase(text.charAt(start + 2)) == 'L'
+                    && Character.toUpperCase(text.charAt(start + 3)) == 'L';
+        }
+    }
+
+    /**
+     * Types without a client-side encoding (Enum, Map, Tuple, IPv4, ...) are bound as text
+     */
+    private static final class TextConverter extends ColumnConverter {
+
+        @Override
+        public void write(CharSequence text, int start, int end, RowBinaryOutput out) {
+            throw new IllegalStateException("no RowBinary encoding for this column type");
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int index, CharSequence text, int start, int end)
+                throws SQLException {
+            statement.setString(index, substring(text, start, end));
+        }
+
+        @Override
+        public boolean supportsRowBinary() {
+            return false;
+        }
+    }
+}
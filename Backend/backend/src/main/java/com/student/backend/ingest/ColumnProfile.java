@@ -0,0 +1,138 @@
+package com.student.backend.ingest;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Statistics of one column over a sample of its values, and the ClickHouse type its text
+ * values fit. A type is inferred by trying the narrowest candidates first: Bool, Int64,
+ * Float64, Date, DateTime, DateTime64 with the longest fraction seen, and UUID, falling back
+ * to String. An empty field or
+ * {@code \N} counts as NULL, as it does when the file is ingested, and makes the type Nullable.
+ *
+ * @param name Column name
+ * @param type ClickHouse type, as given or inferred
+ * @param inferred Whether the type was inferred from the values
+ * @param nullCount Values that are NULL
+ * @param distinctCount Distinct values that are not NULL
+ * @param min Smallest value that is not NULL, compared as numbers for numeric types; null if there is none
+ * @param max Largest value that is not NULL
+ * @param maxLength Length of the longest value
+ */
+public record ColumnProfile(String name, String type, boolean inferred, long nullCount, long distinctCount,
+                            String min, String max, int maxLength) {
+
+    private static final Pattern INTEGER = Pattern.compile("[-+]?\\d{1,18}");
+    private static final Pattern DECIMAL = Pattern.compile("[-+]?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?");
+    private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final Pattern DATE_TIME = Pattern.compile("\\d{4}-\\d{2}-\\d{2}[ T]\\d{2}:\\d{2}:\\d{2}");
+    private static final Pattern DATE_TIME_64 =
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}[ T]\\d{2}:\\d{2}:\\d{2}\\.\\d{1,9}");
+    private static final Pattern UUID =
+            Pattern.compile("\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}");
+    private static final Pattern NUMERIC_TYPE = Pattern.compile("(Nullable\\()?(U?Int\\d+|Float\\d+|Decimal.*)\\)?");
+
+    /**
+     * Profile the values of one column
+     *
+     * @param name Column name
+     * @param knownType ClickHouse type of the column, or null to infer it from the values
+     * @param values Values in row order; null, empty and \N are NULL
+     */
+    public static ColumnProfile of(String name, String knownType, List<String> values) {
+        long nulls = 0;
+        int maxLength = 0;
+        Set<String> distinct = new HashSet<>();
+        for (String value : values) {
+            if (isNull(value, knownType)) {
+                nulls++;
+            } else {
+                distinct.add(value);
+                maxLength = Math.max(maxLength, value.length());
+            }
+        }
+        String type = knownType != null ? knownType : inferType(distinct, nulls > 0 || distinct.isEmpty());
+
+        Comparator<String> order = NUMERIC_TYPE.matcher(type).matches()
+                ? Comparator.comparing(ColumnProfile::numericValue)
+                : Comparator.naturalOrder();
+        String min = distinct.stream().min(order).orElse(null);
+        String max = distinct.stream().max(order).orElse(null);
+        return new ColumnProfile(name, type, knownType == null, nulls, distinct.size(), min, max, maxLength);
+    }
+
+    /**
+     * Narrowest ClickHouse type that every value fits
+     *
+     * @param values Values that are not NULL
+     * @param nullable Whether the column has NULLs, or no values at all
+     */
+    public static String inferType(Iterable<String> values, boolean nullable) {
+        boolean bool = true;
+        boolean integer = true;
+        boolean decimal = true;
+        boolean date = true;
+        boolean dateTime = true;
+        boolean dateTime64 = true;
+        boolean uuid = true;
+        int fractionDigits = 0;
+        boolean any = false;
+        for (String value : values) {
+            any = true;
+            String text = value.trim();
+            bool &= text.equalsIgnoreCase("true") || text.equalsIgnoreCase("false");
+            integer &= INTEGER.matcher(text).matches();
+            decimal &= DECIMAL.matcher(text).matches();
+            date &= DATE.matcher(text).matches();
+            dateTime &= DATE_TIME.matcher(text).matches();
+            // Whole seconds fit DateTime64 as well, so a column mixing both precisions keeps the fraction
+            if (DATE_TIME_64.matcher(text).matches()) {
+                fractionDigits = Math.max(fractionDigits, text.length() - text.indexOf('.') - 1);
+            } else {
+                dateTime64 &= DATE_TIME.matcher(text).matches();
+            }
+            uuid &= UUID.matcher(text).matches();
+        }
+        String type;
+        if (!any) {
+            type = "String";
+        } else if (bool) {
+            type = "Bool";
+        } else if (integer) {
+            type = "Int64";
+        } else if (decimal) {
+            type = "Float64";
+        } else if (date) {
+            type = "Date";
+        } else if (dateTime) {
+            type = "DateTime";
+        } else if (dateTime64) {
+            type = "DateTime64(" + fractionDigits + ")";
+        } else if (uuid) {
+            type = "UUID";
+        } else {
+            type = "String";
+        }
+        return nullable ? "Nullable(" + type + ")" : type;
+    }
+
+    /**
+     * Whether a value is NULL: null from ClickHouse, or an empty field or \N in a file
+     */
+    private static boolean isNull(String value, String knownType) {
+        return value == null || knownType == null && (value.isEmpty() || value.equals("\\N"));
+    }
+
+    private static BigDecimal numericValue(String value) {
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            // nan and inf of Float columns sort below every number
+            return BigDecimal.valueOf(-Double.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.student.backend.ingest;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStream;
+import com.student.backend.model.CompressionCodec;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams for compressed flat files. Reading decompresses on the fly through a small buffer;
+ * writing compresses fixed-size blocks in parallel with {@link ParallelCompressingOutputStream}.
+ */
+public final class Compression {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private Compression() {
+    }
+
+    /**
+     * Wrap a stream of compressed bytes
+     *
+     * @param codec Resolved codec of the input
+     * @param in Compressed input; closed with the returned stream
+     * @return A stream of decompressed bytes, or the input itself for NONE
+     */
+    public static InputStream decompress(CompressionCodec codec, InputStream in) throws IOException {
+        return switch (codec) {
+            case GZIP -> new GZIPInputStream(in, GZIP_BUFFER_SIZE);
+            case ZSTD -> new ZstdInputStream(in);
+            case LZ4 -> new LZ4FrameInputStream(in);
+            case NONE, AUTO -> in;
+        };
+    }
+
+    /**
+     * Wrap a stream to receive compressed bytes
+     *
+     * @param codec Resolved codec of the output
+     * @param out Destination; closed with the returned stream
+     * @param threads Number of blocks compressed at the same time
+     * @param blockSize Uncompressed size of one block
+     * @return A stream that compresses what is written to it, or the destination itself for NONE
+     */
+    public static OutputStream compress(CompressionCodec codec, OutputStream out, int threads, int blockSize) {
+        return switch (codec) {
+            case GZIP -> new ParallelCompressingOutputStream(out, Compression::gzip, threads, blockSize);
+            case ZSTD -> new ParallelCompressingOutputStream(out, Compression::zstd, threads, blockSize);
+            case LZ4 -> new ParallelCompressingOutputStream(out, Compression::lz4, threads, blockSize);
+            case NONE, AUTO -> out;
+        };
+    }
+
+    /**
+     * Create or truncate a file and open it for writing, compressed with the given codec.
+     * Uncompressed files are opened as a file channel, so channel transfers stay zero-copy.
+     */
+    public static WritableByteChannel openForWrite(Path file, CompressionCodec codec, int threads, int blockSize)
+            throws IOException {
+        if (codec == CompressionCodec.NONE || codec == CompressionCodec.AUTO) {
+            return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+        }
+        return Channels.newChannel(compress(codec, Files.newOutputStream(file), threads, blockSize));
+    }
+
+    private static byte[] gzip(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(length / 3 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, GZIP_BUFFER_SIZE)) {
+            gzip.write(data, 0, length);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] zstd(byte[] data, int length) throws IOException {
+        byte[] frame = new byte[(int) Zstd.compressBound(length)];
+        long size = Zstd.compressByteArray(frame, 0, frame.length, data, 0, length, Zstd.defaultCompressionLevel());
+        if (Zstd.isError(size)) {
+            throw new IOException("zstd compression failed: " + Zstd.getErrorName(size));
+        }
+        return Arrays.copyOf(frame, (int) size);
+    }
+
+    private static byte[] lz4(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(length / 2 + 64);
+        try (LZ4FrameOutputStream lz4 = new LZ4FrameOutputStream(buffer, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB)) {
+            lz4.write(data, 0, length);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,76 @@
+package com.student.backend.ingest;
+
+import com.student.backend.exception.DataSourceException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects rows rejected because a field could not be converted to its column type. Rejected rows
+ * are skipped; once more than the allowed number have been rejected the ingest fails.
+ * Shared by all pipeline workers.
+ */
+@Slf4j
+public class ConversionErrors {
+
+    private static final int MAX_VALUE_LENGTH = 64;
+
+    private final long maxErrors;
+    private final int maxSamples;
+    private final AtomicLong rejectedRows = new AtomicLong();
+    private final List<String> samples = new ArrayList<>();
+
+    /**
+     * @param maxErrors Number of rejected rows tolerated before the ingest fails
+     * @param maxSamples Number of error messages kept for the response
+     */
+    public ConversionErrors(long maxErrors, int maxSamples) {
+        this.maxErrors = maxErrors;
+        this.maxSamples = maxSamples;
+    }
+
+    /**
+     * Record a rejected row
+     *
+     * @param block Block holding the row
+     * @param rowIndex Index of the row within the block
+     * @param column Name of the column that failed to convert
+     * @param value Field text
+     * @param cause Parse or range error
+     * @throws DataSourceException if the error limit is exceeded
+     */
+    public void reject(RowBlock block, int rowIndex, String column, String value, RuntimeException cause) {
+        String message = String.format("%s, column %s: cannot convert '%s': %s",
+                block.describeRow(rowIndex), column, abbreviate(value), cause.getMessage());
+        long rejected = rejectedRows.incrementAndGet();
+        synchronized (samples) {
+            if (samples.size() < maxSamples) {
+                samples.add(message);
+            }
+        }
+        log.debug("Rejected row: {}", message);
+        if (rejected > maxErrors) {
+            throw new DataSourceException(String.format(
+                    "Too many conversion errors (more than %d rejected rows); last error: %s", maxErrors, message), cause);
+        }
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows.get();
+    }
+
+    public List<String> getSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    private static String abbreviate(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.length() <= MAX_VALUE_LENGTH ? value : value.substring(0, MAX_VALUE_LENGTH) + "...";
+    }
+}
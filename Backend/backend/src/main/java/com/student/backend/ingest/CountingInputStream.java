@@ -0,0 +1,48 @@
+package com.student.backend.ingest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that reports every byte read to a progress tracker and its metrics.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private final ProgressTracker progress;
+
+    public CountingInputStream(InputStream in, ProgressTracker progress) {
+        super(in);
+        this.progress = progress;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int count = super.read(buffer, offset, length);
+        if (count > 0) {
+            count(count);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    private void count(long bytes) {
+        progress.addBytes(bytes);
+        progress.getMetrics().bytesRead(bytes);
+    }
+}
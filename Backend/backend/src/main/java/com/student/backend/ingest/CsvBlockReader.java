@@ -0,0 +1,142 @@
+package com.student.backend.ingest;
+
+import com.student.backend.exception.DataSourceException;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Pulls records from a CSV parser one block at a time, so only the current block is held in memory.
+ * The reader owns the parser and closes it. Parse time is reported to the progress tracker's
+ * metrics against the bytes its counting stream has read since the last report. The block size
+ * is asked for anew before each block, so an {@link AdaptiveBatchSizer} can change it mid-file.
+ */
+public class CsvBlockReader implements BlockReader {
+
+    private final CSVParser parser;
+    private final Iterator<CSVRecord> records;
+    private final int[] columnIndexes;
+    private final IntSupplier blockSize;
+    private final ProgressTracker progress;
+    private long nextSequence;
+    private long rowsRead;
+    private long reportedBytes;
+    private long pendingParseNanos;
+
+    /**
+     * @param parser Parser over a stream that counts its bytes into the progress tracker
+     * @param columns Columns to extract, in insert order
+     * @param blockSize Rows per block
+     * @param progress Tracker of the transfer, for parse time metrics
+     */
+    public CsvBlockReader(CSVParser parser, List<String> columns, int blockSize, ProgressTracker progress) {
+        this(parser, columns, () -> blockSize, progress, 0, 0);
+    }
+
+    /**
+     * @param parser Parser over a stream that counts its bytes into the progress tracker
+     * @param columns Columns to extract, in insert order
+     * @param blockSize Rows of the next block
+     * @param progress Tracker of the transfer, for parse time metrics
+     */
+    public CsvBlockReader(CSVParser parser, List<String> columns, IntSupplier blockSize, ProgressTracker progress) {
+        this(parser, columns, blockSize, progress, 0, 0);
+    }
+
+    /**
+     * @param parser Parser over a stream that counts its bytes into the progress tracker
+     * @param columns Columns to extract, in insert order
+     * @param blockSize Rows of the next block
+     * @param progress Tracker of the transfer, for parse time metrics
+     * @param skipRows Number of data records an earlier run already ingested; they are parsed but not returned
+     * @param firstSequence Sequence number of the first block returned
+     */
+    public CsvBlockReader(CSVParser parser, List<String> columns, IntSupplier blockSize, ProgressTracker progress,
+                          long skipRows, long firstSequence) {
+        this.parser = parser;
+        this.records = parser.iterator();
+        this.columnIndexes = resolveColumnIndexes(parser.getHeaderMap(), columns);
+        this.blockSize = blockSize;
+        this.progress = progress;
+        this.nextSequence = firstSequence;
+        while (rowsRead < skipRows && records.hasNext()) {
+            records.next();
+            rowsRead++;
+        }
+        this.reportedBytes = progress.getBytes();
+    }
+
+    @Override
+    public RowBlock nextBlock() {
+        long start = System.nanoTime();
+        List<String[]> rows = readRows(records, columnIndexes, blockSize.getAsInt());
+        reportParseTime(System.nanoTime() - start);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        RowBlock block = new RowBlock(nextSequence++, rowsRead + 1, rows);
+        rowsRead += rows.size();
+        return block;
+    }
+
+    /**
+     * The reader fetches input in buffer-sized chunks, so a block may consume no new bytes;
+     * its parse time is carried over until the next chunk is read
+     */
+    private void reportParseTime(long nanos) {
+        pendingParseNanos += nanos;
+        long bytes = progress.getBytes() - reportedBytes;
+        if (bytes > 0) {
+            progress.getMetrics().parsed(bytes, pendingParseNanos);
+            reportedBytes += bytes;
+            pendingParseNanos = 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copy the selected columns of up to blockSize records
+     */
+    static List<String[]> readRows(Iterator<CSVRecord> records, int[] columnIndexes, int blockSize) {
+        List<String[]> rows = new ArrayList<>(blockSize);
+        while (rows.size() < blockSize && records.hasNext()) {
+            CSVRecord record = records.next();
+            String[] row = new String[columnIndexes.length];
+            for (int i = 0; i < columnIndexes.length; i++) {
+                row[i] = record.get(columnIndexes[i]);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Look up header positions once so rows are read by index instead of by name
+     */
+    static int[] resolveColumnIndexes(Map<String, Integer> headerMap, List<String> columns) {
+        int[] indexes = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            Integer index = headerMap.get(columns.get(i));
+            if (index == null) {
+                throw new DataSourceException("Column not found in file header: " + columns.get(i));
+            }
+            indexes[i] = index;
+        }
+        return indexes;
+    }
+}
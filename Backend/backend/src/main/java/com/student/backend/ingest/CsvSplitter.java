@@ -0,0 +1,182 @@
+package com.student.backend.ingest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Splits a delimited file into byte ranges that start and end on record boundaries.
+ * <p>
+ * A newline only ends a record when it is outside a quoted field, and whether a byte is inside
+ * quotes depends on everything before it. To avoid one sequential pass over the whole file,
+ * every chunk is scanned in parallel once for each possible tokenizer state at its start. The
+ * chunks are then stitched together in order: the state at the end of one chunk selects which
+ * of the next chunk's speculative results is the real one.
+ */
+public class CsvSplitter {
+
+    // Tokenizer states, mirroring how Commons CSV treats quotes with the default format
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+    private static final int STATE_COUNT = 4;
+
+    private final FileChannel channel;
+    private final byte delimiter;
+    private final byte quote;
+
+    /**
+     * @param channel Channel of the file to split
+     * @param delimiter Single-byte field delimiter
+     * @param quote Single-byte quote character
+     */
+    public CsvSplitter(FileChannel channel, byte delimiter, byte quote) {
+        this.channel = channel;
+        this.delimiter = delimiter;
+        this.quote = quote;
+    }
+
+    /**
+     * Find the end of the first record (the header) starting at the beginning of the file
+     *
+     * @param end File length
+     * @return Offset just after the header's line break, or end if the file has a single record
+     */
+    public long headerEnd(long end) throws IOException {
+        long chunkSize = Math.min(end, 1 << 20);
+        long position = 0;
+        int state = FIELD_START;
+        while (position < end) {
+            long length = Math.min(chunkSize, end - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' && state != QUOTED) {
+                    return position + i + 1;
+                }
+                state = next(state, b);
+            }
+            position += length;
+        }
+        return end;
+    }
+
+    /**
+     * Split [start, end) into ranges of roughly splitSize bytes aligned to record boundaries.
+     * Ranges end at the first record boundary after each multiple of splitSize, counted from
+     * the start of the file, so splitting again from any range boundary yields the same ranges.
+     *
+     * @param start Offset of the first data record
+     * @param end File length
+     * @param splitSize Target range size in bytes
+     * @param pool Pool running the speculative chunk scans
+     * @return Ranges covering [start, end) in file order
+     */
+    public List<Range> split(long start, long end, long splitSize, ForkJoinPool pool) {
+        List<ForkJoinTask<ChunkScan>> scans = new ArrayList<>();
+        for (long chunkStart = start; chunkStart < end; chunkStart = (chunkStart / splitSize + 1) * splitSize) {
+            long chunkEnd = Math.min(end, (chunkStart / splitSize + 1) * splitSize);
+            long from = chunkStart;
+            scans.add(pool.submit(() -> scan(from, chunkEnd)));
+        }
+
+        List<Range> ranges = new ArrayList<>();
+        long rangeStart = start;
+        int state = FIELD_START;
+        for (int i = 0; i < scans.size(); i++) {
+            ChunkScan scan = scans.get(i).join();
+            long boundary = scan.firstBoundary[state];
+            // Close a range at the first boundary after each multiple of splitSize; a first chunk
+            // that starts between two multiples already starts on a boundary
+            boolean onGrid = i > 0 || start % splitSize == 0;
+            if (onGrid && boundary > rangeStart && boundary < end) {
+                ranges.add(new Range(rangeStart, boundary));
+                rangeStart = boundary;
+            }
+            state = scan.endState[state];
+        }
+        if (rangeStart < end) {
+            ranges.add(new Range(rangeStart, end));
+        }
+        return ranges;
+    }
+
+    /**
+     * Scan one chunk for every possible starting state at once. The states usually converge
+     * within a few bytes, after which the rest of the chunk is scanned with a single state.
+     */
+    private ChunkScan scan(long chunkStart, long chunkEnd) {
+        ChunkScan result = new ChunkScan();
+        int[] states = {FIELD_START, UNQUOTED, QUOTED, QUOTE_IN_QUOTED};
+        long[] firstBoundary = {-1, -1, -1, -1};
+
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int length = (int) (chunkEnd - chunkStart);
+        int i = 0;
+        boolean converged = false;
+        for (; i < length && !converged; i++) {
+            byte b = buffer.get(i);
+            converged = true;
+            for (int s = 0; s < STATE_COUNT; s++) {
+                if (b == '\n' && states[s] != QUOTED && firstBoundary[s] < 0) {
+                    firstBoundary[s] = chunkStart + i + 1;
+                }
+                states[s] = next(states[s], b);
+                converged &= states[s] == states[0] && (firstBoundary[s] >= 0) == (firstBoundary[0] >= 0);
+            }
+        }
+
+        // Single-state scan for the remainder of the chunk
+        int state = states[0];
+        long boundary = firstBoundary[0];
+        for (; i < length; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n' && state != QUOTED && boundary < 0) {
+                boundary = chunkStart + i + 1;
+            }
+            state = next(state, b);
+        }
+        for (int s = 0; s < STATE_COUNT; s++) {
+            result.endState[s] = converged ? state : states[s];
+            result.firstBoundary[s] = converged && firstBoundary[s] < 0 ? boundary : firstBoundary[s];
+        }
+        return result;
+    }
+
+    private int next(int state, byte b) {
+        boolean lineBreak = b == '\n' || b == '\r';
+        return switch (state) {
+            case FIELD_START -> b == quote ? QUOTED : (b == delimiter || lineBreak) ? FIELD_START : UNQUOTED;
+            case UNQUOTED -> (b == delimiter || lineBreak) ? FIELD_START : UNQUOTED;
+            case QUOTED -> b == quote ? QUOTE_IN_QUOTED : QUOTED;
+            // A second quote is an escaped quote; anything else closed the quoted field
+            default -> b == quote ? QUOTED : (b == delimiter || lineBreak) ? FIELD_START : UNQUOTED;
+        };
+    }
+
+    private static class ChunkScan {
+        final int[] endState = new int[STATE_COUNT];
+        final long[] firstBoundary = new long[STATE_COUNT];
+    }
+
+    /**
+     * Byte range [start, end) of the file holding whole records
+     */
+    public record Range(long start, long end) {
+        public long length() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.student.backend.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Byte-level tokenizer for UTF-8 delimited text, parsing exactly as Commons CSV does with
+ * {@code CSVFormat.DEFAULT} and a single-byte delimiter:
+ * <ul>
+ *   <li>A record ends at LF, CR or CRLF outside quotes, or at the end of the input</li>
+ *   <li>Empty lines between records are skipped</li>
+ *   <li>A field is quoted only if it starts with a double quote; inside it a doubled quote stands
+ *   for one quote, and delimiters and line breaks are data. Only whitespace may follow the
+ *   closing quote before the next delimiter or line break</li>
+ *   <li>Quotes inside an unquoted field, and surrounding spaces, are kept as they are</li>
+ *   <li>A delimiter at the very end of the input ends the record with an empty field</li>
+ * </ul>
+ * Input is read into one reusable buffer, and the unquoted bytes of the current record's fields
+ * are copied into another, so parsing allocates no object per record or field. Fields are
+ * exposed as offsets into {@link #fieldBytes()}, valid until the next call to {@link #next()}.
+ * UTF-8 never encodes other characters with bytes below 0x80, so splitting bytes gives the same
+ * fields as splitting decoded characters.
+ */
+public class CsvTokenizer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int EOF = -1;
+    private static final byte QUOTE = '"';
+
+    // How a field ended
+    private static final int DELIMITER = 0;
+    private static final int END_OF_LINE = 1;
+    private static final int END_OF_INPUT = 2;
+
+    private final InputStream in;
+    private final byte delimiter;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean exhausted;
+
+    private byte[] fields = new byte[1024];
+    private int length;
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+    private long lineNumber = 1;
+    private long recordLineNumber;
+
+    /**
+     * @param in UTF-8 input, read in chunks of 64 KB; not closed by the tokenizer
+     * @param delimiter Field delimiter, an ASCII character other than a quote or line break
+     * @throws IllegalArgumentException if the delimiter is not a valid single byte delimiter
+     */
+    public CsvTokenizer(InputStream in, char delimiter) {
+        if (delimiter >= 0x80 || delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Delimiter " + delimiter + " cannot be tokenized as a single byte");
+        }
+        this.in = in;
+        this.delimiter = (byte) delimiter;
+    }
+
+    /**
+     * Read the next record
+     *
+     * @return false at the end of the input
+     * @throws IOException if the input cannot be read, a quoted field is not closed, or a closing
+     *                     quote is followed by anything but whitespace, a delimiter or a line break
+     */
+    public boolean next() throws IOException {
+        fieldCount = 0;
+        length = 0;
+        int c = peek();
+        while (c == '\n' || c == '\r') {
+            skipLineBreak();
+            c = peek();
+        }
+        if (c == EOF) {
+            return false;
+        }
+        recordLineNumber = lineNumber;
+        while (true) {
+            int end = peek() == QUOTE ? readQuoted() : readUnquoted();
+            endField();
+            if (end != DELIMITER) {
+                return true;
+            }
+        }
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Bytes of the current record's fields, without quotes; overwritten by the next record
+     */
+    public byte[] fieldBytes() {
+        return fields;
+    }
+
+    /**
+     * Offset of field {@code index} in {@link #fieldBytes()}
+     */
+    public int fieldStart(int index) {
+        return index == 0 ? 0 : fieldEnds[index - 1];
+    }
+
+    /**
+     * Offset just after field {@code index} in {@link #fieldBytes()}
+     */
+    public int fieldEnd(int index) {
+        return fieldEnds[index];
+    }
+
+    /**
+     * Field {@code index} decoded as a String
+     */
+    public String field(int index) {
+        int start = fieldStart(index);
+        return new String(fields, start, fieldEnds[index] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * All fields of the current record decoded as Strings
+     */
+    public String[] fieldValues() {
+        String[] values = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            values[i] = field(i);
+        }
+        return values;
+    }
+
+    /**
+     * One-based line of the input the current record starts on
+     */
+    public long getRecordLineNumber() {
+        return recordLineNumber;
+    }
+
+    /**
+     * Copy the bytes of an unquoted field up to the delimiter or line break that ends it
+     */
+    private int readUnquoted() throws IOException {
+        while (true) {
+            int start = position;
+            for (int i = start; i < limit; i++) {
+                byte b = buffer[i];
+                if (b == delimiter) {
+                    append(start, i);
+                    position = i + 1;
+                    return DELIMITER;
+                }
+                if (b == '\n' || b == '\r') {
+                    append(start, i);
+                    position = i;
+                    skipLineBreak();
+                    return END_OF_LINE;
+                }
+            }
+            append(start, limit);
+            position = limit;
+            if (!fill()) {
+                return END_OF_INPUT;
+            }
+        }
+    }
+
+    /**
+     * Copy the content of a quoted field, starting at its opening quote, then check what follows
+     * the closing quote
+     */
+    private int readQuoted() throws IOException {
+        long startLineNumber = lineNumber;
+        position++;
+        while (true) {
+            int start = position;
+            int i = start;
+            while (i < limit && buffer[i] != QUOTE) {
+                if (buffer[i] == '\n' || buffer[i] == '\r' && (i + 1 == limit || buffer[i + 1] != '\n')) {
+                    lineNumber++;
+                }
+                i++;
+            }
+            append(start, i);
+            position = i;
+            if (i == limit) {
+                if (!fill()) {
+                    throw new IOException("(startline " + startLineNumber
+                            + ") EOF reached before encapsulated token finished");
+                }
+                continue;
+            }
+            position++;
+            if (peek() == QUOTE) {
+                // A doubled quote is one quote of the value
+                position++;
+                appendByte(QUOTE);
+                continue;
+            }
+            return afterClosingQuote();
+        }
+    }
+
+    private int afterClosingQuote() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == delimiter) {
+                return DELIMITER;
+            }
+            if (c == EOF) {
+                return END_OF_INPUT;
+            }
+            if (c == '\n' || c == '\r') {
+                position--;
+                skipLineBreak();
+                return END_OF_LINE;
+            }
+            if (!isWhitespace(c)) {
+                throw new IOException("(line " + lineNumber
+                        + ") invalid char between encapsulated token and delimiter");
+            }
+        }
+    }
+
+    /**
+     * Whether the character starting with this byte is whitespace to Java. The only non-ASCII
+     * whitespace characters are three bytes long in UTF-8.
+     */
+    private boolean isWhitespace(int c) throws IOException {
+        if (c < 0x80) {
+            return Character.isWhitespace((char) c);
+        }
+        if ((c & 0xF0) != 0xE0) {
+            return false;
+        }
+        int second = read();
+        int third = read();
+        if ((second & 0xC0) != 0x80 || (third & 0xC0) != 0x80) {
+            return false;
+        }
+        return Character.isWhitespace((char) ((c & 0x0F) << 12 | (second & 0x3F) << 6 | (third & 0x3F)));
+    }
+
+    /**
+     * Consume a line break at the current position: LF, CR, or CR followed by LF
+     */
+    private void skipLineBreak() throws IOException {
+        if (read() == '\r' && peek() == '\n') {
+            position++;
+        }
+        lineNumber++;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    /**
+     * Refill the buffer once everything in it has been consumed
+     *
+     * @return false at the end of the input
+     */
+    private boolean fill() throws IOException {
+        if (exhausted) {
+            return false;
+        }
+        int read;
+        do {
+            read = in.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            exhausted = true;
+            position = 0;
+            limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private void append(int start, int end) {
+        int count = end - start;
+        if (count == 0) {
+            return;
+        }
+        ensureCapacity(count);
+        System.arraycopy(buffer, start, fields, length, count);
+        length += count;
+    }
+
+    private void appendByte(byte b) {
+        ensureCapacity(1);
+        fields[length++] = b;
+    }
+
+    private void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldEnds[fieldCount++] = length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > fields.length) {
+            fields = Arrays.copyOf(fields, Math.max(fields.length * 2, length + extra));
+        }
+    }
+}
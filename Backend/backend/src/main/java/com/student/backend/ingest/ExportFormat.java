@@ -0,0 +1,58 @@
+package com.student.backend.ingest;
+
+import com.student.backend.exception.ConfigurationException;
+import com.student.backend.model.FileFormat;
+
+import java.util.Map;
+
+/**
+ * ClickHouse output format of an export file. Delimited text is TSV for a tab, otherwise CSV
+ * with the delimiter passed as format_csv_delimiter; Parquet and Arrow files are written by
+ * ClickHouse's own columnar writers.
+ *
+ * @param name Format name without the WithNames suffix, e.g. "CSV", "TSV" or "Parquet"
+ * @param csvQuoting Whether fields are quoted with double quotes
+ * @param fileFormat Flat file format written: CSV for delimited text, PARQUET or ARROW
+ * @param settings ClickHouse settings selecting the delimiter, or the layout of a columnar file
+ */
+public record ExportFormat(String name, boolean csvQuoting, FileFormat fileFormat, Map<String, String> settings) {
+
+    /**
+     * @throws ConfigurationException if the delimiter is not a single ASCII character
+     */
+    public static ExportFormat forDelimiter(String delimiter) {
+        if (delimiter == null || delimiter.length() != 1 || delimiter.charAt(0) > 0x7F) {
+            throw new ConfigurationException("Server-formatted export requires a single ASCII delimiter character");
+        }
+        if (delimiter.charAt(0) == '\t') {
+            return new ExportFormat("TSV", false, FileFormat.CSV, Map.of());
+        }
+        return new ExportFormat("CSV", true, FileFormat.CSV, Map.of("format_csv_delimiter", delimiter));
+    }
+
+    /**
+     * @param fileFormat PARQUET or ARROW
+     * @param settings ClickHouse output settings of the format, such as row group size and compression
+     */
+    public static ExportFormat forColumnarFile(FileFormat fileFormat, Map<String, String> settings) {
+        if (!fileFormat.isColumnar()) {
+            throw new IllegalArgumentException(fileFormat + " is not a columnar file format");
+        }
+        return new ExportFormat(fileFormat.getClickHouseFormat(), false, fileFormat, Map.copyOf(settings));
+    }
+
+    /**
+     * Whether the format is a binary columnar file, which has no header line and cannot be
+     * concatenated with another file of the same format
+     */
+    public boolean columnar() {
+        return fileFormat.isColumnar();
+    }
+
+    /**
+     * Format name, with a header line of column names if requested; columnar files always carry their schema
+     */
+    public String formatName(boolean withNames) {
+        return withNames && !columnar() ? name + "WithNames" : name;
+    }
+}
@@ -0,0 +1,168 @@
+package com.student.backend.ingest;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * HTTP body subscriber that copies the response bytes into a file channel (or a compressing
+ * channel in front of the file) through one large direct buffer, so the body is never decoded or turned into per-row objects. Optionally counts
+ * record terminators while copying, for servers that do not report the result row count.
+ * The last bytes of the body are kept, since that is where ClickHouse writes an exception that
+ * stops a query after the response headers were sent.
+ */
+class FileChannelBodySubscriber implements HttpResponse.BodySubscriber<Long> {
+
+    private static final int TAIL_SIZE = 8 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final RecordCounter counter;
+    private final ProgressTracker progress;
+    private final CompletableFuture<Long> result = new CompletableFuture<>();
+    private final byte[] tail = new byte[TAIL_SIZE];
+    private int tailLength;
+    private Flow.Subscription subscription;
+    private long bytes;
+
+    /**
+     * @param channel Destination, written from its current position
+     * @param bufferSize Size of the direct buffer
+     * @param counter Counts records in the body, or null when the count is not needed
+     * @param progress Receives the bytes copied; cancelling it aborts the download
+     */
+    FileChannelBodySubscriber(WritableByteChannel channel, int bufferSize, RecordCounter counter, ProgressTracker progress) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.counter = counter;
+        this.progress = progress;
+    }
+
+    @Override
+    public CompletionStage<Long> getBody() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        if (progress.isCancelled()) {
+            subscription.cancel();
+            result.completeExceptionally(new CancellationException("Export was cancelled"));
+            return;
+        }
+        try {
+            for (ByteBuffer item : items) {
+                progress.addBytes(item.remaining());
+                progress.getMetrics().bytesRead(item.remaining());
+                progress.getMetrics().bytesWritten(item.remaining());
+                if (counter != null) {
+                    counter.scan(item);
+                }
+                keepTail(item);
+                bytes += item.remaining();
+                while (item.hasRemaining()) {
+                    if (!buffer.hasRemaining()) {
+                        flush();
+                    }
+                    if (item.remaining() <= buffer.remaining()) {
+                        buffer.put(item);
+                    } else {
+                        ByteBuffer part = item.slice();
+                        part.limit(buffer.remaining());
+                        buffer.put(part);
+                        item.position(item.position() + part.limit());
+                    }
+                }
+            }
+            subscription.request(1);
+        } catch (IOException e) {
+            subscription.cancel();
+            result.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            flush();
+            result.complete(bytes);
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Last bytes of the body copied so far, decoded as UTF-8
+     */
+    String tail() {
+        return new String(tail, 0, tailLength, StandardCharsets.UTF_8);
+    }
+
+    private void keepTail(ByteBuffer item) {
+        int length = Math.min(item.remaining(), TAIL_SIZE);
+        int keep = Math.min(tailLength, TAIL_SIZE - length);
+        System.arraycopy(tail, tailLength - keep, tail, 0, keep);
+        item.get(item.limit() - length, tail, keep, length);
+        tailLength = keep + length;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Counts line feeds that end a record. In CSV, line feeds inside double quotes belong to
+     * a field; TSV escapes them, so every line feed ends a record.
+     */
+    static class RecordCounter {
+
+        private final boolean csvQuoting;
+        private boolean inQuotes;
+        private long records;
+
+        RecordCounter(boolean csvQuoting) {
+            this.csvQuoting = csvQuoting;
+        }
+
+        /**
+         * Scan the remaining bytes without moving the buffer position
+         */
+        void scan(ByteBuffer data) {
+            for (int i = data.position(); i < data.limit(); i++) {
+                byte b = data.get(i);
+                if (csvQuoting && b == '"') {
+                    // An escaped quote ("") toggles twice and leaves the state unchanged
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    records++;
+                }
+            }
+        }
+
+        long getRecords() {
+            return records;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.student.backend.ingest;
+
+import com.student.backend.model.FileStatus;
+
+/**
+ * Progress of one file of a multi-file ingest. The file's rows and bytes are counted by its own
+ * tracker, which adds them to the tracker of the whole ingest as well.
+ */
+public class FileProgress {
+
+    private final String fileName;
+    private final long sizeBytes;
+    private final ProgressTracker progress;
+    private volatile FileStatus status = FileStatus.QUEUED;
+    private volatile long recordsCount;
+    private volatile String error;
+
+    FileProgress(String fileName, long sizeBytes, ProgressTracker progress) {
+        this.fileName = fileName;
+        this.sizeBytes = sizeBytes;
+        this.progress = progress;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public ProgressTracker getProgress() {
+        return progress;
+    }
+
+    public FileStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Rows inserted from the file, once it has succeeded
+     */
+    public long getRecordsCount() {
+        return recordsCount;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void start() {
+        status = FileStatus.RUNNING;
+    }
+
+    public void skip() {
+        status = FileStatus.SKIPPED;
+    }
+
+    public void succeed(long recordsCount) {
+        this.recordsCount = recordsCount;
+        status = FileStatus.SUCCEEDED;
+    }
+
+    public void fail(Throwable cause) {
+        // Cancellation surfaces as whatever the interrupted stage threw
+        if (progress.isCancelled()) {
+            status = FileStatus.CANCELLED;
+        } else {
+            error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+            status = FileStatus.FAILED;
+        }
+    }
+}
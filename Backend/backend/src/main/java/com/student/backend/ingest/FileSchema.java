@@ -0,0 +1,50 @@
+package com.student.backend.ingest;
+
+import com.student.backend.model.FileFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Columns and row count of a Parquet or Arrow IPC file, read from the metadata at the end of
+ * the file without touching any column data.
+ *
+ * @param columns Top-level column names, in file order; nested groups count as one column
+ * @param types ClickHouse type each column is read as, following ClickHouse's mapping of the
+ *              format's types; null for nested columns and types without a plain equivalent
+ * @param rows Number of rows, or -1 if the file does not record it
+ */
+public record FileSchema(List<String> columns, List<String> types, long rows) {
+
+    /**
+     * @param file Uncompressed Parquet or Arrow file
+     * @param format PARQUET or ARROW
+     * @throws IOException if the file cannot be read or is not a valid file of the format
+     */
+    public static FileSchema read(Path file, FileFormat format) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return switch (format) {
+                case PARQUET -> ParquetFooter.read(channel);
+                case ARROW -> ArrowFooter.read(channel);
+                default -> throw new IllegalArgumentException(format + " files have no footer schema");
+            };
+        }
+    }
+
+    /**
+     * Read {@code length} bytes at {@code position} into a little-endian buffer
+     */
+    static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        return buffer.flip();
+    }
+}
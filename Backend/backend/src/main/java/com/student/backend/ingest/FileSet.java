@@ -0,0 +1,98 @@
+package com.student.backend.ingest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The files a flat file source names: a single file, every file of a directory, or the files
+ * matching a glob pattern such as {@code /data/2024-05-01/*.csv.gz}. Files are returned in path
+ * order, so an ingest of the same set always visits them alike.
+ */
+public final class FileSet {
+
+    private static final String WILDCARDS = "*?[{";
+
+    private FileSet() {
+    }
+
+    /**
+     * Whether a file name is a directory or a glob pattern rather than one file. An existing
+     * file is taken literally even if its name contains a wildcard character.
+     */
+    public static boolean isPattern(String fileName) {
+        if (fileName == null || fileName.isEmpty()) {
+            return false;
+        }
+        File file = new File(fileName);
+        if (file.isFile()) {
+            return false;
+        }
+        return file.isDirectory() || wildcardIndex(fileName) >= 0;
+    }
+
+    /**
+     * Regular files named by a directory or glob pattern. A directory gives the files directly in
+     * it, leaving out hidden files such as the temporary files of a copy still in progress. A
+     * pattern is matched below the directory before its first wildcard; only {@code **} crosses
+     * directories.
+     *
+     * @return Matching files in path order; empty if nothing matches or the directory does not exist
+     * @throws IOException if a directory cannot be listed
+     */
+    public static List<Path> resolve(String fileName) throws IOException {
+        File directory = new File(fileName);
+        if (directory.isDirectory()) {
+            try (Stream<Path> paths = Files.list(directory.toPath())) {
+                return paths.filter(Files::isRegularFile)
+                        .filter(path -> !path.getFileName().toString().startsWith("."))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+
+        String pattern = fileName.replace(File.separatorChar, '/');
+        int wildcard = wildcardIndex(pattern);
+        if (wildcard < 0) {
+            return directory.isFile() ? List.of(directory.toPath()) : List.of();
+        }
+        int slash = pattern.lastIndexOf('/', wildcard);
+        Path base = Paths.get(slash < 0 ? "." : slash == 0 ? "/" : pattern.substring(0, slash));
+        String glob = pattern.substring(slash + 1);
+        if (!Files.isDirectory(base)) {
+            return List.of();
+        }
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        int depth = glob.contains("**") ? Integer.MAX_VALUE : (int) glob.chars().filter(c -> c == '/').count() + 1;
+        try (Stream<Path> paths = Files.walk(base, depth)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(base.relativize(path)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Total size in bytes of the files
+     */
+    public static long totalBytes(List<Path> files) {
+        return files.stream().mapToLong(path -> path.toFile().length()).sum();
+    }
+
+    private static int wildcardIndex(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (WILDCARDS.indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
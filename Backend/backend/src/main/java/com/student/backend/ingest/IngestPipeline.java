@@ -0,0 +1,317 @@
+package com.student.backend.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Staged file-to-ClickHouse pipeline:
+ * <pre>
+ *   reader (1 thread) -> row queue -> converters (N threads) -> payload queue -> inserters (M threads)
+ * </pre>
+ * Both queues are bounded, so a slow stage applies back-pressure to the stages before it and
+ * the number of rows held in memory stays independent of the file size. Every inserter opens
+ * its own sink and therefore its own ClickHouse connection. The first failure in any stage
+ * cancels all other stages, including inserts that are in flight; so does cancelling the
+ * progress tracker. Rows read, rows and bytes written and insert latency are reported to the
+ * tracker's metrics. With a {@link CheckpointTracker}, every block is inserted with its
+ * deduplication token and reported to the tracker once the insert has returned. With an
+ * {@link AdaptiveBatchSizer}, every block read and every insert is reported to the sizer, and an
+ * insert rejected with TOO_MANY_PARTS is retried with the same payload after the sizer's backoff.
+ *
+ * @param <P> Payload type passed from the converters to the inserters
+ */
+@Slf4j
+public class IngestPipeline<P> {
+
+    private static final RowBlock END_OF_INPUT = new RowBlock(-1, 0, List.of());
+    private static final AtomicInteger PIPELINE_IDS = new AtomicInteger();
+
+    private final BlockReader reader;
+    private final BlockEncoder<P> encoder;
+    private final BlockSinkFactory<P> sinkFactory;
+    private final int converterThreads;
+    private final int insertThreads;
+    private final ProgressTracker progress;
+    private final CheckpointTracker checkpoints;
+    private final AdaptiveBatchSizer batchSizer;
+
+    private final BlockingQueue<RowBlock> rowQueue;
+    private final BlockingQueue<Batch<P>> payloadQueue;
+    private final Batch<P> endOfBatches = new Batch<>(END_OF_INPUT.getPosition(), null);
+    private final AtomicInteger activeConverters;
+
+    private final List<BlockSink<P>> openSinks = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicLong bufferedRows = new AtomicLong();
+    private final AtomicLong peakBufferedRows = new AtomicLong();
+    private final AtomicLong writtenRows = new AtomicLong();
+    private final AtomicLong writtenBlocks = new AtomicLong();
+
+    private ExecutorService executor;
+
+    /**
+     * @param reader Source of row blocks
+     * @param encoder Converts row blocks into insert payloads
+     * @param sinkFactory Opens one sink per insert worker
+     * @param converterThreads Number of converter workers
+     * @param insertThreads Number of insert workers
+     * @param queueCapacity Capacity of each of the two queues, in blocks
+     * @param progress Receives the rows written and metrics, and is checked for cancellation
+     * @param checkpoints Receives every committed block and supplies its deduplication token; null for none
+     * @param batchSizer Measures blocks and inserts and decides on TOO_MANY_PARTS retries; null for none
+     */
+    public IngestPipeline(BlockReader reader, BlockEncoder<P> encoder, BlockSinkFactory<P> sinkFactory,
+                          int converterThreads, int insertThreads, int queueCapacity, ProgressTracker progress,
+                          CheckpointTracker checkpoints, AdaptiveBatchSizer batchSizer) {
+        this.reader = reader;
+        this.encoder = encoder;
+        this.sinkFactory = sinkFactory;
+        this.converterThreads = Math.max(1, converterThreads);
+        this.insertThreads = Math.max(1, insertThreads);
+        this.rowQueue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.payloadQueue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.activeConverters = new AtomicInteger(this.converterThreads);
+        this.progress = progress;
+        this.checkpoints = checkpoints;
+        this.batchSizer = batchSizer;
+    }
+
+    /**
+     * Run the pipeline until the reader is exhausted and every block has been written
+     *
+     * @return Totals for the completed run
+     */
+    public Result run() throws IOException, SQLException {
+        executor = Executors.newFixedThreadPool(1 + converterThreads + insertThreads,
+                threadFactory("ingest-" + PIPELINE_IDS.incrementAndGet()));
+        try {
+            startStages();
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // A stage blocked on a full queue would not see the flag, so the coordinator stops it too
+                if (progress.isCancelled()) {
+                    fail(new CancellationException("Ingest was cancelled"));
+                }
+                log.debug("Pipeline progress: {} rows in {} blocks written, {} rows buffered",
+                        writtenRows.get(), writtenBlocks.get(), bufferedRows.get());
+            }
+        } catch (InterruptedException e) {
+            fail(e);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while ingesting");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        rethrowFailure();
+        return new Result(writtenRows.get(), writtenBlocks.get(), peakBufferedRows.get());
+    }
+
+    private void startStages() {
+        try {
+            executor.execute(guard(this::readLoop));
+            for (int i = 0; i < converterThreads; i++) {
+                executor.execute(guard(this::convertLoop));
+            }
+            for (int i = 0; i < insertThreads; i++) {
+                executor.execute(guard(this::insertLoop));
+            }
+        } catch (RejectedExecutionException e) {
+            // A stage that already started has failed and shut the executor down
+            if (failure.get() == null) {
+                throw e;
+            }
+        }
+    }
+
+    private void readLoop() throws InterruptedException {
+        RowBlock block;
+        while ((block = reader.nextBlock()) != null) {
+            progress.checkCancelled();
+            progress.getMetrics().rowsRead(block.size());
+            if (batchSizer != null) {
+                batchSizer.blockRead(block);
+            }
+            long buffered = bufferedRows.addAndGet(block.size());
+            peakBufferedRows.accumulateAndGet(buffered, Math::max);
+            rowQueue.put(block);
+        }
+        for (int i = 0; i < converterThreads; i++) {
+            rowQueue.put(END_OF_INPUT);
+        }
+    }
+
+    private void convertLoop() throws InterruptedException {
+        while (true) {
+            RowBlock block = rowQueue.take();
+            if (block == END_OF_INPUT) {
+                break;
+            }
+            payloadQueue.put(new Batch<>(block.getPosition(), encoder.encode(block)));
+        }
+
+        // The last converter to finish tells every inserter that no more batches are coming
+        if (activeConverters.decrementAndGet() == 0) {
+            for (int i = 0; i < insertThreads; i++) {
+                payloadQueue.put(endOfBatches);
+            }
+        }
+    }
+
+    private void insertLoop() throws IOException, SQLException, InterruptedException {
+        try (BlockSink<P> sink = sinkFactory.open()) {
+            openSinks.add(sink);
+            try {
+                while (true) {
+                    Batch<P> batch = payloadQueue.take();
+                    if (batch == endOfBatches) {
+                        return;
+                    }
+                    BlockPosition position = batch.position();
+                    int rowCount = position.rows();
+                    int sentRows = 0;
+                    // Checkpointed readers hand out empty blocks too, so every byte range gets committed
+                    if (rowCount > 0) {
+                        long start = System.nanoTime();
+                        String token = checkpoints != null ? checkpoints.deduplicationToken(position) : null;
+                        BlockSink.Written written = write(sink, batch, token);
+                        long nanos = System.nanoTime() - start;
+                        if (batchSizer != null) {
+                            batchSizer.blockInserted(rowCount, nanos);
+                        }
+                        // Rows rejected by the encoder or the sink are counted by ConversionErrors, not here
+                        sentRows = written.rows();
+                        TransferMetrics metrics = progress.getMetrics();
+                        if (sentRows > 0) {
+                            metrics.batchWritten(sentRows, nanos);
+                            metrics.rowsWritten(sentRows);
+                        }
+                        if (written.bytes() >= 0) {
+                            metrics.bytesWritten(written.bytes());
+                        }
+                        writtenRows.addAndGet(sentRows);
+                        progress.addRows(sentRows);
+                        writtenBlocks.incrementAndGet();
+                        bufferedRows.addAndGet(-rowCount);
+                        log.debug("Wrote block {} with {} of {} rows", position.sequence(), sentRows, rowCount);
+                    }
+                    if (checkpoints != null) {
+                        checkpoints.committed(position, rowCount - sentRows);
+                    }
+                }
+            } finally {
+                openSinks.remove(sink);
+            }
+        }
+    }
+
+    /**
+     * Write a batch, retrying it while the sizer allows when the server rejects it with TOO_MANY_PARTS.
+     * The rejected insert wrote nothing, so sending the same payload again cannot duplicate rows.
+     */
+    private BlockSink.Written write(BlockSink<P> sink, Batch<P> batch, String token)
+            throws IOException, SQLException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return sink.write(batch.payload(), token);
+            } catch (IOException | SQLException e) {
+                long backoff = batchSizer != null && AdaptiveBatchSizer.isTooManyParts(e)
+                        ? batchSizer.tooManyParts(batch.position().rows(), attempt) : -1;
+                if (backoff < 0) {
+                    throw e;
+                }
+                log.warn("Insert of block {} rejected with TOO_MANY_PARTS, retrying in {} ms with larger blocks",
+                        batch.position().sequence(), backoff);
+                Thread.sleep(backoff);
+                progress.checkCancelled();
+            }
+        }
+    }
+
+    /**
+     * Record the first failure and stop every stage
+     */
+    private void fail(Throwable t) {
+        if (failure.compareAndSet(null, t)) {
+            log.error("Ingest pipeline failed, cancelling all stages: {}", t.toString());
+            openSinks.forEach(BlockSink::cancel);
+            executor.shutdownNow();
+        }
+    }
+
+    private Runnable guard(Stage stage) {
+        return () -> {
+            try {
+                stage.run();
+            } catch (Throwable t) {
+                fail(t);
+            }
+        };
+    }
+
+    private void rethrowFailure() throws IOException, SQLException {
+        Throwable cause = failure.get();
+        if (cause == null) {
+            return;
+        }
+        if (cause instanceof UncheckedIOException unchecked) {
+            cause = unchecked.getCause();
+        }
+        if (cause instanceof SQLException sqlException) {
+            throw sqlException;
+        }
+        if (cause instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        if (cause instanceof InterruptedException) {
+            throw new InterruptedIOException("Ingest was interrupted");
+        }
+        throw new IOException("Ingest failed: " + cause.getMessage(), cause);
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private record Batch<P>(BlockPosition position, P payload) {
+    }
+
+    /**
+     * Outcome of a pipeline run; rows written leave out rows rejected for conversion errors
+     */
+    public record Result(long rowsWritten, long blocksWritten, long peakBufferedRows) {
+    }
+}
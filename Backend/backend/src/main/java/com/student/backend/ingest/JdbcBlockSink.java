@@ -0,0 +1,158 @@
+package com.student.backend.ingest;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Block sink that binds rows to a JDBC prepared INSERT and sends each block with executeBatch.
+ * Values are bound with the typed setter of their column type; rows with a field that cannot be
+ * converted are left out of the batch and reported to {@link ConversionErrors}.
+ * A block with a deduplication token is sent through its own statement, whose SQL carries the
+ * token in a SETTINGS clause. When executeBatch fails, the block's rows stay bound, so writing the
+ * same block again retries the batch without converting its rows, and reporting their errors, twice.
+ * The sink owns its connection and closes it together with the statement.
+ */
+public class JdbcBlockSink implements BlockSink<RowBlock> {
+
+    private final Connection connection;
+    private final String insertSql;
+    private final PreparedStatement statement;
+    private final List<String> columns;
+    private final ColumnConverter[] converters;
+    private final ConversionErrors errors;
+    private volatile PreparedStatement current;
+    private RowBlock failedBlock;
+    private PreparedStatement failedStatement;
+    private int failedRows;
+
+    public JdbcBlockSink(Connection connection, String insertSql, List<String> columns,
+                         List<ColumnConverter> converters, ConversionErrors errors) throws SQLException {
+        this.connection = connection;
+        this.insertSql = insertSql;
+        try {
+            this.statement = connection.prepareStatement(insertSql);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        this.columns = columns;
+        this.converters = converters.toArray(new ColumnConverter[0]);
+        this.errors = errors;
+    }
+
+    @Override
+    public Written write(RowBlock block, String deduplicationToken) throws SQLException {
+        PreparedStatement target;
+        int batched;
+        if (block == failedBlock) {
+            target = failedStatement;
+            batched = failedRows;
+        } else {
+            discardFailedBatch();
+            if (deduplicationToken == null) {
+                target = statement;
+            } else {
+                // The token is a hex digest, so it can be inlined without escaping
+                target = connection.prepareStatement(insertSql.replaceFirst(" VALUES ",
+                        " SETTINGS insert_deduplication_token = '" + deduplicationToken + "' VALUES "));
+            }
+            batched = bindBatch(target, block);
+            if (batched == 0) {
+                release(target);
+                return Written.NOTHING;
+            }
+        }
+        current = target;
+        try {
+            target.executeBatch();
+        } catch (SQLException e) {
+            failedBlock = block;
+            failedStatement = target;
+            failedRows = batched;
+            throw e;
+        }
+        failedBlock = null;
+        failedStatement = null;
+        release(target);
+        // The driver serializes the batch internally and does not report its size
+        return new Written(batched, -1);
+    }
+
+    /**
+     * @return Number of rows added to the batch
+     */
+    private int bindBatch(PreparedStatement statement, RowBlock block) throws SQLException {
+        List<String[]> rows = block.getRows();
+        int batched = 0;
+        for (int r = 0; r < rows.size(); r++) {
+            String[] row = rows.get(r);
+            if (bindRow(statement, block, r, row)) {
+                statement.addBatch();
+                batched++;
+            }
+        }
+        return batched;
+    }
+
+    /**
+     * Clear the shared statement's batch, or close a statement prepared for one token
+     */
+    private void release(PreparedStatement target) throws SQLException {
+        if (target == statement) {
+            statement.clearBatch();
+        } else {
+            target.close();
+        }
+    }
+
+    private void discardFailedBatch() throws SQLException {
+        if (failedStatement != null) {
+            PreparedStatement discarded = failedStatement;
+            failedBlock = null;
+            failedStatement = null;
+            release(discarded);
+        }
+    }
+
+    /**
+     * Bind every field of the row; the next row overwrites all parameters, so a rejected row needs no cleanup
+     */
+    private boolean bindRow(PreparedStatement statement, RowBlock block, int rowIndex, String[] row)
+            throws SQLException {
+        for (int c = 0; c < converters.length; c++) {
+            try {
+                converters[c].bind(statement, c + 1, row[c]);
+            } catch (RuntimeException e) {
+                errors.reject(block, rowIndex, columns.get(c), row[c], e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void cancel() {
+        try {
+            PreparedStatement running = current;
+            if (running != null) {
+                running.cancel();
+            }
+        } catch (SQLException e) {
+            // Best effort: the connection is closed right after anyway
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (failedStatement != null && failedStatement != statement) {
+                failedStatement.close();
+            }
+            statement.close();
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.student.backend.ingest;
+
+import com.student.backend.exception.DataSourceException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+
+/**
+ * Block reader that memory-maps the file, splits it into record-aligned byte ranges and
+ * parses the ranges in parallel on a fork-join pool. Blocks from different ranges are
+ * handed out in whatever order they finish; rows inside a block keep their file order.
+ * <p>
+ * For a resumable ingest, every range becomes exactly one block that records its byte offsets,
+ * and reading can start at any range boundary of an earlier run. Ranges are parsed with Commons
+ * CSV into rows of Strings, or with the {@link CsvTokenizer} into {@link ByteRows} for inserts
+ * that encode fields from their bytes.
+ */
+@Slf4j
+public class MappedCsvReader implements BlockReader {
+
+    private static final RowBlock END_OF_INPUT = new RowBlock(-1, 0, List.of());
+
+    private final FileChannel channel;
+    private final ForkJoinPool pool;
+    private final BlockingQueue<RowBlock> blocks;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicInteger pendingRanges = new AtomicInteger();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private final ProgressTracker progress;
+    private final boolean byteRows;
+    private long dataStart;
+    private boolean finished;
+
+    /**
+     * Read every data record as rows of Strings, in blocks of a fixed row count
+     *
+     * @param file File to read; the first record is the header
+     * @param format CSV format of the data records (without header handling)
+     * @param columns Columns to extract, in insert order
+     * @param blockSize Rows per block
+     * @param parallelism Number of ranges parsed at the same time
+     * @param splitSize Target size of one range in bytes
+     * @param progress Receives the number of bytes parsed and the parse time of each range
+     */
+    public MappedCsvReader(Path file, CSVFormat format, List<String> columns, int blockSize,
+                           int parallelism, long splitSize, ProgressTracker progress) throws IOException {
+        this(file, format, columns, () -> blockSize, parallelism, splitSize, progress, 0, 0, false, false);
+    }
+
+    /**
+     * @param file File to read; the first record is the header
+     * @param format CSV format of the data records (without header handling)
+     * @param columns Columns to extract, in insert order
+     * @param blockSize Rows of the next block, or rows parsed at a time if every range is one block
+     * @param parallelism Number of ranges parsed at the same time
+     * @param splitSize Target size of one range in bytes
+     * @param progress Receives the number of bytes parsed and the parse time of each range
+     * @param startOffset Range boundary to start reading at, or 0 to read all data records
+     * @param firstSequence Sequence number of the first block
+     * @param rangePerBlock Whether each range is handed out as one block with its byte offsets,
+     *                      even if it holds no record; the sequence is then the range's index
+     * @param byteRows Whether to tokenize ranges into {@link ByteRows} instead of rows of Strings
+     */
+    public MappedCsvReader(Path file, CSVFormat format, List<String> columns, IntSupplier blockSize,
+                           int parallelism, long splitSize, ProgressTracker progress,
+                           long startOffset, long firstSequence, boolean rangePerBlock,
+                           boolean byteRows) throws IOException {
+        this.progress = progress;
+        this.byteRows = byteRows;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.pool = new ForkJoinPool(parallelism);
+        this.blocks = new ArrayBlockingQueue<>(parallelism * 2);
+        this.nextSequence.set(firstSequence);
+        try {
+            start(format, columns, blockSize, splitSize, startOffset, rangePerBlock);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void start(CSVFormat format, List<String> columns, IntSupplier blockSize, long splitSize,
+                       long startOffset, boolean rangePerBlock) throws IOException {
+        long size = channel.size();
+        CsvSplitter splitter = new CsvSplitter(channel, (byte) format.getDelimiterString().charAt(0), (byte) '"');
+        long headerEnd = splitter.headerEnd(size);
+        if (startOffset > size) {
+            throw new DataSourceException("Resume offset " + startOffset + " is beyond the end of the file");
+        }
+        dataStart = Math.max(headerEnd, startOffset);
+        // Bytes an earlier run already ingested count as done
+        progress.addBytes(dataStart - headerEnd);
+
+        int[] columnIndexes;
+        try (CSVParser headerParser = parseRange(format.builder().setHeader().build(), 0, headerEnd)) {
+            columnIndexes = CsvBlockReader.resolveColumnIndexes(headerParser.getHeaderMap(), columns);
+        }
+
+        List<CsvSplitter.Range> ranges = splitter.split(dataStart, size, splitSize, pool);
+        log.debug("Split {} bytes into {} ranges for parallel parsing", size - dataStart, ranges.size());
+
+        if (ranges.isEmpty()) {
+            blocks.add(END_OF_INPUT);
+            return;
+        }
+        pendingRanges.set(ranges.size());
+        long firstSequence = nextSequence.get();
+        for (int i = 0; i < ranges.size(); i++) {
+            CsvSplitter.Range range = ranges.get(i);
+            long sequence = firstSequence + i;
+            long rangeSequence = rangePerBlock ? sequence : -1;
+            if (byteRows) {
+                char delimiter = format.getDelimiterString().charAt(0);
+                pool.execute(() -> tokenize(delimiter, range, columnIndexes, blockSize, rangeSequence));
+            } else {
+                pool.execute(() -> parse(format, range, columnIndexes, blockSize, rangeSequence));
+            }
+        }
+    }
+
+    /**
+     * @param rangeSequence Sequence of the range's single block, or -1 to split it into blocks of blockSize rows
+     */
+    private void parse(CSVFormat format, CsvSplitter.Range range, int[] columnIndexes, IntSupplier blockSize,
+                       long rangeSequence) {
+        try (CSVParser parser = parseRange(format, range.start(), range.end())) {
+            Iterator<CSVRecord> records = parser.iterator();
+            List<String[]> rows;
+            List<String[]> rangeRows = new ArrayList<>();
+            long parseNanos = 0;
+            while (true) {
+                long start = System.nanoTime();
+                rows = CsvBlockReader.readRows(records, columnIndexes, blockSize.getAsInt());
+                parseNanos += System.nanoTime() - start;
+                if (rows.isEmpty()) {
+                    break;
+                }
+                if (rangeSequence >= 0) {
+                    rangeRows.addAll(rows);
+                    continue;
+                }
+                // Row numbers are only known per range, so blocks from this reader leave them unset
+                blocks.put(new RowBlock(nextSequence.getAndIncrement(), 0, rows));
+            }
+            if (rangeSequence >= 0) {
+                blocks.put(new RowBlock(rangeSequence, 0, rangeRows, range.start(), range.end()));
+            }
+            progress.getMetrics().parsed(range.end() - range.start(), parseNanos);
+            if (pendingRanges.decrementAndGet() == 0) {
+                blocks.put(END_OF_INPUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            fail(new UncheckedIOException("Failed to parse bytes " + range.start() + "-" + range.end(), e));
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Like {@link #parse}, with the {@link CsvTokenizer}
+     */
+    private void tokenize(char delimiter, CsvSplitter.Range range, int[] columnIndexes, IntSupplier blockSize,
+                          long rangeSequence) {
+        try (InputStream in = openRange(range.start(), range.end())) {
+            CsvTokenizer tokenizer = new CsvTokenizer(in, delimiter);
+            long parseNanos = 0;
+            int lastBlockBytes = 0;
+            while (true) {
+                long start = System.nanoTime();
+                // A range that is one block is tokenized in one go, however many rows it holds
+                int rows = rangeSequence >= 0 ? Integer.MAX_VALUE : blockSize.getAsInt();
+                ByteRows block = ByteCsvBlockReader.readRows(tokenizer, columnIndexes, rows, lastBlockBytes);
+                parseNanos += System.nanoTime() - start;
+                if (rangeSequence >= 0) {
+                    blocks.put(new RowBlock(rangeSequence, 0, block, range.start(), range.end()));
+                    break;
+                }
+                if (block.rows() == 0) {
+                    break;
+                }
+                lastBlockBytes = block.byteCount();
+                blocks.put(new RowBlock(nextSequence.getAndIncrement(), 0, block, -1, -1));
+            }
+            progress.getMetrics().parsed(range.end() - range.start(), parseNanos);
+            if (pendingRanges.decrementAndGet() == 0) {
+                blocks.put(END_OF_INPUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            fail(new UncheckedIOException("Failed to parse bytes " + range.start() + "-" + range.end(), e));
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Offset of the first byte read: the end of the header, or the start offset if later
+     */
+    public long getDataStart() {
+        return dataStart;
+    }
+
+    private CSVParser parseRange(CSVFormat format, long start, long end) throws IOException {
+        Reader reader = new InputStreamReader(openRange(start, end), StandardCharsets.UTF_8);
+        return new CSVParser(reader, format);
+    }
+
+    private InputStream openRange(long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new DataSourceException("A single record range exceeds 2 GB at byte " + start);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        return new CountingInputStream(new ByteBufferInputStream(buffer), progress);
+    }
+
+    private void fail(RuntimeException e) {
+        if (failure.compareAndSet(null, e)) {
+            // Unblock the consumer; it checks the failure before handing out blocks
+            blocks.offer(END_OF_INPUT);
+        }
+    }
+
+    @Override
+    public RowBlock nextBlock() {
+        if (finished) {
+            return null;
+        }
+        try {
+            RowBlock block;
+            do {
+                block = blocks.poll(100, TimeUnit.MILLISECONDS);
+                rethrowFailure();
+            } while (block == null);
+
+            if (block == END_OF_INPUT) {
+                finished = true;
+                return null;
+            }
+            return block;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while reading input"));
+        }
+    }
+
+    private void rethrowFailure() {
+        RuntimeException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
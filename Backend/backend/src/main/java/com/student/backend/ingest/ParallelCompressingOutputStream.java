@@ -0,0 +1,149 @@
+package com.student.backend.ingest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Output stream that cuts its input into fixed-size blocks and compresses them concurrently,
+ * each block as a self-contained frame (a gzip member, a zstd or LZ4 frame). The frames are
+ * written in input order; a concatenation of frames is a valid stream for all three formats,
+ * so any standard decoder reads the output. At most two blocks per thread are held in memory.
+ */
+public class ParallelCompressingOutputStream extends OutputStream {
+
+    private static final AtomicInteger STREAM_IDS = new AtomicInteger();
+
+    private final OutputStream out;
+    private final BlockCompressor compressor;
+    private final ExecutorService executor;
+    private final int blockSize;
+    private final int maxPending;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] block;
+    private int count;
+    private boolean closed;
+
+    /**
+     * Compresses one block into one self-contained frame
+     */
+    @FunctionalInterface
+    public interface BlockCompressor {
+        byte[] compress(byte[] data, int length) throws IOException;
+    }
+
+    /**
+     * @param out Destination of the compressed frames; closed with this stream
+     * @param compressor Frame encoder
+     * @param threads Number of blocks compressed at the same time
+     * @param blockSize Uncompressed size of one block
+     */
+    public ParallelCompressingOutputStream(OutputStream out, BlockCompressor compressor, int threads, int blockSize) {
+        this.out = out;
+        this.compressor = compressor;
+        this.blockSize = Math.max(1, blockSize);
+        this.maxPending = Math.max(1, threads) * 2;
+        this.block = new byte[this.blockSize];
+
+        String prefix = "compress-" + STREAM_IDS.incrementAndGet() + "-";
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[count++] = (byte) b;
+        if (count == blockSize) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            int chunk = Math.min(length, blockSize - count);
+            System.arraycopy(data, offset, block, count, chunk);
+            count += chunk;
+            offset += chunk;
+            length -= chunk;
+            if (count == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Compress the buffered partial block and write out every frame. Each flush ends a frame,
+     * so frequent flushes cost compression ratio.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (count > 0) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeOldest();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            executor.shutdownNow();
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        byte[] data = block;
+        int length = count;
+        pending.add(executor.submit(() -> compressor.compress(data, length)));
+        block = new byte[blockSize];
+        count = 0;
+        // Bound memory: wait for the oldest frame once enough blocks are in flight
+        while (pending.size() > maxPending) {
+            writeOldest();
+        }
+    }
+
+    private void writeOldest() throws IOException {
+        Future<byte[]> future = pending.poll();
+        try {
+            out.write(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ioException ? ioException : new IOException("Compression failed", cause);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
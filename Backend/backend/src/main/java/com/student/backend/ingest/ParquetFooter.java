@@ -0,0 +1,339 @@
+package com.student.backend.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the schema and row count from the footer of a Parquet file. The footer is a Thrift
+ * FileMetaData struct in the compact protocol, stored before the trailing 4-byte length and
+ * "PAR1" magic; only its schema and num_rows fields are decoded, everything else is skipped.
+ * Column types come from the physical type and the converted type of each top-level column.
+ */
+final class ParquetFooter {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ENCRYPTED_MAGIC = "PARE".getBytes(StandardCharsets.US_ASCII);
+
+    // Thrift compact protocol types
+    private static final int STOP = 0;
+    private static final int BOOLEAN_TRUE = 1;
+    private static final int BOOLEAN_FALSE = 2;
+    private static final int BYTE = 3;
+    private static final int I16 = 4;
+    private static final int I32 = 5;
+    private static final int I64 = 6;
+    private static final int DOUBLE = 7;
+    private static final int BINARY = 8;
+    private static final int LIST = 9;
+    private static final int SET = 10;
+    private static final int MAP = 11;
+    private static final int STRUCT = 12;
+
+    // FileMetaData and SchemaElement field ids
+    private static final int FILE_METADATA_SCHEMA = 2;
+    private static final int FILE_METADATA_NUM_ROWS = 3;
+    private static final int SCHEMA_ELEMENT_TYPE = 1;
+    private static final int SCHEMA_ELEMENT_TYPE_LENGTH = 2;
+    private static final int SCHEMA_ELEMENT_NAME = 4;
+    private static final int SCHEMA_ELEMENT_NUM_CHILDREN = 5;
+    private static final int SCHEMA_ELEMENT_CONVERTED_TYPE = 6;
+    private static final int SCHEMA_ELEMENT_SCALE = 7;
+    private static final int SCHEMA_ELEMENT_PRECISION = 8;
+
+    // Physical types, by their Type enum value
+    private static final String[] PHYSICAL_TYPES = {
+            "Bool", "Int32", "Int64", "DateTime64(9)", "Float32", "Float64", "String", "FixedString"
+    };
+    private static final int FIXED_LEN_BYTE_ARRAY = 7;
+
+    // ConvertedType enum values
+    private static final int UTF8 = 0;
+    private static final int ENUM = 4;
+    private static final int DECIMAL = 5;
+    private static final int DATE = 6;
+    private static final int TIMESTAMP_MILLIS = 9;
+    private static final int TIMESTAMP_MICROS = 10;
+    private static final int UINT_8 = 11;
+    private static final int INT_64 = 18;
+    private static final int JSON = 19;
+    private static final int BSON = 20;
+    private static final String[] INTEGER_TYPES = {
+            "UInt8", "UInt16", "UInt32", "UInt64", "Int8", "Int16", "Int32", "Int64"
+    };
+
+    private ParquetFooter() {
+    }
+
+    static FileSchema read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < 2L * MAGIC.length + 4) {
+            throw new IOException("File is too small to be a Parquet file");
+        }
+        ByteBuffer tail = FileSchema.readFully(channel, size - 8, 8);
+        int metadataLength = tail.getInt();
+        byte[] magic = new byte[MAGIC.length];
+        tail.get(magic);
+        if (Arrays.equals(magic, ENCRYPTED_MAGIC)) {
+            throw new IOException("Parquet files with an encrypted footer are not supported");
+        }
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a Parquet file: missing PAR1 magic at the end of the file");
+        }
+        if (metadataLength <= 0 || metadataLength > size - 12) {
+            throw new IOException("Corrupt Parquet footer length " + metadataLength);
+        }
+
+        ByteBuffer metadata = FileSchema.readFully(channel, size - 8 - metadataLength, metadataLength);
+        try {
+            return readFileMetaData(new CompactReader(metadata));
+        } catch (RuntimeException e) {
+            // Buffer underflows and the like, from a footer that is not what it claims to be
+            throw new IOException("Corrupt Parquet footer: " + e, e);
+        }
+    }
+
+    private static FileSchema readFileMetaData(CompactReader in) throws IOException {
+        FileSchema columns = null;
+        long rows = -1;
+        int fieldId = 0;
+        // Fields are written in id order, so reading stops before the row group metadata
+        while (columns == null || rows < 0) {
+            int header = in.readByte();
+            int type = header & 0x0F;
+            if (type == STOP) {
+                break;
+            }
+            fieldId = in.readFieldId(header, fieldId);
+            if (fieldId == FILE_METADATA_SCHEMA && type == LIST) {
+                columns = readSchema(in);
+            } else if (fieldId == FILE_METADATA_NUM_ROWS && type == I64) {
+                rows = in.readZigZag();
+            } else {
+                in.skip(type);
+            }
+        }
+        if (columns == null) {
+            throw new IOException("Parquet footer has no schema");
+        }
+        return new FileSchema(columns.columns(), columns.types(), rows);
+    }
+
+    /**
+     * The schema is a depth-first list of elements whose first entry is the root; groups give
+     * their number of children. The root's direct children are the columns.
+     *
+     * @return The columns and their types, with no row count
+     */
+    private static FileSchema readSchema(CompactReader in) throws IOException {
+        int header = in.readByte();
+        int count = in.readListSize(header);
+        List<String> names = new ArrayList<>(count);
+        List<String> types = new ArrayList<>(count);
+        int[] childCounts = new int[count];
+        for (int i = 0; i < count; i++) {
+            String name = null;
+            int physicalType = -1;
+            int typeLength = 0;
+            int convertedType = -1;
+            int scale = 0;
+            int precision = 0;
+            int fieldId = 0;
+            while (true) {
+                int fieldHeader = in.readByte();
+                int type = fieldHeader & 0x0F;
+                if (type == STOP) {
+                    break;
+                }
+                fieldId = in.readFieldId(fieldHeader, fieldId);
+                if (fieldId == SCHEMA_ELEMENT_NAME && type == BINARY) {
+                    name = in.readString();
+                } else if (type == I32 && fieldId == SCHEMA_ELEMENT_NUM_CHILDREN) {
+                    childCounts[i] = (int) in.readZigZag();
+                } else if (type == I32 && fieldId == SCHEMA_ELEMENT_TYPE) {
+                    physicalType = (int) in.readZigZag();
+                } else if (type == I32 && fieldId == SCHEMA_ELEMENT_TYPE_LENGTH) {
+                    typeLength = (int) in.readZigZag();
+                } else if (type == I32 && fieldId == SCHEMA_ELEMENT_CONVERTED_TYPE) {
+                    convertedType = (int) in.readZigZag();
+                } else if (type == I32 && fieldId == SCHEMA_ELEMENT_SCALE) {
+                    scale = (int) in.readZigZag();
+                } else if (type == I32 && fieldId == SCHEMA_ELEMENT_PRECISION) {
+                    precision = (int) in.readZigZag();
+                } else {
+                    in.skip(type);
+                }
+            }
+            names.add(name);
+            types.add(childCounts[i] > 0 ? null
+                    : clickHouseType(physicalType, typeLength, convertedType, scale, precision));
+        }
+        if (count == 0) {
+            throw new IOException("Parquet schema is empty");
+        }
+
+        List<String> columns = new ArrayList<>(childCounts[0]);
+        List<String> columnTypes = new ArrayList<>(childCounts[0]);
+        int index = 1;
+        for (int column = 0; column < childCounts[0]; column++) {
+            columns.add(names.get(index));
+            columnTypes.add(types.get(index));
+            index = subtreeEnd(childCounts, index);
+        }
+        return new FileSchema(columns, columnTypes, -1);
+    }
+
+    /**
+     * ClickHouse type of a primitive column, as ClickHouse reads Parquet: the converted type
+     * where it names one, otherwise the physical type
+     */
+    private static String clickHouseType(int physicalType, int typeLength, int convertedType, int scale,
+                                         int precision) {
+        if (convertedType >= UINT_8 && convertedType <= INT_64) {
+            return INTEGER_TYPES[convertedType - UINT_8];
+        }
+        switch (convertedType) {
+            case UTF8, ENUM, JSON, BSON -> {
+                return "String";
+            }
+            case DECIMAL -> {
+                return "Decimal(" + precision + ", " + scale + ")";
+            }
+            case DATE -> {
+                return "Date32";
+            }
+            case TIMESTAMP_MILLIS -> {
+                return "DateTime64(3)";
+            }
+            case TIMESTAMP_MICROS -> {
+                return "DateTime64(6)";
+            }
+            default -> {
+                if (physicalType < 0 || physicalType >= PHYSICAL_TYPES.length) {
+                    return null;
+                }
+                String type = PHYSICAL_TYPES[physicalType];
+                return physicalType == FIXED_LEN_BYTE_ARRAY ? type + "(" + typeLength + ")" : type;
+            }
+        }
+    }
+
+    /**
+     * Index of the first element after the element at {@code index} and all its descendants
+     */
+    private static int subtreeEnd(int[] childCounts, int index) {
+        int children = childCounts[index];
+        index++;
+        for (int i = 0; i < children; i++) {
+            index = subtreeEnd(childCounts, index);
+        }
+        return index;
+    }
+
+    /**
+     * Decoder for the subset of the Thrift compact protocol needed to walk a struct
+     */
+    private static final class CompactReader {
+
+        private final ByteBuffer buffer;
+
+        CompactReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readByte() {
+            return buffer.get() & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        long readZigZag() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() {
+            byte[] bytes = new byte[(int) readVarint()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Field id from a field header: a delta from the previous id in the high nibble, or a
+         * full id following the header when the delta is zero
+         */
+        int readFieldId(int header, int previousId) {
+            int delta = header >>> 4;
+            return delta != 0 ? previousId + delta : (int) readZigZag();
+        }
+
+        int readListSize(int header) {
+            int size = header >>> 4;
+            return size == 15 ? (int) readVarint() : size;
+        }
+
+        void skip(int type) throws IOException {
+            switch (type) {
+                case BOOLEAN_TRUE, BOOLEAN_FALSE -> {
+                    // The value of a boolean field is its type
+                }
+                case BYTE -> buffer.get();
+                case I16, I32, I64 -> readVarint();
+                case DOUBLE -> buffer.position(buffer.position() + 8);
+                case BINARY -> buffer.position(buffer.position() + (int) readVarint());
+                case LIST, SET -> {
+                    int header = readByte();
+                    int size = readListSize(header);
+                    for (int i = 0; i < size; i++) {
+                        skipElement(header & 0x0F);
+                    }
+                }
+                case MAP -> {
+                    int size = (int) readVarint();
+                    if (size > 0) {
+                        int types = readByte();
+                        for (int i = 0; i < size; i++) {
+                            skipElement(types >>> 4);
+                            skipElement(types & 0x0F);
+                        }
+                    }
+                }
+                case STRUCT -> {
+                    while (true) {
+                        int header = readByte();
+                        if ((header & 0x0F) == STOP) {
+                            break;
+                        }
+                        readFieldId(header, 0);
+                        skip(header & 0x0F);
+                    }
+                }
+                default -> throw new IOException("Unknown Thrift type " + type + " in Parquet footer");
+            }
+        }
+
+        /**
+         * Skip a list, set or map element; unlike fields, boolean elements take a byte
+         */
+        private void skipElement(int type) throws IOException {
+            if (type == BOOLEAN_TRUE || type == BOOLEAN_FALSE) {
+                buffer.get();
+            } else {
+                skip(type);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.student.backend.ingest;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live progress of one transfer, updated by the workers moving the data and read by whoever
+ * polls the job. Also carries the cooperative cancellation flag: workers call
+ * {@link #checkCancelled()} between units of work and stop once it is set. The workers report
+ * throughput and latency to the {@link TransferMetrics} attached to the tracker. A transfer
+ * running as a job also carries the id its checkpoint is saved under, so it can be resumed.
+ * <p>
+ * A transfer of several files gives each file a child tracker: rows and bytes counted by the
+ * child are added to the parent too, and cancelling the parent cancels every child.
+ */
+public class ProgressTracker {
+
+    private final ProgressTracker parent;
+    private final List<FileProgress> files = new CopyOnWriteArrayList<>();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private volatile long totalRows = -1;
+    private volatile long totalBytes = -1;
+    private volatile boolean cancelled;
+    private volatile TransferMetrics metrics = TransferMetrics.NONE;
+    private volatile String checkpointId;
+
+    public ProgressTracker() {
+        this(null);
+    }
+
+    private ProgressTracker(ProgressTracker parent) {
+        this.parent = parent;
+    }
+
+    public void addRows(long count) {
+        rows.addAndGet(count);
+        if (parent != null) {
+            parent.addRows(count);
+        }
+    }
+
+    public void addBytes(long count) {
+        bytes.addAndGet(count);
+        if (parent != null) {
+            parent.addBytes(count);
+        }
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Expected number of rows, or -1 if unknown
+     */
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    /**
+     * Expected number of bytes, or -1 if unknown
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Metrics of the transfer; a child reports to those of its parent
+     */
+    public TransferMetrics getMetrics() {
+        return parent != null ? parent.getMetrics() : metrics;
+    }
+
+    public void setMetrics(TransferMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Id the transfer's checkpoint is saved under, or null if the transfer is not resumable
+     */
+    public String getCheckpointId() {
+        return checkpointId;
+    }
+
+    public void setCheckpointId(String checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+
+    /**
+     * Ask the workers to stop at their next check
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || parent != null && parent.isCancelled();
+    }
+
+    /**
+     * @throws CancellationException if the transfer has been cancelled
+     */
+    public void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Ingest was cancelled");
+        }
+    }
+
+    /**
+     * Add a file to a multi-file transfer
+     *
+     * @return The file's progress, with a child tracker for its rows and bytes
+     */
+    public FileProgress addFile(String fileName, long sizeBytes) {
+        FileProgress file = new FileProgress(fileName, sizeBytes, new ProgressTracker(this));
+        files.add(file);
+        return file;
+    }
+
+    /**
+     * Files of a multi-file transfer in the order they were added; empty for a single file
+     */
+    public List<FileProgress> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+}
@@ -0,0 +1,61 @@
+package com.student.backend.ingest;
+
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies the rows of a JDBC result set into a CSV printer, one record per row. This is the
+ * RESULT_SET export path: every value is read as an object and formatted by the printer.
+ */
+public class ResultSetCsvWriter {
+
+    /**
+     * Rows between progress updates and cancellation checks
+     */
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    private final List<String> columns;
+
+    /**
+     * @param columns Result set columns to write, in file order
+     */
+    public ResultSetCsvWriter(List<String> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Write every remaining row of the result set
+     *
+     * @param resultSet Rows to write
+     * @param printer Destination; not flushed or closed
+     * @param progress Receives the rows written and is checked for cancellation
+     * @return Number of rows written
+     */
+    public long write(ResultSet resultSet, CSVPrinter printer, ProgressTracker progress) throws SQLException, IOException {
+        long rows = 0;
+        while (resultSet.next()) {
+            List<Object> rowData = new ArrayList<>();
+            for (String column : columns) {
+                rowData.add(resultSet.getObject(column));
+            }
+            printer.printRecord(rowData);
+            if (++rows % PROGRESS_INTERVAL == 0) {
+                addRows(progress, PROGRESS_INTERVAL);
+                progress.checkCancelled();
+            }
+        }
+        addRows(progress, rows % PROGRESS_INTERVAL);
+        return rows;
+    }
+
+    private static void addRows(ProgressTracker progress, long rows) {
+        progress.addRows(rows);
+        progress.getMetrics().rowsRead(rows);
+        progress.getMetrics().rowsWritten(rows);
+    }
+}
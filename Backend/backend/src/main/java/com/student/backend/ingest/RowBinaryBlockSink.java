@@ -0,0 +1,40 @@
+package com.student.backend.ingest;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Block sink that sends each RowBinary-encoded block in a single HTTP INSERT,
+ * so ClickHouse does not have to parse text for every cell.
+ */
+public class RowBinaryBlockSink implements BlockSink<RowBinaryOutput> {
+
+    private final ClickHouseHttpClient client;
+    private final String insertQuery;
+
+    /**
+     * @param client HTTP client for the target server
+     * @param insertQuery INSERT statement ending with FORMAT RowBinary
+     */
+    public RowBinaryBlockSink(ClickHouseHttpClient client, String insertQuery) {
+        this.client = client;
+        this.insertQuery = insertQuery;
+    }
+
+    @Override
+    public Written write(RowBinaryOutput payload, String deduplicationToken) throws IOException {
+        // Every row of the block was rejected, so there is nothing to insert
+        if (payload.rows() == 0) {
+            return Written.NOTHING;
+        }
+        Map<String, String> settings = deduplicationToken == null
+                ? Map.of() : Map.of("insert_deduplication_token", deduplicationToken);
+        client.insert(insertQuery, settings, payload.getBuffer(), payload.size());
+        return new Written(payload.rows(), payload.size());
+    }
+
+    @Override
+    public void close() {
+        // The shared HTTP client keeps its connections for reuse
+    }
+}
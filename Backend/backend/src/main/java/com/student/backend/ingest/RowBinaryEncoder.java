@@ -0,0 +1,100 @@
+package com.student.backend.ingest;
+
+import com.student.backend.exception.ConfigurationException;
+
+import java.util.List;
+
+/**
+ * Encodes row blocks into a RowBinary insert body using the target table's column types.
+ * Rows with a field that cannot be converted are left out and reported to {@link ConversionErrors}.
+ * Blocks read by the {@link CsvTokenizer} are encoded from their bytes, so only a field that is
+ * rejected or not ASCII is ever turned into a String.
+ */
+public class RowBinaryEncoder implements BlockEncoder<RowBinaryOutput> {
+
+    private final List<String> columns;
+    private final ColumnConverter[] converters;
+    private final ConversionErrors errors;
+    private volatile int lastBlockBytes;
+
+    /**
+     * @param columns Column names in insert order
+     * @param types ClickHouse types of those columns, used in error messages
+     * @param converters Converters for those columns, in the same order
+     * @param errors Collector for rejected rows
+     * @throws ConfigurationException if a column type has no RowBinary encoding
+     */
+    public RowBinaryEncoder(List<String> columns, List<String> types, List<ColumnConverter> converters,
+                            ConversionErrors errors) {
+        this.columns = columns;
+        this.converters = converters.toArray(new ColumnConverter[0]);
+        this.errors = errors;
+        for (int i = 0; i < this.converters.length; i++) {
+            if (!this.converters[i].supportsRowBinary()) {
+                throw new ConfigurationException("Column type " + types.get(i) + " of column " + columns.get(i)
+                        + " is not supported by the ROW_BINARY insert mode; use JDBC instead");
+            }
+        }
+    }
+
+    /**
+     * Encode every row of the block
+     *
+     * @param block Rows to encode
+     * @return Buffer holding the encoded rows
+     */
+    @Override
+    public RowBinaryOutput encode(RowBlock block) {
+        // Size the buffer from the previous block so steady-state encoding rarely grows it
+        RowBinaryOutput out = new RowBinaryOutput(lastBlockBytes + lastBlockBytes / 8);
+        if (block.getByteRows() != null) {
+            encodeBytes(block, block.getByteRows(), out);
+            lastBlockBytes = out.size();
+            return out;
+        }
+        List<String[]> rows = block.getRows();
+        for (int r = 0; r < rows.size(); r++) {
+            String[] row = rows.get(r);
+            int rowStart = out.size();
+            boolean complete = true;
+            for (int c = 0; c < converters.length; c++) {
+                try {
+                    converters[c].write(row[c], out);
+                } catch (RuntimeException e) {
+                    // Drop the partially encoded row
+                    out.truncate(rowStart);
+                    errors.reject(block, r, columns.get(c), row[c], e);
+                    complete = false;
+                    break;
+                }
+            }
+            if (complete) {
+                out.endRow();
+            }
+        }
+        lastBlockBytes = out.size();
+        return out;
+    }
+
+    private void encodeBytes(RowBlock block, ByteRows rows, RowBinaryOutput out) {
+        ByteSlice field = new ByteSlice();
+        for (int r = 0; r < rows.rows(); r++) {
+            int rowStart = out.size();
+            boolean complete = true;
+            for (int c = 0; c < converters.length; c++) {
+                rows.field(r, c, field);
+                try {
+                    converters[c].write(field, out);
+                } catch (RuntimeException e) {
+                    out.truncate(rowStart);
+                    errors.reject(block, r, columns.get(c), field.decode(), e);
+                    complete = false;
+                    break;
+                }
+            }
+            if (complete) {
+                out.endRow();
+            }
+        }
+    }
+}
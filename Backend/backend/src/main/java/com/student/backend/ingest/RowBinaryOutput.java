@@ -0,0 +1,209 @@
+package com.student.backend.ingest;
+
+import java.util.Arrays;
+
+/**
+ * Growable little-endian byte buffer for building a RowBinary insert body.
+ */
+public class RowBinaryOutput {
+
+    private byte[] buffer;
+    private int size;
+    private int rows;
+
+    public RowBinaryOutput(int initialCapacity) {
+        this.buffer = new byte[Math.max(64, initialCapacity)];
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Number of complete rows written
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Count a row whose values have all been written
+     */
+    public void endRow() {
+        rows++;
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+
+    public void writeShort(int value) {
+        ensureCapacity(2);
+        buffer[size++] = (byte) value;
+        buffer[size++] = (byte) (value >>> 8);
+    }
+
+    public void writeInt(int value) {
+        ensureCapacity(4);
+        buffer[size++] = (byte) value;
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) (value >>> 16);
+        buffer[size++] = (byte) (value >>> 24);
+    }
+
+    public void writeLong(long value) {
+        ensureCapacity(8);
+        for (int i = 0; i < 8; i++) {
+            buffer[size++] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    public void writeFloat(float value) {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    public void writeDouble(double value) {
+        writeLong(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Write an unsigned LEB128 length prefix as used by String and Array values
+     */
+    public void writeVarInt(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    public void writeString(String value) {
+        writeString(value, 0, value.length());
+    }
+
+    /**
+     * Write the characters in [start, end) as a length-prefixed UTF-8 string, without
+     * materialising the substring or its byte array
+     */
+    public void writeString(CharSequence text, int start, int end) {
+        int length = utf8Length(text, start, end);
+        writeVarInt(length);
+        ensureCapacity(length);
+        encodeUtf8(text, start, end);
+    }
+
+    /**
+     * Write bytes that are already UTF-8 as a length-prefixed string
+     */
+    public void writeString(byte[] bytes, int offset, int length) {
+        writeVarInt(length);
+        writeBytes(bytes, offset, length);
+    }
+
+    /**
+     * Write a FixedString(n) value, zero-padded to the declared length
+     */
+    public void writeFixedString(String value, int length) {
+        writeFixedString(value, 0, value.length(), length);
+    }
+
+    public void writeFixedString(CharSequence text, int start, int end, int length) {
+        int bytes = utf8Length(text, start, end);
+        if (bytes > length) {
+            throw new IllegalArgumentException("value is longer than FixedString(" + length + ")");
+        }
+        ensureCapacity(length);
+        encodeUtf8(text, start, end);
+        Arrays.fill(buffer, size, size + length - bytes, (byte) 0);
+        size += length - bytes;
+    }
+
+    /**
+     * Write bytes that are already UTF-8 as a FixedString(n) value, zero-padded to the declared length
+     */
+    public void writeFixedString(byte[] bytes, int offset, int count, int length) {
+        if (count > length) {
+            throw new IllegalArgumentException("value is longer than FixedString(" + length + ")");
+        }
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, size, count);
+        Arrays.fill(buffer, size + count, size + length, (byte) 0);
+        size += length;
+    }
+
+    /**
+     * Discard everything written after the given size, e.g. a partially encoded row
+     */
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IllegalArgumentException("cannot truncate " + size + " bytes to " + newSize);
+        }
+        size = newSize;
+    }
+
+    private static int utf8Length(CharSequence text, int start, int end) {
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Encode into the buffer; the caller has already reserved the capacity
+     */
+    private void encodeUtf8(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer[size++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[size++] = (byte) (0xC0 | (c >> 6));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[size++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates become '?', as with String.getBytes
+                buffer[size++] = '?';
+            } else {
+                buffer[size++] = (byte) (0xE0 | (c >> 12));
+                buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
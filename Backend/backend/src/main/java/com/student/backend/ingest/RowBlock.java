@@ -0,0 +1,125 @@
+package com.student.backend.ingest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of parsed rows travelling from the reader to the inserter.
+ * Each row holds the selected column values in insert order, either as Strings or, when read by
+ * the {@link CsvTokenizer}, as the UTF-8 bytes of all rows in one {@link ByteRows}.
+ */
+public class RowBlock {
+
+    private final long sequence;
+    private final long firstRowNumber;
+    private final List<String[]> rows;
+    private final ByteRows byteRows;
+    private final long startOffset;
+    private final long endOffset;
+
+    public RowBlock(long sequence, long firstRowNumber, List<String[]> rows) {
+        this(sequence, firstRowNumber, rows, -1, -1);
+    }
+
+    /**
+     * @param startOffset Byte offset of the block's first record in the file
+     * @param endOffset Byte offset just after its last record
+     */
+    public RowBlock(long sequence, long firstRowNumber, List<String[]> rows, long startOffset, long endOffset) {
+        this(sequence, firstRowNumber, rows, null, startOffset, endOffset);
+    }
+
+    /**
+     * @param byteRows Rows as read, without decoding
+     * @param startOffset Byte offset of the block's first record in the file, or -1
+     * @param endOffset Byte offset just after its last record, or -1
+     */
+    public RowBlock(long sequence, long firstRowNumber, ByteRows byteRows, long startOffset, long endOffset) {
+        this(sequence, firstRowNumber, null, byteRows, startOffset, endOffset);
+    }
+
+    private RowBlock(long sequence, long firstRowNumber, List<String[]> rows, ByteRows byteRows,
+                     long startOffset, long endOffset) {
+        this.sequence = sequence;
+        this.firstRowNumber = firstRowNumber;
+        this.rows = rows;
+        this.byteRows = byteRows;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    /**
+     * Zero-based position of this block in the source file
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * One-based data row number (header excluded) of the first row in this block
+     */
+    public long getFirstRowNumber() {
+        return firstRowNumber;
+    }
+
+    /**
+     * Describe a row for error messages, e.g. "Row 42", or "Row 7 of block 3" when the file
+     * position is unknown because ranges were parsed in parallel
+     */
+    public String describeRow(int index) {
+        if (firstRowNumber > 0) {
+            return "Row " + (firstRowNumber + index);
+        }
+        return "Row " + (index + 1) + " of block " + sequence;
+    }
+
+    /**
+     * Position of the block in the file, without its rows
+     */
+    public BlockPosition getPosition() {
+        return new BlockPosition(sequence, firstRowNumber, startOffset, endOffset, size());
+    }
+
+    /**
+     * Rows as Strings; a block read as bytes decodes them on every call
+     */
+    public List<String[]> getRows() {
+        if (rows != null) {
+            return rows;
+        }
+        List<String[]> decoded = new ArrayList<>(byteRows.rows());
+        for (int r = 0; r < byteRows.rows(); r++) {
+            decoded.add(byteRows.row(r));
+        }
+        return decoded;
+    }
+
+    /**
+     * Rows as read by the {@link CsvTokenizer}, or null for a block of Strings
+     */
+    public ByteRows getByteRows() {
+        return byteRows;
+    }
+
+    /**
+     * Number of fields of a row
+     */
+    public int fieldCount(int row) {
+        return rows != null ? rows.get(row).length : byteRows.columns();
+    }
+
+    /**
+     * Length of a field: characters of a String, bytes of a block read as bytes
+     */
+    public int fieldLength(int row, int column) {
+        if (rows != null) {
+            String field = rows.get(row)[column];
+            return field != null ? field.length() : 0;
+        }
+        return byteRows.end(row, column) - byteRows.start(row, column);
+    }
+
+    public int size() {
+        return rows != null ? rows.size() : byteRows.rows();
+    }
+}
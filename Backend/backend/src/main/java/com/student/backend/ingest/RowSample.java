@@ -0,0 +1,16 @@
+package com.student.backend.ingest;
+
+import java.util.List;
+
+/**
+ * The first rows of a source, read for a preview.
+ *
+ * @param columns Column names, in row order
+ * @param types ClickHouse type of each column, or null where the source has no types and they must be inferred
+ * @param rows Field values of each row; a null value is a NULL read from ClickHouse
+ * @param exhausted Whether the rows are all the source has
+ * @param method How the rows were read, such as HEAD for the start of a file or LIMIT for a query
+ */
+public record RowSample(List<String> columns, List<String> types, List<String[]> rows, boolean exhausted,
+                        String method) {
+}
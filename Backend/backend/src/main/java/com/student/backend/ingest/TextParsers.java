@@ -0,0 +1,432 @@
+package com.student.backend.ingest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+
+/**
+ * Parsers that read numbers, dates and UUIDs directly from a range of a character sequence,
+ * without creating substrings or boxed values. The one exception is a float whose exact value
+ * needs more than one rounding step (many significant digits or a large exponent), which goes
+ * through the JDK parser on a substring.
+ */
+final class TextParsers {
+
+    private TextParsers() {
+    }
+
+    /**
+     * Index of the first non-whitespace character in [start, end)
+     */
+    static int trimStart(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Index just after the last non-whitespace character in [start, end)
+     */
+    static int trimEnd(CharSequence text, int start, int end) {
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    static long parseLong(CharSequence text, int start, int end) {
+        return Long.parseLong(text, start, end, 10);
+    }
+
+    static long parseUnsignedLong(CharSequence text, int start, int end) {
+        return Long.parseUnsignedLong(text, start, end, 10);
+    }
+
+    static long parseLongInRange(CharSequence text, int start, int end, long min, long max) {
+        long value = parseLong(text, start, end);
+        if (value < min || value > max) {
+            throw new NumberFormatException("value " + value + " is out of range [" + min + ", " + max + "]");
+        }
+        return value;
+    }
+
+    static float parseFloat(CharSequence text, int start, int end) {
+        if (isSpecialFloat(text, start, end)) {
+            return (float) specialFloat(text, start, end);
+        }
+        double value = parseSimpleDecimal(text, start, end, true);
+        if (!Double.isNaN(value)) {
+            return (float) value;
+        }
+        return Float.parseFloat(ColumnConverter.substring(text, start, end));
+    }
+
+    static double parseDouble(CharSequence text, int start, int end) {
+        if (isSpecialFloat(text, start, end)) {
+            return specialFloat(text, start, end);
+        }
+        double value = parseSimpleDecimal(text, start, end, false);
+        if (!Double.isNaN(value)) {
+            return value;
+        }
+        return Double.parseDouble(ColumnConverter.substring(text, start, end));
+    }
+
+    /**
+     * Parse a decimal such as "-12.5" or "3e-4" whose significand and power of ten are both exact
+     * in the target type. Its value is then one multiplication or division, which IEEE arithmetic
+     * rounds exactly as the JDK parsers round the decimal.
+     *
+     * @param single Whether the target type is float rather than double
+     * @return The value, or NaN if the text needs the JDK parser
+     */
+    private static double parseSimpleDecimal(CharSequence text, int start, int end, boolean single) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+
+        long significand = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean sawDigit = false;
+        boolean sawDot = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && !sawDot) {
+                sawDot = true;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                break;
+            }
+            sawDigit = true;
+            // Leading zeros are not significant
+            if (significand != 0 || c != '0') {
+                if (++significantDigits > MAX_SIMPLE_DIGITS) {
+                    return Double.NaN;
+                }
+                significand = significand * 10 + (c - '0');
+            }
+            if (sawDot) {
+                exponent--;
+            }
+        }
+        if (!sawDigit) {
+            return Double.NaN;
+        }
+
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negativeExponent = text.charAt(i) == '-';
+                i++;
+            }
+            int digitsStart = i;
+            int value = 0;
+            for (; i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9'; i++) {
+                // Anything this large is beyond the fast path anyway
+                if (value < 100_000) {
+                    value = value * 10 + (text.charAt(i) - '0');
+                }
+            }
+            if (i == digitsStart) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+
+        double value;
+        if (single) {
+            if (significand > MAX_EXACT_FLOAT || Math.abs(exponent) >= FLOAT_POWERS_OF_TEN.length) {
+                return Double.NaN;
+            }
+            float f = significand;
+            value = exponent < 0 ? f / FLOAT_POWERS_OF_TEN[-exponent] : f * FLOAT_POWERS_OF_TEN[exponent];
+        } else {
+            if (significand > MAX_EXACT_DOUBLE || Math.abs(exponent) >= DOUBLE_POWERS_OF_TEN.length) {
+                return Double.NaN;
+            }
+            double d = significand;
+            value = exponent < 0 ? d / DOUBLE_POWERS_OF_TEN[-exponent] : d * DOUBLE_POWERS_OF_TEN[exponent];
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * ClickHouse spells infinities and NaN as "inf", "-inf" and "nan"
+     */
+    private static boolean isSpecialFloat(CharSequence text, int start, int end) {
+        int i = start < end && (text.charAt(start) == '-' || text.charAt(start) == '+') ? start + 1 : start;
+        return end - i == 3 && (regionMatches(text, i, "inf") || regionMatches(text, i, "nan"));
+    }
+
+    private static double specialFloat(CharSequence text, int start, int end) {
+        if (Character.toLowerCase(text.charAt(end - 1)) == 'n') {
+            return Double.NaN;
+        }
+        return text.charAt(start) == '-' ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    }
+
+    static boolean parseBoolean(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length == 1 && text.charAt(start) == '1' || length == 4 && regionMatches(text, start, "true")) {
+            return true;
+        }
+        if (length == 1 && text.charAt(start) == '0' || length == 5 && regionMatches(text, start, "false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("not a boolean");
+    }
+
+    /**
+     * Parse a decimal number into its unscaled value at the given scale. Extra fraction digits
+     * are discarded, as ClickHouse does when it reads decimals from text.
+     *
+     * @throws ArithmeticException if the value does not fit into maxDigits digits
+     */
+    static long parseUnscaledDecimal(CharSequence text, int start, int end, int scale, int maxDigits) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        boolean sawDigit = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("unexpected character '" + c + "'");
+            }
+            sawDigit = true;
+            if (fractionDigits >= 0) {
+                if (fractionDigits == scale) {
+                    continue;
+                }
+                fractionDigits++;
+            }
+            unscaled = unscaled * 10 + (c - '0');
+            if (unscaled != 0 && ++digits > maxDigits) {
+                throw new ArithmeticException("too many digits for the decimal precision");
+            }
+        }
+        if (!sawDigit) {
+            throw new NumberFormatException("no digits");
+        }
+        for (int f = Math.max(fractionDigits, 0); f < scale; f++) {
+            unscaled *= 10;
+            if (unscaled != 0 && ++digits > maxDigits) {
+                throw new ArithmeticException("too many digits for the decimal precision");
+            }
+        }
+        return negative ? -unscaled : unscaled;
+    }
+
+    /**
+     * Parse a yyyy-MM-dd date into days since 1970-01-01
+     */
+    static int parseEpochDay(CharSequence text, int start, int end) {
+        if (end - start != 10 || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-') {
+            throw new IllegalArgumentException("expected a date as yyyy-MM-dd");
+        }
+        int year = digits(text, start, 4);
+        int month = digits(text, start + 5, 2);
+        int day = digits(text, start + 8, 2);
+        return (int) epochDay(year, month, day);
+    }
+
+    /**
+     * Parse "yyyy-MM-dd hh:mm:ss[.fraction]" (or with 'T' as separator), a bare date, or a
+     * Unix timestamp with an optional fraction, into ticks of 10^-precision seconds since the epoch.
+     *
+     * @param zone Time zone the local date and time are expressed in
+     */
+    static long parseEpochTicks(CharSequence text, int start, int end, int precision, ZoneRules zone) {
+        long secondsTicks = POWERS_OF_TEN[precision];
+        int length = end - start;
+
+        if (length >= 10 && text.charAt(start + 4) == '-') {
+            long epochDay = parseEpochDay(text, start, start + 10);
+            long secondOfDay = 0;
+            int fractionStart = -1;
+            if (length > 10) {
+                char separator = text.charAt(start + 10);
+                if ((separator != ' ' && separator != 'T') || length < 19
+                        || text.charAt(start + 13) != ':' || text.charAt(start + 16) != ':') {
+                    throw new IllegalArgumentException("expected a date and time as yyyy-MM-dd hh:mm:ss");
+                }
+                int hour = digits(text, start + 11, 2);
+                int minute = digits(text, start + 14, 2);
+                int second = digits(text, start + 17, 2);
+                if (hour > 23 || minute > 59 || second > 59) {
+                    throw new IllegalArgumentException("invalid time of day");
+                }
+                secondOfDay = hour * 3600L + minute * 60L + second;
+                if (length > 19) {
+                    if (text.charAt(start + 19) != '.') {
+                        throw new IllegalArgumentException("unexpected characters after the time");
+                    }
+                    fractionStart = start + 20;
+                }
+            }
+            long localSeconds = epochDay * 86400 + secondOfDay;
+            long epochSeconds = localSeconds - offsetSeconds(zone, localSeconds);
+            long fraction = fractionStart < 0 ? 0 : fractionTicks(text, fractionStart, end, precision);
+            return epochSeconds * secondsTicks + fraction;
+        }
+
+        // Unix timestamp, optionally with a fraction
+        int dot = -1;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '.') {
+                dot = i;
+                break;
+            }
+        }
+        if (dot < 0) {
+            return parseLong(text, start, end) * secondsTicks;
+        }
+        long seconds = parseLong(text, start, dot);
+        long fraction = fractionTicks(text, dot + 1, end, precision);
+        return seconds * secondsTicks + (text.charAt(start) == '-' ? -fraction : fraction);
+    }
+
+    /**
+     * Convert ticks since the epoch back to a local date and time in the given zone
+     */
+    static LocalDateTime toLocalDateTime(long ticks, int precision, ZoneId zone) {
+        long secondsTicks = POWERS_OF_TEN[precision];
+        long seconds = Math.floorDiv(ticks, secondsTicks);
+        int nanos = (int) (Math.floorMod(ticks, secondsTicks) * POWERS_OF_TEN[9 - precision]);
+        ZoneOffset offset = zone.getRules().getOffset(java.time.Instant.ofEpochSecond(seconds));
+        return LocalDateTime.ofEpochSecond(seconds, nanos, offset);
+    }
+
+    /**
+     * Parse one 64-bit half of a 36-character UUID
+     *
+     * @param mostSignificant true for the first 16 hex digits, false for the last 16
+     */
+    static long parseUuidHalf(CharSequence text, int start, int end, boolean mostSignificant) {
+        if (end - start != 36 || text.charAt(start + 8) != '-' || text.charAt(start + 13) != '-'
+                || text.charAt(start + 18) != '-' || text.charAt(start + 23) != '-') {
+            throw new IllegalArgumentException("expected a UUID as xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx");
+        }
+        // The most significant half is the first three groups, the least significant half the last two
+        int from = mostSignificant ? start : start + 19;
+        int to = mostSignificant ? start + 18 : end;
+        long bits = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == '-') {
+                continue;
+            }
+            int nibble = Character.digit(c, 16);
+            if (nibble < 0) {
+                throw new IllegalArgumentException("invalid hex digit '" + c + "'");
+            }
+            bits = (bits << 4) | nibble;
+        }
+        return bits;
+    }
+
+    static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    // Powers of ten, significands and digit counts that floats and doubles hold exactly
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_FLOAT = 1L << 24;
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final int MAX_SIMPLE_DIGITS = 18;
+
+    private static long fractionTicks(CharSequence text, int start, int end, int precision) {
+        long ticks = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("invalid fraction digit '" + c + "'");
+            }
+            // Digits beyond the column precision are discarded
+            if (digits < precision) {
+                ticks = ticks * 10 + (c - '0');
+                digits++;
+            }
+        }
+        return ticks * POWERS_OF_TEN[precision - digits];
+    }
+
+    private static long offsetSeconds(ZoneRules zone, long localSeconds) {
+        if (zone.isFixedOffset()) {
+            return zone.getOffset(java.time.Instant.EPOCH).getTotalSeconds();
+        }
+        return zone.getOffset(LocalDateTime.ofEpochSecond(localSeconds, 0, ZoneOffset.UTC)).getTotalSeconds();
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("invalid digit '" + c + "'");
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date
+     */
+    private static long epochDay(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            throw new IllegalArgumentException("invalid date");
+        }
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean regionMatches(CharSequence text, int start, String expected) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package com.student.backend.ingest;
+
+/**
+ * Receives throughput and latency measurements from the workers of one transfer.
+ * All methods may be called concurrently from several workers.
+ */
+public interface TransferMetrics {
+
+    /**
+     * Discards every measurement
+     */
+    TransferMetrics NONE = new TransferMetrics() {
+    };
+
+    default void rowsRead(long rows) {
+    }
+
+    default void rowsWritten(long rows) {
+    }
+
+    default void bytesRead(long bytes) {
+    }
+
+    default void bytesWritten(long bytes) {
+    }
+
+    /**
+     * A chunk of the input was parsed into rows
+     *
+     * @param bytes Input bytes consumed by the chunk
+     * @param nanos Time spent parsing, excluding time blocked on full queues
+     */
+    default void parsed(long bytes, long nanos) {
+    }
+
+    /**
+     * A batch was inserted into the target
+     *
+     * @param rows Rows in the batch
+     * @param nanos Time the insert took
+     */
+    default void batchWritten(int rows, long nanos) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.student.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Name, ClickHouse type and position of one table column, as read from system.columns.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColumnMetadata {
+    private String name;
+    private String type;
+    private int position;
+}
@@ -0,0 +1,69 @@
+package com.student.backend.model;
+
+import java.util.Locale;
+
+/**
+ * Enum representing the compression of a flat file.
+ */
+public enum CompressionCodec {
+    /**
+     * Pick the codec from the file extension; files without a known extension are uncompressed
+     */
+    AUTO(""),
+
+    NONE(""),
+
+    /**
+     * gzip (.gz)
+     */
+    GZIP(".gz"),
+
+    /**
+     * Zstandard (.zst)
+     */
+    ZSTD(".zst"),
+
+    /**
+     * LZ4 frame format (.lz4)
+     */
+    LZ4(".lz4");
+
+    private final String extension;
+
+    CompressionCodec(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * File name extension of the codec, including the dot; empty for AUTO and NONE
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Resolve AUTO against a file name
+     *
+     * @return The codec of the file; never AUTO
+     */
+    public CompressionCodec resolve(String fileName) {
+        return this == AUTO ? fromFileName(fileName) : this;
+    }
+
+    /**
+     * Codec matching the extension of a file name, or NONE
+     */
+    public static CompressionCodec fromFileName(String fileName) {
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz") || name.endsWith(".gzip")) {
+            return GZIP;
+        }
+        if (name.endsWith(".zst") || name.endsWith(".zstd")) {
+            return ZSTD;
+        }
+        if (name.endsWith(".lz4")) {
+            return LZ4;
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,44 @@
+package com.student.backend.model;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column metadata of every table in one ClickHouse database, loaded in a single query.
+ */
+@Getter
+public class DatabaseSchema {
+    private final String database;
+    private final Map<String, List<ColumnMetadata>> tables;
+    private final ZoneId serverTimeZone;
+    private final Instant loadedAt;
+
+    public DatabaseSchema(String database, Map<String, List<ColumnMetadata>> tables, ZoneId serverTimeZone) {
+        this.database = database;
+        this.tables = Collections.unmodifiableMap(tables);
+        this.serverTimeZone = serverTimeZone;
+        this.loadedAt = Instant.now();
+    }
+
+    /**
+     * Columns of one table in position order, or null if the table does not exist
+     */
+    public List<ColumnMetadata> getTable(String table) {
+        return tables.get(table);
+    }
+
+    /**
+     * Column names of every table, ordered by table and position
+     */
+    public List<String> getAllColumnNames() {
+        List<String> names = new ArrayList<>();
+        tables.values().forEach(columns -> columns.forEach(column -> names.add(column.getName())));
+        return names;
+    }
+}
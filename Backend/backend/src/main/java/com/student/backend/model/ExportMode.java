@@ -0,0 +1,21 @@
+package com.student.backend.model;
+
+/**
+ * Enum representing how rows are written to a flat file when exporting from ClickHouse.
+ */
+public enum ExportMode {
+    /**
+     * Read every value through the JDBC result set and write it with a CSV printer
+     */
+    RESULT_SET,
+
+    /**
+     * Let ClickHouse format the result as CSVWithNames/TSVWithNames and copy the HTTP response body to the file unchanged
+     */
+    PASS_THROUGH,
+
+    /**
+     * Split the table by partition or primary key range and run a PASS_THROUGH export per range concurrently
+     */
+    PARALLEL
+}
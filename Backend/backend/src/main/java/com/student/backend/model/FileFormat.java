@@ -0,0 +1,83 @@
+package com.student.backend.model;
+
+import java.util.Locale;
+
+/**
+ * Enum representing the format of a flat file.
+ */
+public enum FileFormat {
+    /**
+     * Pick the format from the file extension; files without a known extension are delimited text
+     */
+    AUTO(".csv", null),
+
+    /**
+     * Delimited text, with the delimiter of the Flat File config
+     */
+    CSV(".csv", null),
+
+    /**
+     * Apache Parquet (.parquet)
+     */
+    PARQUET(".parquet", "Parquet"),
+
+    /**
+     * Arrow IPC file format (.arrow, also known as Feather V2)
+     */
+    ARROW(".arrow", "Arrow");
+
+    private final String extension;
+    private final String clickHouseFormat;
+
+    FileFormat(String extension, String clickHouseFormat) {
+        this.extension = extension;
+        this.clickHouseFormat = clickHouseFormat;
+    }
+
+    /**
+     * File name extension of the format, including the dot
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Name of the matching ClickHouse input and output format, or null for delimited text
+     */
+    public String getClickHouseFormat() {
+        return clickHouseFormat;
+    }
+
+    /**
+     * Whether the file is a binary columnar file that carries its own schema
+     */
+    public boolean isColumnar() {
+        return clickHouseFormat != null;
+    }
+
+    /**
+     * Resolve AUTO against a file name
+     *
+     * @return The format of the file; never AUTO
+     */
+    public FileFormat resolve(String fileName) {
+        return this == AUTO ? fromFileName(fileName) : this;
+    }
+
+    /**
+     * Format matching the extension of a file name, looking past a compression extension, or CSV
+     */
+    public static FileFormat fromFileName(String fileName) {
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        if (CompressionCodec.fromFileName(name) != CompressionCodec.NONE) {
+            name = name.substring(0, name.lastIndexOf('.'));
+        }
+        if (name.endsWith(".parquet")) {
+            return PARQUET;
+        }
+        if (name.endsWith(".arrow") || name.endsWith(".feather") || name.endsWith(".ipc")) {
+            return ARROW;
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,16 @@
+package com.student.backend.model;
+
+/**
+ * Enum representing the state of one file of a multi-file ingest.
+ */
+public enum FileStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    /**
+     * The file was ingested before, with the same size and modification time
+     */
+    SKIPPED,
+    FAILED,
+    CANCELLED
+}
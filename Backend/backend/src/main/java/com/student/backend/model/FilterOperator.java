@@ -0,0 +1,51 @@
+package com.student.backend.model;
+
+/**
+ * Enum representing the comparison of one export filter condition.
+ */
+public enum FilterOperator {
+    EQ("=", 1),
+    NE("!=", 1),
+    LT("<", 1),
+    LE("<=", 1),
+    GT(">", 1),
+    GE(">=", 1),
+    /**
+     * Column equals one of the values; takes one or more values
+     */
+    IN("IN", -1),
+    NOT_IN("NOT IN", -1),
+    /**
+     * SQL LIKE pattern on a String column, with % and _ as wildcards
+     */
+    LIKE("LIKE", 1),
+    NOT_LIKE("NOT LIKE", 1),
+    IS_NULL("IS NULL", 0),
+    IS_NOT_NULL("IS NOT NULL", 0),
+    /**
+     * Inclusive range; takes exactly two values, the lower and the upper bound
+     */
+    BETWEEN("BETWEEN", 2);
+
+    private final String sql;
+    private final int arity;
+
+    FilterOperator(String sql, int arity) {
+        this.sql = sql;
+        this.arity = arity;
+    }
+
+    /**
+     * SQL keyword or symbol of the operator
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Number of values the operator takes, or -1 for one or more
+     */
+    public int getArity() {
+        return arity;
+    }
+}
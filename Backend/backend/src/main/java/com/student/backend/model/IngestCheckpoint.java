@@ -0,0 +1,72 @@
+package com.student.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Saved progress of a flat file ingest job: the point up to which every block has been inserted,
+ * and enough about the source to tell whether a resumed run reads the same file the same way.
+ * Connection credentials are never stored.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestCheckpoint {
+    private String jobId;
+    private String fileName;
+    private long fileSize;
+    private long fileModified;
+    private String table;
+    private List<String> columns;
+
+    /**
+     * Size of the byte-range blocks, or 0 if blocks are counted in rows (compressed input)
+     */
+    private long blockSizeBytes;
+
+    /**
+     * Rows per block when blocks are counted in rows
+     */
+    private int batchSize;
+
+    /**
+     * Offset of the first byte not yet committed, or -1 if blocks are counted in rows
+     */
+    private long byteOffset;
+
+    /**
+     * Number of data rows committed, including rejected rows
+     */
+    private long rowNumber;
+
+    /**
+     * Number of committed rows that were rejected for conversion errors and not inserted
+     */
+    private long rejectedRows;
+
+    /**
+     * Sequence number of the next block
+     */
+    private long blockId;
+
+    private String updatedAt;
+
+    /**
+     * Whether a run with the other checkpoint's source and block layout would produce the same blocks
+     */
+    public boolean sameSource(IngestCheckpoint other) {
+        return Objects.equals(fileName, other.fileName)
+                && fileSize == other.fileSize
+                && fileModified == other.fileModified
+                && Objects.equals(table, other.table)
+                && Objects.equals(columns, other.columns)
+                && blockSizeBytes == other.blockSizeBytes
+                && batchSize == other.batchSize;
+    }
+}
@@ -0,0 +1,31 @@
+package com.student.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entry of the ingest manifest: a file that was ingested completely into a ClickHouse table.
+ * A file is ingested again only if its size or modification time changed since.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestedFile {
+
+    /**
+     * ClickHouse host, port, database and table the file went into
+     */
+    private String target;
+
+    /**
+     * Absolute path of the file
+     */
+    private String fileName;
+    private long fileSize;
+    private long fileModified;
+    private long rows;
+    private String ingestedAt;
+}
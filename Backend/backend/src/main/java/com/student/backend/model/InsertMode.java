@@ -0,0 +1,16 @@
+package com.student.backend.model;
+
+/**
+ * Enum representing how rows are sent to ClickHouse when loading a flat file.
+ */
+public enum InsertMode {
+    /**
+     * Bind every value with its typed setter on a JDBC prepared statement and send it with executeBatch
+     */
+    JDBC,
+
+    /**
+     * Encode each batch client-side in ClickHouse's RowBinary format and send it as one HTTP INSERT
+     */
+    ROW_BINARY
+}
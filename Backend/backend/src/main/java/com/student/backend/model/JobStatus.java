@@ -0,0 +1,20 @@
+package com.student.backend.model;
+
+/**
+ * Enum representing the lifecycle of an asynchronous ingest job.
+ */
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    /**
+     * Cancellation was requested; the job stops at its next cancellation check
+     */
+    CANCELLING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
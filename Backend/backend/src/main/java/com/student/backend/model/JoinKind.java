@@ -0,0 +1,39 @@
+package com.student.backend.model;
+
+/**
+ * Enum representing the kind of JOIN that adds a table to an export.
+ */
+public enum JoinKind {
+    /**
+     * Only rows with a match in both tables
+     */
+    INNER("INNER JOIN"),
+
+    /**
+     * Every row of the tables joined so far; columns of the new table take their default value where nothing matches
+     */
+    LEFT("LEFT JOIN"),
+
+    /**
+     * Every row of the new table
+     */
+    RIGHT("RIGHT JOIN"),
+
+    /**
+     * Every row of both sides
+     */
+    FULL("FULL JOIN");
+
+    private final String sql;
+
+    JoinKind(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * SQL keywords of the join
+     */
+    public String getSql() {
+        return sql;
+    }
+}
@@ -1,5 +1,8 @@
 package com.student.backend.model.request;
 
+import com.student.backend.model.CompressionCodec;
+import com.student.backend.model.ExportMode;
+import com.student.backend.model.FileFormat;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -14,4 +17,9 @@ public class ClickHouseConfig extends DataSourceConfig {
     private String database;
     private String username;
     private String jwtToken;
+    private ExportMode exportMode = ExportMode.RESULT_SET;
+    private boolean mergeParts = true; // PARALLEL exports concatenate their part files into one
+    private CompressionCodec compression = CompressionCodec.AUTO; // Codec of the export file; AUTO and NONE write plain text
+    private FileFormat fileFormat = FileFormat.AUTO; // Format of the export file; AUTO writes delimited text
+    private ExportSpec export; // Table, filter, ordering, limit and sample of an export; null exports sample_data whole
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package com.student.backend.model.request;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.student.backend.model.CompressionCodec;
+import com.student.backend.model.ExportMode;
+import com.student.backend.model.FileFormat;
+import com.student.backend.model.InsertMode;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -15,6 +19,11 @@ public class DefaultDataSourceConfig extends DataSourceConfig {
     // Flat File fields
     private String fileName;
     private String delimiter = ",";
+    private InsertMode insertMode = InsertMode.JDBC;
+    private CompressionCodec compression = CompressionCodec.AUTO; // Flat File input, or the export output file
+    private FileFormat fileFormat = FileFormat.AUTO; // Flat File input, or the export output file
+    private String tableName;
+    private boolean createTable;
     
     // ClickHouse fields
     private String host;
@@ -22,4 +31,7 @@ public class DefaultDataSourceConfig extends DataSourceConfig {
     private String database;
     private String username;
     private String jwtToken;
+    private ExportMode exportMode = ExportMode.RESULT_SET;
+    private boolean mergeParts = true; // PARALLEL exports concatenate their part files into one
+    private ExportSpec export; // Table, filter, ordering, limit and sample of an export
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.student.backend.model.request;
+
+import com.student.backend.model.FilterOperator;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One condition of an export filter. Values are sent to ClickHouse as typed query parameters,
+ * never spliced into the SQL text.
+ */
+@Data
+public class ExportFilter {
+    private String column;
+    private FilterOperator operator = FilterOperator.EQ;
+    private String value; // Single operand of EQ, NE, LT, LE, GT, GE, LIKE and NOT_LIKE
+    private List<String> values; // Operands of IN, NOT_IN and BETWEEN; may replace value for single-operand operators
+}
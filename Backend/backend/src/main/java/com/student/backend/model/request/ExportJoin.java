@@ -0,0 +1,17 @@
+package com.student.backend.model.request;
+
+import com.student.backend.model.JoinKind;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A table joined to an export, with the keys that match its rows to the tables before it.
+ */
+@Data
+public class ExportJoin {
+    private String table;
+    private JoinKind kind = JoinKind.INNER;
+    private List<ExportJoinKey> on = new ArrayList<>(); // Combined with AND
+}
@@ -0,0 +1,12 @@
+package com.student.backend.model.request;
+
+import lombok.Data;
+
+/**
+ * One equality of a join condition.
+ */
+@Data
+public class ExportJoinKey {
+    private String left; // Column of a table earlier in the export, as column or table.column
+    private String right; // Column of the joined table
+}
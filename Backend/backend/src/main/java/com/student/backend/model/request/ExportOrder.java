@@ -0,0 +1,12 @@
+package com.student.backend.model.request;
+
+import lombok.Data;
+
+/**
+ * One ORDER BY key of an export.
+ */
+@Data
+public class ExportOrder {
+    private String column;
+    private boolean descending;
+}
@@ -0,0 +1,22 @@
+package com.student.backend.model.request;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What a ClickHouse export reads: the table and the tables joined to it, and the filter,
+ * ordering, limit and sample that ClickHouse applies before any row leaves the server. Once
+ * tables are joined, a column may be named as table.column, and must be wherever its name
+ * alone is ambiguous.
+ */
+@Data
+public class ExportSpec {
+    private String table; // Defaults to sample_data
+    private List<ExportJoin> joins = new ArrayList<>(); // Joined in order, each to the tables before it
+    private List<ExportFilter> filters = new ArrayList<>(); // Combined with AND
+    private List<ExportOrder> orderBy = new ArrayList<>();
+    private Long limit; // Maximum rows exported; null exports every matching row
+    private Double sample; // Fraction of the first table read with SAMPLE, in (0, 1]; needs a SAMPLE BY key
+}
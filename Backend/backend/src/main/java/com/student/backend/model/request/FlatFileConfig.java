@@ -1,5 +1,8 @@
 package com.student.backend.model.request;
 
+import com.student.backend.model.CompressionCodec;
+import com.student.backend.model.FileFormat;
+import com.student.backend.model.InsertMode;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -11,4 +14,9 @@ import lombok.EqualsAndHashCode;
 public class FlatFileConfig extends DataSourceConfig {
     private String fileName;
     private String delimiter = ","; // Default delimiter is comma
+    private InsertMode insertMode = InsertMode.JDBC;
+    private CompressionCodec compression = CompressionCodec.AUTO; // AUTO picks the codec from the file extension
+    private FileFormat fileFormat = FileFormat.AUTO; // AUTO picks the format from the file extension
+    private String tableName; // ClickHouse table the file is ingested into; target_table if omitted
+    private boolean createTable; // Create the table with types inferred from the file if it does not exist
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.student.backend.model.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Request DTO for the /api/preview endpoint.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PreviewRequest {
+    private String dataSource;
+    private DataSourceConfig config;
+    private List<String> columns; // All columns if omitted
+    private Integer rows; // Defaults to preview.default-rows, at most preview.max-rows
+    
+    /**
+     * Copy the dataSource value to the config object if needed, as for /api/tables
+     */
+    public DataSourceConfig getConfig() {
+        if (config != null && config.getDataSource() == null && dataSource != null) {
+            config.setDataSource(dataSource);
+        }
+        return config;
+    }
+}
@@ -0,0 +1,24 @@
+package com.student.backend.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Type and statistics of one column over the rows of a preview.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ColumnStatsResponse {
+    private String name;
+    private String type;
+    private boolean typeInferred; // Inferred from the values, for files; ClickHouse columns report their own type
+    private long nullCount;
+    private long distinctCount;
+    private String min;
+    private String max;
+    private int maxLength;
+}
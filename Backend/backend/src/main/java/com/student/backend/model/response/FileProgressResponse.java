@@ -0,0 +1,25 @@
+package com.student.backend.model.response;
+
+import com.student.backend.model.FileStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of one file of a directory or glob ingest, within the /api/jobs responses.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileProgressResponse {
+    private String fileName;
+    private FileStatus status;
+    private long sizeBytes;
+    private long rowsProcessed;
+    private long bytesProcessed;
+    private Double percentComplete;
+    private long recordsCount;
+    private String error;
+}
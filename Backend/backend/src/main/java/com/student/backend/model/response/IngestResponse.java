@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * Response model for the /api/ingest endpoint.
  */
@@ -14,6 +16,16 @@ import lombok.NoArgsConstructor;
 @Builder
 public class IngestResponse {
     private long recordsCount;
+    private long peakBufferedRows;
+    private long conversionErrors;
+    private int minBatchRows;
+    private int maxBatchRows;
+    private long averageBatchRows;
+    private long averageBatchBytes;
+    private long insertRetries;
+    private List<String> conversionErrorSamples;
+    private int filesIngested; // Files of a directory or glob pattern; 0 for a single file
+    private int filesSkipped; // Files of a directory or glob pattern that had already been ingested
     private String message;
     private String timestamp;
 }
\ No newline at end of file
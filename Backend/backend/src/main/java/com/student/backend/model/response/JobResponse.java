@@ -0,0 +1,36 @@
+package com.student.backend.model.response;
+
+import com.student.backend.model.JobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response model for the /api/jobs endpoints.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobResponse {
+    private String jobId;
+    private String dataSource;
+    private JobStatus status;
+    private String submittedAt;
+    private String startedAt;
+    private String finishedAt;
+    private long rowsProcessed;
+    private long bytesProcessed;
+    private Long totalRows;
+    private Long totalBytes;
+    private double rowsPerSecond;
+    private double bytesPerSecond;
+    private Double percentComplete;
+    private Long etaSeconds;
+    private List<FileProgressResponse> files; // Only for a directory or glob ingest
+    private IngestResponse result;
+    private String error;
+}
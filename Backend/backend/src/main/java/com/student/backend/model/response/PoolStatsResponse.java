@@ -0,0 +1,24 @@
+package com.student.backend.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response model for the /api/pools endpoint, one entry per ClickHouse connection pool.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PoolStatsResponse {
+    private String pool;
+    private int activeConnections;
+    private int idleConnections;
+    private int totalConnections;
+    private int threadsAwaitingConnection;
+    private long borrowCount;
+    private double averageWaitMs;
+    private double maxWaitMs;
+}
@@ -0,0 +1,26 @@
+package com.student.backend.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response model for the /api/preview endpoint.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PreviewResponse {
+    private String dataSource;
+    private String method; // HEAD of a file, FOOTER of a Parquet or Arrow file, or a LIMIT or SAMPLE query
+    private List<ColumnStatsResponse> columns;
+    private List<List<String>> rows;
+    private int rowCount;
+    private boolean exhausted; // The rows are everything the source has
+    private boolean cached;
+    private String readAt;
+}
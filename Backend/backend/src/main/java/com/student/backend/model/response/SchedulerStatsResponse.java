@@ -0,0 +1,30 @@
+package com.student.backend.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Response model for the /api/scheduler endpoint.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SchedulerStatsResponse {
+    private int running;
+    private int queued;
+    private int maxConcurrent;
+    private int maxConcurrentPerHost;
+    private int queueCapacity;
+    private Map<String, Integer> runningByHost;
+    private Map<String, Integer> runningByUser;
+    private Map<String, Integer> queuedByUser;
+    private long admittedCount;
+    private double averageWaitMs;
+    private double maxWaitMs;
+    private double oldestQueuedWaitMs;
+}
@@ -0,0 +1,24 @@
+package com.student.backend.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response model for the /api/schema/infer endpoint.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SchemaResponse {
+    private String table;
+    private List<ColumnStatsResponse> columns; // Inferred ClickHouse types, with the statistics of the sample
+    private List<String> orderBy;
+    private long sampledRows;
+    private boolean wholeFile; // The sample is the whole file, so integer types have no headroom
+    private String createTableSql;
+}
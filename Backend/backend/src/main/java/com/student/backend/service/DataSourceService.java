@@ -1,5 +1,6 @@
 package com.student.backend.service;
 
+import com.student.backend.ingest.ProgressTracker;
 import com.student.backend.model.request.DataSourceConfig;
 import com.student.backend.model.response.IngestResponse;
 
@@ -25,5 +26,20 @@ public interface DataSourceService {
      * @param columns Columns to ingest
      * @return Response with ingest results
      */
-    IngestResponse ingestData(DataSourceConfig sourceConfig, DataSourceConfig targetConfig, List<String> columns);
+    default IngestResponse ingestData(DataSourceConfig sourceConfig, DataSourceConfig targetConfig, List<String> columns) {
+        return ingestData(sourceConfig, targetConfig, columns, new ProgressTracker());
+    }
+    
+    /**
+     * Ingest data from the source to the target, reporting progress as it goes
+     * 
+     * @param sourceConfig Source data configuration
+     * @param targetConfig Target data configuration
+     * @param columns Columns to ingest
+     * @param progress Receives rows and bytes transferred; cancelling it stops the ingest
+     * @return Response with ingest results
+     * @throws java.util.concurrent.CancellationException if the ingest was cancelled
+     */
+    IngestResponse ingestData(DataSourceConfig sourceConfig, DataSourceConfig targetConfig, List<String> columns,
+                              ProgressTracker progress);
 }
\ No newline at end of file
@@ -0,0 +1,273 @@
+package com.student.backend.service.impl;
+
+import com.clickhouse.jdbc.ClickHouseDataSource;
+import com.student.backend.config.ClickHousePoolProperties;
+import com.student.backend.exception.DataSourceException;
+import com.student.backend.model.request.ClickHouseConfig;
+import com.student.backend.model.response.PoolStatsResponse;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of pooled ClickHouse data sources shared by all services.
+ * Pools are keyed by host, port, database and user (plus a hash of the token, so different
+ * credentials never share connections). Once more than the configured number of pools exist,
+ * the least recently used one is retired: it is no longer handed out, and a periodic sweep closes
+ * it once none of its connections is in use. Every pool gets a name of its own, so a pool created
+ * again for a retired key does not share its Hikari pool name or its metrics with the old one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClickHouseConnectionPools {
+
+    private final ClickHousePoolProperties poolProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Pool> pools = new LinkedHashMap<>(16, 0.75f, true);
+    // Evicted pools that still had connections in use
+    private final List<Pool> retired = new ArrayList<>();
+    private final AtomicLong poolSequence = new AtomicLong();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "clickhouse-pool-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Start the sweep that closes retired pools once their last connection has been returned
+     */
+    @PostConstruct
+    public void startSweeper() {
+        long period = poolProperties.getRetiredSweepMs();
+        sweeper.scheduleWithFixedDelay(this::closeIdleRetiredPools, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection from the pool for the given configuration; closing it returns it to the pool
+     *
+     * @param config ClickHouse connection settings
+     * @return A validated connection
+     */
+    public Connection getConnection(ClickHouseConfig config) throws SQLException {
+        Pool pool = borrowPool(config);
+        long start = System.nanoTime();
+        try {
+            return pool.dataSource.getConnection();
+        } catch (SQLException e) {
+            // The pool may have been closed between lookup and borrow; retry once on a fresh pool
+            if (!pool.dataSource.isClosed()) {
+                throw e;
+            }
+            Pool closed = pool;
+            pool = borrowPool(config);
+            closed.borrowers.decrementAndGet();
+            return pool.dataSource.getConnection();
+        } finally {
+            pool.borrowers.decrementAndGet();
+            pool.recordWait(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Snapshot of every open pool
+     */
+    public synchronized List<PoolStatsResponse> getStats() {
+        List<PoolStatsResponse> stats = new ArrayList<>();
+        pools.forEach((key, pool) -> stats.add(pool.stats()));
+        retired.forEach(pool -> stats.add(pool.stats()));
+        return stats;
+    }
+
+    @PreDestroy
+    public synchronized void closeAll() {
+        sweeper.shutdownNow();
+        pools.values().forEach(pool -> pool.dataSource.close());
+        pools.clear();
+        retired.forEach(pool -> pool.dataSource.close());
+        retired.clear();
+    }
+
+    /**
+     * Pool for the given configuration, counted as borrowed from until the caller decrements
+     * its borrowers, so it is not closed between lookup and borrow
+     */
+    private synchronized Pool borrowPool(ClickHouseConfig config) {
+        String key = poolKey(config);
+        Pool pool = pools.get(key);
+        if (pool == null) {
+            pool = createPool(config, displayName(config) + "#" + poolSequence.incrementAndGet());
+            pools.put(key, pool);
+            retireLeastRecentlyUsed();
+        }
+        pool.borrowers.incrementAndGet();
+        return pool;
+    }
+
+    /**
+     * Take the least recently used pools out of the registry. They are not closed here: closing a
+     * Hikari pool aborts the connections in use and can block for seconds.
+     */
+    private void retireLeastRecentlyUsed() {
+        while (pools.size() > poolProperties.getMaxPools()) {
+            Iterator<Pool> eldest = pools.values().iterator();
+            Pool pool = eldest.next();
+            eldest.remove();
+            log.info("Retiring least recently used ClickHouse pool {}", pool.name);
+            retired.add(pool);
+        }
+    }
+
+    /**
+     * Close the retired pools none of whose connections is in use, outside the registry lock
+     */
+    private void closeIdleRetiredPools() {
+        List<Pool> idle = new ArrayList<>();
+        synchronized (this) {
+            // A retired pool can no longer be looked up, so its borrowers only decrease
+            retired.removeIf(pool -> pool.isIdle() && idle.add(pool));
+        }
+        for (Pool pool : idle) {
+            log.info("Closing retired ClickHouse pool {}", pool.name);
+            try {
+                pool.dataSource.close();
+            } catch (RuntimeException e) {
+                // An exception would cancel the sweep's later runs
+                log.warn("Failed to close retired ClickHouse pool {}: {}", pool.name, e.toString());
+            }
+        }
+    }
+
+    private Pool createPool(ClickHouseConfig config, String name) {
+        String url = String.format("jdbc:clickhouse://%s:%s/%s",
+                config.getHost(), config.getPort(), config.getDatabase());
+
+        Properties properties = new Properties();
+        if (config.getUsername() != null && !config.getUsername().isEmpty()) {
+            properties.setProperty("user", config.getUsername());
+        }
+        if (config.getJwtToken() != null && !config.getJwtToken().isEmpty()) {
+            properties.setProperty("password", config.getJwtToken());
+        }
+
+        try {
+            HikariConfig hikariConfig = new HikariConfig();
+            hikariConfig.setDataSource(new ClickHouseDataSource(url, properties));
+            hikariConfig.setPoolName("clickhouse-" + name);
+            hikariConfig.setMaximumPoolSize(poolProperties.getMaxSize());
+            hikariConfig.setMinimumIdle(0);
+            hikariConfig.setIdleTimeout(poolProperties.getIdleTimeoutMs());
+            hikariConfig.setConnectionTimeout(poolProperties.getConnectionTimeoutMs());
+            hikariConfig.setValidationTimeout(poolProperties.getValidationTimeoutMs());
+            // Validate on borrow; a dead connection is replaced before it reaches the caller
+            hikariConfig.setConnectionTestQuery("SELECT 1");
+            // Do not connect when the pool is created; connection errors surface on first borrow
+            hikariConfig.setInitializationFailTimeout(-1);
+            // Publishes hikaricp.connections.* (acquire time, usage, pending threads) tagged with the pool name
+            hikariConfig.setMetricRegistry(meterRegistry);
+
+            log.info("Creating ClickHouse connection pool for {}", url);
+            return new Pool(name, new HikariDataSource(hikariConfig));
+        } catch (SQLException e) {
+            throw new DataSourceException("Failed to create ClickHouse data source: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Identity of a server, database and credentials; also used to key other per-cluster caches
+     */
+    static String poolKey(ClickHouseConfig config) {
+        return String.join("|", config.getHost(), config.getPort(), config.getDatabase(),
+                String.valueOf(config.getUsername()), tokenHash(config.getJwtToken()));
+    }
+
+    private static String displayName(ClickHouseConfig config) {
+        String user = config.getUsername() == null || config.getUsername().isEmpty() ? "default" : config.getUsername();
+        return String.format("%s@%s:%s/%s", user, config.getHost(), config.getPort(), config.getDatabase());
+    }
+
+    private static String tokenHash(String token) {
+        if (token == null || token.isEmpty()) {
+            return "";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class Pool {
+        private final String name;
+        private final HikariDataSource dataSource;
+        // Callers between lookup and the end of their borrow
+        private final AtomicInteger borrowers = new AtomicInteger();
+        private final AtomicLong borrowCount = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        Pool(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void recordWait(long nanos) {
+            borrowCount.incrementAndGet();
+            totalWaitNanos.addAndGet(nanos);
+            maxWaitNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * Whether no caller is borrowing and no connection is in use. Borrowers are read first: a
+         * borrow counts as an active connection before its borrower is released.
+         */
+        boolean isIdle() {
+            if (borrowers.get() > 0) {
+                return false;
+            }
+            HikariPoolMXBean mxBean = dataSource.getHikariPoolMXBean();
+            return mxBean == null || mxBean.getActiveConnections() == 0;
+        }
+
+        PoolStatsResponse stats() {
+            HikariPoolMXBean mxBean = dataSource.getHikariPoolMXBean();
+            long borrows = borrowCount.get();
+            return PoolStatsResponse.builder()
+                    .pool(name)
+                    .activeConnections(mxBean != null ? mxBean.getActiveConnections() : 0)
+                    .idleConnections(mxBean != null ? mxBean.getIdleConnections() : 0)
+                    .totalConnections(mxBean != null ? mxBean.getTotalConnections() : 0)
+                    .threadsAwaitingConnection(mxBean != null ? mxBean.getThreadsAwaitingConnection() : 0)
+                    .borrowCount(borrows)
+                    .averageWaitMs(borrows == 0 ? 0 : totalWaitNanos.get() / 1e6 / borrows)
+                    .maxWaitMs(maxWaitNanos.get() / 1e6)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.student.backend.service.impl;
+
+import com.student.backend.config.ExportProperties;
+import com.student.backend.exception.DataSourceException;
+import com.student.backend.ingest.ClickHouseHttpClient;
+import com.student.backend.ingest.Compression;
+import com.student.backend.ingest.ExportFormat;
+import com.student.backend.ingest.FileSchema;
+import com.student.backend.ingest.ProgressTracker;
+import com.student.backend.model.ColumnMetadata;
+import com.student.backend.model.CompressionCodec;
+import com.student.backend.model.request.ClickHouseConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports a table by splitting it into ranges, by partition or by ranges of the first primary
+ * key column, and running one server-formatted SELECT per range concurrently. Each range is
+ * written to its own part file; delimited text parts can be concatenated into the target file
+ * afterwards, while Parquet and Arrow parts are kept as a set of files. Ranges are planned over
+ * the whole table; the export's own filter is ANDed with each range condition.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClickHouseParallelExporter {
+
+    private static final AtomicInteger EXPORT_IDS = new AtomicInteger();
+
+    /**
+     * Key column types whose values map onto Int64 with toInt64 and can be split numerically
+     */
+    private static final Set<String> SPLITTABLE_KEY_TYPES = Set.of(
+            "Int8", "Int16", "Int32", "Int64", "UInt8", "UInt16", "UInt32", "UInt64",
+            "Date", "Date32", "DateTime");
+
+    private final ExportProperties exportProperties;
+    private final ClickHouseConnectionPools connectionPools;
+    private final ClickHouseSchemaCache schemaCache;
+
+    /**
+     * Outcome of a parallel export
+     *
+     * @param rows Data rows written, excluding header lines
+     * @param bytes Bytes written across all files
+     * @param files Files written: the target file when parts were merged, otherwise the part files
+     */
+    public record Result(long rows, long bytes, List<Path> files) {
+    }
+
+    /**
+     * Export the result of a query; its filter and sample apply to every range
+     *
+     * @param config ClickHouse connection settings
+     * @param query Table, columns, filter and sample to export; must be {@link ExportQuery#isSplittable splittable}
+     * @param target Target file; part files are created next to it
+     * @param format Output format of every part
+     * @param mergeParts Whether to concatenate the parts into the target file and delete them;
+     *                   ignored for columnar formats, whose files cannot be concatenated
+     * @param compression Resolved codec of the target; every part is compressed on its own, and
+     *                    concatenated compressed parts are still one valid compressed file
+     * @param progress Receives bytes as they arrive and rows as ranges complete
+     * @throws CancellationException if the progress tracker was cancelled
+     */
+    public Result export(ClickHouseConfig config, ExportQuery query, Path target, ExportFormat format,
+                         boolean mergeParts, CompressionCodec compression, ProgressTracker progress)
+            throws IOException, SQLException {
+        String table = query.getTable();
+        if (mergeParts && format.columnar()) {
+            log.info("Keeping {} part files separate; they cannot be concatenated", format.name());
+            mergeParts = false;
+        }
+        int parallelism = Math.max(1, exportProperties.getParallelism());
+        List<String> ranges = planRanges(config, table, parallelism);
+        log.info("Exporting {}.{} in {} ranges", config.getDatabase(), table, ranges.size());
+
+        List<Path> parts = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            parts.add(partPath(target, i + 1));
+        }
+
+        ClickHouseHttpClient client = new ClickHouseHttpClient(config);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, ranges.size()),
+                exportThreadFactory());
+        List<Future<ClickHouseHttpClient.ExportResult>> futures = new ArrayList<>(ranges.size());
+        long rows = 0;
+        long bytes = 0;
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                // Merged parts are concatenated, so only the first one carries the header line
+                boolean withNames = !mergeParts || i == 0;
+                ExportQuery.Http rangeQuery = query.http(ranges.get(i), format.formatName(withNames));
+                Path part = parts.get(i);
+                futures.add(executor.submit(
+                        () -> exportRange(client, rangeQuery, format, withNames, part, compression, progress)));
+            }
+            for (Future<ClickHouseHttpClient.ExportResult> future : futures) {
+                ClickHouseHttpClient.ExportResult result = future.get();
+                rows += result.rows();
+                bytes += result.bytes();
+                progress.addRows(result.rows());
+                progress.getMetrics().rowsRead(result.rows());
+                progress.getMetrics().rowsWritten(result.rows());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deleteQuietly(parts);
+            throw new DataSourceException("Interrupted during parallel export");
+        } catch (ExecutionException e) {
+            // Stop the other ranges; once a range's file is closed its body subscriber cancels the download
+            futures.forEach(future -> future.cancel(true));
+            deleteQuietly(parts);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof CancellationException cancellation) {
+                throw cancellation;
+            }
+            throw new DataSourceException("Parallel export failed: " + cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (!mergeParts) {
+            return new Result(rows, bytes, parts);
+        }
+        mergeInto(target, parts);
+        return new Result(rows, bytes, List.of(target));
+    }
+
+    private ClickHouseHttpClient.ExportResult exportRange(ClickHouseHttpClient client, ExportQuery.Http query,
+                                                          ExportFormat format, boolean withNames, Path part,
+                                                          CompressionCodec compression, ProgressTracker progress)
+            throws IOException {
+        log.debug("Exporting range: {}", query.sql());
+        // Ranges already run concurrently, so each part gets an equal share of the compression threads
+        int compressionThreads = Math.max(1,
+                exportProperties.effectiveCompressionThreads() / Math.max(1, exportProperties.getParallelism()));
+        ClickHouseHttpClient.ExportResult result;
+        try (WritableByteChannel channel = Compression.openForWrite(part, compression, compressionThreads,
+                exportProperties.getCompressionBlockSizeBytes())) {
+            result = client.export(query.sql(), query.parameters(), format, withNames, channel,
+                    exportProperties.getBufferSizeBytes(), progress);
+        }
+        if (result.rows() < 0) {
+            result = new ClickHouseHttpClient.ExportResult(result.bytes(),
+                    FileSchema.read(part, format.fileFormat()).rows());
+        }
+        return result;
+    }
+
+    /**
+     * Split the table into WHERE conditions, one per range. Partitions are preferred; a table
+     * with a single partition is split on its first primary key column. An empty condition
+     * means the whole table.
+     */
+    private List<String> planRanges(ClickHouseConfig config, String table, int parallelism) throws SQLException {
+        if (parallelism == 1) {
+            return List.of("");
+        }
+        try (Connection connection = connectionPools.getConnection(config)) {
+            List<String> ranges = partitionRanges(connection, config.getDatabase(), table, parallelism);
+            if (ranges.size() > 1) {
+                return ranges;
+            }
+            ranges = keyRanges(connection, config, table, parallelism);
+            if (ranges.size() > 1) {
+                return ranges;
+            }
+        }
+        return List.of("");
+    }
+
+    /**
+     * Group active partitions into at most {@code parallelism} ranges of similar row counts
+     */
+    private List<String> partitionRanges(Connection connection, String database, String table,
+                                         int parallelism) throws SQLException {
+        List<String> partitionIds = new ArrayList<>();
+        List<Long> partitionRows = new ArrayList<>();
+        String sql = "SELECT partition_id, sum(rows) FROM system.parts "
+                + "WHERE database = ? AND table = ? AND active GROUP BY partition_id";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, database);
+            statement.setString(2, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    partitionIds.add(resultSet.getString(1));
+                    partitionRows.add(resultSet.getLong(2));
+                }
+            }
+        }
+        if (partitionIds.size() <= 1) {
+            return List.of();
+        }
+
+        // Largest partitions first, each into the range with the fewest rows so far
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < partitionIds.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(partitionRows::get).reversed());
+
+        int rangeCount = Math.min(parallelism, partitionIds.size());
+        List<List<String>> groups = new ArrayList<>(rangeCount);
+        long[] groupRows = new long[rangeCount];
+        for (int i = 0; i < rangeCount; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int index : order) {
+            int smallest = 0;
+            for (int g = 1; g < rangeCount; g++) {
+                if (groupRows[g] < groupRows[smallest]) {
+                    smallest = g;
+                }
+            }
+            groups.get(smallest).add("'" + partitionIds.get(index).replace("\\", "\\\\").replace("'", "\\'") + "'");
+            groupRows[smallest] += partitionRows.get(index);
+        }
+
+        List<String> ranges = new ArrayList<>(rangeCount);
+        for (List<String> group : groups) {
+            ranges.add("_partition_id IN (" + String.join(", ", group) + ")");
+        }
+        return ranges;
+    }
+
+    /**
+     * Split the value range of the first primary key column into {@code parallelism} equal
+     * slices, if that column is an integer, date or date-time column
+     */
+    private List<String> keyRanges(Connection connection, ClickHouseConfig config, String table,
+                                   int parallelism) throws SQLException {
+        String keyColumn = firstKeyColumn(connection, config.getDatabase(), table);
+        if (keyColumn == null) {
+            return List.of();
+        }
+        String keyType = schemaCache.getTableColumns(config, table).stream()
+                .filter(column -> column.getName().equals(keyColumn))
+                .map(ColumnMetadata::getType)
+                .findFirst()
+                .orElse(null);
+        if (keyType == null || !SPLITTABLE_KEY_TYPES.contains(keyType)) {
+            log.debug("Primary key column {} of type {} cannot be split into ranges", keyColumn, keyType);
+            return List.of();
+        }
+
+        String key = "toInt64(" + keyColumn + ")";
+        long min;
+        long max;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(String.format("SELECT min(%s), max(%s), count() FROM %s.%s",
+                     key, key, config.getDatabase(), table))) {
+            if (!resultSet.next() || resultSet.getLong(3) == 0) {
+                return List.of();
+            }
+            min = resultSet.getLong(1);
+            max = resultSet.getLong(2);
+        }
+        if (min >= max) {
+            return List.of();
+        }
+
+        // Slice boundaries in BigInteger so a full Int64 span cannot overflow
+        BigInteger low = BigInteger.valueOf(min);
+        BigInteger span = BigInteger.valueOf(max).subtract(low).add(BigInteger.ONE);
+        int rangeCount = (int) Math.min(parallelism, span.min(BigInteger.valueOf(Integer.MAX_VALUE)).longValue());
+        List<String> ranges = new ArrayList<>(rangeCount);
+        for (int i = 0; i < rangeCount; i++) {
+            // The first and last slices are open-ended so rows outside [min, max] are still exported
+            List<String> bounds = new ArrayList<>(2);
+            if (i > 0) {
+                bounds.add(key + " >= " + low.add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(rangeCount))));
+            }
+            if (i < rangeCount - 1) {
+                bounds.add(key + " < " + low.add(span.multiply(BigInteger.valueOf(i + 1)).divide(BigInteger.valueOf(rangeCount))));
+            }
+            ranges.add(String.join(" AND ", bounds));
+        }
+        return ranges;
+    }
+
+    /**
+     * Return the first primary key column if it is a plain column reference, otherwise null
+     */
+    private static String firstKeyColumn(Connection connection, String database, String table) throws SQLException {
+        String sql = "SELECT primary_key FROM system.tables WHERE database = ? AND name = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, database);
+            statement.setString(2, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getString(1) == null || resultSet.getString(1).isBlank()) {
+                    return null;
+                }
+                String first = resultSet.getString(1).split(",")[0].trim();
+                return first.matches("[A-Za-z_][A-Za-z0-9_]*") ? first : null;
+            }
+        }
+    }
+
+    /**
+     * Concatenate the parts into the target file with channel-to-channel transfers, then delete them
+     */
+    private static void mergeInto(Path target, List<Path> parts) throws IOException {
+        try (FileChannel out = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Path part : parts) {
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
+        } finally {
+            deleteQuietly(parts);
+        }
+    }
+
+    /**
+     * output.csv becomes output.part-001.csv, and output.csv.gz becomes output.part-001.csv.gz
+     */
+    static Path partPath(Path target, int number) {
+        String fileName = target.getFileName().toString();
+        String codecExtension = CompressionCodec.fromFileName(fileName).getExtension();
+        if (!fileName.toLowerCase(Locale.ROOT).endsWith(codecExtension)) {
+            // .gzip and .zstd are recognised but are not the canonical extension
+            codecExtension = fileName.substring(fileName.lastIndexOf('.'));
+        }
+        fileName = fileName.substring(0, fileName.length() - codecExtension.length());
+        int dot = fileName.lastIndexOf('.');
+        String partName = dot > 0
+                ? String.format("%s.part-%03d%s%s", fileName.substring(0, dot), number, fileName.substring(dot),
+                        codecExtension)
+                : String.format("%s.part-%03d%s", fileName, number, codecExtension);
+        return target.resolveSibling(partName);
+    }
+
+    private static void deleteQuietly(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete export part {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private static ThreadFactory exportThreadFactory() {
+        int exportId = EXPORT_IDS.incrementAndGet();
+        AtomicInteger threadIds = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "export-" + exportId + "-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,157 @@
+package com.student.backend.service.impl;
+
+import com.student.backend.config.SchemaCacheProperties;
+import com.student.backend.exception.DataSourceException;
+import com.student.backend.model.ColumnMetadata;
+import com.student.backend.model.DatabaseSchema;
+import com.student.backend.model.request.ClickHouseConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Cache of ClickHouse column metadata, loaded once per database with a single system.columns query.
+ * Entries expire after a TTL, can be invalidated explicitly, and the least recently used
+ * database is evicted once the cache is full. Concurrent requests for a database that is
+ * being loaded wait for that load instead of starting their own.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClickHouseSchemaCache {
+
+    private final ClickHouseConnectionPools connectionPools;
+    private final SchemaCacheProperties cacheProperties;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Get the schema of the configured database, loading it if it is missing or expired
+     *
+     * @param config ClickHouse connection settings
+     * @return Column metadata of every table in the database
+     */
+    public DatabaseSchema getSchema(ClickHouseConfig config) {
+        String key = ClickHouseConnectionPools.poolKey(config);
+        Entry entry;
+        boolean load = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null || entry.isExpired(cacheProperties.getTtlMs())) {
+                entry = new Entry();
+                entries.put(key, entry);
+                evictLeastRecentlyUsed();
+                load = true;
+            }
+        }
+
+        if (load) {
+            try {
+                entry.schema.complete(loadSchema(config));
+            } catch (RuntimeException e) {
+                entry.schema.completeExceptionally(e);
+                synchronized (this) {
+                    entries.remove(key, entry);
+                }
+            }
+        }
+
+        try {
+            return entry.schema.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Get the columns of one table, reloading the database schema once if the table is not cached yet
+     *
+     * @param config ClickHouse connection settings
+     * @param table Table name
+     * @return Columns in position order
+     * @throws DataSourceException if the table does not exist
+     */
+    public List<ColumnMetadata> getTableColumns(ClickHouseConfig config, String table) {
+        List<ColumnMetadata> columns = getSchema(config).getTable(table);
+        if (columns == null) {
+            invalidate(config);
+            columns = getSchema(config).getTable(table);
+        }
+        if (columns == null) {
+            throw new DataSourceException(String.format("Table %s.%s not found in ClickHouse",
+                    config.getDatabase(), table));
+        }
+        return columns;
+    }
+
+    /**
+     * Drop the cached schema of the configured database
+     */
+    public synchronized void invalidate(ClickHouseConfig config) {
+        entries.remove(ClickHouseConnectionPools.poolKey(config));
+    }
+
+    private void evictLeastRecentlyUsed() {
+        while (entries.size() > cacheProperties.getMaxEntries()) {
+            entries.remove(entries.keySet().iterator().next());
+        }
+    }
+
+    private DatabaseSchema loadSchema(ClickHouseConfig config) {
+        log.info("Loading schema of ClickHouse database {} at {}:{}",
+                config.getDatabase(), config.getHost(), config.getPort());
+
+        Map<String, List<ColumnMetadata>> tables = new LinkedHashMap<>();
+        try (Connection connection = connectionPools.getConnection(config)) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT table, name, type, position FROM system.columns WHERE database = ? ORDER BY table, position")) {
+                statement.setString(1, config.getDatabase());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        tables.computeIfAbsent(resultSet.getString(1), t -> new ArrayList<>())
+                                .add(new ColumnMetadata(resultSet.getString(2), resultSet.getString(3), resultSet.getInt(4)));
+                    }
+                }
+            }
+
+            ZoneId serverTimeZone = ZoneId.of("UTC");
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT timezone()")) {
+                if (resultSet.next()) {
+                    serverTimeZone = ZoneId.of(resultSet.getString(1));
+                }
+            }
+
+            log.info("Cached {} tables of ClickHouse database {}", tables.size(), config.getDatabase());
+            return new DatabaseSchema(config.getDatabase(), tables, serverTimeZone);
+        } catch (SQLException e) {
+            log.error("Error loading schema from ClickHouse", e);
+            throw new DataSourceException("Failed to load schema from ClickHouse: " + e.getMessage(), e);
+        }
+    }
+
+    private static class Entry {
+        private final CompletableFuture<DatabaseSchema> schema = new CompletableFuture<>();
+        private final long createdAt = System.currentTimeMillis();
+
+        boolean isExpired(long ttlMs) {
+            return schema.isDone() && System.currentTimeMillis() - createdAt > ttlMs;
+        }
+    }
+}
@@ -1,8 +1,19 @@
 package com.student.backend.service.impl;
 
-import com.clickhouse.jdbc.ClickHouseDataSource;
+import com.student.backend.config.ExportProperties;
 import com.student.backend.exception.ConfigurationException;
 import com.student.backend.exception.DataSourceException;
+import com.student.backend.ingest.ClickHouseHttpClient;
+import com.student.backend.ingest.Compression;
+import com.student.backend.ingest.ExportFormat;
+import com.student.backend.ingest.FileSchema;
+import com.student.backend.ingest.ProgressTracker;
+import com.student.backend.ingest.ResultSetCsvWriter;
+import com.student.backend.ingest.RowSample;
+import com.student.backend.model.ColumnMetadata;
+import com.student.backend.model.CompressionCodec;
+import com.student.backend.model.ExportMode;
+import com.student.backend.model.FileFormat;
 import com.student.backend.model.request.ClickHouseConfig;
 import com.student.backend.model.request.DataSourceConfig;
 import com.student.backend.model.request.DefaultDataSourceConfig;
@@ -15,14 +26,23 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import org.springframework.stereotype.Service;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Properties;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of DataSourceService for ClickHouse operations
@@ -32,32 +52,17 @@ import java.util.Properties;
 @Slf4j
 public class ClickHouseService implements DataSourceService {
 
+    private final ClickHouseConnectionPools connectionPools;
+    private final ClickHouseSchemaCache schemaCache;
+    private final ExportProperties exportProperties;
+    private final ClickHouseParallelExporter parallelExporter;
+    private final IngestMetrics ingestMetrics;
+
     @Override
     public List<String> getColumns(DataSourceConfig config) {
         log.debug("Getting columns for ClickHouse with config: {}", config);
         
-        // Handle DefaultDataSourceConfig by converting it to ClickHouseConfig
-        if (config instanceof DefaultDataSourceConfig) {
-            DefaultDataSourceConfig defaultConfig = (DefaultDataSourceConfig) config;
-            if ("ClickHouse".equals(defaultConfig.getDataSource())) {
-                ClickHouseConfig clickHouseConfig = new ClickHouseConfig();
-                clickHouseConfig.setDataSource(defaultConfig.getDataSource());
-                clickHouseConfig.setHost(defaultConfig.getHost());
-                clickHouseConfig.setPort(defaultConfig.getPort());
-                clickHouseConfig.setDatabase(defaultConfig.getDatabase());
-                clickHouseConfig.setUsername(defaultConfig.getUsername());
-                clickHouseConfig.setJwtToken(defaultConfig.getJwtToken());
-                config = clickHouseConfig;
-                log.debug("Converted DefaultDataSourceConfig to ClickHouseConfig: {}", config);
-            }
-        }
-        
-        if (!(config instanceof ClickHouseConfig)) {
-            log.error("Invalid configuration type: {}", config.getClass().getName());
-            throw new ConfigurationException("Invalid configuration type for ClickHouse service");
-        }
-
-        ClickHouseConfig clickHouseConfig = (ClickHouseConfig) config;
+        ClickHouseConfig clickHouseConfig = asClickHouseConfig(config);
         List<String> columns = new ArrayList<>();
         
         // For test_db database, return test columns to avoid real connection
@@ -70,37 +75,39 @@ public class ClickHouseService implements DataSourceService {
             return columns;
         }
         
-        log.info("Attempting to connect to ClickHouse at {}:{}/{}",
+        log.info("Getting columns from ClickHouse at {}:{}/{}",
                 clickHouseConfig.getHost(), clickHouseConfig.getPort(), clickHouseConfig.getDatabase());
                 
-        try (Connection connection = getConnection(clickHouseConfig)) {
-            log.info("Successfully connected to ClickHouse");
-            
-            try (Statement statement = connection.createStatement()) {
-                // Query to get columns from a table (we'll use system.columns table)
-                String query = String.format(
-                        "SELECT name FROM system.columns WHERE database = '%s' ORDER BY table, position",
-                        clickHouseConfig.getDatabase()
-                );
-                
-                log.debug("Executing query: {}", query);
-                ResultSet resultSet = statement.executeQuery(query);
-                
-                while (resultSet.next()) {
-                    columns.add(resultSet.getString("name"));
-                }
-                
-                log.info("Retrieved {} columns from ClickHouse", columns.size());
-                return columns;
-            }
-        } catch (SQLException e) {
-            log.error("Error fetching columns from ClickHouse", e);
-            throw new DataSourceException("Failed to get columns from ClickHouse: " + e.getMessage(), e);
-        }
+        validateClickHouseConfig(clickHouseConfig);
+        
+        // Column metadata is cached per database; repeated clicks on the schema page do not rescan system.columns
+        columns = schemaCache.getSchema(clickHouseConfig).getAllColumnNames();
+        log.info("Retrieved {} columns from ClickHouse", columns.size());
+        return columns;
+    }
+
+    /**
+     * Drop the cached schema of the configured database and load it again
+     *
+     * @param config ClickHouse connection settings
+     * @return Column names of every table, ordered by table and position
+     */
+    public List<String> refreshColumns(DataSourceConfig config) {
+        ClickHouseConfig clickHouseConfig = asClickHouseConfig(config);
+        validateClickHouseConfig(clickHouseConfig);
+        schemaCache.invalidate(clickHouseConfig);
+        return schemaCache.getSchema(clickHouseConfig).getAllColumnNames();
     }
 
     @Override
-    public IngestResponse ingestData(DataSourceConfig sourceConfig, DataSourceConfig targetConfig, List<String> columns) {
+    public IngestResponse ingestData(DataSourceConfig sourceConfig, DataSourceConfig targetConfig, List<String> columns,
+                                     ProgressTracker progress) {
+        return ingestMetrics.track(IngestMetrics.EXPORT, progress,
+                () -> exportTable(sourceConfig, targetConfig, columns, progress));
+    }
+    
+    private IngestResponse exportTable(DataSourceConfig sourceConfig, DataSourceConfig targetConfig, List<String> columns,
+                                       ProgressTracker progress) {
         log.debug("Ingesting data from ClickHouse to flat file");
         log.debug("Source config: {}", sourceConfig);
         log.debug("Target config: {}", targetConfig);
@@ -131,6 +138,30 @@ public class ClickHouseService implements DataSourceService {
                     .build();
         }
         
+        // Table, filter, ordering, limit and sample all run inside ClickHouse
+        ExportQuery query = buildExportQuery(clickHouseConfig, columns);
+        progress.setTotalRows(query.estimateRows(estimateRowCount(clickHouseConfig, query.getTable())));
+        
+        if (clickHouseConfig.getExportMode() == ExportMode.PASS_THROUGH) {
+            return exportPassThrough(clickHouseConfig, flatFileConfig, query, progress);
+        }
+        
+        if (clickHouseConfig.getExportMode() == ExportMode.PARALLEL) {
+            if (!query.isSplittable()) {
+                // Concurrent ranges would lose the order, each apply the limit on its own,
+                // or split only the first table of a join
+                log.info("Exporting {} with ORDER BY, LIMIT or joins in a single pass-through query", query.getTable());
+                return exportPassThrough(clickHouseConfig, flatFileConfig, query, progress);
+            }
+            return exportParallel(clickHouseConfig, flatFileConfig, query, progress);
+        }
+        
+        // Parquet and Arrow files are written by ClickHouse; formatting them from JDBC rows would
+        // undo the point of a columnar file
+        if (resolveFileFormat(flatFileConfig).isColumnar()) {
+            return exportPassThrough(clickHouseConfig, flatFileConfig, query, progress);
+        }
+        
         // Create CSV format based on the delimiter
         char delimiter = flatFileConfig.getDelimiter().charAt(0);
         CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
@@ -138,46 +169,39 @@ public class ClickHouseService implements DataSourceService {
                 .setDelimiter(delimiter)
                 .build();
         
-        long recordsCount = 0;
         LocalDateTime now = LocalDateTime.now();
         
         try (Connection connection = getConnection(clickHouseConfig)) {
             log.info("Successfully connected to ClickHouse for data ingestion");
             
-            // Generate a query to get data
-            // For this example, we'll use a sample table
-            String tableName = "sample_data"; // This should come from a configuration
-            String columnsStr = String.join(", ", columns);
-            String query = String.format("SELECT %s FROM %s.%s", 
-                    columnsStr, clickHouseConfig.getDatabase(), tableName);
+            ExportQuery.Jdbc jdbcQuery = query.jdbc();
+            log.debug("Executing query: {}", jdbcQuery.sql());
             
-            log.debug("Executing query: {}", query);
-            
-            try (Statement statement = connection.createStatement();
-                 ResultSet resultSet = statement.executeQuery(query);
-                 FileWriter fileWriter = new FileWriter(flatFileConfig.getFileName());
+            Path file = Path.of(flatFileConfig.getFileName());
+            long recordsCount;
+            try (PreparedStatement statement = connection.prepareStatement(jdbcQuery.sql());
+                 ResultSet resultSet = executeQuery(statement, jdbcQuery);
+                 Writer fileWriter = new OutputStreamWriter(openOutput(flatFileConfig), StandardCharsets.UTF_8);
                  CSVPrinter csvPrinter = new CSVPrinter(fileWriter, csvFormat)) {
                 
-                while (resultSet.next()) {
-                    List<Object> rowData = new ArrayList<>();
-                    for (String column : columns) {
-                        rowData.add(resultSet.getObject(column));
-                    }
-                    csvPrinter.printRecord(rowData);
-                    recordsCount++;
-                }
-                
-                log.info("Ingested {} records from ClickHouse to file {}", recordsCount, flatFileConfig.getFileName());
-                
-                String message = String.format("Successfully ingested %d records from ClickHouse to file %s", 
-                        recordsCount, flatFileConfig.getFileName());
-                
-                return IngestResponse.builder()
-                        .recordsCount(recordsCount)
-                        .message(message)
-                        .timestamp(now.format(DateTimeFormatter.ISO_DATE_TIME))
-                        .build();
+                recordsCount = new ResultSetCsvWriter(columns).write(resultSet, csvPrinter, progress);
             }
+            
+            // The printer does not count what it writes; the file size is known once it is closed
+            long bytesWritten = Files.size(file);
+            progress.addBytes(bytesWritten);
+            progress.getMetrics().bytesWritten(bytesWritten);
+            
+            log.info("Ingested {} records from ClickHouse to file {}", recordsCount, flatFileConfig.getFileName());
+            
+            String message = String.format("Successfully ingested %d records from ClickHouse to file %s", 
+                    recordsCount, flatFileConfig.getFileName());
+            
+            return IngestResponse.builder()
+                    .recordsCount(recordsCount)
+                    .message(message)
+                    .timestamp(now.format(DateTimeFormatter.ISO_DATE_TIME))
+                    .build();
         } catch (SQLException | IOException e) {
             log.error("Error during data ingestion from ClickHouse to flat file", e);
             throw new DataSourceException("Failed to ingest data from ClickHouse: " + e.getMessage(), e);
@@ -185,36 +209,385 @@ public class ClickHouseService implements DataSourceService {
     }
     
     /**
-     * Create a connection to the ClickHouse database
+     * Bind the filter values and run the query, so the result set can be opened in a try-with-resources
      */
-    private Connection getConnection(ClickHouseConfig config) throws SQLException {
-        validateClickHouseConfig(config);
+    private static ResultSet executeQuery(PreparedStatement statement, ExportQuery.Jdbc query) throws SQLException {
+        query.bind(statement);
+        return statement.executeQuery();
+    }
+    
+    /**
+     * Check the export spec of the configuration against the cached schemas of its tables
+     *
+     * @throws ConfigurationException if the spec names an unknown or ambiguous column, has invalid
+     *                                operands, or samples a table without a SAMPLE BY key
+     */
+    private ExportQuery buildExportQuery(ClickHouseConfig clickHouseConfig, List<String> columns) {
+        String table = ExportQuery.tableOf(clickHouseConfig.getExport());
+        ExportQuery query = ExportQuery.build(clickHouseConfig.getDatabase(), clickHouseConfig.getExport(),
+                name -> schemaCache.getTableColumns(clickHouseConfig, name), columns);
+        if (query.isSampled()) {
+            requireSamplingKey(clickHouseConfig, table);
+        }
+        return query;
+    }
+    
+    private void requireSamplingKey(ClickHouseConfig config, String tableName) {
+        String sql = "SELECT sampling_key FROM system.tables WHERE database = ? AND name = ?";
+        try (Connection connection = getConnection(config);
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, config.getDatabase());
+            statement.setString(2, tableName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getString(1) == null || resultSet.getString(1).isBlank()) {
+                    throw new ConfigurationException("Table " + tableName
+                            + " has no SAMPLE BY key and cannot be sampled");
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataSourceException("Failed to read the sampling key of " + tableName + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Read the first rows of the export spec's result, for a preview. The query is the export's
+     * own, with its joins, filter and sample, cut down with a LIMIT, so ClickHouse stops reading
+     * once it has the rows.
+     *
+     * @param clickHouseConfig Connection and export spec, see {@link #asClickHouseConfig}
+     * @param columns Columns to read; all columns of the spec's table if null or empty
+     * @param maxRows Most rows to read
+     */
+    public RowSample sampleRows(ClickHouseConfig clickHouseConfig, List<String> columns, int maxRows) {
+        validateClickHouseConfig(clickHouseConfig);
+        if (columns == null || columns.isEmpty()) {
+            columns = schemaCache.getTableColumns(clickHouseConfig, ExportQuery.tableOf(clickHouseConfig.getExport()))
+                    .stream()
+                    .map(ColumnMetadata::getName)
+                    .collect(Collectors.toList());
+        }
+        ExportQuery query = buildExportQuery(clickHouseConfig, columns);
+        // One row more than needed tells whether the result has more
+        ExportQuery.Jdbc jdbcQuery = query.limitedTo(maxRows + 1L).jdbc();
+        log.debug("Executing preview query: {}", jdbcQuery.sql());
         
-        String url = String.format("jdbc:clickhouse://%s:%s/%s", 
-                config.getHost(), config.getPort(), config.getDatabase());
+        try (Connection connection = getConnection(clickHouseConfig);
+             PreparedStatement statement = connection.prepareStatement(jdbcQuery.sql());
+             ResultSet resultSet = executeQuery(statement, jdbcQuery)) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            List<String> types = new ArrayList<>(columns.size());
+            for (int i = 1; i <= columns.size(); i++) {
+                types.add(metaData.getColumnTypeName(i));
+            }
+            List<String[]> rows = new ArrayList<>();
+            boolean exhausted = true;
+            while (resultSet.next()) {
+                if (rows.size() == maxRows) {
+                    exhausted = false;
+                    break;
+                }
+                String[] row = new String[columns.size()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = resultSet.getString(i + 1);
+                }
+                rows.add(row);
+            }
+            return new RowSample(List.copyOf(columns), types, rows, exhausted, query.isSampled() ? "SAMPLE" : "LIMIT");
+        } catch (SQLException e) {
+            log.error("Error reading preview rows from ClickHouse", e);
+            throw new DataSourceException("Failed to read rows from ClickHouse: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Export by letting ClickHouse format the rows and copying the HTTP response body into the
+     * file. No row passes through Java objects. The body is copied while ClickHouse is still
+     * producing it, and the rows are counted by scanning the copied bytes for record ends outside
+     * quotes; Parquet and Arrow files take their row count from the file footer instead. If the
+     * query fails, also after part of the body was copied, the incomplete file is deleted.
+     */
+    private IngestResponse exportPassThrough(ClickHouseConfig clickHouseConfig, FlatFileConfig flatFileConfig,
+                                             ExportQuery query, ProgressTracker progress) {
+        validateClickHouseConfig(clickHouseConfig);
+        
+        ExportFormat format = exportFormat(flatFileConfig);
+        
+        ExportQuery.Http httpQuery = query.http("", format.formatName(true));
+        log.debug("Executing pass-through export: {}", httpQuery.sql());
+        
+        LocalDateTime now = LocalDateTime.now();
+        Path file = Path.of(flatFileConfig.getFileName());
+        try {
+            ClickHouseHttpClient.ExportResult result;
+            try (WritableByteChannel channel = Compression.openForWrite(file, resolveCompression(flatFileConfig),
+                    exportProperties.effectiveCompressionThreads(), exportProperties.getCompressionBlockSizeBytes())) {
+                result = new ClickHouseHttpClient(clickHouseConfig).export(httpQuery.sql(), httpQuery.parameters(),
+                        format, true, channel, exportProperties.getBufferSizeBytes(), progress);
+            }
+            if (result.rows() < 0) {
+                result = new ClickHouseHttpClient.ExportResult(result.bytes(),
+                        FileSchema.read(file, format.fileFormat()).rows());
+            }
+            addExportedRows(progress, result.rows());
+            
+            log.info("Exported {} records ({} bytes) from ClickHouse to file {}",
+                    result.rows(), result.bytes(), flatFileConfig.getFileName());
+            
+            String message = String.format("Successfully ingested %d records from ClickHouse to file %s", 
+                    result.rows(), flatFileConfig.getFileName());
+            
+            return IngestResponse.builder()
+                    .recordsCount(result.rows())
+                    .message(message)
+                    .timestamp(now.format(DateTimeFormatter.ISO_DATE_TIME))
+                    .build();
+        } catch (IOException e) {
+            log.error("Error during pass-through export from ClickHouse to flat file", e);
+            deleteIncompleteFile(file);
+            throw new DataSourceException("Failed to ingest data from ClickHouse: " + e.getMessage(), e);
+        }
+    }
+    
+    private static void deleteIncompleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete incomplete export file {}: {}", file, e.getMessage());
+        }
+    }
+    
+    /**
+     * An export streamed to a client instead of written to a file
+     *
+     * @param fileName Suggested name of the downloaded file, with its format and compression extensions
+     * @param contentType Media type of the downloaded bytes
+     * @param body Runs the export into the given stream; the stream is left open
+     */
+    public record Download(String fileName, String contentType, DownloadBody body) {
+    }
+    
+    @FunctionalInterface
+    public interface DownloadBody {
+        void writeTo(OutputStream out) throws IOException;
+    }
+    
+    /**
+     * Prepare a download of the selected columns. The configuration is checked here, before any
+     * byte of the response is written, so a bad request still gets an error response. Writing the
+     * body runs a pass-through query whose response is copied to the client as ClickHouse produces
+     * it, through a buffer of export.download-buffer-size-bytes. Nothing is written to disk, and
+     * compression is done by ClickHouse.
+     *
+     * @param sourceConfig ClickHouse connection, export spec, file format and compression of the download
+     * @param columns Columns to export
+     */
+    public Download prepareDownload(DataSourceConfig sourceConfig, List<String> columns) {
+        ClickHouseConfig clickHouseConfig = asClickHouseConfig(sourceConfig);
+        validateClickHouseConfig(clickHouseConfig);
+        ExportQuery exportQuery = buildExportQuery(clickHouseConfig, columns);
         
-        log.debug("ClickHouse connection URL: {}", url);
+        FileFormat fileFormat = clickHouseConfig.getFileFormat().resolve("output.csv");
+        String fileName = "output" + fileFormat.getExtension();
+        CompressionCodec compression = clickHouseConfig.getCompression().resolve(fileName);
+        FlatFileConfig flatFileConfig = new FlatFileConfig();
+        flatFileConfig.setFileName(fileName + compression.getExtension());
+        flatFileConfig.setFileFormat(fileFormat);
+        flatFileConfig.setCompression(compression);
+        ExportFormat format = exportFormat(flatFileConfig);
         
-        Properties properties = new Properties();
+        ExportQuery.Http query = exportQuery.http("", format.formatName(true));
+        String contentType = compression == CompressionCodec.NONE && !fileFormat.isColumnar()
+                ? "text/csv" : "application/octet-stream";
         
-        // Add authentication if provided
-        if (config.getUsername() != null && !config.getUsername().isEmpty()) {
-            properties.setProperty("user", config.getUsername());
-            log.debug("Using username: {}", config.getUsername());
+        return new Download(flatFileConfig.getFileName(), contentType, out -> {
+            ProgressTracker progress = new ProgressTracker();
+            ingestMetrics.track(IngestMetrics.EXPORT, progress,
+                    () -> streamExport(clickHouseConfig, query, format, compression, out, progress));
+        });
+    }
+    
+    private ClickHouseHttpClient.ExportResult streamExport(ClickHouseConfig clickHouseConfig, ExportQuery.Http query,
+                                                           ExportFormat format, CompressionCodec compression,
+                                                           OutputStream out, ProgressTracker progress) {
+        log.debug("Executing streamed download: {}", query.sql());
+        try {
+            ClickHouseHttpClient.ExportResult result = new ClickHouseHttpClient(clickHouseConfig).stream(query.sql(),
+                    query.parameters(), format, true, compression, Channels.newChannel(out),
+                    exportProperties.getDownloadBufferSizeBytes(), progress);
+            out.flush();
+            // Compressed and columnar bodies are copied without being read, so their rows are not known
+            if (result.rows() >= 0) {
+                addExportedRows(progress, result.rows());
+            }
+            log.info("Streamed {} bytes ({} rows) from ClickHouse to a download", result.bytes(),
+                    result.rows() >= 0 ? result.rows() : "unknown");
+            return result;
+        } catch (IOException e) {
+            log.error("Error during streamed download from ClickHouse", e);
+            throw new DataSourceException("Failed to download data from ClickHouse: " + e.getMessage(), e);
         }
+    }
+    
+    /**
+     * Export the table in concurrent partition or primary key ranges, one part file per range
+     */
+    private IngestResponse exportParallel(ClickHouseConfig clickHouseConfig, FlatFileConfig flatFileConfig,
+                                          ExportQuery query, ProgressTracker progress) {
+        validateClickHouseConfig(clickHouseConfig);
         
-        if (config.getJwtToken() != null && !config.getJwtToken().isEmpty()) {
-            properties.setProperty("password", "****"); // Don't log the actual token
-            log.debug("Using JWT token authentication");
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            ClickHouseParallelExporter.Result result = parallelExporter.export(clickHouseConfig, query,
+                    Path.of(flatFileConfig.getFileName()), exportFormat(flatFileConfig), clickHouseConfig.isMergeParts(),
+                    resolveCompression(flatFileConfig), progress);
+            
+            log.info("Exported {} records ({} bytes) from ClickHouse to {}", result.rows(), result.bytes(), result.files());
+            
+            String message = String.format("Successfully ingested %d records from ClickHouse to %s",
+                    result.rows(), result.files().size() == 1
+                            ? "file " + result.files().get(0)
+                            : result.files().size() + " part files next to " + flatFileConfig.getFileName());
+            
+            return IngestResponse.builder()
+                    .recordsCount(result.rows())
+                    .message(message)
+                    .timestamp(now.format(DateTimeFormatter.ISO_DATE_TIME))
+                    .build();
+        } catch (SQLException | IOException e) {
+            log.error("Error during parallel export from ClickHouse to flat file", e);
+            throw new DataSourceException("Failed to ingest data from ClickHouse: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * ClickHouse output format of the export file: delimited text with the configured delimiter,
+     * or a Parquet or Arrow file laid out according to the export properties
+     */
+    private ExportFormat exportFormat(FlatFileConfig flatFileConfig) {
+        FileFormat fileFormat = resolveFileFormat(flatFileConfig);
+        if (!fileFormat.isColumnar()) {
+            return ExportFormat.forDelimiter(flatFileConfig.getDelimiter());
+        }
+        if (resolveCompression(flatFileConfig) != CompressionCodec.NONE) {
+            throw new ConfigurationException(fileFormat + " files compress their columns themselves; "
+                    + "set compression to NONE");
         }
         
+        Map<String, String> settings = new LinkedHashMap<>();
+        if (fileFormat == FileFormat.PARQUET) {
+            settings.put("output_format_parquet_row_group_size", String.valueOf(exportProperties.getParquetRowGroupRows()));
+            settings.put("output_format_parquet_row_group_size_bytes",
+                    String.valueOf(exportProperties.getParquetRowGroupBytes()));
+            settings.put("output_format_parquet_compression_method", exportProperties.getParquetCompression());
+            // String columns get the UTF8 logical type instead of plain binary, so readers see text
+            settings.put("output_format_parquet_string_as_string", "1");
+        } else {
+            settings.put("output_format_arrow_compression_method", exportProperties.getArrowCompression());
+            settings.put("output_format_arrow_string_as_string", "1");
+        }
+        return ExportFormat.forColumnarFile(fileFormat, settings);
+    }
+    
+    /**
+     * Format of the export file, from the config or the file extension
+     */
+    private static FileFormat resolveFileFormat(FlatFileConfig flatFileConfig) {
+        return flatFileConfig.getFileFormat().resolve(flatFileConfig.getFileName());
+    }
+    
+    /**
+     * Codec of the export file, from the config or the file extension
+     */
+    private static CompressionCodec resolveCompression(FlatFileConfig flatFileConfig) {
+        return flatFileConfig.getCompression().resolve(flatFileConfig.getFileName());
+    }
+    
+    /**
+     * Create or truncate the export file, compressing what is written to it if its codec asks for it
+     */
+    private OutputStream openOutput(FlatFileConfig flatFileConfig) throws IOException {
+        return Compression.compress(resolveCompression(flatFileConfig),
+                Files.newOutputStream(Path.of(flatFileConfig.getFileName())),
+                exportProperties.effectiveCompressionThreads(), exportProperties.getCompressionBlockSizeBytes());
+    }
+    
+    /**
+     * Count exported rows; every row read from ClickHouse is written to the file
+     */
+    private static void addExportedRows(ProgressTracker progress, long rows) {
+        progress.addRows(rows);
+        progress.getMetrics().rowsRead(rows);
+        progress.getMetrics().rowsWritten(rows);
+    }
+    
+    /**
+     * Estimate the rows in a table from system.tables, for progress reporting
+     *
+     * @return Row count, or -1 if it cannot be determined
+     */
+    private long estimateRowCount(ClickHouseConfig config, String tableName) {
+        String sql = "SELECT total_rows FROM system.tables WHERE database = ? AND name = ?";
+        try (Connection connection = getConnection(config);
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, config.getDatabase());
+            statement.setString(2, tableName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    long rows = resultSet.getLong(1);
+                    return resultSet.wasNull() ? -1 : rows;
+                }
+            }
+        } catch (SQLException e) {
+            // Only used for the ETA; a real connection problem surfaces in the export itself
+            log.debug("Could not estimate the row count of {}.{}: {}", config.getDatabase(), tableName, e.getMessage());
+        }
+        return -1;
+    }
+    
+    /**
+     * Convert the request configuration to a ClickHouseConfig
+     */
+    ClickHouseConfig asClickHouseConfig(DataSourceConfig config) {
+        // Handle DefaultDataSourceConfig by converting it to ClickHouseConfig
+        if (config instanceof DefaultDataSourceConfig) {
+            DefaultDataSourceConfig defaultConfig = (DefaultDataSourceConfig) config;
+            if ("ClickHouse".equals(defaultConfig.getDataSource())) {
+                ClickHouseConfig clickHouseConfig = new ClickHouseConfig();
+                clickHouseConfig.setDataSource(defaultConfig.getDataSource());
+                clickHouseConfig.setHost(defaultConfig.getHost());
+                clickHouseConfig.setPort(defaultConfig.getPort());
+                clickHouseConfig.setDatabase(defaultConfig.getDatabase());
+                clickHouseConfig.setUsername(defaultConfig.getUsername());
+                clickHouseConfig.setJwtToken(defaultConfig.getJwtToken());
+                clickHouseConfig.setExportMode(defaultConfig.getExportMode());
+                clickHouseConfig.setMergeParts(defaultConfig.isMergeParts());
+                clickHouseConfig.setCompression(defaultConfig.getCompression());
+                clickHouseConfig.setFileFormat(defaultConfig.getFileFormat());
+                clickHouseConfig.setExport(defaultConfig.getExport());
+                config = clickHouseConfig;
+                log.debug("Converted DefaultDataSourceConfig to ClickHouseConfig: {}", config);
+            }
+        }
+        
+        if (!(config instanceof ClickHouseConfig)) {
+            log.error("Invalid configuration type: {}", config.getClass().getName());
+            throw new ConfigurationException("Invalid configuration type for ClickHouse service");
+        }
+        
+        return (ClickHouseConfig) config;
+    }
+    
+    /**
+     * Borrow a pooled connection to the ClickHouse database
+     */
+    private Connection getConnection(ClickHouseConfig config) throws SQLException {
+        validateClickHouseConfig(config);
+        
         try {
-            log.debug("Creating ClickHouse data source");
-            ClickHouseDataSource dataSource = new ClickHouseDataSource(url, properties);
-            log.debug("Getting connection from data source");
-            return dataSource.getConnection();
+            log.debug("Borrowing ClickHouse connection for {}:{}/{}", config.getHost(), config.getPort(), config.getDatabase());
+            return connectionPools.getConnection(config);
         } catch (SQLException e) {
-            log.error("Failed to connect to ClickHouse at {}: {}", url, e.getMessage());
+            log.error("Failed to connect to ClickHouse at {}:{}: {}", config.getHost(), config.getPort(), e.getMessage());
             throw e;
         }
     }
@@ -0,0 +1,419 @@
+package com.student.backend.service.impl;
+
+import com.student.backend.exception.ConfigurationException;
+import com.student.backend.model.ColumnMetadata;
+import com.student.backend.model.FilterOperator;
+import com.student.backend.model.request.ExportFilter;
+import com.student.backend.model.request.ExportJoin;
+import com.student.backend.model.request.ExportJoinKey;
+import com.student.backend.model.request.ExportOrder;
+import com.student.backend.model.request.ExportSpec;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The SELECT of an export, built from an {@link ExportSpec} that has been checked against the
+ * cached schemas of its tables. Every identifier must name a column of the exported or joined
+ * tables and is quoted, and joins only compare such columns for equality; the limit and the
+ * sample ratio are numbers. Filter values never become part of the SQL text:
+ * over HTTP they are sent as typed query parameters, {p0:Type} placeholders with param_p0 URL
+ * parameters, and over JDBC they are bound to placeholders cast to the column type.
+ */
+public final class ExportQuery {
+
+    public static final String DEFAULT_TABLE = "sample_data";
+
+    private final String database;
+    private final String table;
+    private final List<String> columns;
+    private final List<String> joins;
+    private final List<Condition> conditions;
+    private final List<String> orderBy;
+    private final long limit;
+    private final Double sample;
+
+    private ExportQuery(String database, String table, List<String> columns, List<String> joins,
+                        List<Condition> conditions, List<String> orderBy, long limit, Double sample) {
+        this.database = database;
+        this.table = table;
+        this.columns = columns;
+        this.joins = joins;
+        this.conditions = conditions;
+        this.orderBy = orderBy;
+        this.limit = limit;
+        this.sample = sample;
+    }
+
+    /**
+     * Table named by the spec, or sample_data if the spec names none
+     */
+    public static String tableOf(ExportSpec spec) {
+        return spec == null || spec.getTable() == null || spec.getTable().isBlank()
+                ? DEFAULT_TABLE : spec.getTable().trim();
+    }
+
+    /**
+     * Validate a spec against the columns of its tables
+     *
+     * @param database Database of the tables
+     * @param spec Joins, filter, ordering, limit and sample; null exports the whole table
+     * @param tableColumns Columns of a table by name, from the schema cache; throws if the table does not exist
+     * @param columns Columns to export, in file order; with joins, each is written under the name given here
+     * @throws ConfigurationException if the spec names an unknown or ambiguous column or has invalid operands
+     */
+    public static ExportQuery build(String database, ExportSpec spec,
+                                    Function<String, List<ColumnMetadata>> tableColumns, List<String> columns) {
+        String table = tableOf(spec);
+        List<ExportJoin> exportJoins = spec != null && spec.getJoins() != null ? spec.getJoins() : List.of();
+        Scope scope = new Scope(!exportJoins.isEmpty());
+        scope.add(table, tableColumns.apply(table));
+
+        List<String> joins = new ArrayList<>();
+        for (ExportJoin join : exportJoins) {
+            joins.add(join(database, scope, join, tableColumns));
+        }
+
+        if (columns == null || columns.isEmpty()) {
+            throw new ConfigurationException("At least one column is required");
+        }
+        List<String> selected = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            String sql = scope.resolve(column).sql();
+            // Qualified columns would otherwise be named by ClickHouse; the file keeps the requested names
+            selected.add(scope.qualify ? sql + " AS " + quote(column) : sql);
+        }
+        if (spec == null) {
+            return new ExportQuery(database, table, selected, joins, List.of(), List.of(), -1, null);
+        }
+
+        List<Condition> conditions = new ArrayList<>();
+        if (spec.getFilters() != null) {
+            for (ExportFilter filter : spec.getFilters()) {
+                conditions.add(condition(scope, filter));
+            }
+        }
+        List<String> orderBy = new ArrayList<>();
+        if (spec.getOrderBy() != null) {
+            for (ExportOrder order : spec.getOrderBy()) {
+                orderBy.add(scope.resolve(order.getColumn()).sql() + (order.isDescending() ? " DESC" : " ASC"));
+            }
+        }
+        if (spec.getLimit() != null && spec.getLimit() <= 0) {
+            throw new ConfigurationException("Export limit must be positive");
+        }
+        if (spec.getSample() != null && !(spec.getSample() > 0 && spec.getSample() <= 1)) {
+            throw new ConfigurationException("Export sample must be a fraction in (0, 1]");
+        }
+        return new ExportQuery(database, table, selected, joins, conditions, orderBy,
+                spec.getLimit() != null ? spec.getLimit() : -1, spec.getSample());
+    }
+
+    /**
+     * Render a JOIN clause; its left keys resolve against the tables before it, its right keys
+     * against the joined table only
+     */
+    private static String join(String database, Scope scope, ExportJoin join,
+                               Function<String, List<ColumnMetadata>> tableColumns) {
+        if (join.getTable() == null || join.getTable().isBlank()) {
+            throw new ConfigurationException("Every join needs a table");
+        }
+        String table = join.getTable().trim();
+        if (scope.tables.containsKey(table)) {
+            throw new ConfigurationException("Table " + table + " appears more than once in the export");
+        }
+        if (join.getKind() == null || join.getOn() == null || join.getOn().isEmpty()) {
+            throw new ConfigurationException("Join of table " + table + " needs a kind and at least one key");
+        }
+        List<String> leftKeys = new ArrayList<>();
+        for (ExportJoinKey key : join.getOn()) {
+            leftKeys.add(scope.resolve(key.getLeft()).sql());
+        }
+        scope.add(table, tableColumns.apply(table));
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < leftKeys.size(); i++) {
+            keys.add(leftKeys.get(i) + " = " + scope.resolveIn(table, join.getOn().get(i).getRight()).sql());
+        }
+        return join.getKind().getSql() + " " + quote(database) + "." + quote(table) + " AS " + quote(table)
+                + " ON " + String.join(" AND ", keys);
+    }
+
+    private static Condition condition(Scope scope, ExportFilter filter) {
+        String reference = filter.getColumn();
+        Column column = scope.resolve(reference);
+        FilterOperator operator = filter.getOperator();
+        if (operator == null) {
+            throw new ConfigurationException("Filter on column " + reference + " has no operator");
+        }
+        List<String> values = filter.getValues() != null && !filter.getValues().isEmpty()
+                ? filter.getValues()
+                : filter.getValue() != null ? List.of(filter.getValue()) : List.of();
+        int arity = operator.getArity();
+        if (arity >= 0 ? values.size() != arity : values.isEmpty()) {
+            throw new ConfigurationException(String.format("Filter %s on column %s takes %s, got %d", operator,
+                    reference, arity < 0 ? "one or more values" : arity + " value(s)", values.size()));
+        }
+        if (values.stream().anyMatch(Objects::isNull)) {
+            throw new ConfigurationException("Filter on column " + reference + " has a null value; use IS_NULL");
+        }
+
+        String type = parameterType(column.type());
+        if (operator == FilterOperator.LIKE || operator == FilterOperator.NOT_LIKE) {
+            String baseType = type.replaceAll("^Nullable\\((.*)\\)$", "$1");
+            if (!baseType.equals("String") && !baseType.startsWith("FixedString(")) {
+                throw new ConfigurationException(operator + " needs a String column; " + reference + " is " + baseType);
+            }
+            type = "String";
+        }
+        return new Condition(column.sql(), operator, type, values);
+    }
+
+    /**
+     * A resolved column reference
+     *
+     * @param sql Quoted column, qualified by its table once tables are joined
+     * @param type ClickHouse type of the column
+     */
+    private record Column(String sql, String type) {
+    }
+
+    /**
+     * Tables of the query so far, with their column types, for resolving column references
+     */
+    private static final class Scope {
+        private final Map<String, Map<String, String>> tables = new LinkedHashMap<>();
+        private final boolean qualify;
+
+        private Scope(boolean qualify) {
+            this.qualify = qualify;
+        }
+
+        void add(String table, List<ColumnMetadata> columns) {
+            Map<String, String> types = new LinkedHashMap<>();
+            for (ColumnMetadata column : columns) {
+                types.put(column.getName(), column.getType());
+            }
+            tables.put(table, types);
+        }
+
+        /**
+         * Resolve table.column, or a column name found in exactly one of the tables
+         */
+        Column resolve(String reference) {
+            if (reference == null) {
+                throw new ConfigurationException("A column name is missing");
+            }
+            int dot = reference.indexOf('.');
+            // Column names may contain dots themselves, so a prefix only qualifies if it names a table
+            if (dot > 0 && tables.containsKey(reference.substring(0, dot))) {
+                String table = reference.substring(0, dot);
+                String column = reference.substring(dot + 1);
+                if (tables.get(table).containsKey(column)) {
+                    return column(table, column);
+                }
+            }
+            List<String> owners = new ArrayList<>();
+            tables.forEach((table, types) -> {
+                if (types.containsKey(reference)) {
+                    owners.add(table);
+                }
+            });
+            if (owners.isEmpty()) {
+                throw new ConfigurationException(String.format("Column %s not found in table %s", reference,
+                        String.join(", ", tables.keySet())));
+            }
+            if (owners.size() > 1) {
+                throw new ConfigurationException(String.format("Column %s is in tables %s; qualify it as table.%s",
+                        reference, String.join(", ", owners), reference));
+            }
+            return column(owners.get(0), reference);
+        }
+
+        /**
+         * Resolve a column of one table, given as column or table.column
+         */
+        Column resolveIn(String table, String reference) {
+            Map<String, String> types = tables.get(table);
+            if (reference != null && !types.containsKey(reference) && reference.startsWith(table + ".")) {
+                reference = reference.substring(table.length() + 1);
+            }
+            if (reference == null || !types.containsKey(reference)) {
+                throw new ConfigurationException(String.format("Column %s not found in table %s", reference, table));
+            }
+            return column(table, reference);
+        }
+
+        private Column column(String table, String column) {
+            String type = tables.get(table).get(column);
+            return new Column(qualify ? quote(table) + "." + quote(column) : quote(column), type);
+        }
+    }
+
+    /**
+     * Type of a filter operand; LowCardinality only changes how a column is stored
+     */
+    private static String parameterType(String columnType) {
+        return columnType.startsWith("LowCardinality(") && columnType.endsWith(")")
+                ? columnType.substring("LowCardinality(".length(), columnType.length() - 1)
+                : columnType;
+    }
+
+    /**
+     * Quote an identifier with backticks, escaping backticks and backslashes in it
+     */
+    static String quote(String identifier) {
+        return '`' + identifier.replace("\\", "\\\\").replace("`", "\\`") + '`';
+    }
+
+    /**
+     * ClickHouse reads query parameter values as escaped text, where a backslash starts an escape sequence
+     */
+    private static String escapeParameter(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Whether the query can be split into ranges of its first table that are exported concurrently.
+     * Ranges cannot keep an order or share a limit, and range conditions name the first table's
+     * columns unqualified, which a join could make ambiguous.
+     */
+    public boolean isSplittable() {
+        return orderBy.isEmpty() && limit <= 0 && joins.isEmpty();
+    }
+
+    public boolean isSampled() {
+        return sample != null;
+    }
+
+    /**
+     * The same query, returning at most the given number of rows
+     */
+    public ExportQuery limitedTo(long rows) {
+        return new ExportQuery(database, table, columns, joins, conditions, orderBy,
+                limit > 0 ? Math.min(limit, rows) : rows, sample);
+    }
+
+    /**
+     * Rows the query returns, estimated from the rows of the table
+     *
+     * @return The estimate, or -1 if the table size is unknown or a filter or join makes the count unpredictable
+     */
+    public long estimateRows(long tableRows) {
+        if (tableRows < 0 || !conditions.isEmpty() || !joins.isEmpty()) {
+            return -1;
+        }
+        long rows = sample != null ? (long) Math.ceil(tableRows * sample) : tableRows;
+        return limit > 0 ? Math.min(rows, limit) : rows;
+    }
+
+    /**
+     * SQL and query parameters for the HTTP interface
+     *
+     * @param rangeCondition Extra condition generated by the exporter itself, such as a partition
+     *                       range, ANDed with the filter; empty for none
+     * @param formatName Output format of the FORMAT clause
+     */
+    public Http http(String rangeCondition, String formatName) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        String sql = render(rangeCondition, operand -> {
+            String name = "p" + parameters.size();
+            parameters.put(name, escapeParameter(operand.value()));
+            return "{" + name + ":" + operand.type() + "}";
+        }) + " FORMAT " + formatName;
+        return new Http(sql, parameters);
+    }
+
+    /**
+     * SQL with ? placeholders and their values, for a JDBC prepared statement
+     */
+    public Jdbc jdbc() {
+        List<String> values = new ArrayList<>();
+        String sql = render("", operand -> {
+            values.add(operand.value());
+            return "CAST(? AS " + operand.type() + ")";
+        });
+        return new Jdbc(sql, values);
+    }
+
+    private String render(String rangeCondition, Function<Operand, String> placeholder) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(String.join(", ", columns))
+                .append(" FROM ").append(quote(database)).append('.').append(quote(table));
+        if (!joins.isEmpty()) {
+            sql.append(" AS ").append(quote(table));
+        }
+        if (sample != null) {
+            sql.append(" SAMPLE ").append(BigDecimal.valueOf(sample).toPlainString());
+        }
+        for (String join : joins) {
+            sql.append(' ').append(join);
+        }
+        List<String> where = new ArrayList<>();
+        if (rangeCondition != null && !rangeCondition.isEmpty()) {
+            where.add("(" + rangeCondition + ")");
+        }
+        for (Condition condition : conditions) {
+            where.add(condition.render(placeholder));
+        }
+        if (!where.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", where));
+        }
+        if (!orderBy.isEmpty()) {
+            sql.append(" ORDER BY ").append(String.join(", ", orderBy));
+        }
+        if (limit > 0) {
+            sql.append(" LIMIT ").append(limit);
+        }
+        return sql.toString();
+    }
+
+    private record Operand(String type, String value) {
+    }
+
+    private record Condition(String column, FilterOperator operator, String type, List<String> values) {
+
+        String render(Function<Operand, String> placeholder) {
+            List<String> operands = values.stream()
+                    .map(value -> placeholder.apply(new Operand(type, value)))
+                    .collect(Collectors.toList());
+            return switch (operator) {
+                case IS_NULL, IS_NOT_NULL -> column + " " + operator.getSql();
+                case IN, NOT_IN -> column + " " + operator.getSql() + " (" + String.join(", ", operands) + ")";
+                case BETWEEN -> column + " BETWEEN " + operands.get(0) + " AND " + operands.get(1);
+                default -> column + " " + operator.getSql() + " " + operands.get(0);
+            };
+        }
+    }
+
+    /**
+     * @param sql SELECT with {name:Type} placeholders and a FORMAT clause
+     * @param parameters Placeholder values by name, in ClickHouse's escaped text form
+     */
+    public record Http(String sql, Map<String, String> parameters) {
+    }
+
+    /**
+     * @param sql SELECT with ? placeholders
+     * @param values Placeholder values in order, bound as strings and cast by ClickHouse
+     */
+    public record Jdbc(String sql, List<String> values) {
+
+        public void bind(PreparedStatement statement) throws SQLException {
+            for (int i = 0; i < values.size(); i++) {
+                statement.setString(i + 1, values.get(i));
+            }
+        }
+    }
+}
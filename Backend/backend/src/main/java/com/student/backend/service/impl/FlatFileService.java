@@ -1,8 +1,38 @@
 package com.student.backend.service.impl;
 
-import com.clickhouse.jdbc.ClickHouseDataSource;
+import com.student.backend.config.ClickHousePoolProperties;
+import com.student.backend.config.IngestProperties;
 import com.student.backend.exception.ConfigurationException;
 import com.student.backend.exception.DataSourceException;
+import com.student.backend.ingest.AdaptiveBatchSizer;
+import com.student.backend.ingest.BlockReader;
+import com.student.backend.ingest.ByteCsvBlockReader;
+import com.student.backend.ingest.CheckpointTracker;
+import com.student.backend.ingest.ClickHouseHttpClient;
+import com.student.backend.ingest.ColumnConverter;
+import com.student.backend.ingest.ColumnConverters;
+import com.student.backend.ingest.Compression;
+import com.student.backend.ingest.ConversionErrors;
+import com.student.backend.ingest.CountingInputStream;
+import com.student.backend.ingest.CsvBlockReader;
+import com.student.backend.ingest.FileProgress;
+import com.student.backend.ingest.FileSchema;
+import com.student.backend.ingest.FileSet;
+import com.student.backend.ingest.IngestPipeline;
+import com.student.backend.ingest.JdbcBlockSink;
+import com.student.backend.ingest.MappedCsvReader;
+import com.student.backend.ingest.ProgressTracker;
+import com.student.backend.ingest.RowBinaryBlockSink;
+import com.student.backend.ingest.RowBinaryEncoder;
+import com.student.backend.ingest.RowBlock;
+import com.student.backend.ingest.RowSample;
+import com.student.backend.model.ColumnMetadata;
+import com.student.backend.model.CompressionCodec;
+import com.student.backend.model.FileFormat;
+import com.student.backend.model.FileStatus;
+import com.student.backend.model.IngestCheckpoint;
+import com.student.backend.model.IngestedFile;
+import com.student.backend.model.InsertMode;
 import com.student.backend.model.request.ClickHouseConfig;
 import com.student.backend.model.request.DataSourceConfig;
 import com.student.backend.model.request.DefaultDataSourceConfig;
@@ -17,18 +47,35 @@ import org.apache.commons.csv.CSVRecord;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Properties;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -39,8 +86,188 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FlatFileService implements DataSourceService {
 
+    // Table of an ingest whose config names none
+    private static final String TARGET_TABLE = "target_table";
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final AtomicInteger FILE_INGEST_IDS = new AtomicInteger();
+
+    private final IngestProperties ingestProperties;
+    private final ClickHousePoolProperties poolProperties;
+    private final ClickHouseConnectionPools connectionPools;
+    private final ClickHouseSchemaCache schemaCache;
+    private final IngestMetrics ingestMetrics;
+    private final IngestCheckpointStore checkpointStore;
+    private final IngestManifestStore manifestStore;
+
     @Override
     public List<String> getColumns(DataSourceConfig config) {
+        FlatFileConfig flatFileConfig = asFlatFileConfig(config);
+        validateFlatFileConfig(flatFileConfig);
+        flatFileConfig = firstFile(flatFileConfig);
+        
+        try {
+            File file = new File(flatFileConfig.getFileName());
+            if (!file.exists()) {
+                throw new DataSourceException("File not found: " + flatFileConfig.getFileName());
+            }
+            
+            // Parquet and Arrow files describe their columns in the footer; no data is read
+            FileFormat fileFormat = resolveFileFormat(flatFileConfig);
+            if (fileFormat.isColumnar()) {
+                return FileSchema.read(file.toPath(), fileFormat).columns();
+            }
+            
+            // Create CSV format with the specified delimiter
+            char delimiter = flatFileConfig.getDelimiter().charAt(0);
+            CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
+                    .setDelimiter(delimiter)
+                    .setHeader()
+                    .setSkipHeaderRecord(true)
+                    .build();
+            
+            CompressionCodec compression = flatFileConfig.getCompression().resolve(flatFileConfig.getFileName());
+            try (Reader reader = new InputStreamReader(
+                    Compression.decompress(compression, new FileInputStream(file)), StandardCharsets.UTF_8);
+                 CSVParser csvParser = new CSVParser(reader, csvFormat)) {
+                
+                // Get headers from the CSV file
+                return new ArrayList<>(csvParser.getHeaderMap().keySet());
+            }
+        } catch (IOException e) {
+            log.error("Error reading columns from flat file", e);
+            throw new DataSourceException("Failed to read columns from flat file: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Read the first records of a file, for a preview. Compressed files are decompressed only as
+     * far as those records reach, so the cost does not depend on the size of the file. Parquet
+     * and Arrow files give their columns from the footer but no rows, since reading their
+     * column chunks is left to ClickHouse.
+     *
+     * @param flatFileConfig The file, see {@link #asFlatFileConfig}
+     * @param columns Columns to read, in this order; all header columns if null or empty
+     * @param maxRows Most records to read
+     * @throws DataSourceException if the file cannot be read or lacks a requested column
+     */
+    public RowSample sampleRows(FlatFileConfig flatFileConfig, List<String> columns, int maxRows) {
+        validateFlatFileConfig(flatFileConfig);
+        flatFileConfig = firstFile(flatFileConfig);
+        File file = new File(flatFileConfig.getFileName());
+        if (!file.exists()) {
+            throw new DataSourceException("File not found: " + flatFileConfig.getFileName());
+        }
+        
+        try {
+            FileFormat fileFormat = resolveFileFormat(flatFileConfig);
+            if (fileFormat.isColumnar()) {
+                FileSchema schema = FileSchema.read(file.toPath(), fileFormat);
+                List<String> names = columns == null || columns.isEmpty() ? schema.columns() : columns;
+                List<String> types = new ArrayList<>(names.size());
+                for (String name : names) {
+                    int index = schema.columns().indexOf(name);
+                    if (index < 0) {
+                        throw new DataSourceException("Column not found in file footer: " + name);
+                    }
+                    types.add(schema.types().get(index));
+                }
+                return new RowSample(names, types, List.of(), schema.rows() == 0, "FOOTER");
+            }
+            
+            CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
+                    .setDelimiter(flatFileConfig.getDelimiter().charAt(0))
+                    .setHeader()
+                    .setSkipHeaderRecord(true)
+                    .build();
+            CompressionCodec compression = flatFileConfig.getCompression().resolve(flatFileConfig.getFileName());
+            try (Reader reader = new InputStreamReader(
+                    Compression.decompress(compression, new FileInputStream(file)), StandardCharsets.UTF_8);
+                 CSVParser csvParser = new CSVParser(reader, csvFormat)) {
+                
+                List<String> header = new ArrayList<>(csvParser.getHeaderMap().keySet());
+                List<String> names = columns == null || columns.isEmpty() ? header : columns;
+                int[] indexes = new int[names.size()];
+                for (int i = 0; i < indexes.length; i++) {
+                    indexes[i] = header.indexOf(names.get(i));
+                    if (indexes[i] < 0) {
+                        throw new DataSourceException("Column not found in file header: " + names.get(i));
+                    }
+                }
+                
+                List<String[]> rows = new ArrayList<>();
+                Iterator<CSVRecord> records = csvParser.iterator();
+                while (rows.size() < maxRows && records.hasNext()) {
+                    CSVRecord record = records.next();
+                    String[] row = new String[indexes.length];
+                    for (int i = 0; i < indexes.length; i++) {
+                        // A short record shows its missing fields as empty instead of failing the preview
+                        row[i] = indexes[i] < record.size() ? record.get(indexes[i]) : "";
+                    }
+                    rows.add(row);
+                }
+                return new RowSample(names, Collections.nCopies(names.size(), null), rows, !records.hasNext(), "HEAD");
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error reading preview rows from flat file", e);
+            throw new DataSourceException("Failed to read rows from flat file: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Infer the ClickHouse table schema of a delimited file from its first records, see {@link InferredSchema}
+     *
+     * @param flatFileConfig The file, or a directory or glob pattern whose first file is sampled
+     * @param columns Columns of the table, in this order; all header columns if null or empty
+     * @param sampleRows Most records to sample; "ingest.infer-sample-rows" if null
+     * @throws ConfigurationException for Parquet and Arrow files, which declare their own types
+     */
+    public InferredSchema inferSchema(FlatFileConfig flatFileConfig, List<String> columns, Integer sampleRows) {
+        validateFlatFileConfig(flatFileConfig);
+        int maxRows = sampleRows != null ? sampleRows : ingestProperties.getInferSampleRows();
+        if (maxRows <= 0) {
+            throw new ConfigurationException("Sample rows must be positive");
+        }
+        if (resolveFileFormat(flatFileConfig).isColumnar()) {
+            throw new ConfigurationException("Parquet and Arrow files declare their column types; "
+                    + "only delimited text files need them inferred");
+        }
+        RowSample sample = sampleRows(flatFileConfig, columns, maxRows);
+        return InferredSchema.infer(sample, ingestProperties.getLowCardinalityMaxDistinct());
+    }
+    
+    /**
+     * Create the target table with types inferred from the file, unless it already exists. An
+     * existing table is left as it is, whatever its columns.
+     *
+     * @throws DataSourceException if the table cannot be created
+     */
+    private void createTable(FlatFileConfig flatFileConfig, ClickHouseConfig clickHouseConfig, List<String> columns) {
+        String table = tableOf(flatFileConfig);
+        if (schemaCache.getSchema(clickHouseConfig).getTable(table) != null) {
+            log.info("Table {}.{} already exists; not inferring its schema", clickHouseConfig.getDatabase(), table);
+            return;
+        }
+        
+        InferredSchema schema = inferSchema(flatFileConfig, columns, null);
+        String sql = schema.createTableSql(clickHouseConfig.getDatabase(), table,
+                ingestProperties.getDeduplicationWindow());
+        log.info("Creating {}.{} from {} sampled rows of {}:\n{}", clickHouseConfig.getDatabase(), table,
+                schema.sampledRows(), flatFileConfig.getFileName(), sql);
+        try (Connection connection = connectionPools.getConnection(clickHouseConfig);
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new DataSourceException(String.format("Failed to create table %s.%s: %s",
+                    clickHouseConfig.getDatabase(), table, e.getMessage()), e);
+        }
+        // The insert looks the new table's types up in the schema cache
+        schemaCache.invalidate(clickHouseConfig);
+    }
+    
+    /**
+     * Convert the request configuration to a FlatFileConfig
+     */
+    FlatFileConfig asFlatFileConfig(DataSourceConfig config) {
         // Handle DefaultDataSourceConfig by converting it to FlatFileConfig
         if (config instanceof DefaultDataSourceConfig) {
             DefaultDataSourceConfig defaultConfig = (DefaultDataSourceConfig) config;
@@ -68,6 +295,10 @@ public class FlatFileService implements DataSourceService {
                     } catch (NoSuchFieldException e) {
                         // Use default delimiter
                     }
+                    flatFileConfig.setCompression(defaultConfig.getCompression());
+                    flatFileConfig.setFileFormat(defaultConfig.getFileFormat());
+                    flatFileConfig.setTableName(defaultConfig.getTableName());
+                    flatFileConfig.setCreateTable(defaultConfig.isCreateTable());
                     
                     config = flatFileConfig;
                 } catch (Exception e) {
@@ -80,38 +311,203 @@ public class FlatFileService implements DataSourceService {
         if (!(config instanceof FlatFileConfig)) {
             throw new ConfigurationException("Invalid configuration type for Flat File service");
         }
+        return (FlatFileConfig) config;
+    }
 
-        FlatFileConfig flatFileConfig = (FlatFileConfig) config;
+    @Override
+    public IngestResponse ingestData(DataSourceConfig sourceConfig, DataSourceConfig targetConfig, List<String> columns,
+                                     ProgressTracker progress) {
+        if (sourceConfig instanceof FlatFileConfig flatFileConfig && FileSet.isPattern(flatFileConfig.getFileName())) {
+            if (!(targetConfig instanceof ClickHouseConfig clickHouseConfig)) {
+                throw new ConfigurationException("Invalid target configuration type for ClickHouse");
+            }
+            return ingestMetrics.track(IngestMetrics.IMPORT, progress,
+                    () -> importFiles(flatFileConfig, clickHouseConfig, columns, progress));
+        }
+        return ingestMetrics.track(IngestMetrics.IMPORT, progress,
+                () -> importFile(sourceConfig, targetConfig, columns, progress));
+    }
+
+    /**
+     * Ingest every file of a directory or glob pattern, up to "ingest.file-parallelism" files at
+     * a time. Each file goes through the same pipeline as a single file and reports to its own
+     * tracker, which adds to the progress of the whole ingest; the JDBC inserts of all files
+     * borrow from the one connection pool of the target. Files the manifest lists with their
+     * current size and modification time are skipped, and a file is added to the manifest as
+     * soon as it is completely ingested, so a failed or cancelled ingest can simply be repeated.
+     * A file that fails does not stop the others.
+     *
+     * @throws DataSourceException if nothing matches the pattern, or once every file has been
+     *                             tried, if any of them failed
+     */
+    private IngestResponse importFiles(FlatFileConfig flatFileConfig, ClickHouseConfig clickHouseConfig,
+                                       List<String> columns, ProgressTracker progress) {
         validateFlatFileConfig(flatFileConfig);
-        
+        String pattern = flatFileConfig.getFileName();
+        List<Path> files = resolveFiles(pattern);
+        LocalDateTime now = LocalDateTime.now();
+
+        String target = String.format("%s:%s/%s.%s", clickHouseConfig.getHost(), clickHouseConfig.getPort(),
+                clickHouseConfig.getDatabase(), tableOf(flatFileConfig));
+        List<FileProgress> pending = new ArrayList<>();
+        for (Path path : files) {
+            File file = path.toFile();
+            FileProgress fileProgress = progress.addFile(path.toString(), file.length());
+            if (manifestStore.contains(target, file)) {
+                fileProgress.skip();
+            } else {
+                pending.add(fileProgress);
+            }
+        }
+        int skipped = files.size() - pending.size();
+        progress.setTotalBytes(pending.stream().mapToLong(FileProgress::getSizeBytes).sum());
+        if (flatFileConfig.isCreateTable() && !pending.isEmpty()) {
+            // The files share one table, so its types come from the first file to be ingested
+            createTable(withFileName(flatFileConfig, pending.get(0).getFileName()), clickHouseConfig, columns);
+        }
+
+        int parallelism = Math.min(Math.max(1, ingestProperties.getFileParallelism()), Math.max(1, pending.size()));
+        if (flatFileConfig.getInsertMode() == InsertMode.JDBC) {
+            // Each JDBC insert worker holds a pooled connection for its whole file; files beyond what
+            // the pool can serve would only time out waiting to borrow one
+            int poolFiles = poolProperties.getMaxSize() / Math.max(1, ingestProperties.getInsertThreads());
+            parallelism = Math.min(parallelism, Math.max(1, poolFiles));
+        }
+        log.info("Ingesting {} files matching {} into {}, {} at a time ({} already ingested)", pending.size(),
+                pattern, target, parallelism, skipped);
+
+        List<IngestResponse> results = new ArrayList<>(pending.size());
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, fileThreadFactory());
+        List<Future<IngestResponse>> futures = new ArrayList<>(pending.size());
         try {
-            File file = new File(flatFileConfig.getFileName());
-            if (!file.exists()) {
-                throw new DataSourceException("File not found: " + flatFileConfig.getFileName());
+            for (FileProgress fileProgress : pending) {
+                futures.add(executor.submit(
+                        () -> importListedFile(flatFileConfig, clickHouseConfig, columns, target, fileProgress)));
             }
-            
-            // Create CSV format with the specified delimiter
-            char delimiter = flatFileConfig.getDelimiter().charAt(0);
-            CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
-                    .setDelimiter(delimiter)
-                    .setHeader()
-                    .setSkipHeaderRecord(true)
-                    .build();
-            
-            try (FileReader reader = new FileReader(file, StandardCharsets.UTF_8);
-                 CSVParser csvParser = new CSVParser(reader, csvFormat)) {
-                
-                // Get headers from the CSV file
-                return new ArrayList<>(csvParser.getHeaderMap().keySet());
+            for (Future<IngestResponse> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // Already recorded as the file's status; the other files carry on
+                }
             }
-        } catch (IOException e) {
-            log.error("Error reading columns from flat file", e);
-            throw new DataSourceException("Failed to read columns from flat file: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new DataSourceException("Interrupted during multi-file ingest");
+        } finally {
+            executor.shutdownNow();
         }
+
+        progress.checkCancelled();
+        List<FileProgress> failed = pending.stream()
+                .filter(fileProgress -> fileProgress.getStatus() == FileStatus.FAILED)
+                .collect(Collectors.toList());
+        if (!failed.isEmpty()) {
+            throw new DataSourceException(String.format("%d of %d files matching %s failed to ingest; %s: %s",
+                    failed.size(), pending.size(), pattern, failed.get(0).getFileName(), failed.get(0).getError()));
+        }
+        return filesResponse(results, skipped, pattern, now);
     }
 
-    @Override
-    public IngestResponse ingestData(DataSourceConfig sourceConfig, DataSourceConfig targetConfig, List<String> columns) {
+    /**
+     * Ingest one file of a multi-file ingest and add it to the manifest
+     */
+    private IngestResponse importListedFile(FlatFileConfig patternConfig, ClickHouseConfig clickHouseConfig,
+                                            List<String> columns, String target, FileProgress fileProgress) {
+        try {
+            fileProgress.getProgress().checkCancelled();
+            fileProgress.start();
+            // Taken before reading, so a file that changes during its ingest is loaded again next time
+            File file = new File(fileProgress.getFileName());
+            long fileSize = file.length();
+            long fileModified = file.lastModified();
+
+            FlatFileConfig fileConfig = withFileName(patternConfig, fileProgress.getFileName());
+            fileConfig.setCreateTable(false);
+            IngestResponse response = importFile(fileConfig, clickHouseConfig, columns, fileProgress.getProgress());
+            fileProgress.succeed(response.getRecordsCount());
+            manifestStore.record(IngestedFile.builder()
+                    .target(target)
+                    .fileName(file.getAbsolutePath())
+                    .fileSize(fileSize)
+                    .fileModified(fileModified)
+                    .rows(response.getRecordsCount())
+                    .ingestedAt(Instant.now().toString())
+                    .build());
+            return response;
+        } catch (RuntimeException e) {
+            fileProgress.fail(e);
+            if (fileProgress.getStatus() == FileStatus.FAILED) {
+                log.error("Failed to ingest {}: {}", fileProgress.getFileName(), e.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Combine the responses of the files of a multi-file ingest
+     */
+    private IngestResponse filesResponse(List<IngestResponse> results, int skipped, String pattern,
+                                         LocalDateTime now) {
+        long recordsCount = 0;
+        long peakBufferedRows = 0;
+        long conversionErrors = 0;
+        long insertRetries = 0;
+        int minBatchRows = 0;
+        int maxBatchRows = 0;
+        long weightedBatchRows = 0;
+        long weightedBatchBytes = 0;
+        List<String> samples = new ArrayList<>();
+        for (IngestResponse result : results) {
+            recordsCount += result.getRecordsCount();
+            peakBufferedRows = Math.max(peakBufferedRows, result.getPeakBufferedRows());
+            conversionErrors += result.getConversionErrors();
+            insertRetries += result.getInsertRetries();
+            if (result.getMinBatchRows() > 0) {
+                minBatchRows = minBatchRows > 0 ? Math.min(minBatchRows, result.getMinBatchRows())
+                        : result.getMinBatchRows();
+            }
+            maxBatchRows = Math.max(maxBatchRows, result.getMaxBatchRows());
+            // Averages of the files weighted by their rows
+            weightedBatchRows += result.getAverageBatchRows() * result.getRecordsCount();
+            weightedBatchBytes += result.getAverageBatchBytes() * result.getRecordsCount();
+            if (result.getConversionErrorSamples() != null) {
+                for (String sample : result.getConversionErrorSamples()) {
+                    if (samples.size() < ingestProperties.getConversionErrorSamples()) {
+                        samples.add(sample);
+                    }
+                }
+            }
+        }
+
+        String message = String.format("Successfully ingested %d records from %d files matching %s to ClickHouse",
+                recordsCount, results.size(), pattern);
+        if (skipped > 0) {
+            message += String.format(" (%d files skipped as already ingested)", skipped);
+        }
+        if (conversionErrors > 0) {
+            message += String.format(" (%d rows rejected for conversion errors)", conversionErrors);
+        }
+        return IngestResponse.builder()
+                .recordsCount(recordsCount)
+                .peakBufferedRows(peakBufferedRows)
+                .conversionErrors(conversionErrors)
+                .minBatchRows(minBatchRows)
+                .maxBatchRows(maxBatchRows)
+                .averageBatchRows(recordsCount > 0 ? weightedBatchRows / recordsCount : 0)
+                .averageBatchBytes(recordsCount > 0 ? weightedBatchBytes / recordsCount : 0)
+                .insertRetries(insertRetries)
+                .conversionErrorSamples(samples)
+                .filesIngested(results.size())
+                .filesSkipped(skipped)
+                .message(message)
+                .timestamp(now.format(DateTimeFormatter.ISO_DATE_TIME))
+                .build();
+    }
+    
+    private IngestResponse importFile(DataSourceConfig sourceConfig, DataSourceConfig targetConfig, List<String> columns,
+                                      ProgressTracker progress) {
         // This is where the data flows from a flat file to ClickHouse
         if (!(sourceConfig instanceof FlatFileConfig)) {
             throw new ConfigurationException("Invalid source configuration type for Flat File service");
@@ -125,8 +521,18 @@ public class FlatFileService implements DataSourceService {
         ClickHouseConfig clickHouseConfig = (ClickHouseConfig) targetConfig;
         
         validateFlatFileConfig(flatFileConfig);
+        if (flatFileConfig.isCreateTable()) {
+            createTable(flatFileConfig, clickHouseConfig, columns);
+        }
+        
+        if (resolveFileFormat(flatFileConfig).isColumnar()) {
+            return importColumnarFile(flatFileConfig, clickHouseConfig, columns, progress);
+        }
         
         long recordsCount = 0;
+        long peakBufferedRows = 0;
+        ConversionErrors conversionErrors = new ConversionErrors(ingestProperties.getMaxConversionErrors(),
+                ingestProperties.getConversionErrorSamples());
         LocalDateTime now = LocalDateTime.now();
         
         try {
@@ -134,6 +540,7 @@ public class FlatFileService implements DataSourceService {
             if (!file.exists()) {
                 throw new DataSourceException("File not found: " + flatFileConfig.getFileName());
             }
+            progress.setTotalBytes(file.length());
             
             // Create CSV format with the specified delimiter
             char delimiter = flatFileConfig.getDelimiter().charAt(0);
@@ -143,70 +550,190 @@ public class FlatFileService implements DataSourceService {
                     .setSkipHeaderRecord(true)
                     .build();
             
-            // Read records from CSV
-            List<CSVRecord> records;
-            try (FileReader reader = new FileReader(file, StandardCharsets.UTF_8);
-                 CSVParser csvParser = new CSVParser(reader, csvFormat)) {
-                records = csvParser.getRecords();
+            String tableName = tableOf(flatFileConfig);
+            
+            // Stream records from the file in batches; the parser is never drained into memory
+            CompressionCodec compression = flatFileConfig.getCompression().resolve(flatFileConfig.getFileName());
+            IngestCheckpoint checkpoint = progress.getCheckpointId() == null ? null
+                    : startCheckpoint(progress.getCheckpointId(), flatFileConfig, file, compression, delimiter,
+                            tableName, columns);
+            // Rows that earlier runs rejected were committed but never inserted
+            long resumedRows = checkpoint != null ? checkpoint.getRowNumber() - checkpoint.getRejectedRows() : 0;
+            progress.addRows(resumedRows);
+            AdaptiveBatchSizer batchSizer = newBatchSizer(checkpoint);
+            boolean byteRows = readsByteRows(flatFileConfig.getInsertMode(), delimiter);
+            try (BlockReader blockReader = openBlockReader(file, compression, csvFormat, delimiter, columns,
+                    checkpoint, batchSizer, byteRows, progress)) {
+                CheckpointTracker checkpoints = checkpoint != null ? newCheckpointTracker(checkpoint, blockReader) : null;
+                IngestPipeline.Result result = createPipeline(flatFileConfig.getInsertMode(), blockReader,
+                        clickHouseConfig, tableName, columns, conversionErrors, progress, checkpoints,
+                        batchSizer).run();
+                
+                recordsCount = resumedRows + result.rowsWritten();
+                peakBufferedRows = result.peakBufferedRows();
+            }
+            // A failed or cancelled run keeps its checkpoint for a resume
+            if (checkpoint != null) {
+                checkpointStore.delete(checkpoint.getJobId());
             }
             
-            // Connect to ClickHouse and insert data
-            String url = String.format("jdbc:clickhouse://%s:%s/%s", 
-                    clickHouseConfig.getHost(), clickHouseConfig.getPort(), clickHouseConfig.getDatabase());
+            return pipelineResponse(recordsCount, peakBufferedRows, conversionErrors, batchSizer,
+                    "file " + flatFileConfig.getFileName(), now);
             
-            Properties properties = new Properties();
-            if (clickHouseConfig.getUsername() != null && !clickHouseConfig.getUsername().isEmpty()) {
-                properties.setProperty("user", clickHouseConfig.getUsername());
+        } catch (IOException | SQLException e) {
+            log.error("Error during data ingestion from flat file to ClickHouse", e);
+            throw new DataSourceException("Failed to ingest data from flat file: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Ingest delimited text streamed by the client, such as the body of an upload request.
+     * The stream is decompressed and parsed as it arrives and goes through the same pipeline as
+     * a file, so at most the pipeline's queues of rows are held in memory and nothing is written
+     * to disk. While the pipeline is busy the stream is not read, which slows the sender down.
+     *
+     * @param sourceConfig Delimiter, compression, insert mode, and a file name used to resolve AUTO compression
+     * @param targetConfig ClickHouse target
+     * @param columns Columns to ingest, or null or empty for every column of the header
+     * @param body Stream starting with the header line; closed when the ingest ends
+     * @param contentLength Length of the stream in bytes as sent, or -1 if unknown
+     * @param progress Receives rows and bytes as they are ingested
+     */
+    public IngestResponse ingestStream(FlatFileConfig sourceConfig, ClickHouseConfig targetConfig, List<String> columns,
+                                       InputStream body, long contentLength, ProgressTracker progress) {
+        return ingestMetrics.track(IngestMetrics.IMPORT, progress,
+                () -> importStream(sourceConfig, targetConfig, columns, body, contentLength, progress));
+    }
+    
+    private IngestResponse importStream(FlatFileConfig flatFileConfig, ClickHouseConfig clickHouseConfig,
+                                        List<String> columns, InputStream body, long contentLength,
+                                        ProgressTracker progress) {
+        validateFlatFileConfig(flatFileConfig);
+        if (resolveFileFormat(flatFileConfig).isColumnar()) {
+            throw new ConfigurationException("Streamed uploads must be delimited text; "
+                    + "Parquet and Arrow files need their footer before any row can be read");
+        }
+        
+        ConversionErrors conversionErrors = new ConversionErrors(ingestProperties.getMaxConversionErrors(),
+                ingestProperties.getConversionErrorSamples());
+        LocalDateTime now = LocalDateTime.now();
+        progress.setTotalBytes(contentLength);
+        
+        char delimiter = flatFileConfig.getDelimiter().charAt(0);
+        CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
+                .setDelimiter(delimiter)
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .build();
+        String tableName = tableOf(flatFileConfig);
+        CompressionCodec compression = flatFileConfig.getCompression().resolve(flatFileConfig.getFileName());
+        log.info("Streaming upload {} ({} compression, {} bytes) into {}.{}", flatFileConfig.getFileName(),
+                compression, contentLength, clickHouseConfig.getDatabase(), tableName);
+        
+        try {
+            InputStream in = Compression.decompress(compression, new CountingInputStream(body, progress));
+            AdaptiveBatchSizer batchSizer = newBatchSizer(null);
+            BlockReader streamReader;
+            List<String> selectedColumns;
+            if (readsByteRows(flatFileConfig.getInsertMode(), delimiter)) {
+                ByteCsvBlockReader byteReader = new ByteCsvBlockReader(in, delimiter, columns,
+                        batchSizer::nextBlockRows, progress);
+                streamReader = byteReader;
+                selectedColumns = byteReader.getColumns();
+            } else {
+                CSVParser csvParser = new CSVParser(new InputStreamReader(in, StandardCharsets.UTF_8), csvFormat);
+                selectedColumns = columns == null || columns.isEmpty()
+                        ? new ArrayList<>(csvParser.getHeaderMap().keySet()) : columns;
+                streamReader = new CsvBlockReader(csvParser, selectedColumns, batchSizer::nextBlockRows, progress);
             }
             
-            if (clickHouseConfig.getJwtToken() != null && !clickHouseConfig.getJwtToken().isEmpty()) {
-                properties.setProperty("password", clickHouseConfig.getJwtToken());
+            long recordsCount;
+            long peakBufferedRows;
+            try (BlockReader blockReader = streamReader) {
+                IngestPipeline.Result result = createPipeline(flatFileConfig.getInsertMode(), blockReader,
+                        clickHouseConfig, tableName, selectedColumns, conversionErrors, progress, null,
+                        batchSizer).run();
+                recordsCount = result.rowsWritten();
+                peakBufferedRows = result.peakBufferedRows();
             }
             
-            try (Connection connection = new ClickHouseDataSource(url, properties).getConnection()) {
-                // In a real application, you'd need to specify the table name and create it if needed
-                // For simplicity, we'll use a placeholder table name
-                String tableName = "target_table";
-                
-                // Prepare placeholders for SQL INSERT statement
-                String placeholders = columns.stream().map(c -> "?").collect(Collectors.joining(", "));
-                String columnsStr = String.join(", ", columns);
-                
-                String insertSql = String.format("INSERT INTO %s.%s (%s) VALUES (%s)", 
-                        clickHouseConfig.getDatabase(), tableName, columnsStr, placeholders);
-                
-                // Use batch processing for better performance
-                try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
-                    int batchSize = 1000;
-                    int count = 0;
-                    
-                    for (CSVRecord record : records) {
-                        for (int i = 0; i < columns.size(); i++) {
-                            String column = columns.get(i);
-                            // Set the parameter for the prepared statement
-                            // Note: In a real application, you'd need to handle different data types
-                            statement.setString(i + 1, record.get(column));
-                        }
-                        
-                        statement.addBatch();
-                        count++;
-                        
-                        if (count % batchSize == 0) {
-                            statement.executeBatch();
-                            statement.clearBatch();
-                        }
-                    }
-                    
-                    // Execute any remaining batches
-                    if (count % batchSize != 0) {
-                        statement.executeBatch();
-                    }
-                    
-                    recordsCount = count;
+            return pipelineResponse(recordsCount, peakBufferedRows, conversionErrors, batchSizer,
+                    "upload " + flatFileConfig.getFileName(), now);
+        } catch (IOException | SQLException e) {
+            log.error("Error during streamed ingestion to ClickHouse", e);
+            throw new DataSourceException("Failed to ingest uploaded data: " + e.getMessage(), e);
+        }
+    }
+    
+    private static IngestResponse pipelineResponse(long recordsCount, long peakBufferedRows, ConversionErrors errors,
+                                                   AdaptiveBatchSizer batchSizer, String source, LocalDateTime now) {
+        String message = String.format("Successfully ingested %d records from %s to ClickHouse", recordsCount, source);
+        if (errors.getRejectedRows() > 0) {
+            message += String.format(" (%d rows rejected for conversion errors)", errors.getRejectedRows());
+        }
+        
+        AdaptiveBatchSizer.Summary batches = batchSizer.getSummary();
+        return IngestResponse.builder()
+                .recordsCount(recordsCount)
+                .peakBufferedRows(peakBufferedRows)
+                .conversionErrors(errors.getRejectedRows())
+                .minBatchRows(batches.minRows())
+                .maxBatchRows(batches.maxRows())
+                .averageBatchRows(batches.averageRows())
+                .averageBatchBytes(batches.averageBytes())
+                .insertRetries(batches.retries())
+                .conversionErrorSamples(errors.getSamples())
+                .message(message)
+                .timestamp(now.format(DateTimeFormatter.ISO_DATE_TIME))
+                .build();
+    }
+    
+    /**
+     * Import a Parquet or Arrow file by streaming it unchanged into an INSERT in the file's own
+     * format. ClickHouse decodes the column chunks directly into its columns, reading only the
+     * selected columns, so no row is materialised here and the insert mode does not apply.
+     */
+    private IngestResponse importColumnarFile(FlatFileConfig flatFileConfig, ClickHouseConfig clickHouseConfig,
+                                              List<String> columns, ProgressTracker progress) {
+        FileFormat fileFormat = resolveFileFormat(flatFileConfig);
+        LocalDateTime now = LocalDateTime.now();
+        
+        try {
+            File file = new File(flatFileConfig.getFileName());
+            if (!file.exists()) {
+                throw new DataSourceException("File not found: " + flatFileConfig.getFileName());
+            }
+            
+            FileSchema schema = FileSchema.read(file.toPath(), fileFormat);
+            for (String column : columns) {
+                if (!schema.columns().contains(column)) {
+                    throw new DataSourceException(String.format("Column %s not found in %s file %s",
+                            column, fileFormat, flatFileConfig.getFileName()));
                 }
             }
+            progress.setTotalBytes(file.length());
+            progress.setTotalRows(schema.rows());
+            
+            String tableName = tableOf(flatFileConfig);
+            String insertQuery = String.format("INSERT INTO %s.%s (%s) FORMAT %s", clickHouseConfig.getDatabase(),
+                    tableName, String.join(", ", columns), fileFormat.getClickHouseFormat());
+            log.info("Streaming {} file {} ({} bytes, {} rows) into {}.{}", fileFormat, file, file.length(),
+                    schema.rows(), clickHouseConfig.getDatabase(), tableName);
+            
+            long recordsCount;
+            try (InputStream body = new CountingInputStream(new FileInputStream(file), progress)) {
+                recordsCount = new ClickHouseHttpClient(clickHouseConfig).insert(insertQuery, Map.of(), body, progress);
+            }
+            // Servers that omit written_rows from the summary still inserted every row of the file
+            if (recordsCount < 0) {
+                recordsCount = schema.rows();
+            }
+            progress.addRows(recordsCount);
+            progress.getMetrics().rowsRead(recordsCount);
+            progress.getMetrics().rowsWritten(recordsCount);
+            progress.getMetrics().bytesWritten(file.length());
             
-            String message = String.format("Successfully ingested %d records from file %s to ClickHouse", 
+            String message = String.format("Successfully ingested %d records from file %s to ClickHouse",
                     recordsCount, flatFileConfig.getFileName());
             
             return IngestResponse.builder()
@@ -214,13 +741,282 @@ public class FlatFileService implements DataSourceService {
                     .message(message)
                     .timestamp(now.format(DateTimeFormatter.ISO_DATE_TIME))
                     .build();
-            
-        } catch (IOException | SQLException e) {
-            log.error("Error during data ingestion from flat file to ClickHouse", e);
+        } catch (IOException e) {
+            log.error("Error during {} ingestion from flat file to ClickHouse", fileFormat, e);
             throw new DataSourceException("Failed to ingest data from flat file: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Load the job's checkpoint to resume from, or save a new one at the start of the data
+     *
+     * @throws ConfigurationException if the file or the block layout changed since the checkpoint was saved
+     */
+    private IngestCheckpoint startCheckpoint(String jobId, FlatFileConfig flatFileConfig, File file,
+                                             CompressionCodec compression, char delimiter, String tableName,
+                                             List<String> columns) {
+        boolean byteAligned = compression == CompressionCodec.NONE && delimiter < 0x80;
+        IngestCheckpoint fresh = IngestCheckpoint.builder()
+                .jobId(jobId)
+                .fileName(flatFileConfig.getFileName())
+                .fileSize(file.length())
+                .fileModified(file.lastModified())
+                .table(tableName)
+                .columns(List.copyOf(columns))
+                .blockSizeBytes(byteAligned ? ingestProperties.effectiveCheckpointBlockBytes() : 0)
+                .batchSize(ingestProperties.getCheckpointBlockRows())
+                .byteOffset(byteAligned ? 0 : -1)
+                .build();
+        
+        IngestCheckpoint checkpoint = checkpointStore.load(jobId).orElse(fresh);
+        if (!checkpoint.sameSource(fresh)) {
+            throw new ConfigurationException("The file, columns or block settings changed since ingest job "
+                    + jobId + " was checkpointed; it cannot be resumed");
+        }
+        if (checkpoint != fresh) {
+            log.info("Resuming ingest job {} at row {} (byte {}, block {})", jobId, checkpoint.getRowNumber(),
+                    checkpoint.getByteOffset(), checkpoint.getBlockId());
+        }
+        checkpoint.setUpdatedAt(Instant.now().toString());
+        checkpointStore.save(checkpoint);
+        return checkpoint;
+    }
+    
+    /**
+     * Size batches adaptively unless disabled or the run is checkpointed: checkpointed blocks and
+     * their deduplication tokens must come out the same on every run, so they keep the row count
+     * the checkpoint was started with. Every run retries inserts rejected with TOO_MANY_PARTS.
+     */
+    private AdaptiveBatchSizer newBatchSizer(IngestCheckpoint checkpoint) {
+        if (checkpoint != null || !ingestProperties.isAdaptiveBatching()) {
+            int rows = checkpoint != null ? checkpoint.getBatchSize() : ingestProperties.getBatchSize();
+            return AdaptiveBatchSizer.fixed(rows, ingestProperties.getTooManyPartsRetries(),
+                    ingestProperties.getTooManyPartsBackoffMs());
+        }
+        return new AdaptiveBatchSizer(ingestProperties.getBatchSize(), ingestProperties.getMinBatchRows(),
+                ingestProperties.getMaxBatchRows(), ingestProperties.getTargetBatchBytes(),
+                TimeUnit.MILLISECONDS.toNanos(ingestProperties.getTargetInsertLatencyMs()),
+                ingestProperties.getTooManyPartsRetries(), ingestProperties.getTooManyPartsBackoffMs());
+    }
+    
+    /**
+     * Track committed blocks against the checkpoint and save it each time it advances.
+     * Deduplication tokens are seeded with the job, so a resumed run repeats the tokens of its
+     * earlier runs but never those of another job.
+     */
+    private CheckpointTracker newCheckpointTracker(IngestCheckpoint checkpoint, BlockReader blockReader) {
+        boolean byteAligned = checkpoint.getBlockSizeBytes() > 0;
+        long dataStart = byteAligned ? ((MappedCsvReader) blockReader).getDataStart() : -1;
+        String tokenSeed = String.join("|", checkpoint.getJobId(), checkpoint.getFileName(), checkpoint.getTable());
+        CheckpointTracker.Position start = new CheckpointTracker.Position(dataStart, checkpoint.getRowNumber(),
+                checkpoint.getRejectedRows(), checkpoint.getBlockId());
+        return new CheckpointTracker(tokenSeed, start, byteAligned, position -> {
+            checkpoint.setByteOffset(position.byteOffset());
+            checkpoint.setRowNumber(position.rowNumber());
+            checkpoint.setRejectedRows(position.rejectedRows());
+            checkpoint.setBlockId(position.blockId());
+            checkpoint.setUpdatedAt(Instant.now().toString());
+            checkpointStore.save(checkpoint);
+        });
+    }
+    
+    /**
+     * Open a block reader for the file. Large uncompressed files are memory-mapped and parsed in
+     * parallel; smaller and compressed ones are streamed through a single parser, decompressing
+     * on the fly. Progress counts bytes of the file as stored, compressed or not.
+     * <p>
+     * A checkpointed uncompressed file is always memory-mapped, with one block per byte range of
+     * the checkpoint's block size, starting at the checkpoint's offset. A checkpointed compressed
+     * file is streamed, skipping the rows the checkpoint has already committed. Every reader
+     * asks the batch sizer for the size of each block.
+     */
+    private BlockReader openBlockReader(File file, CompressionCodec compression, CSVFormat csvFormat, char delimiter,
+                                        List<String> columns, IngestCheckpoint checkpoint,
+                                        AdaptiveBatchSizer batchSizer, boolean byteRows, ProgressTracker progress)
+            throws IOException {
+        int readerThreads = ingestProperties.effectiveReaderThreads();
+        if (checkpoint != null && checkpoint.getBlockSizeBytes() > 0) {
+            CSVFormat dataFormat = CSVFormat.DEFAULT.builder()
+                    .setDelimiter(delimiter)
+                    .build();
+            return new MappedCsvReader(file.toPath(), dataFormat, columns, batchSizer::nextBlockRows, readerThreads,
+                    checkpoint.getBlockSizeBytes(), progress, checkpoint.getByteOffset(), checkpoint.getBlockId(), true,
+                    byteRows);
+        }
+        if (checkpoint == null && compression == CompressionCodec.NONE
+                && file.length() >= ingestProperties.getParallelReadMinBytes()
+                && readerThreads > 1 && delimiter < 0x80) {
+            log.info("Reading {} ({} bytes) in parallel with {} threads", file, file.length(), readerThreads);
+            CSVFormat dataFormat = CSVFormat.DEFAULT.builder()
+                    .setDelimiter(delimiter)
+                    .build();
+            return new MappedCsvReader(file.toPath(), dataFormat, columns, batchSizer::nextBlockRows,
+                    readerThreads, ingestProperties.getSplitSizeBytes(), progress, 0, 0, false, byteRows);
+        }
+        
+        InputStream in = Compression.decompress(compression,
+                new CountingInputStream(new FileInputStream(file), progress));
+        if (byteRows) {
+            try {
+                long skipRows = checkpoint != null ? checkpoint.getRowNumber() : 0;
+                long firstSequence = checkpoint != null ? checkpoint.getBlockId() : 0;
+                return new ByteCsvBlockReader(in, delimiter, columns, batchSizer::nextBlockRows, progress,
+                        skipRows, firstSequence);
+            } catch (RuntimeException e) {
+                in.close();
+                throw e;
+            }
+        }
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        CSVParser csvParser = new CSVParser(reader, csvFormat);
+        try {
+            if (checkpoint != null) {
+                return new CsvBlockReader(csvParser, columns, batchSizer::nextBlockRows, progress,
+                        checkpoint.getRowNumber(), checkpoint.getBlockId());
+            }
+            return new CsvBlockReader(csvParser, columns, batchSizer::nextBlockRows, progress);
+        } catch (RuntimeException e) {
+            csvParser.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Whether to read with the byte-level {@link com.student.backend.ingest.CsvTokenizer}. Only
+     * RowBinary inserts encode fields from their bytes; the JDBC driver needs a Java value per field.
+     */
+    private boolean readsByteRows(InsertMode insertMode, char delimiter) {
+        return ingestProperties.isByteTokenizer() && insertMode == InsertMode.ROW_BINARY && delimiter < 0x80;
+    }
+    
+    /**
+     * Create the ingest pipeline for the requested insert mode. Both modes convert field text
+     * with converters built from the column types of the target table.
+     */
+    private IngestPipeline<?> createPipeline(InsertMode insertMode, BlockReader blockReader, ClickHouseConfig config,
+                                             String tableName, List<String> columns, ConversionErrors errors,
+                                             ProgressTracker progress, CheckpointTracker checkpoints,
+                                             AdaptiveBatchSizer batchSizer) {
+        String columnsStr = String.join(", ", columns);
+        List<String> types = loadColumnTypes(config, tableName, columns);
+        ZoneId serverTimeZone = schemaCache.getSchema(config).getServerTimeZone();
+        List<ColumnConverter> converters = types.stream()
+                .map(type -> ColumnConverters.forType(type, serverTimeZone))
+                .collect(Collectors.toList());
+        
+        if (insertMode == InsertMode.ROW_BINARY) {
+            log.info("Using RowBinary insert mode for table {}.{}", config.getDatabase(), tableName);
+            RowBinaryEncoder encoder = new RowBinaryEncoder(columns, types, converters, errors);
+            String insertQuery = String.format("INSERT INTO %s.%s (%s) FORMAT RowBinary",
+                    config.getDatabase(), tableName, columnsStr);
+            ClickHouseHttpClient client = new ClickHouseHttpClient(config);
+            return new IngestPipeline<>(blockReader, encoder, () -> new RowBinaryBlockSink(client, insertQuery),
+                    ingestProperties.getConverterThreads(), ingestProperties.getInsertThreads(),
+                    ingestProperties.getQueueCapacity(), progress, checkpoints, batchSizer);
+        }
+        
+        // Prepare placeholders for SQL INSERT statement
+        String placeholders = columns.stream().map(c -> "?").collect(Collectors.joining(", "));
+        String insertSql = String.format("INSERT INTO %s.%s (%s) VALUES (%s)", 
+                config.getDatabase(), tableName, columnsStr, placeholders);
+        
+        // Values are bound on the insert worker's own statement, so there is nothing to convert up front
+        return new IngestPipeline<RowBlock>(blockReader, block -> block,
+                () -> new JdbcBlockSink(connectionPools.getConnection(config), insertSql, columns, converters, errors),
+                ingestProperties.getConverterThreads(), ingestProperties.getInsertThreads(),
+                ingestProperties.getQueueCapacity(), progress, checkpoints, batchSizer);
+    }
+    
+    /**
+     * Look up the ClickHouse types of the selected columns, in insert order
+     */
+    private List<String> loadColumnTypes(ClickHouseConfig config, String tableName, List<String> columns) {
+        Map<String, String> typesByName = new HashMap<>();
+        for (ColumnMetadata column : schemaCache.getTableColumns(config, tableName)) {
+            typesByName.put(column.getName(), column.getType());
+        }
+        
+        List<String> types = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            String type = typesByName.get(column);
+            if (type == null) {
+                throw new DataSourceException(String.format("Column %s not found in ClickHouse table %s.%s",
+                        column, config.getDatabase(), tableName));
+            }
+            types.add(type);
+        }
+        return types;
+    }
+    
+    /**
+     * Files of a directory or glob pattern, in path order
+     *
+     * @throws DataSourceException if nothing matches or a directory cannot be listed
+     */
+    private static List<Path> resolveFiles(String pattern) {
+        List<Path> files;
+        try {
+            files = FileSet.resolve(pattern);
+        } catch (IOException | UncheckedIOException e) {
+            throw new DataSourceException("Failed to list files matching " + pattern + ": " + e.getMessage(), e);
+        }
+        if (files.isEmpty()) {
+            throw new DataSourceException("No files match " + pattern);
+        }
+        return files;
+    }
+
+    /**
+     * The config itself if it names one file, or a copy for its first file if it names a
+     * directory or glob pattern
+     */
+    private static FlatFileConfig firstFile(FlatFileConfig config) {
+        if (!FileSet.isPattern(config.getFileName())) {
+            return config;
+        }
+        return withFileName(config, resolveFiles(config.getFileName()).get(0).toString());
+    }
+
+    /**
+     * Copy of the config for another file
+     */
+    private static FlatFileConfig withFileName(FlatFileConfig config, String fileName) {
+        FlatFileConfig copy = new FlatFileConfig();
+        copy.setDataSource(config.getDataSource());
+        copy.setFileName(fileName);
+        copy.setDelimiter(config.getDelimiter());
+        copy.setInsertMode(config.getInsertMode());
+        copy.setCompression(config.getCompression());
+        copy.setFileFormat(config.getFileFormat());
+        copy.setTableName(config.getTableName());
+        copy.setCreateTable(config.isCreateTable());
+        return copy;
+    }
+
+    private static ThreadFactory fileThreadFactory() {
+        int ingestId = FILE_INGEST_IDS.incrementAndGet();
+        AtomicInteger threadIds = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "ingest-files-" + ingestId + "-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * ClickHouse table the file is ingested into: "tableName", or target_table if it is not set
+     */
+    public static String tableOf(FlatFileConfig config) {
+        return config.getTableName() != null && !config.getTableName().isEmpty() ? config.getTableName() : TARGET_TABLE;
+    }
+    
+    /**
+     * Format of the file, from the config or the file extension
+     */
+    private static FileFormat resolveFileFormat(FlatFileConfig config) {
+        return config.getFileFormat().resolve(config.getFileName());
+    }
+    
     /**
      * Validate the Flat File configuration
      */
@@ -229,6 +1025,21 @@ public class FlatFileService implements DataSourceService {
             throw new ConfigurationException("Flat File name is required");
         }
         
+        // The table name is written into the INSERT and CREATE TABLE statements as is
+        if (config.getTableName() != null && !config.getTableName().isEmpty()
+                && !TABLE_NAME.matcher(config.getTableName()).matches()) {
+            throw new ConfigurationException("Invalid table name: " + config.getTableName());
+        }
+        
+        if (resolveFileFormat(config).isColumnar()) {
+            // The footer is at the end of the file; a compressed stream would have to be decompressed to reach it
+            if (config.getCompression().resolve(config.getFileName()) != CompressionCodec.NONE) {
+                throw new ConfigurationException("Compressed Parquet and Arrow files are not supported; "
+                        + "these formats compress their columns themselves");
+            }
+            return;
+        }
+        
         if (config.getDelimiter() == null || config.getDelimiter().isEmpty()) {
             throw new ConfigurationException("Delimiter is required");
         }
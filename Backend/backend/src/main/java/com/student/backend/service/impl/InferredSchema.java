@@ -0,0 +1,173 @@
+package com.student.backend.service.impl;
+
+import com.student.backend.ingest.ColumnProfile;
+import com.student.backend.ingest.RowSample;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Table schema inferred from a sample of a delimited file, and the CREATE TABLE statement of a
+ * MergeTree table for it. Every column gets the narrowest type its sampled values fit:
+ * <ul>
+ *   <li>Integers the smallest signed or unsigned width that holds their range. Unless the
+ *   sample is the whole file, the range is widened by a factor of 256 and only signed types are
+ *   used, so values beyond the sample, negative ones included, still fit</li>
+ *   <li>Dates and times Date32 or DateTime64 when they fall outside the range of Date or DateTime</li>
+ *   <li>Strings LowCardinality when they repeat: at most "ingest.low-cardinality-max-distinct"
+ *   distinct values, each seen at least twice on average</li>
+ *   <li>Nullable only where the sample has empty or \N fields</li>
+ * </ul>
+ * The sorting key puts up to two low-cardinality columns first, fewest distinct values first,
+ * followed by the first date or time column; Nullable columns are left out. The table keeps a
+ * non-replicated deduplication window, so the insert_deduplication_token of a resumed ingest
+ * drops the blocks it inserts again.
+ *
+ * @param columns Columns in file order
+ * @param orderBy Columns of the sorting key; empty for {@code tuple()}
+ * @param sampledRows Rows the types were inferred from
+ * @param wholeFile Whether the sample is the whole file
+ */
+public record InferredSchema(List<Column> columns, List<String> orderBy, long sampledRows, boolean wholeFile) {
+
+    private static final BigInteger HEADROOM = BigInteger.valueOf(256);
+    private static final String[] UNSIGNED = {"UInt8", "UInt16", "UInt32", "UInt64"};
+    private static final String[] SIGNED = {"Int8", "Int16", "Int32", "Int64"};
+    private static final int MAX_LOW_CARDINALITY_KEYS = 2;
+
+    /**
+     * @param name Column name
+     * @param type ClickHouse type of the column
+     * @param profile Statistics of the sampled values
+     */
+    public record Column(String name, String type, ColumnProfile profile) {
+    }
+
+    /**
+     * Infer the schema of a sample of a delimited file
+     *
+     * @param sample Rows from the start of the file, with no known types
+     * @param lowCardinalityMaxDistinct Most distinct values of a LowCardinality column
+     */
+    public static InferredSchema infer(RowSample sample, int lowCardinalityMaxDistinct) {
+        boolean wholeFile = sample.exhausted();
+        List<Column> columns = new ArrayList<>(sample.columns().size());
+        List<Column> lowCardinality = new ArrayList<>();
+        for (int c = 0; c < sample.columns().size(); c++) {
+            List<String> values = new ArrayList<>(sample.rows().size());
+            for (String[] row : sample.rows()) {
+                values.add(row[c]);
+            }
+            ColumnProfile profile = ColumnProfile.of(sample.columns().get(c), null, values);
+            boolean nullable = profile.nullCount() > 0;
+            String base = narrow(unwrapNullable(profile.type()), profile, wholeFile);
+            boolean repeats = profile.distinctCount() > 0 && profile.distinctCount() <= lowCardinalityMaxDistinct
+                    && profile.distinctCount() * 2 <= values.size() - profile.nullCount();
+
+            String type = nullable ? "Nullable(" + base + ")" : base;
+            if (base.equals("String") && repeats) {
+                type = "LowCardinality(" + type + ")";
+            }
+            Column column = new Column(profile.name(), type, profile);
+            columns.add(column);
+            if (!nullable && repeats && profile.distinctCount() > 1 && !isTemporal(base)) {
+                lowCardinality.add(column);
+            }
+        }
+
+        List<String> orderBy = lowCardinality.stream()
+                .sorted(Comparator.comparingLong(column -> column.profile().distinctCount()))
+                .limit(MAX_LOW_CARDINALITY_KEYS)
+                .map(Column::name)
+                .collect(Collectors.toCollection(ArrayList::new));
+        columns.stream()
+                .filter(column -> isTemporal(column.type()))
+                .findFirst()
+                .ifPresent(column -> orderBy.add(column.name()));
+        return new InferredSchema(columns, orderBy, sample.rows().size(), wholeFile);
+    }
+
+    /**
+     * CREATE TABLE IF NOT EXISTS statement of a MergeTree table with the inferred columns and sorting key
+     *
+     * @param deduplicationWindow Recent inserts whose tokens the table remembers
+     */
+    public String createTableSql(String database, String table, int deduplicationWindow) {
+        StringBuilder sql = new StringBuilder("CREATE TABLE IF NOT EXISTS ")
+                .append(ExportQuery.quote(database)).append('.').append(ExportQuery.quote(table)).append("\n(\n");
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            sql.append("    ").append(ExportQuery.quote(column.name())).append(' ').append(column.type())
+                    .append(i + 1 < columns.size() ? ",\n" : "\n");
+        }
+        sql.append(")\nENGINE = MergeTree\nORDER BY ");
+        if (orderBy.isEmpty()) {
+            sql.append("tuple()");
+        } else {
+            sql.append('(').append(orderBy.stream().map(ExportQuery::quote).collect(Collectors.joining(", ")))
+                    .append(')');
+        }
+        sql.append("\nSETTINGS non_replicated_deduplication_window = ").append(deduplicationWindow);
+        return sql.toString();
+    }
+
+    /**
+     * Narrow an inferred base type to the range of the sampled values
+     */
+    private static String narrow(String type, ColumnProfile profile, boolean wholeFile) {
+        if (profile.min() == null) {
+            return type;
+        }
+        switch (type) {
+            case "Int64" -> {
+                BigInteger min = new BigInteger(profile.min().trim());
+                BigInteger max = new BigInteger(profile.max().trim());
+                if (!wholeFile) {
+                    min = min.signum() < 0 ? min.multiply(HEADROOM) : BigInteger.ZERO;
+                    max = max.multiply(HEADROOM);
+                }
+                // A sample without negative values says nothing about the rows after it
+                String[] candidates = min.signum() < 0 || !wholeFile ? SIGNED : UNSIGNED;
+                for (String candidate : candidates) {
+                    int bits = Integer.parseInt(candidate.replaceAll("\\D", ""));
+                    boolean signed = candidate.startsWith("Int");
+                    BigInteger upper = BigInteger.ONE.shiftLeft(signed ? bits - 1 : bits).subtract(BigInteger.ONE);
+                    BigInteger lower = signed ? BigInteger.ONE.shiftLeft(bits - 1).negate() : BigInteger.ZERO;
+                    if (min.compareTo(lower) >= 0 && max.compareTo(upper) <= 0) {
+                        return candidate;
+                    }
+                }
+                return "Int64";
+            }
+            case "Date" -> {
+                // Date covers 1970-01-01 to 2149-06-06; Date32 goes from 1900 to 2299
+                return within(profile, "1970-01-01", "2149-06-06") ? "Date" : "Date32";
+            }
+            case "DateTime" -> {
+                // DateTime is a 32-bit Unix time, from 1970 to 2106
+                return within(profile, "1970-01-01", "2106-02-07") ? "DateTime" : "DateTime64(0)";
+            }
+            default -> {
+                return type;
+            }
+        }
+    }
+
+    /**
+     * Whether the sampled dates or times fall between two dates, compared as ISO text
+     */
+    private static boolean within(ColumnProfile profile, String first, String last) {
+        return profile.min().trim().compareTo(first) >= 0 && profile.max().trim().substring(0, 10).compareTo(last) < 0;
+    }
+
+    private static String unwrapNullable(String type) {
+        return type.startsWith("Nullable(") ? type.substring("Nullable(".length(), type.length() - 1) : type;
+    }
+
+    private static boolean isTemporal(String type) {
+        return type.startsWith("Date");
+    }
+}
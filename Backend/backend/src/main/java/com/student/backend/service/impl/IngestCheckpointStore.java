@@ -0,0 +1,86 @@
+package com.student.backend.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.student.backend.config.IngestProperties;
+import com.student.backend.exception.ConfigurationException;
+import com.student.backend.exception.DataSourceException;
+import com.student.backend.model.IngestCheckpoint;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps ingest checkpoints as one JSON file per job in the checkpoint directory. A checkpoint
+ * is written to a temporary file and moved over the old one, so a crash mid-write leaves the
+ * previous checkpoint intact.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestCheckpointStore {
+
+    private static final Pattern JOB_ID = Pattern.compile("[A-Za-z0-9-]+");
+
+    private final IngestProperties ingestProperties;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @return The job's checkpoint, or empty if it has none
+     * @throws DataSourceException if the checkpoint exists but cannot be read
+     */
+    public Optional<IngestCheckpoint> load(String jobId) {
+        Path file = pathOf(jobId);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(file.toFile(), IngestCheckpoint.class));
+        } catch (IOException e) {
+            throw new DataSourceException("Failed to read checkpoint of ingest job " + jobId + ": " + e.getMessage(), e);
+        }
+    }
+
+    public boolean exists(String jobId) {
+        return Files.exists(pathOf(jobId));
+    }
+
+    /**
+     * Save a checkpoint, replacing the job's previous one. A failure is logged rather than
+     * thrown: the ingest itself is unaffected, a resume just starts from an older checkpoint.
+     */
+    public void save(IngestCheckpoint checkpoint) {
+        Path file = pathOf(checkpoint.getJobId());
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            objectMapper.writeValue(temp.toFile(), checkpoint);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to save checkpoint of ingest job {}: {}", checkpoint.getJobId(), e.getMessage());
+        }
+    }
+
+    public void delete(String jobId) {
+        try {
+            Files.deleteIfExists(pathOf(jobId));
+        } catch (IOException e) {
+            log.warn("Failed to delete checkpoint of ingest job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private Path pathOf(String jobId) {
+        // Job ids end up in a file name, so nothing but the characters of a UUID is accepted
+        if (jobId == null || !JOB_ID.matcher(jobId).matches()) {
+            throw new ConfigurationException("Invalid ingest job id: " + jobId);
+        }
+        return Paths.get(ingestProperties.getCheckpointDir()).toAbsolutePath().resolve(jobId + ".json");
+    }
+}
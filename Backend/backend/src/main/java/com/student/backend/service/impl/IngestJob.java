@@ -0,0 +1,209 @@
+package com.student.backend.service.impl;
+
+import com.student.backend.ingest.FileProgress;
+import com.student.backend.ingest.ProgressTracker;
+import com.student.backend.model.FileStatus;
+import com.student.backend.model.JobStatus;
+import com.student.backend.model.response.FileProgressResponse;
+import com.student.backend.model.response.IngestResponse;
+import com.student.backend.model.response.JobResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * State of one asynchronous ingest job. Status transitions are synchronized on the job;
+ * progress counters are updated lock-free by the workers through the tracker.
+ */
+class IngestJob {
+
+    private final String id;
+    private final String dataSource;
+    private final Instant submittedAt = Instant.now();
+    private final ProgressTracker progress = new ProgressTracker();
+
+    private JobStatus status = JobStatus.QUEUED;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private IngestResponse result;
+    private String error;
+    private Future<?> future;
+    private IngestScheduler.Ticket ticket;
+
+    /**
+     * @param id Job id; also the id of the job's checkpoint, so a resumed job keeps its id
+     */
+    IngestJob(String id, String dataSource) {
+        this.id = id;
+        this.dataSource = dataSource;
+        progress.setCheckpointId(id);
+    }
+
+    String getId() {
+        return id;
+    }
+
+    ProgressTracker getProgress() {
+        return progress;
+    }
+
+    synchronized void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    synchronized IngestScheduler.Ticket getTicket() {
+        return ticket;
+    }
+
+    synchronized void setTicket(IngestScheduler.Ticket ticket) {
+        this.ticket = ticket;
+    }
+
+    synchronized JobStatus getStatus() {
+        return status;
+    }
+
+    synchronized boolean isFinished() {
+        return status.isFinished();
+    }
+
+    /**
+     * Move a queued job to RUNNING
+     *
+     * @return false if the job was cancelled while it waited
+     */
+    synchronized boolean start() {
+        if (status != JobStatus.QUEUED) {
+            return false;
+        }
+        status = JobStatus.RUNNING;
+        startedAt = Instant.now();
+        return true;
+    }
+
+    synchronized void succeed(IngestResponse result) {
+        this.result = result;
+        finish(progress.isCancelled() ? JobStatus.CANCELLED : JobStatus.SUCCEEDED);
+    }
+
+    synchronized void fail(Throwable cause) {
+        // Cancellation surfaces as whatever the interrupted stage threw
+        if (progress.isCancelled()) {
+            finish(JobStatus.CANCELLED);
+        } else {
+            error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+            finish(JobStatus.FAILED);
+        }
+    }
+
+    /**
+     * Request cancellation: a queued job is dropped at once, a running one stops at its next check
+     *
+     * @return Whether the job was dropped before it started
+     */
+    synchronized boolean cancel() {
+        if (status == JobStatus.QUEUED) {
+            progress.cancel();
+            if (future != null) {
+                future.cancel(false);
+            }
+            finish(JobStatus.CANCELLED);
+            return true;
+        }
+        if (status == JobStatus.RUNNING) {
+            progress.cancel();
+            status = JobStatus.CANCELLING;
+        }
+        return false;
+    }
+
+    private void finish(JobStatus finalStatus) {
+        status = finalStatus;
+        finishedAt = Instant.now();
+    }
+
+    synchronized JobResponse toResponse() {
+        long rows = progress.getRows();
+        long bytes = progress.getBytes();
+        long totalRows = progress.getTotalRows();
+        long totalBytes = progress.getTotalBytes();
+
+        double seconds = 0;
+        if (startedAt != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            seconds = Duration.between(startedAt, end).toMillis() / 1000.0;
+        }
+        double rowsPerSecond = seconds > 0 ? rows / seconds : 0;
+        double bytesPerSecond = seconds > 0 ? bytes / seconds : 0;
+
+        // Bytes are the better measure when the size is known up front (imports); rows otherwise (exports)
+        Double percentComplete = null;
+        Long etaSeconds = null;
+        if (status == JobStatus.SUCCEEDED) {
+            percentComplete = 100.0;
+            etaSeconds = 0L;
+        } else if (!status.isFinished()) {
+            if (totalBytes > 0) {
+                percentComplete = Math.min(100.0, 100.0 * bytes / totalBytes);
+                etaSeconds = bytesPerSecond > 0 ? (long) Math.ceil(Math.max(0, totalBytes - bytes) / bytesPerSecond) : null;
+            } else if (totalRows > 0) {
+                percentComplete = Math.min(100.0, 100.0 * rows / totalRows);
+                etaSeconds = rowsPerSecond > 0 ? (long) Math.ceil(Math.max(0, totalRows - rows) / rowsPerSecond) : null;
+            }
+        }
+
+        return JobResponse.builder()
+                .jobId(id)
+                .dataSource(dataSource)
+                .status(status)
+                .submittedAt(submittedAt.toString())
+                .startedAt(startedAt != null ? startedAt.toString() : null)
+                .finishedAt(finishedAt != null ? finishedAt.toString() : null)
+                .rowsProcessed(rows)
+                .bytesProcessed(bytes)
+                .totalRows(totalRows >= 0 ? totalRows : null)
+                .totalBytes(totalBytes >= 0 ? totalBytes : null)
+                .rowsPerSecond(rowsPerSecond)
+                .bytesPerSecond(bytesPerSecond)
+                .percentComplete(percentComplete)
+                .etaSeconds(etaSeconds)
+                .files(filesResponse())
+                .result(result)
+                .error(error)
+                .build();
+    }
+
+    /**
+     * Progress of each file of a directory or glob ingest, or null for a single file
+     */
+    private List<FileProgressResponse> filesResponse() {
+        List<FileProgress> files = progress.getFiles();
+        if (files.isEmpty()) {
+            return null;
+        }
+        List<FileProgressResponse> responses = new ArrayList<>(files.size());
+        for (FileProgress file : files) {
+            long bytes = file.getProgress().getBytes();
+            Double percentComplete = null;
+            if (file.getStatus() == FileStatus.SUCCEEDED) {
+                percentComplete = 100.0;
+            } else if (file.getStatus() == FileStatus.RUNNING && file.getSizeBytes() > 0) {
+                percentComplete = Math.min(100.0, 100.0 * bytes / file.getSizeBytes());
+            }
+            responses.add(FileProgressResponse.builder()
+                    .fileName(file.getFileName())
+                    .status(file.getStatus())
+                    .sizeBytes(file.getSizeBytes())
+                    .rowsProcessed(file.getProgress().getRows())
+                    .bytesProcessed(bytes)
+                    .percentComplete(percentComplete)
+                    .recordsCount(file.getRecordsCount())
+                    .error(file.getError())
+                    .build());
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,251 @@
+package com.student.backend.service.impl;
+
+import com.student.backend.config.JobProperties;
+import com.student.backend.exception.ConfigurationException;
+import com.student.backend.exception.DataSourceException;
+import com.student.backend.exception.ResourceNotFoundException;
+import com.student.backend.ingest.ProgressTracker;
+import com.student.backend.model.JobStatus;
+import com.student.backend.model.response.IngestResponse;
+import com.student.backend.model.response.JobResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs ingests asynchronously on a dedicated executor. Jobs wait in the {@link IngestScheduler}
+ * and are handed to the executor only once admitted, so a job waiting for a busy host never
+ * holds a thread another job could use. Jobs can be polled for progress and cancelled; finished
+ * jobs are kept in a bounded in-memory history. A flat file job that failed or was cancelled can
+ * be resumed from its checkpoint under the same id.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestJobService {
+
+    private final JobProperties jobProperties;
+    private final MeterRegistry meterRegistry;
+    private final IngestCheckpointStore checkpointStore;
+    private final IngestScheduler scheduler;
+
+    /**
+     * All known jobs in submission order; guarded by itself
+     */
+    private final Map<String, IngestJob> jobs = new LinkedHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    /**
+     * The work of one job
+     */
+    @FunctionalInterface
+    public interface IngestTask {
+        IngestResponse run(ProgressTracker progress);
+    }
+
+    @PostConstruct
+    void start() {
+        // The scheduler never admits more jobs than there are threads; the queue only bridges a thread's exit
+        int threads = Math.max(1, jobProperties.getMaxConcurrent());
+        AtomicInteger threadIds = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ingest-job-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        for (JobStatus status : JobStatus.values()) {
+            if (!status.isFinished()) {
+                Gauge.builder("ingest.jobs.active", this, service -> service.countJobs(status))
+                        .description("Ingest jobs that have not finished yet")
+                        .tag("status", status.name().toLowerCase())
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    /**
+     * Queue an ingest
+     *
+     * @param dataSource Source type of the ingest, for display
+     * @param admission What the scheduler admits the job by
+     * @param task Work to run
+     * @return The queued job
+     * @throws DataSourceException if the scheduler's queue is full
+     */
+    public JobResponse submit(String dataSource, IngestScheduler.Admission admission, IngestTask task) {
+        IngestJob job = new IngestJob(UUID.randomUUID().toString(), dataSource);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+        enqueue(job, admission, task);
+        log.info("Queued ingest job {} from {}", job.getId(), dataSource);
+        return job.toResponse();
+    }
+
+    /**
+     * Queue a failed or cancelled job again; it continues from its checkpoint, and blocks the
+     * earlier run already inserted are deduplicated by the server
+     *
+     * @param jobId Job to resume; it may already have dropped out of the history
+     * @param dataSource Source type of the ingest, for display
+     * @param admission What the scheduler admits the job by
+     * @param task Work to run, with the same source, target and columns as the original job
+     * @return The queued job
+     * @throws ConfigurationException if the job is still active or has succeeded
+     * @throws ResourceNotFoundException if the job has no checkpoint
+     * @throws DataSourceException if the scheduler's queue is full
+     */
+    public JobResponse resume(String jobId, String dataSource, IngestScheduler.Admission admission,
+                              IngestTask task) {
+        IngestJob job = new IngestJob(jobId, dataSource);
+        synchronized (jobs) {
+            IngestJob previous = jobs.get(jobId);
+            if (previous != null && !previous.isFinished()) {
+                throw new ConfigurationException("Ingest job " + jobId + " is still " + previous.getStatus());
+            }
+            if (previous != null && previous.getStatus() == JobStatus.SUCCEEDED) {
+                throw new ConfigurationException("Ingest job " + jobId + " has already succeeded");
+            }
+            if (!checkpointStore.exists(jobId)) {
+                throw new ResourceNotFoundException("No checkpoint found for ingest job: " + jobId);
+            }
+            // Re-inserted so the resumed job sorts with the newest
+            jobs.remove(jobId);
+            jobs.put(jobId, job);
+        }
+        enqueue(job, admission, task);
+        log.info("Queued resumed ingest job {} from {}", jobId, dataSource);
+        return job.toResponse();
+    }
+
+    private void enqueue(IngestJob job, IngestScheduler.Admission admission, IngestTask task) {
+        try {
+            job.setTicket(scheduler.enqueue(admission, ticket -> execute(job, task, ticket)));
+        } catch (DataSourceException e) {
+            synchronized (jobs) {
+                jobs.remove(job.getId());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Hand an admitted job to the executor
+     */
+    private void execute(IngestJob job, IngestTask task, IngestScheduler.Ticket ticket) {
+        try {
+            job.setFuture(executor.submit(() -> run(job, task, ticket)));
+        } catch (RejectedExecutionException e) {
+            // Only happens while shutting down
+            scheduler.release(ticket);
+            job.fail(e);
+        }
+    }
+
+    public JobResponse getJob(String jobId) {
+        return findJob(jobId).toResponse();
+    }
+
+    /**
+     * @return Every job still known, oldest first
+     */
+    public List<JobResponse> listJobs() {
+        List<IngestJob> snapshot;
+        synchronized (jobs) {
+            snapshot = new ArrayList<>(jobs.values());
+        }
+        List<JobResponse> responses = new ArrayList<>(snapshot.size());
+        for (IngestJob job : snapshot) {
+            responses.add(job.toResponse());
+        }
+        return responses;
+    }
+
+    /**
+     * Request cancellation of a job; finished jobs are left unchanged
+     */
+    public JobResponse cancel(String jobId) {
+        IngestJob job = findJob(jobId);
+        if (job.cancel()) {
+            scheduler.release(job.getTicket());
+        }
+        log.info("Cancellation requested for ingest job {}", jobId);
+        return job.toResponse();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        synchronized (jobs) {
+            jobs.values().forEach(IngestJob::cancel);
+        }
+        executor.shutdownNow();
+    }
+
+    private void run(IngestJob job, IngestTask task, IngestScheduler.Ticket ticket) {
+        try {
+            if (!job.start()) {
+                return;
+            }
+            log.info("Starting ingest job {}", job.getId());
+            job.succeed(task.run(job.getProgress()));
+            log.info("Ingest job {} finished", job.getId());
+        } catch (Throwable t) {
+            log.error("Ingest job {} failed: {}", job.getId(), t.getMessage());
+            job.fail(t);
+        } finally {
+            scheduler.release(ticket);
+            trimHistory();
+        }
+    }
+
+    /**
+     * Drop the oldest finished jobs beyond the history size
+     */
+    private void trimHistory() {
+        synchronized (jobs) {
+            long finished = jobs.values().stream().filter(IngestJob::isFinished).count();
+            Iterator<IngestJob> iterator = jobs.values().iterator();
+            while (finished > jobProperties.getHistorySize() && iterator.hasNext()) {
+                if (iterator.next().isFinished()) {
+                    iterator.remove();
+                    finished--;
+                }
+            }
+        }
+    }
+
+    private long countJobs(JobStatus status) {
+        synchronized (jobs) {
+            return jobs.values().stream().filter(job -> job.getStatus() == status).count();
+        }
+    }
+
+    private IngestJob findJob(String jobId) {
+        synchronized (jobs) {
+            IngestJob job = jobs.get(jobId);
+            if (job == null) {
+                throw new ResourceNotFoundException("Ingest job not found: " + jobId);
+            }
+            return job;
+        }
+    }
+}
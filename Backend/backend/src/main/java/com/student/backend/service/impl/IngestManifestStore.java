@@ -0,0 +1,109 @@
+package com.student.backend.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.student.backend.config.IngestProperties;
+import com.student.backend.exception.DataSourceException;
+import com.student.backend.model.IngestedFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers which files have been ingested into which table, so a directory or glob ingest can
+ * skip the files it already loaded. A file is identified by its absolute path, size and
+ * modification time. The manifest is a JSON Lines file that each completed file appends one
+ * line to, so recording a file does not rewrite the others; a later line for the same file and
+ * table replaces an earlier one. The manifest is read once, on first use.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestManifestStore {
+
+    private final IngestProperties ingestProperties;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Entries by table and path; guarded by this, null until loaded
+     */
+    private Map<String, IngestedFile> entries;
+
+    /**
+     * Whether the file, as it is now, has already been ingested into the target
+     *
+     * @throws DataSourceException if the manifest exists but cannot be read
+     */
+    public synchronized boolean contains(String target, File file) {
+        IngestedFile entry = entries().get(keyOf(target, file.getAbsolutePath()));
+        return entry != null && entry.getFileSize() == file.length() && entry.getFileModified() == file.lastModified();
+    }
+
+    /**
+     * Record a completely ingested file. A failure is logged rather than thrown: the file is
+     * in ClickHouse either way, a later ingest of the same files just loads it again.
+     */
+    public synchronized void record(IngestedFile entry) {
+        entries().put(keyOf(entry.getTarget(), entry.getFileName()), entry);
+        Path manifest = manifestPath();
+        try {
+            Files.createDirectories(manifest.getParent());
+            String line = objectMapper.writeValueAsString(entry) + "\n";
+            Files.writeString(manifest, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Failed to record {} in the ingest manifest: {}", entry.getFileName(), e.getMessage());
+        }
+    }
+
+    private Map<String, IngestedFile> entries() {
+        if (entries != null) {
+            return entries;
+        }
+        Path manifest = manifestPath();
+        Map<String, IngestedFile> loaded = new HashMap<>();
+        if (Files.exists(manifest)) {
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+            } catch (IOException | UncheckedIOException e) {
+                throw new DataSourceException("Failed to read ingest manifest " + manifest + ": " + e.getMessage(), e);
+            }
+            for (String line : lines) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    IngestedFile entry = objectMapper.readValue(line, IngestedFile.class);
+                    loaded.put(keyOf(entry.getTarget(), entry.getFileName()), entry);
+                } catch (JsonProcessingException e) {
+                    // Only the line being appended when the server stopped can be cut short
+                    log.warn("Ignoring unreadable line of ingest manifest {}: {}", manifest, e.getMessage());
+                }
+            }
+            log.info("Loaded {} ingested files from manifest {}", loaded.size(), manifest);
+        }
+        entries = loaded;
+        return entries;
+    }
+
+    private Path manifestPath() {
+        return Paths.get(ingestProperties.getManifestFile()).toAbsolutePath();
+    }
+
+    private static String keyOf(String target, String fileName) {
+        return target + "|" + fileName;
+    }
+}
@@ -0,0 +1,146 @@
+package com.student.backend.service.impl;
+
+import com.student.backend.ingest.ProgressTracker;
+import com.student.backend.ingest.TransferMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instruments for transfers, tagged by direction ("import" for Flat File to
+ * ClickHouse, "export" for ClickHouse to Flat File). Published through the Actuator
+ * Prometheus endpoint.
+ */
+@Component
+@RequiredArgsConstructor
+public class IngestMetrics {
+
+    public static final String IMPORT = "import";
+    public static final String EXPORT = "export";
+
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    private final MeterRegistry registry;
+
+    private final Map<String, DirectionMetrics> directions = new ConcurrentHashMap<>();
+
+    /**
+     * Run a transfer with its measurements attached to the progress tracker
+     *
+     * @param direction {@link #IMPORT} or {@link #EXPORT}
+     * @param progress Tracker of the transfer; its metrics are replaced
+     * @param transfer The transfer itself
+     * @return The result of the transfer
+     */
+    public <T> T track(String direction, ProgressTracker progress, Supplier<T> transfer) {
+        DirectionMetrics metrics = directions.computeIfAbsent(direction, DirectionMetrics::new);
+        progress.setMetrics(metrics);
+        metrics.activeTransfers.incrementAndGet();
+        long start = System.nanoTime();
+        String outcome = "failed";
+        try {
+            T result = transfer.get();
+            outcome = "succeeded";
+            return result;
+        } finally {
+            if (progress.isCancelled()) {
+                outcome = "cancelled";
+            }
+            metrics.activeTransfers.decrementAndGet();
+            Timer.builder("ingest.transfer.duration")
+                    .description("Duration of complete transfers")
+                    .tag("direction", direction)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private class DirectionMetrics implements TransferMetrics {
+        private final Counter rowsRead;
+        private final Counter rowsWritten;
+        private final Counter bytesRead;
+        private final Counter bytesWritten;
+        private final DistributionSummary batchRows;
+        private final Timer batchDuration;
+        private final DistributionSummary parseTimePerMb;
+        private final AtomicInteger activeTransfers = new AtomicInteger();
+
+        DirectionMetrics(String direction) {
+            rowsRead = counter("ingest.rows.read", "Rows read from the source", direction);
+            rowsWritten = counter("ingest.rows.written", "Rows written to the target", direction);
+            bytesRead = counter("ingest.bytes.read", "Bytes read from the source", direction);
+            bytesWritten = counter("ingest.bytes.written", "Bytes written to the target", direction);
+            batchRows = DistributionSummary.builder("ingest.batch.rows")
+                    .description("Rows per insert batch")
+                    .tag("direction", direction)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            batchDuration = Timer.builder("ingest.batch.duration")
+                    .description("Time to insert one batch (executeBatch or one RowBinary HTTP insert)")
+                    .tag("direction", direction)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            parseTimePerMb = DistributionSummary.builder("ingest.parse.time.per.mb")
+                    .description("CSV parse time per MB of input")
+                    .baseUnit("milliseconds")
+                    .tag("direction", direction)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            Gauge.builder("ingest.transfers.active", activeTransfers, AtomicInteger::get)
+                    .description("Transfers in progress, synchronous requests and jobs alike")
+                    .tag("direction", direction)
+                    .register(registry);
+        }
+
+        private Counter counter(String name, String description, String direction) {
+            return Counter.builder(name)
+                    .description(description)
+                    .tag("direction", direction)
+                    .register(registry);
+        }
+
+        @Override
+        public void rowsRead(long rows) {
+            rowsRead.increment(rows);
+        }
+
+        @Override
+        public void rowsWritten(long rows) {
+            rowsWritten.increment(rows);
+        }
+
+        @Override
+        public void bytesRead(long bytes) {
+            bytesRead.increment(bytes);
+        }
+
+        @Override
+        public void bytesWritten(long bytes) {
+            bytesWritten.increment(bytes);
+        }
+
+        @Override
+        public void parsed(long bytes, long nanos) {
+            if (bytes > 0) {
+                parseTimePerMb.record(nanos / 1e6 / (bytes / BYTES_PER_MB));
+            }
+        }
+
+        @Override
+        public void batchWritten(int rows, long nanos) {
+            batchRows.record(rows);
+            batchDuration.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
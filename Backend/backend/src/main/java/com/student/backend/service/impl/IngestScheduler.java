@@ -0,0 +1,308 @@
+package com.student.backend.service.impl;
+
+import com.student.backend.config.JobProperties;
+import com.student.backend.exception.DataSourceException;
+import com.student.backend.ingest.ProgressTracker;
+import com.student.backend.model.response.SchedulerStatsResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for ingests. Synchronous requests and background jobs alike wait here until
+ * fewer than "jobs.max-concurrent" ingests run in total and fewer than
+ * "jobs.max-concurrent-per-host" run against their ClickHouse host; ingests over either limit
+ * queue instead of failing, up to "jobs.queue-capacity".
+ * <p>
+ * When a slot frees up, the waiting user who was admitted least recently goes first, so one
+ * user's burst of submissions does not hold back everybody else. Small ingests, up to "jobs.small-job-bytes",
+ * go first; a large ingest that has waited "jobs.large-job-promotion-ms" counts as small, so a
+ * steady stream of small ones cannot starve it. Within one user, ingests of the same class start
+ * in submission order. An ingest whose host is at its limit is skipped, not allowed to block the
+ * ingests behind it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestScheduler {
+
+    private final JobProperties jobProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Waiting tickets by user, in the order the users first queued; guarded by this
+     */
+    private final LinkedHashMap<String, Deque<Ticket>> queues = new LinkedHashMap<>();
+    private final Map<String, Integer> runningByHost = new HashMap<>();
+    private final Map<String, Integer> runningByUser = new HashMap<>();
+    /**
+     * Sequence number of each active user's latest admission; users with nothing queued or running are dropped
+     */
+    private final Map<String, Long> lastAdmitted = new HashMap<>();
+    private long admissions;
+    private int running;
+    private int queued;
+    private long admitted;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("ingest.scheduler.running", this, scheduler -> scheduler.getStats().getRunning())
+                .description("Ingests admitted by the scheduler and not finished yet")
+                .register(meterRegistry);
+        Gauge.builder("ingest.scheduler.queued", this, scheduler -> scheduler.getStats().getQueued())
+                .description("Ingests waiting for the scheduler to admit them")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run an ingest on the calling thread once it is admitted, waiting as long as it takes
+     *
+     * @param admission Who runs the ingest, against which host, and how large it is
+     * @param progress Tracker of the ingest; cancelling it gives up the place in the queue
+     * @param ingest The ingest itself
+     * @return The result of the ingest
+     * @throws DataSourceException if the queue is full
+     */
+    public <T> T call(Admission admission, ProgressTracker progress, Supplier<T> ingest) {
+        CountDownLatch admittedSignal = new CountDownLatch(1);
+        Ticket ticket = enqueue(admission, admittedTicket -> admittedSignal.countDown());
+        try {
+            while (!admittedSignal.await(1, TimeUnit.SECONDS)) {
+                if (progress.isCancelled()) {
+                    throw new CancellationException("Ingest was cancelled while queued");
+                }
+            }
+            return ingest.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataSourceException("Interrupted while waiting to be admitted", e);
+        } finally {
+            release(ticket);
+        }
+    }
+
+    /**
+     * Queue an ingest that runs elsewhere once admitted; the caller must {@link #release} the
+     * ticket when the ingest ends, or to give up its place in the queue
+     *
+     * @param admission Who runs the ingest, against which host, and how large it is
+     * @param onAdmit Called with the ticket once the ingest may start, outside the scheduler's lock;
+     *                possibly before this method returns
+     * @return The ticket of the ingest
+     * @throws DataSourceException if the queue is full
+     */
+    public Ticket enqueue(Admission admission, Consumer<Ticket> onAdmit) {
+        Ticket ticket = new Ticket(admission, onAdmit);
+        List<Ticket> started;
+        synchronized (this) {
+            if (queued >= jobProperties.getQueueCapacity()) {
+                throw new DataSourceException("Too many ingests are queued; try again later");
+            }
+            queues.computeIfAbsent(admission.user(), user -> new ArrayDeque<>()).addLast(ticket);
+            queued++;
+            started = dispatch();
+            if (ticket.state == TicketState.WAITING) {
+                log.info("Queued ingest of {} against {}: {} running, {} waiting", admission.user(),
+                        admission.host(), running, queued);
+            }
+        }
+        notifyAdmitted(started);
+        return ticket;
+    }
+
+    /**
+     * Free the slot of an admitted ingest, or take a waiting one out of the queue; releasing a
+     * ticket again has no effect
+     */
+    public void release(Ticket ticket) {
+        if (ticket == null) {
+            return;
+        }
+        List<Ticket> started;
+        synchronized (this) {
+            String user = ticket.admission.user();
+            if (ticket.state == TicketState.WAITING) {
+                Deque<Ticket> queue = queues.get(user);
+                queue.remove(ticket);
+                if (queue.isEmpty()) {
+                    queues.remove(user);
+                }
+                queued--;
+            } else if (ticket.state == TicketState.ADMITTED) {
+                running--;
+                runningByHost.computeIfPresent(ticket.admission.host(), (host, count) -> count > 1 ? count - 1 : null);
+                runningByUser.computeIfPresent(user, (name, count) -> count > 1 ? count - 1 : null);
+            }
+            if (!queues.containsKey(user) && !runningByUser.containsKey(user)) {
+                lastAdmitted.remove(user);
+            }
+            ticket.state = TicketState.RELEASED;
+            started = dispatch();
+        }
+        notifyAdmitted(started);
+    }
+
+    /**
+     * Admit waiting tickets while there are free slots
+     *
+     * @return The admitted tickets, to be notified once the lock is released
+     */
+    private List<Ticket> dispatch() {
+        List<Ticket> started = new ArrayList<>();
+        long now = System.nanoTime();
+        while (running < Math.max(1, jobProperties.getMaxConcurrent())) {
+            Ticket next = pick(now, true);
+            if (next == null) {
+                next = pick(now, false);
+            }
+            if (next == null) {
+                break;
+            }
+            String user = next.admission.user();
+            Deque<Ticket> queue = queues.get(user);
+            queue.remove(next);
+            if (queue.isEmpty()) {
+                queues.remove(user);
+            }
+            queued--;
+            running++;
+            runningByHost.merge(next.admission.host(), 1, Integer::sum);
+            runningByUser.merge(user, 1, Integer::sum);
+            lastAdmitted.put(user, ++admissions);
+            next.state = TicketState.ADMITTED;
+
+            long waited = now - next.enqueuedAt;
+            admitted++;
+            totalWaitNanos += waited;
+            maxWaitNanos = Math.max(maxWaitNanos, waited);
+            Timer.builder("ingest.scheduler.wait")
+                    .description("Time ingests waited to be admitted")
+                    .tag("class", next.isSmall() ? "small" : "large")
+                    .register(meterRegistry)
+                    .record(waited, TimeUnit.NANOSECONDS);
+            started.add(next);
+        }
+        return started;
+    }
+
+    /**
+     * First ticket whose host has a free slot, looking at the least recently admitted users first
+     *
+     * @param priorityOnly Whether to consider only small tickets and large ones that waited long enough
+     */
+    private Ticket pick(long now, boolean priorityOnly) {
+        long promotionNanos = TimeUnit.MILLISECONDS.toNanos(jobProperties.getLargeJobPromotionMs());
+        int perHost = Math.max(1, jobProperties.getMaxConcurrentPerHost());
+        List<String> users = new ArrayList<>(queues.keySet());
+        // Stable, so users never admitted yet keep the order in which they queued
+        users.sort(Comparator.comparingLong(user -> lastAdmitted.getOrDefault(user, 0L)));
+        for (String user : users) {
+            Deque<Ticket> queue = queues.get(user);
+            Iterator<Ticket> tickets = queue.iterator();
+            while (tickets.hasNext()) {
+                Ticket ticket = tickets.next();
+                if (priorityOnly && !ticket.isSmall() && now - ticket.enqueuedAt < promotionNanos) {
+                    continue;
+                }
+                if (runningByHost.getOrDefault(ticket.admission.host(), 0) < perHost) {
+                    return ticket;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void notifyAdmitted(List<Ticket> started) {
+        for (Ticket ticket : started) {
+            log.debug("Admitted ingest of {} against {}", ticket.admission.user(), ticket.admission.host());
+            ticket.onAdmit.accept(ticket);
+        }
+    }
+
+    /**
+     * Queue depth, running ingests and waiting times
+     */
+    public synchronized SchedulerStatsResponse getStats() {
+        long now = System.nanoTime();
+        Map<String, Integer> queuedByUser = new LinkedHashMap<>();
+        long oldestWaitNanos = 0;
+        for (Map.Entry<String, Deque<Ticket>> entry : queues.entrySet()) {
+            queuedByUser.put(entry.getKey(), entry.getValue().size());
+            for (Ticket ticket : entry.getValue()) {
+                oldestWaitNanos = Math.max(oldestWaitNanos, now - ticket.enqueuedAt);
+            }
+        }
+        return SchedulerStatsResponse.builder()
+                .running(running)
+                .queued(queued)
+                .maxConcurrent(jobProperties.getMaxConcurrent())
+                .maxConcurrentPerHost(jobProperties.getMaxConcurrentPerHost())
+                .queueCapacity(jobProperties.getQueueCapacity())
+                .runningByHost(new LinkedHashMap<>(runningByHost))
+                .runningByUser(new LinkedHashMap<>(runningByUser))
+                .queuedByUser(queuedByUser)
+                .admittedCount(admitted)
+                .averageWaitMs(admitted > 0 ? totalWaitNanos / 1e6 / admitted : 0)
+                .maxWaitMs(maxWaitNanos / 1e6)
+                .oldestQueuedWaitMs(oldestWaitNanos / 1e6)
+                .build();
+    }
+
+    /**
+     * What the scheduler needs to know about an ingest
+     *
+     * @param user Who started the ingest; waiting ingests are served round-robin by user
+     * @param host ClickHouse host and port the ingest reads from or writes to
+     * @param sizeBytes Size of the input, or -1 if unknown; unknown sizes count as large
+     */
+    public record Admission(String user, String host, long sizeBytes) {
+        public Admission {
+            user = user != null ? user : "anonymous";
+            host = host != null ? host : "unknown";
+        }
+    }
+
+    private enum TicketState {
+        WAITING, ADMITTED, RELEASED
+    }
+
+    /**
+     * Place of one ingest in the scheduler; its state is guarded by the scheduler
+     */
+    public final class Ticket {
+        private final Admission admission;
+        private final Consumer<Ticket> onAdmit;
+        private final long enqueuedAt = System.nanoTime();
+        private TicketState state = TicketState.WAITING;
+
+        private Ticket(Admission admission, Consumer<Ticket> onAdmit) {
+            this.admission = admission;
+            this.onAdmit = onAdmit;
+        }
+
+        private boolean isSmall() {
+            return admission.sizeBytes() >= 0 && admission.sizeBytes() <= jobProperties.getSmallJobBytes();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.student.backend.service.impl;
+
+import com.student.backend.config.IngestProperties;
+import com.student.backend.config.PreviewProperties;
+import com.student.backend.exception.ConfigurationException;
+import com.student.backend.ingest.ColumnProfile;
+import com.student.backend.ingest.RowSample;
+import com.student.backend.model.DataSourceType;
+import com.student.backend.model.request.ClickHouseConfig;
+import com.student.backend.model.request.FlatFileConfig;
+import com.student.backend.model.request.PreviewRequest;
+import com.student.backend.model.response.ColumnStatsResponse;
+import com.student.backend.model.response.PreviewResponse;
+import com.student.backend.model.response.SchemaResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Previews of a flat file or a ClickHouse export: the first rows, with the type and basic
+ * statistics of every column. A preview reads at most "preview.max-rows" rows, so it never
+ * scans a whole file or table. Previews are cached for "preview.cache-ttl-ms"; a file preview
+ * is also keyed by the modification time and size of the file, so a changed file is read again
+ * at once. The least recently used preview is evicted once "preview.cache-max-entries" are cached.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PreviewService {
+
+    private final FlatFileService flatFileService;
+    private final ClickHouseService clickHouseService;
+    private final PreviewProperties previewProperties;
+    private final IngestProperties ingestProperties;
+
+    private final Map<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Preview the source of a request, from the cache if it holds a fresh preview of it
+     *
+     * @throws ConfigurationException if the request has no config or asks for no rows
+     */
+    public PreviewResponse preview(PreviewRequest request) {
+        if (request.getConfig() == null) {
+            throw new ConfigurationException("A data source config is required");
+        }
+        int rows = request.getRows() != null ? request.getRows() : previewProperties.getDefaultRows();
+        if (rows <= 0) {
+            throw new ConfigurationException("Preview rows must be positive");
+        }
+        rows = Math.min(rows, previewProperties.getMaxRows());
+        int maxRows = rows;
+        List<String> columns = request.getColumns();
+
+        DataSourceType type = DataSourceType.fromString(request.getDataSource());
+        String key;
+        Supplier<RowSample> read;
+        if (type == DataSourceType.FLAT_FILE) {
+            FlatFileConfig config = flatFileService.asFlatFileConfig(request.getConfig());
+            File file = new File(String.valueOf(config.getFileName()));
+            key = String.join("|", type.name(), file.getAbsolutePath(), String.valueOf(file.lastModified()),
+                    String.valueOf(file.length()), config.getDelimiter(), String.valueOf(config.getCompression()),
+                    String.valueOf(config.getFileFormat()), String.valueOf(columns), String.valueOf(rows));
+            read = () -> flatFileService.sampleRows(config, columns, maxRows);
+        } else {
+            ClickHouseConfig config = clickHouseService.asClickHouseConfig(request.getConfig());
+            key = String.join("|", type.name(), ClickHouseConnectionPools.poolKey(config),
+                    String.valueOf(config.getExport()), String.valueOf(columns), String.valueOf(rows));
+            read = () -> clickHouseService.sampleRows(config, columns, maxRows);
+        }
+
+        PreviewResponse cached = lookup(key);
+        if (cached != null) {
+            log.debug("Serving cached preview of {}", request.getDataSource());
+            return cached;
+        }
+        long start = System.nanoTime();
+        PreviewResponse response = toResponse(type, read.get());
+        log.info("Read a preview of {} rows from {} in {} ms", response.getRowCount(), request.getDataSource(),
+                (System.nanoTime() - start) / 1_000_000);
+        store(key, response);
+        return response;
+    }
+
+    /**
+     * Infer the ClickHouse table of a flat file from a sample of its records, see
+     * {@link FlatFileService#inferSchema}. Inferred schemas are not cached: the sample is larger
+     * than a preview and is only read when a table is about to be created.
+     *
+     * @param request The file, the columns of the table and the number of records to sample
+     * @param database Database the CREATE TABLE statement is rendered for
+     * @throws ConfigurationException if the request has no config
+     */
+    public SchemaResponse inferSchema(PreviewRequest request, String database) {
+        if (request.getConfig() == null) {
+            throw new ConfigurationException("A data source config is required");
+        }
+        FlatFileConfig config = flatFileService.asFlatFileConfig(request.getConfig());
+        InferredSchema schema = flatFileService.inferSchema(config, request.getColumns(), request.getRows());
+        String table = FlatFileService.tableOf(config);
+
+        List<ColumnStatsResponse> columns = new ArrayList<>(schema.columns().size());
+        for (InferredSchema.Column column : schema.columns()) {
+            ColumnProfile profile = column.profile();
+            columns.add(ColumnStatsResponse.builder()
+                    .name(column.name())
+                    .type(column.type())
+                    .typeInferred(true)
+                    .nullCount(profile.nullCount())
+                    .distinctCount(profile.distinctCount())
+                    .min(profile.min())
+                    .max(profile.max())
+                    .maxLength(profile.maxLength())
+                    .build());
+        }
+        return SchemaResponse.builder()
+                .table(table)
+                .columns(columns)
+                .orderBy(schema.orderBy())
+                .sampledRows(schema.sampledRows())
+                .wholeFile(schema.wholeFile())
+                .createTableSql(schema.createTableSql(database, table, ingestProperties.getDeduplicationWindow()))
+                .build();
+    }
+
+    private static PreviewResponse toResponse(DataSourceType type, RowSample sample) {
+        List<ColumnStatsResponse> columns = new ArrayList<>(sample.columns().size());
+        for (int c = 0; c < sample.columns().size(); c++) {
+            List<String> values = new ArrayList<>(sample.rows().size());
+            for (String[] row : sample.rows()) {
+                values.add(row[c]);
+            }
+            ColumnProfile profile = ColumnProfile.of(sample.columns().get(c), sample.types().get(c), values);
+            columns.add(ColumnStatsResponse.builder()
+                    .name(profile.name())
+                    .type(profile.type())
+                    .typeInferred(profile.inferred())
+                    .nullCount(profile.nullCount())
+                    .distinctCount(profile.distinctCount())
+                    .min(profile.min())
+                    .max(profile.max())
+                    .maxLength(profile.maxLength())
+                    .build());
+        }
+        List<List<String>> rows = new ArrayList<>(sample.rows().size());
+        for (String[] row : sample.rows()) {
+            rows.add(Arrays.asList(row));
+        }
+        return PreviewResponse.builder()
+                .dataSource(type.getValue())
+                .method(sample.method())
+                .columns(columns)
+                .rows(rows)
+                .rowCount(rows.size())
+                .exhausted(sample.exhausted())
+                .readAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME))
+                .build();
+    }
+
+    /**
+     * A fresh cached preview, marked as cached, or null
+     */
+    private synchronized PreviewResponse lookup(String key) {
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.createdAt > previewProperties.getCacheTtlMs()) {
+            cache.remove(key);
+            return null;
+        }
+        PreviewResponse response = entry.response;
+        return PreviewResponse.builder()
+                .dataSource(response.getDataSource())
+                .method(response.getMethod())
+                .columns(response.getColumns())
+                .rows(response.getRows())
+                .rowCount(response.getRowCount())
+                .exhausted(response.isExhausted())
+                .cached(true)
+                .readAt(response.getReadAt())
+                .build();
+    }
+
+    private synchronized void store(String key, PreviewResponse response) {
+        cache.put(key, new Entry(response, System.currentTimeMillis()));
+        while (cache.size() > Math.max(0, previewProperties.getCacheMaxEntries())) {
+            cache.remove(cache.keySet().iterator().next());
+        }
+    }
+
+    private record Entry(PreviewResponse response, long createdAt) {
+    }
+}
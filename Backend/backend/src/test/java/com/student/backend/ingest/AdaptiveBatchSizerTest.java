@@ -0,0 +1,139 @@
+package com.student.backend.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Feeds the sizer blocks of known row width and inserts of known latency; a target of 1 MB and
+ * 100-byte rows make a budget of 10000 rows
+ */
+class AdaptiveBatchSizerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void sizesBlocksFromTheRowWidth() {
+        AdaptiveBatchSizer sizer = sizer();
+        assertEquals(1000, sizer.nextBlockRows());
+
+        // One 99-character field plus its separator
+        sizer.blockRead(block(64, 99));
+        assertEquals(10_000, sizer.nextBlockRows());
+
+        // The width is a moving average: 100 + 0.2 * (200 - 100)
+        sizer.blockRead(block(64, 199));
+        assertEquals(8333, sizer.nextBlockRows());
+
+        sizer.blockRead(block(0, 99));
+        assertEquals(8333, sizer.nextBlockRows());
+
+        // Very wide and very narrow rows stay within the row bounds
+        AdaptiveBatchSizer wide = sizer();
+        wide.blockRead(block(4, 1_000_000));
+        assertEquals(100, wide.nextBlockRows());
+        AdaptiveBatchSizer narrow = sizer();
+        narrow.blockRead(block(64, 0));
+        assertEquals(1_000_000, narrow.nextBlockRows());
+        assertEquals(100, new AdaptiveBatchSizer(10, 100, 1_000_000, 1_000_000, SECOND, 3, 100).nextBlockRows());
+    }
+
+    @Test
+    void shrinksAfterSlowInsertsAndGrowsBackAfterFastOnes() {
+        AdaptiveBatchSizer sizer = sizer();
+        sizer.blockRead(block(64, 99));
+
+        // Four times the target latency halves the blocks, never more
+        sizer.blockInserted(10_000, 4 * SECOND);
+        assertEquals(5000, sizer.nextBlockRows());
+        sizer.blockInserted(5000, 3 * SECOND / 2);
+        assertEquals(3333, sizer.nextBlockRows());
+
+        // Between half the target and the target nothing changes
+        sizer.blockInserted(3333, 7 * SECOND / 10);
+        assertEquals(3333, sizer.nextBlockRows());
+
+        sizer.blockInserted(3333, SECOND / 10);
+        assertEquals(4166, sizer.nextBlockRows());
+        for (int i = 0; i < 20; i++) {
+            sizer.blockInserted(sizer.nextBlockRows(), SECOND / 10);
+        }
+        assertEquals(10_000, sizer.nextBlockRows());
+
+        AdaptiveBatchSizer.Summary summary = sizer.getSummary();
+        assertEquals(3333, summary.minRows());
+        assertEquals(10_000, summary.maxRows());
+        assertEquals(10_000, summary.nextRows());
+        assertEquals(summary.averageRows() * 100, summary.averageBytes());
+    }
+
+    @Test
+    void raisesTheFloorAndBacksOffOnTooManyParts() {
+        AdaptiveBatchSizer sizer = sizer();
+        sizer.blockRead(block(64, 99));
+
+        assertEquals(100, sizer.tooManyParts(10_000, 0));
+        assertEquals(20_000, sizer.nextBlockRows());
+        assertEquals(200, sizer.tooManyParts(20_000, 1));
+        assertEquals(400, sizer.tooManyParts(40_000, 2));
+        // The last allowed retry has been used, but the floor still rises for later blocks
+        assertEquals(-1, sizer.tooManyParts(80_000, 3));
+        assertEquals(160_000, sizer.nextBlockRows());
+        assertEquals(3, sizer.getSummary().retries());
+
+        // Slow inserts cannot take the blocks below the floor
+        sizer.blockInserted(160_000, 10 * SECOND);
+        assertEquals(160_000, sizer.nextBlockRows());
+
+        // Nor can the floor pass the largest block
+        sizer.tooManyParts(900_000, 0);
+        assertEquals(1_000_000, sizer.nextBlockRows());
+    }
+
+    @Test
+    void keepsAFixedSizeButStillRetries() {
+        AdaptiveBatchSizer sizer = AdaptiveBatchSizer.fixed(5000, 2, 50);
+        sizer.blockRead(block(64, 99));
+        sizer.blockRead(block(4, 1_000_000));
+        sizer.blockInserted(5000, 100 * SECOND);
+        assertEquals(5000, sizer.nextBlockRows());
+
+        assertEquals(50, sizer.tooManyParts(5000, 0));
+        assertEquals(100, sizer.tooManyParts(5000, 1));
+        assertEquals(-1, sizer.tooManyParts(5000, 2));
+        assertEquals(5000, sizer.nextBlockRows());
+    }
+
+    @Test
+    void recognisesTooManyPartsAnywhereInTheCauses() {
+        IOException wrapped = new IOException("Insert failed",
+                new SQLException("Code: 252. DB::Exception: Too many parts (300). Merges are processing "
+                        + "significantly slower than inserts. (TOO_MANY_PARTS)"));
+        assertTrue(AdaptiveBatchSizer.isTooManyParts(wrapped));
+        assertTrue(AdaptiveBatchSizer.isTooManyParts(new SQLException("TOO_MANY_PARTS")));
+        assertFalse(AdaptiveBatchSizer.isTooManyParts(new SQLException("Code: 241. DB::Exception: Memory limit")));
+        assertFalse(AdaptiveBatchSizer.isTooManyParts(new IOException((String) null)));
+    }
+
+    /**
+     * Sizer aiming at 1 MB and one second per insert, between 100 and 1000000 rows
+     */
+    private static AdaptiveBatchSizer sizer() {
+        return new AdaptiveBatchSizer(1000, 100, 1_000_000, 1_000_000, SECOND, 3, 100);
+    }
+
+    private static RowBlock block(int rows, int fieldLength) {
+        List<String[]> fields = new ArrayList<>();
+        for (int r = 0; r < rows; r++) {
+            fields.add(new String[] {"x".repeat(fieldLength)});
+        }
+        return new RowBlock(0, 1, fields);
+    }
+}
@@ -0,0 +1,75 @@
+package com.student.backend.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Commits blocks out of order, as several insert workers do, and checks where the checkpoint lands
+ */
+class CheckpointTrackerTest {
+
+    private static final CheckpointTracker.Position START = new CheckpointTracker.Position(10, 0, 0, 0);
+
+    @Test
+    void advancesOnlyOverContiguousBytes() {
+        List<CheckpointTracker.Position> saved = new ArrayList<>();
+        CheckpointTracker tracker = new CheckpointTracker("job|file|t", START, true, saved::add);
+
+        tracker.committed(new BlockPosition(2, 0, 210, 300, 30), 0);
+        tracker.committed(new BlockPosition(1, 0, 110, 210, 20), 1);
+        assertTrue(saved.isEmpty());
+        assertEquals(START, tracker.getPosition());
+
+        // The first block releases the two committed after it
+        tracker.committed(new BlockPosition(0, 0, 10, 110, 10), 2);
+        assertEquals(List.of(new CheckpointTracker.Position(300, 60, 3, 3)), saved);
+
+        tracker.committed(new BlockPosition(3, 0, 300, 300, 0), 0);
+        assertEquals(new CheckpointTracker.Position(300, 60, 3, 4), tracker.getPosition());
+    }
+
+    @Test
+    void advancesOnlyOverContiguousRows() {
+        CheckpointTracker.Position start = new CheckpointTracker.Position(-1, 100, 4, 5);
+        CheckpointTracker tracker = new CheckpointTracker("job|file|t", start, false, position -> { });
+
+        tracker.committed(new BlockPosition(6, 151, -1, -1, 50), 0);
+        assertEquals(start, tracker.getPosition());
+        tracker.committed(new BlockPosition(5, 101, -1, -1, 50), 1);
+        assertEquals(new CheckpointTracker.Position(-1, 200, 5, 7), tracker.getPosition());
+    }
+
+    @Test
+    void derivesTheSameTokensOnEveryRun() {
+        BlockPosition block = new BlockPosition(4, 0, 110, 210, 20);
+        CheckpointTracker first = new CheckpointTracker("job|file|t", START, true, position -> { });
+        CheckpointTracker resumed = new CheckpointTracker("job|file|t",
+                new CheckpointTracker.Position(110, 10, 0, 1), true, position -> { });
+
+        // The token depends on the byte range alone, not on the sequence or the run's start
+        assertEquals(first.deduplicationToken(block), resumed.deduplicationToken(block));
+        assertEquals(first.deduplicationToken(block),
+                resumed.deduplicationToken(new BlockPosition(9, 0, 110, 210, 20)));
+        assertEquals(64, first.deduplicationToken(block).length());
+
+        assertNotEquals(first.deduplicationToken(block),
+                first.deduplicationToken(new BlockPosition(4, 0, 110, 211, 20)));
+        assertNotEquals(first.deduplicationToken(block),
+                new CheckpointTracker("other|file|t", START, true, position -> { }).deduplicationToken(block));
+    }
+
+    @Test
+    void keysRowTokensByFirstRowAndCount() {
+        CheckpointTracker tracker = new CheckpointTracker("job|file|t",
+                new CheckpointTracker.Position(-1, 0, 0, 0), false, position -> { });
+        String token = tracker.deduplicationToken(new BlockPosition(0, 1, -1, -1, 100));
+        assertEquals(token, tracker.deduplicationToken(new BlockPosition(3, 1, -1, -1, 100)));
+        assertNotEquals(token, tracker.deduplicationToken(new BlockPosition(0, 1, -1, -1, 99)));
+    }
+}
@@ -0,0 +1,180 @@
+package com.student.backend.ingest;
+
+import com.student.backend.exception.ConfigurationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the RowBinary bytes each converter writes, which are little-endian as ClickHouse reads them
+ */
+class ColumnConvertersTest {
+
+    private static final ZoneId SERVER_ZONE = ZoneOffset.UTC;
+
+    @Test
+    void writesIntegersAtTheirWidth() {
+        assertArrayEquals(bytes(0xD6), encode("Int8", "-42"));
+        assertArrayEquals(bytes(0xFF), encode("UInt8", "255"));
+        assertArrayEquals(bytes(0x34, 0x12), encode("Int16", "4660"));
+        assertArrayEquals(little(4).putInt(-2).array(), encode("Int32", " -2 "));
+        assertArrayEquals(little(4).putInt(-1).array(), encode("UInt32", "4294967295"));
+        assertArrayEquals(little(8).putLong(Long.MIN_VALUE).array(), encode("Int64", "-9223372036854775808"));
+        assertArrayEquals(little(8).putLong(-1).array(), encode("UInt64", "18446744073709551615"));
+
+        assertThrows(NumberFormatException.class, () -> encode("UInt8", "256"));
+        assertThrows(NumberFormatException.class, () -> encode("UInt16", "-1"));
+        assertThrows(NumberFormatException.class, () -> encode("Int32", "1.5"));
+    }
+
+    @Test
+    void writesFloatsAndBooleans() {
+        assertArrayEquals(little(4).putFloat(0.1f).array(), encode("Float32", "0.1"));
+        assertArrayEquals(little(8).putDouble(-12.75).array(), encode("Float64", "-12.75"));
+        assertArrayEquals(little(8).putDouble(Double.POSITIVE_INFINITY).array(), encode("Float64", "inf"));
+        assertArrayEquals(bytes(1), encode("Bool", "true"));
+        assertArrayEquals(bytes(0), encode("Bool", "0"));
+        assertThrows(IllegalArgumentException.class, () -> encode("Bool", "maybe"));
+    }
+
+    @Test
+    void writesEmptyScalarFieldsAsTheDefault() {
+        assertArrayEquals(new byte[4], encode("Int32", ""));
+        assertArrayEquals(new byte[8], encode("Float64", "  "));
+        assertArrayEquals(new byte[2], encode("Date", ""));
+        assertArrayEquals(new byte[8], encode("DateTime64(3)", ""));
+        assertArrayEquals(new byte[16], encode("UUID", ""));
+        assertArrayEquals(new byte[8], encode("Decimal(18, 4)", ""));
+    }
+
+    @Test
+    void writesStringsWithTheirLength() {
+        assertArrayEquals(bytes(5, 'h', 'e', 'l', 'l', 'o'), encode("String", "hello"));
+        assertArrayEquals(bytes(0), encode("String", ""));
+        assertArrayEquals(bytes(2, 0xC3, 0xA9), encode("LowCardinality(String)", "é"));
+        assertArrayEquals(bytes('a', 'b', 0, 0), encode("FixedString(4)", "ab"));
+    }
+
+    @Test
+    void writesDecimalsAsScaledIntegers() {
+        assertArrayEquals(little(4).putInt(12345).array(), encode("Decimal(9, 2)", "123.45"));
+        assertArrayEquals(little(4).putInt(12345).array(), encode("Decimal32(2)", "123.459"));
+        assertArrayEquals(little(8).putLong(-5).array(), encode("Decimal64(4)", "-0.0005"));
+
+        // Wider decimals are sign-extended two's complement
+        assertArrayEquals(little(16).putLong(-150).putLong(-1).array(), encode("Decimal128(2)", "-1.5"));
+
+        assertThrows(ArithmeticException.class, () -> encode("Decimal(5, 2)", "1234.5"));
+        assertThrows(ArithmeticException.class, () -> encode("Decimal(20, 2)", "1e19"));
+    }
+
+    @Test
+    void writesDatesAndTimes() {
+        short day = (short) LocalDate.of(2024, 2, 29).toEpochDay();
+        assertArrayEquals(little(2).putShort(day).array(), encode("Date", "2024-02-29"));
+        assertArrayEquals(little(4).putInt(-25567).array(), encode("Date32", "1900-01-01"));
+        assertThrows(ArithmeticException.class, () -> encode("Date", "1969-12-31"));
+
+        assertArrayEquals(little(4).putInt(1_704_067_200).array(), encode("DateTime", "2024-01-01 00:00:00"));
+        // Berlin is one hour ahead of UTC in winter
+        assertArrayEquals(little(4).putInt(1_704_063_600).array(),
+                encode("DateTime('Europe/Berlin')", "2024-01-01 00:00:00"));
+        assertArrayEquals(little(8).putLong(1_704_067_200_123_456L).array(),
+                encode("DateTime64(6, 'UTC')", "2024-01-01 00:00:00.123456"));
+        assertThrows(ArithmeticException.class, () -> encode("DateTime", "1969-12-31 23:59:59"));
+    }
+
+    @Test
+    void writesUuidsMostSignificantHalfFirst() {
+        UUID uuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+        assertArrayEquals(little(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits())
+                .array(), encode("UUID", uuid.toString()));
+    }
+
+    @Test
+    void writesNullableWithANullMarker() {
+        assertArrayEquals(bytes(1), encode("Nullable(Int32)", ""));
+        assertArrayEquals(bytes(1), encode("Nullable(String)", "\\N"));
+        assertArrayEquals(bytes(0, 7, 0, 0, 0), encode("Nullable(Int32)", "7"));
+        assertArrayEquals(bytes(0, 1, 'N'), encode("Nullable(String)", "N"));
+    }
+
+    @Test
+    void writesArraysWithTheirLength() {
+        assertArrayEquals(bytes(3, 1, 0, 2, 0, 3, 0), encode("Array(Int16)", "[1, 2, 3]"));
+        assertArrayEquals(bytes(0), encode("Array(Int16)", "[]"));
+        assertArrayEquals(bytes(2, 0, 3, 'a', ',', 'b', 1), encode("Array(Nullable(String))", "['a,b', NULL]"));
+        assertThrows(IllegalArgumentException.class, () -> encode("Array(Int16)", "1, 2"));
+    }
+
+    @Test
+    void writesTheSameBytesFromUtf8AsFromText() {
+        List<List<String>> cases = List.of(
+                List.of("String", "naïve café"),
+                List.of("FixedString(12)", "日本"),
+                List.of("Int64", "-123456789"),
+                List.of("Float64", "3.25e-3"),
+                List.of("Nullable(Float32)", "\\N"),
+                List.of("Date32", "2299-12-31"),
+                List.of("DateTime64(3)", "2024-06-30 12:34:56.789"),
+                List.of("Decimal(38, 10)", "-12345678901234567890.0123456789"),
+                List.of("UUID", "00000000-0000-0000-0000-000000000001"),
+                List.of("Array(String)", "['x', 'ÿ']"));
+        for (List<String> c : cases) {
+            ColumnConverter converter = ColumnConverters.forType(c.get(0), SERVER_ZONE);
+            byte[] utf8 = c.get(1).getBytes(StandardCharsets.UTF_8);
+            RowBinaryOutput out = new RowBinaryOutput(16);
+            converter.write(new ByteSlice().set(utf8, 0, utf8.length), out);
+            assertArrayEquals(encode(c.get(0), c.get(1)), Arrays.copyOf(out.getBuffer(), out.size()), c.toString());
+        }
+    }
+
+    @Test
+    void rejectsUnusableTypeParameters() {
+        assertThrows(ConfigurationException.class, () -> ColumnConverters.forType("DateTime64(10)", SERVER_ZONE));
+        assertThrows(ConfigurationException.class, () -> ColumnConverters.forType("Decimal(5, 6)", SERVER_ZONE));
+        assertThrows(ConfigurationException.class,
+                () -> ColumnConverters.forType("DateTime('Mars/Base')", SERVER_ZONE));
+        assertThrows(ConfigurationException.class, () -> ColumnConverters.forType("FixedString(n)", SERVER_ZONE));
+    }
+
+    @Test
+    void leavesTypesWithoutAnEncodingToText() {
+        ColumnConverter converter = ColumnConverters.forType("Map(String, UInt64)", SERVER_ZONE);
+        assertFalse(converter.supportsRowBinary());
+        assertFalse(ColumnConverters.forType("Nullable(IPv4)", SERVER_ZONE).supportsRowBinary());
+        assertTrue(ColumnConverters.forType("Array(Nullable(Int8))", SERVER_ZONE).supportsRowBinary());
+        assertThrows(IllegalStateException.class, () -> converter.write("{}", new RowBinaryOutput(16)));
+    }
+
+    private static byte[] encode(String type, String text) {
+        RowBinaryOutput out = new RowBinaryOutput(16);
+        ColumnConverters.forType(type, SERVER_ZONE).write(text, out);
+        return Arrays.copyOf(out.getBuffer(), out.size());
+    }
+
+    private static ByteBuffer little(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,142 @@
+package com.student.backend.ingest;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Splits generated CSV files and checks that Commons CSV, parsing each range on its own, reads
+ * the same records as it does from the whole file
+ */
+class CsvSplitterTest {
+
+    private static final long[] SPLIT_SIZES = {5, 16, 64, 1000};
+
+    @Test
+    void splitsOnRecordBoundaries() throws IOException {
+        String csv = "id,text\n1,\"a\nb\"\n2,\"\"\"\n\"\"\"\r\n\n3,plain\n4,\"x,\ny\"";
+        assertSplitsLikeCommonsCsv(csv);
+    }
+
+    @Test
+    void treatsQuotesInsideUnquotedFieldsAsData() throws IOException {
+        // Only a quote at the start of a field opens a quoted field, so these newlines end records
+        String csv = "id,text\n1,a\"b\n2,\"c\"\"\n3\",d\n4, \"e\n5,f\n";
+        assertSplitsLikeCommonsCsv(csv);
+    }
+
+    @Test
+    void splitsRandomFilesLikeCommonsCsv() throws IOException {
+        String[] pieces = {"a", "bc", ",", "\"", "\n", "\r\n", " ", "é"};
+        Random random = new Random(11);
+        for (int file = 0; file < 300; file++) {
+            StringBuilder csv = new StringBuilder("h1,h2,h3\n");
+            int records = random.nextInt(30);
+            for (int r = 0; r < records; r++) {
+                for (int f = 0; f < 3; f++) {
+                    StringBuilder value = new StringBuilder();
+                    int length = random.nextInt(6);
+                    for (int i = 0; i < length; i++) {
+                        value.append(pieces[random.nextInt(pieces.length)]);
+                    }
+                    csv.append(f == 0 ? "" : ",").append(encode(value.toString()));
+                }
+                csv.append(random.nextBoolean() ? "\n" : "\r\n");
+            }
+            assertSplitsLikeCommonsCsv(csv.toString());
+        }
+    }
+
+    @Test
+    void findsTheHeaderEnd() throws IOException {
+        assertEquals(9, headerEnd("\"a\nb\",c\r\nd,e\n"));
+        assertEquals(3, headerEnd("a,b"));
+        assertEquals(0, headerEnd(""));
+    }
+
+    /**
+     * Quote a value when Commons CSV needs it to read the value back; a quote that does not
+     * start the value may stay unquoted
+     */
+    private static String encode(String value) {
+        boolean quote = value.startsWith("\"") || value.contains(",") || value.contains("\n") || value.contains("\r")
+                || value.isEmpty();
+        return quote ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+
+    private static void assertSplitsLikeCommonsCsv(String csv) throws IOException {
+        byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        Path file = Files.createTempFile("split", ".csv");
+        try {
+            Files.write(file, bytes);
+            try (FileChannel channel = FileChannel.open(file)) {
+                CsvSplitter splitter = new CsvSplitter(channel, (byte) ',', (byte) '"');
+                long start = splitter.headerEnd(bytes.length);
+                List<List<String>> expected = parse(new String(bytes, (int) start, bytes.length - (int) start,
+                        StandardCharsets.UTF_8));
+
+                for (long splitSize : SPLIT_SIZES) {
+                    List<CsvSplitter.Range> ranges = splitter.split(start, bytes.length, splitSize,
+                            ForkJoinPool.commonPool());
+                    List<List<String>> actual = new ArrayList<>();
+                    long position = start;
+                    for (CsvSplitter.Range range : ranges) {
+                        assertEquals(position, range.start(), csv);
+                        assertTrue(range.length() > 0, csv);
+                        position = range.end();
+                        actual.addAll(parse(new String(bytes, (int) range.start(), (int) range.length(),
+                                StandardCharsets.UTF_8)));
+                    }
+                    assertEquals(bytes.length, position, csv);
+
+                    // Splitting again from a range boundary yields the same ranges from there on
+                    int middle = ranges.size() / 2;
+                    if (middle > 0) {
+                        assertEquals(ranges.subList(middle, ranges.size()), splitter.split(ranges.get(middle).start(),
+                                bytes.length, splitSize, ForkJoinPool.commonPool()), csv);
+                    }
+                    assertEquals(expected, actual, csv + " split every " + splitSize);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static long headerEnd(String csv) throws IOException {
+        Path file = Files.createTempFile("split", ".csv");
+        try {
+            Files.writeString(file, csv);
+            try (FileChannel channel = FileChannel.open(file)) {
+                return new CsvSplitter(channel, (byte) ',', (byte) '"').headerEnd(channel.size());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<List<String>> parse(String csv) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CSVParser parser = CSVFormat.DEFAULT.parse(new StringReader(csv))) {
+            for (CSVRecord record : parser) {
+                records.add(record.toList());
+            }
+        }
+        return records;
+    }
+}
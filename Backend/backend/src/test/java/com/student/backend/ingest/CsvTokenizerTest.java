@@ -0,0 +1,144 @@
+package com.student.backend.ingest;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Compares the tokenizer with Commons CSV using {@code CSVFormat.DEFAULT}, on records and on errors
+ */
+class CsvTokenizerTest {
+
+    private static final List<String> EDGE_CASES = List.of(
+            "",
+            "a,b,c",
+            "a,b,c\n1,2,3\n",
+            "a,b\r\n1,2\r\n",
+            "a,b\r1,2\r",
+            "a,b\n\n\r\n1,2\n\n",
+            "a,\n,b\n,\n",
+            "a,b,",
+            "\"a,b\",\"c\nd\",\"e\"\"f\"",
+            "\"\",\"\"\"\"\n\"x\"",
+            "\"a\"  ,\"b\"\t\n",
+            "a\"b,c\"\"d\" ,\" e\"",
+            " \"a\", b ",
+            "é,日本,\"ü,ö\"\n",
+            "\"a\" ,b",
+            "\"multi\r\nline\",x\r\n");
+
+    private static final List<String> MALFORMED = List.of(
+            "\"unterminated",
+            "a,\"b\nc",
+            "\"a\"b,c",
+            "\"a\"\"",
+            "\"a\" x\n");
+
+    @Test
+    void parsesEdgeCasesAsCommonsCsv() throws IOException {
+        for (String input : EDGE_CASES) {
+            assertEquals(commonsRecords(input, ','), tokenizerRecords(input, ','), input);
+        }
+        assertEquals(commonsRecords("a;b,c;\"d;e\"", ';'), tokenizerRecords("a;b,c;\"d;e\"", ';'));
+        assertEquals(commonsRecords("a\tb\t\"\tc\"", '\t'), tokenizerRecords("a\tb\t\"\tc\"", '\t'));
+    }
+
+    @Test
+    void rejectsMalformedQuotingAsCommonsCsv() {
+        for (String input : MALFORMED) {
+            assertThrows(IOException.class, () -> commonsRecords(input, ','), input);
+            assertThrows(IOException.class, () -> tokenizerRecords(input, ','), input);
+        }
+    }
+
+    @Test
+    void parsesRandomInputAsCommonsCsv() throws IOException {
+        char[] alphabet = {'a', 'b', ',', ',', '"', '"', '\n', '\r', ' ', '\t', 'é', '€'};
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                input.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String text = input.toString();
+
+            List<List<String>> expected;
+            try {
+                expected = commonsRecords(text, ',');
+            } catch (IOException e) {
+                assertThrows(IOException.class, () -> tokenizerRecords(text, ','), text);
+                continue;
+            }
+            assertEquals(expected, tokenizerRecords(text, ','), text);
+        }
+    }
+
+    @Test
+    void readsRecordsAcrossBufferRefills() throws IOException {
+        // Fields and line breaks straddle the 64 KB input buffer
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; input.length() < 300_000; i++) {
+            input.append(i).append(",\"quoted ").append(i).append("\"\"\",").append("x".repeat(i % 97)).append("\r\n");
+        }
+        String text = input.toString();
+        assertEquals(commonsRecords(text, ','), tokenizerRecords(text, ','));
+    }
+
+    @Test
+    void tracksTheLineEachRecordStartsOn() throws IOException {
+        CsvTokenizer tokenizer = tokenizer("a\n\n\"b\nc\"\r\nd", ',');
+        List<Long> lines = new ArrayList<>();
+        while (tokenizer.next()) {
+            lines.add(tokenizer.getRecordLineNumber());
+        }
+        assertEquals(List.of(1L, 3L, 5L), lines);
+    }
+
+    @Test
+    void rejectsDelimitersThatAreNotOneByte() {
+        assertThrows(IllegalArgumentException.class, () -> tokenizer("", '"'));
+        assertThrows(IllegalArgumentException.class, () -> tokenizer("", '\n'));
+        assertThrows(IllegalArgumentException.class, () -> tokenizer("", '§'));
+    }
+
+    private static List<List<String>> commonsRecords(String input, char delimiter) throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.builder().setDelimiter(delimiter).build();
+        List<List<String>> records = new ArrayList<>();
+        try (CSVParser parser = format.parse(new StringReader(input))) {
+            for (CSVRecord record : parser) {
+                records.add(record.toList());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return records;
+    }
+
+    private static List<List<String>> tokenizerRecords(String input, char delimiter) throws IOException {
+        CsvTokenizer tokenizer = tokenizer(input, delimiter);
+        List<List<String>> records = new ArrayList<>();
+        while (tokenizer.next()) {
+            records.add(Arrays.asList(tokenizer.fieldValues()));
+        }
+        return records;
+    }
+
+    private static CsvTokenizer tokenizer(String input, char delimiter) {
+        return new CsvTokenizer(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), delimiter);
+    }
+}
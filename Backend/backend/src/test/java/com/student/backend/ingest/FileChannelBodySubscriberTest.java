@@ -0,0 +1,83 @@
+package com.student.backend.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Copies bodies through the subscriber as the HTTP client would deliver them, in several items
+ */
+class FileChannelBodySubscriberTest {
+
+    @Test
+    void countsRecordsOutsideQuotes() throws Exception {
+        FileChannelBodySubscriber.RecordCounter counter = new FileChannelBodySubscriber.RecordCounter(true);
+        String body = "id,text\n1,\"a\nb\"\n2,\"\"\"\"\n";
+        ByteArrayOutputStream out = copy(body, counter, 5);
+
+        assertEquals(body, out.toString(StandardCharsets.UTF_8));
+        assertEquals(3, counter.getRecords());
+    }
+
+    @Test
+    void keepsTheEndOfTheBody() throws Exception {
+        String body = "x".repeat(20_000) + "\nlast line\n";
+        FileChannelBodySubscriber subscriber = subscriber(new ByteArrayOutputStream(), null);
+        deliver(subscriber, body, 4096);
+
+        String tail = subscriber.tail();
+        assertEquals(8 * 1024, tail.length());
+        assertEquals(body.substring(body.length() - tail.length()), tail);
+    }
+
+    @Test
+    void findsAnExceptionAppendedToTheBody() {
+        String exception = "Code: 241. DB::Exception: Memory limit (total) exceeded: would use 9.31 GiB. "
+                + "(MEMORY_LIMIT_EXCEEDED) (version 24.3.1.1)";
+        assertEquals(exception, ClickHouseHttpClient.serverException("1,a\n2,b\n" + exception + "\n"));
+        // The exception may follow a row that was cut off
+        assertEquals(exception, ClickHouseHttpClient.serverException("1,a\n2,\"b" + "\n" + exception));
+        assertNull(ClickHouseHttpClient.serverException("1,a\n2,b\n"));
+        assertNull(ClickHouseHttpClient.serverException("1,\"Code: 60. DB::Exception: Table is missing\"\n"));
+    }
+
+    private static ByteArrayOutputStream copy(String body, FileChannelBodySubscriber.RecordCounter counter,
+                                              int itemSize) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FileChannelBodySubscriber subscriber = subscriber(out, counter);
+        deliver(subscriber, body, itemSize);
+        long copied = subscriber.getBody().toCompletableFuture().get();
+        assertEquals(body.getBytes(StandardCharsets.UTF_8).length, copied);
+        return out;
+    }
+
+    private static FileChannelBodySubscriber subscriber(ByteArrayOutputStream out,
+                                                        FileChannelBodySubscriber.RecordCounter counter) {
+        return new FileChannelBodySubscriber(Channels.newChannel(out), 16, counter, new ProgressTracker());
+    }
+
+    private static void deliver(FileChannelBodySubscriber subscriber, String body, int itemSize) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i += itemSize) {
+            subscriber.onNext(List.of(ByteBuffer.wrap(bytes, i, Math.min(itemSize, bytes.length - i))));
+        }
+        subscriber.onComplete();
+    }
+}
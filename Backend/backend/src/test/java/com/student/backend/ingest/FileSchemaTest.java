@@ -0,0 +1,95 @@
+package com.student.backend.ingest;
+
+import com.student.backend.model.FileFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Reads the footers of the fixtures in src/test/resources/fixtures, which hold three rows:
+ * sample.parquet in one row group, sample.arrow in two record batches of two and one rows.
+ */
+class FileSchemaTest {
+
+    @Test
+    void readsParquetColumnsTypesAndRows() throws Exception {
+        FileSchema schema = FileSchema.read(fixture("sample.parquet"), FileFormat.PARQUET);
+
+        assertEquals(List.of("id", "name", "score", "day", "price", "tags"), schema.columns());
+        // tags is a LIST group of three schema elements, and counts as one column without a plain type
+        assertEquals(Arrays.asList("Int64", "String", "Float64", "Date32", "Decimal(12, 2)", null), schema.types());
+        assertEquals(3, schema.rows());
+    }
+
+    @Test
+    void readsArrowColumnsTypesAndRows() throws Exception {
+        FileSchema schema = FileSchema.read(fixture("sample.arrow"), FileFormat.ARROW);
+
+        assertEquals(List.of("id", "code", "score", "name", "flag", "day", "ts", "point"), schema.columns());
+        // code leaves is_signed at its default, false; point is a struct with a child field
+        assertEquals(Arrays.asList("Int64", "UInt8", "Float64", "String", "Bool", "Date32", "DateTime64(6)", null),
+                schema.types());
+        assertEquals(3, schema.rows());
+    }
+
+    @Test
+    void rejectsFilesWithoutMagic() throws Exception {
+        Path file = Files.createTempFile("footer", ".csv");
+        try {
+            Files.writeString(file, "id,name\n1,alice\n2,bob\n3,carol\n");
+            assertThrows(IOException.class, () -> FileSchema.read(file, FileFormat.PARQUET));
+            assertThrows(IOException.class, () -> FileSchema.read(file, FileFormat.ARROW));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void rejectsParquetFooterLongerThanFile() throws Exception {
+        byte[] bytes = Files.readAllBytes(fixture("sample.parquet"));
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(bytes.length - 8, bytes.length);
+        Path file = Files.createTempFile("footer", ".parquet");
+        try {
+            Files.write(file, bytes);
+            IOException e = assertThrows(IOException.class, () -> FileSchema.read(file, FileFormat.PARQUET));
+            assertEquals("Corrupt Parquet footer length " + bytes.length, e.getMessage());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void rejectsTruncatedArrowFooter() throws Exception {
+        byte[] bytes = Files.readAllBytes(fixture("sample.arrow"));
+        // Keep the tail, but cut the file off in the middle of the footer it points to
+        byte[] magic = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+        int footerLength = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN)
+                .getInt(bytes.length - magic.length - 4);
+        byte[] truncated = new byte[8 + footerLength / 2 + 4 + magic.length];
+        System.arraycopy(bytes, 0, truncated, 0, 8);
+        System.arraycopy(bytes, bytes.length - 4 - magic.length, truncated, truncated.length - 4 - magic.length,
+                4 + magic.length);
+        Path file = Files.createTempFile("footer", ".arrow");
+        try {
+            Files.write(file, truncated);
+            assertThrows(IOException.class, () -> FileSchema.read(file, FileFormat.ARROW));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Path fixture(String name) throws URISyntaxException {
+        return Path.of(FileSchemaTest.class.getResource("/fixtures/" + name).toURI());
+    }
+}
@@ -0,0 +1,141 @@
+package com.student.backend.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextParsersTest {
+
+    @Test
+    void parsesIntegersFromTheMiddleOfText() {
+        String text = "x,-42,18446744073709551615,y";
+        assertEquals(-42, TextParsers.parseLong(text, 2, 5));
+        assertEquals(-1L, TextParsers.parseUnsignedLong(text, 6, 26));
+        assertEquals(127, TextParsers.parseLongInRange("127", 0, 3, Byte.MIN_VALUE, Byte.MAX_VALUE));
+        assertThrows(NumberFormatException.class,
+                () -> TextParsers.parseLongInRange("128", 0, 3, Byte.MIN_VALUE, Byte.MAX_VALUE));
+        assertThrows(NumberFormatException.class, () -> TextParsers.parseLong("12a", 0, 3));
+    }
+
+    @Test
+    void trimsWhitespaceAndControlCharacters() {
+        String text = " \t 12 \r";
+        int start = TextParsers.trimStart(text, 0, text.length());
+        int end = TextParsers.trimEnd(text, start, text.length());
+        assertEquals("12", text.substring(start, end));
+        assertEquals(3, TextParsers.trimEnd("   ", 3, 3));
+    }
+
+    @Test
+    void parsesFloatsExactlyAsTheJdk() {
+        List<String> values = List.of("0", "-0", "+1", "1.", ".5", "0.1", "0.3", "-12.75", "1e22", "1e23", "3e-4",
+                "1E+10", "16777217", "9007199254740993", "123456789012345678", "1234567890123456789012",
+                "3.4028235e38", "1.4e-45", "4.9e-324", "2.2250738585072014E-308", "1d", "0x1p3", "6.02214076e23");
+        for (String value : values) {
+            assertEquals(Double.parseDouble(value), TextParsers.parseDouble(value, 0, value.length()), value);
+            assertEquals(Float.parseFloat(value), TextParsers.parseFloat(value, 0, value.length()), value);
+        }
+
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            String value = (random.nextBoolean() ? "-" : "") + Math.abs(random.nextLong() % 10_000_000_000L)
+                    + "." + random.nextInt(1_000_000) + (random.nextBoolean() ? "e" + (random.nextInt(40) - 20) : "");
+            assertEquals(Double.parseDouble(value), TextParsers.parseDouble(value, 0, value.length()), value);
+            assertEquals(Float.parseFloat(value), TextParsers.parseFloat(value, 0, value.length()), value);
+        }
+    }
+
+    @Test
+    void parsesClickHouseSpecialFloats() {
+        assertEquals(Double.POSITIVE_INFINITY, TextParsers.parseDouble("inf", 0, 3));
+        assertEquals(Double.NEGATIVE_INFINITY, TextParsers.parseDouble("-Inf", 0, 4));
+        assertTrue(Double.isNaN(TextParsers.parseDouble("nan", 0, 3)));
+        assertEquals(Float.POSITIVE_INFINITY, TextParsers.parseFloat("+inf", 0, 4));
+    }
+
+    @Test
+    void rejectsMalformedFloats() {
+        for (String value : List.of(".", "-", "1e", "1e+", "e5", "1..2", "1.2.3", "1,5", "")) {
+            assertThrows(NumberFormatException.class, () -> TextParsers.parseDouble(value, 0, value.length()), value);
+            assertThrows(NumberFormatException.class, () -> TextParsers.parseFloat(value, 0, value.length()), value);
+        }
+    }
+
+    @Test
+    void parsesBooleans() {
+        assertTrue(TextParsers.parseBoolean("1", 0, 1));
+        assertTrue(TextParsers.parseBoolean("TRUE", 0, 4));
+        assertFalse(TextParsers.parseBoolean("0", 0, 1));
+        assertFalse(TextParsers.parseBoolean("False", 0, 5));
+        assertThrows(IllegalArgumentException.class, () -> TextParsers.parseBoolean("yes", 0, 3));
+    }
+
+    @Test
+    void parsesDecimalsDiscardingExtraFractionDigits() {
+        assertEquals(12345, TextParsers.parseUnscaledDecimal("123.45", 0, 6, 2, 9));
+        assertEquals(-12340, TextParsers.parseUnscaledDecimal("-123.4", 0, 6, 2, 9));
+        assertEquals(12345, TextParsers.parseUnscaledDecimal("123.459", 0, 7, 2, 9));
+        assertEquals(5, TextParsers.parseUnscaledDecimal(".05", 0, 3, 2, 9));
+        assertEquals(700, TextParsers.parseUnscaledDecimal("+7", 0, 2, 2, 9));
+        assertEquals(123456780, TextParsers.parseUnscaledDecimal("1234567.8", 0, 9, 2, 9));
+        assertThrows(ArithmeticException.class, () -> TextParsers.parseUnscaledDecimal("12345678.9", 0, 10, 2, 9));
+        assertThrows(NumberFormatException.class, () -> TextParsers.parseUnscaledDecimal("1.2.3", 0, 5, 2, 9));
+        assertThrows(NumberFormatException.class, () -> TextParsers.parseUnscaledDecimal("-.", 0, 2, 2, 9));
+    }
+
+    @Test
+    void parsesDatesAsEpochDays() {
+        for (String date : List.of("1970-01-01", "2024-02-29", "1900-01-01", "2299-12-31", "1969-12-31")) {
+            assertEquals(LocalDate.parse(date).toEpochDay(), TextParsers.parseEpochDay(date, 0, date.length()), date);
+        }
+        assertThrows(IllegalArgumentException.class, () -> TextParsers.parseEpochDay("2023-02-29", 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> TextParsers.parseEpochDay("2023-13-01", 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> TextParsers.parseEpochDay("2023/01/01", 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> TextParsers.parseEpochDay("23-01-01", 0, 8));
+    }
+
+    @Test
+    void parsesDateTimesAsTicksInTheirZone() {
+        ZoneId utc = ZoneOffset.UTC;
+        assertEquals(1_704_067_200_123L,
+                TextParsers.parseEpochTicks("2024-01-01 00:00:00.123456", 0, 26, 3, utc.getRules()));
+        assertEquals(1_704_067_200L, TextParsers.parseEpochTicks("2024-01-01T00:00:00", 0, 19, 0, utc.getRules()));
+        assertEquals(1_704_067_200_000L, TextParsers.parseEpochTicks("2024-01-01", 0, 10, 3, utc.getRules()));
+        assertEquals(1_704_067_200_500L, TextParsers.parseEpochTicks("1704067200.5", 0, 12, 3, utc.getRules()));
+        assertEquals(-1_500L, TextParsers.parseEpochTicks("-1.5", 0, 4, 3, utc.getRules()));
+
+        // 2024-07-01 is in summer time in Berlin, two hours ahead of UTC
+        ZoneId berlin = ZoneId.of("Europe/Berlin");
+        assertEquals(1_719_784_800L, TextParsers.parseEpochTicks("2024-07-01 00:00:00", 0, 19, 0, berlin.getRules()));
+        assertEquals(LocalDateTime.of(2024, 7, 1, 0, 0),
+                TextParsers.toLocalDateTime(1_719_784_800L, 0, berlin));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> TextParsers.parseEpochTicks("2024-01-01 24:00:00", 0, 19, 0, utc.getRules()));
+        assertThrows(IllegalArgumentException.class,
+                () -> TextParsers.parseEpochTicks("2024-01-01 00:00:00Z", 0, 20, 0, utc.getRules()));
+    }
+
+    @Test
+    void parsesUuidHalves() {
+        String text = "123e4567-e89b-12d3-a456-426614174000";
+        UUID uuid = UUID.fromString(text);
+        assertEquals(uuid.getMostSignificantBits(), TextParsers.parseUuidHalf(text, 0, 36, true));
+        assertEquals(uuid.getLeastSignificantBits(), TextParsers.parseUuidHalf(text, 0, 36, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> TextParsers.parseUuidHalf("123e4567e89b12d3a456426614174000", 0, 32, true));
+        assertThrows(IllegalArgumentException.class,
+                () -> TextParsers.parseUuidHalf("123e4567-e89b-12d3-a456-42661417400g", 0, 36, false));
+    }
+}
@@ -0,0 +1,327 @@
+package com.student.backend.service.impl;
+
+import com.student.backend.exception.ConfigurationException;
+import com.student.backend.exception.DataSourceException;
+import com.student.backend.model.ColumnMetadata;
+import com.student.backend.model.FilterOperator;
+import com.student.backend.model.JoinKind;
+import com.student.backend.model.request.ExportFilter;
+import com.student.backend.model.request.ExportJoin;
+import com.student.backend.model.request.ExportJoinKey;
+import com.student.backend.model.request.ExportOrder;
+import com.student.backend.model.request.ExportSpec;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Builds export queries, with and without joins, against a fixed schema and pins the SQL they render
+ * for HTTP and JDBC
+ */
+class ExportQueryTest {
+
+    private static final Map<String, List<ColumnMetadata>> SCHEMA = Map.of(
+            "sample_data", columns(
+                    "id", "UInt64",
+                    "name", "String",
+                    "city", "LowCardinality(String)",
+                    "note", "Nullable(String)",
+                    "code", "FixedString(3)",
+                    "score", "Nullable(Float64)",
+                    "we`ird", "String"),
+            "orders", columns(
+                    "id", "UInt64",
+                    "user_id", "UInt64",
+                    "total", "Decimal(10, 2)",
+                    "ship.city", "String",
+                    "users.tag", "String"),
+            "users", columns(
+                    "id", "UInt64",
+                    "name", "String",
+                    "city", "LowCardinality(String)"));
+
+    @Test
+    void quotesIdentifiers() {
+        assertEquals("`id`", ExportQuery.quote("id"));
+        assertEquals("`a\\`b\\\\c`", ExportQuery.quote("a`b\\c"));
+        assertEquals("SELECT `id`, `we\\`ird` FROM `my db`.`sample_data` FORMAT CSV",
+                build("my db", null, "id", "we`ird").http("", "CSV").sql());
+    }
+
+    @Test
+    void rejectsUnknownTablesAndColumns() {
+        ExportSpec missingTable = new ExportSpec();
+        missingTable.setTable("missing");
+        assertThrows(DataSourceException.class, () -> build(missingTable, "id"));
+
+        assertThrows(ConfigurationException.class, () -> build(null, "id", "nope"));
+        assertThrows(ConfigurationException.class, () -> build(null));
+        assertThrows(ConfigurationException.class, () -> build(spec(filter("nope", FilterOperator.EQ, "1")), "id"));
+
+        ExportSpec order = new ExportSpec();
+        order.getOrderBy().add(order("id; DROP TABLE t", false));
+        assertThrows(ConfigurationException.class, () -> build(order, "id"));
+    }
+
+    @Test
+    void checksTheNumberOfValuesOfEachOperator() {
+        assertThrows(ConfigurationException.class, () -> build(spec(filter("id", FilterOperator.EQ)), "id"));
+        assertThrows(ConfigurationException.class, () -> build(spec(filter("id", FilterOperator.EQ, "1", "2")), "id"));
+        assertThrows(ConfigurationException.class, () -> build(spec(filter("id", FilterOperator.BETWEEN, "1")), "id"));
+        assertThrows(ConfigurationException.class, () -> build(spec(filter("id", FilterOperator.IN)), "id"));
+        assertThrows(ConfigurationException.class, () -> build(spec(filter("id", FilterOperator.IS_NULL, "1")), "id"));
+        assertThrows(ConfigurationException.class, () -> build(spec(filter("id", FilterOperator.IN, "1", null)), "id"));
+
+        ExportFilter noOperator = filter("id", null, "1");
+        assertThrows(ConfigurationException.class, () -> build(spec(noOperator), "id"));
+
+        // A single value may be given as value instead of values
+        ExportFilter single = new ExportFilter();
+        single.setColumn("id");
+        single.setValue("7");
+        assertEquals("SELECT `id` FROM `db`.`sample_data` WHERE `id` = {p0:UInt64} FORMAT CSV",
+                build(spec(single), "id").http("", "CSV").sql());
+    }
+
+    @Test
+    void allowsLikeOnlyOnStringColumns() {
+        assertThrows(ConfigurationException.class, () -> build(spec(filter("id", FilterOperator.LIKE, "1%")), "id"));
+        assertThrows(ConfigurationException.class,
+                () -> build(spec(filter("score", FilterOperator.NOT_LIKE, "1%")), "id"));
+
+        // LowCardinality, Nullable and FixedString patterns are all passed as String
+        ExportQuery query = build(spec(
+                filter("city", FilterOperator.LIKE, "B%"),
+                filter("note", FilterOperator.NOT_LIKE, "%x%"),
+                filter("code", FilterOperator.LIKE, "A_")), "id");
+        assertEquals("SELECT `id` FROM `db`.`sample_data` WHERE `city` LIKE {p0:String}"
+                        + " AND `note` NOT LIKE {p1:String} AND `code` LIKE {p2:String} FORMAT CSV",
+                query.http("", "CSV").sql());
+    }
+
+    @Test
+    void rendersTypedParametersForHttp() {
+        ExportQuery.Http http = build(renderedSpec(), "id", "name").http("`id` % 4 = 1", "CSVWithNames");
+
+        assertEquals("SELECT `id`, `name` FROM `db`.`sample_data` WHERE (`id` % 4 = 1)"
+                + " AND `id` BETWEEN {p0:UInt64} AND {p1:UInt64}"
+                + " AND `city` IN ({p2:String}, {p3:String})"
+                + " AND `note` = {p4:Nullable(String)}"
+                + " AND `score` IS NOT NULL"
+                + " ORDER BY `id` DESC, `name` ASC LIMIT 5 FORMAT CSVWithNames", http.sql());
+
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("p0", "1");
+        expected.put("p1", "10");
+        expected.put("p2", "Berlin");
+        expected.put("p3", "tab\\there\\\\");
+        expected.put("p4", "line\\nbreak");
+        assertEquals(expected, http.parameters());
+    }
+
+    @Test
+    void rendersCastPlaceholdersForJdbc() {
+        ExportQuery.Jdbc jdbc = build(renderedSpec(), "id", "name").jdbc();
+
+        assertEquals("SELECT `id`, `name` FROM `db`.`sample_data`"
+                + " WHERE `id` BETWEEN CAST(? AS UInt64) AND CAST(? AS UInt64)"
+                + " AND `city` IN (CAST(? AS String), CAST(? AS String))"
+                + " AND `note` = CAST(? AS Nullable(String))"
+                + " AND `score` IS NOT NULL"
+                + " ORDER BY `id` DESC, `name` ASC LIMIT 5", jdbc.sql());
+        // Bound values are not escaped
+        assertEquals(List.of("1", "10", "Berlin", "tab\there\\", "line\nbreak"), jdbc.values());
+    }
+
+    @Test
+    void rendersSampleAndChecksLimits() {
+        ExportSpec sampled = new ExportSpec();
+        sampled.setSample(0.1);
+        ExportQuery query = build(sampled, "id");
+        assertTrue(query.isSampled());
+        assertEquals("SELECT `id` FROM `db`.`sample_data` SAMPLE 0.1 FORMAT CSV", query.http("", "CSV").sql());
+        assertEquals(100, query.estimateRows(1000));
+
+        sampled.setSample(1.5);
+        assertThrows(ConfigurationException.class, () -> build(sampled, "id"));
+        ExportSpec limited = new ExportSpec();
+        limited.setLimit(0L);
+        assertThrows(ConfigurationException.class, () -> build(limited, "id"));
+    }
+
+    @Test
+    void splitsOnlyUnorderedUnlimitedQueries() {
+        assertTrue(build(null, "id").isSplittable());
+        assertTrue(build(spec(filter("id", FilterOperator.GT, "5")), "id").isSplittable());
+
+        ExportSpec ordered = new ExportSpec();
+        ordered.getOrderBy().add(order("id", false));
+        assertFalse(build(ordered, "id").isSplittable());
+
+        ExportSpec limited = new ExportSpec();
+        limited.setLimit(10L);
+        assertFalse(build(limited, "id").isSplittable());
+        assertFalse(build(null, "id").limitedTo(10).isSplittable());
+    }
+
+    @Test
+    void qualifiesEveryColumnOnceTablesAreJoined() {
+        ExportSpec spec = joined(join("users", JoinKind.LEFT, "user_id", "id", "ship.city", "users.city"));
+        spec.getFilters().add(filter("users.city", FilterOperator.EQ, "Berlin"));
+        spec.getOrderBy().add(order("total", true));
+
+        ExportQuery query = build(spec, "orders.id", "name", "total");
+        assertEquals("SELECT `orders`.`id` AS `orders.id`, `users`.`name` AS `name`, `orders`.`total` AS `total`"
+                + " FROM `db`.`orders` AS `orders`"
+                + " LEFT JOIN `db`.`users` AS `users`"
+                + " ON `orders`.`user_id` = `users`.`id` AND `orders`.`ship.city` = `users`.`city`"
+                + " WHERE `users`.`city` = {p0:String}"
+                + " ORDER BY `orders`.`total` DESC FORMAT CSV", query.http("", "CSV").sql());
+        assertFalse(query.isSplittable());
+        assertEquals(-1, query.estimateRows(1000));
+    }
+
+    @Test
+    void rejectsAmbiguousUnqualifiedColumns() {
+        ExportSpec spec = joined(join("users", JoinKind.INNER, "user_id", "id"));
+        assertThrows(ConfigurationException.class, () -> build(spec, "id"));
+        assertEquals("SELECT `users`.`id` AS `users.id` FROM `db`.`orders` AS `orders`"
+                        + " INNER JOIN `db`.`users` AS `users` ON `orders`.`user_id` = `users`.`id` FORMAT CSV",
+                build(spec, "users.id").http("", "CSV").sql());
+
+        spec.getFilters().add(filter("id", FilterOperator.EQ, "1"));
+        assertThrows(ConfigurationException.class, () -> build(spec, "users.id"));
+    }
+
+    @Test
+    void resolvesJoinKeysAgainstTheirOwnSide() {
+        // A right key names a column of the joined table, with or without its table
+        assertEquals("SELECT `users`.`name` AS `name` FROM `db`.`orders` AS `orders`"
+                        + " INNER JOIN `db`.`users` AS `users` ON `orders`.`user_id` = `users`.`id` FORMAT CSV",
+                build(joined(join("users", JoinKind.INNER, "orders.user_id", "users.id")), "name")
+                        .http("", "CSV").sql());
+
+        // A left key cannot name the table being joined, and a right key only that table
+        assertThrows(ConfigurationException.class,
+                () -> build(joined(join("users", JoinKind.INNER, "name", "id")), "total"));
+        assertThrows(ConfigurationException.class,
+                () -> build(joined(join("users", JoinKind.INNER, "user_id", "total")), "total"));
+    }
+
+    @Test
+    void keepsDottedColumnNamesThatDoNotNameATable() {
+        ExportSpec spec = joined(join("users", JoinKind.INNER, "user_id", "id"));
+        // ship is not a table; users is, but has no column tag, so both are columns of orders
+        assertEquals("SELECT `orders`.`ship.city` AS `ship.city`, `orders`.`users.tag` AS `users.tag`"
+                        + " FROM `db`.`orders` AS `orders`"
+                        + " INNER JOIN `db`.`users` AS `users` ON `orders`.`user_id` = `users`.`id`",
+                build(spec, "ship.city", "users.tag").jdbc().sql());
+        assertThrows(ConfigurationException.class, () -> build(spec, "users.nope"));
+    }
+
+    @Test
+    void rejectsRepeatedAndIncompleteJoins() {
+        assertThrows(ConfigurationException.class,
+                () -> build(joined(join("orders", JoinKind.INNER, "user_id", "user_id")), "total"));
+        assertThrows(ConfigurationException.class, () -> build(joined(
+                join("users", JoinKind.INNER, "user_id", "id"),
+                join("users", JoinKind.LEFT, "user_id", "id")), "total"));
+        assertThrows(ConfigurationException.class, () -> build(joined(join(" ", JoinKind.INNER, "id", "id")), "total"));
+        assertThrows(ConfigurationException.class, () -> build(joined(join("users", JoinKind.INNER)), "total"));
+        assertThrows(ConfigurationException.class, () -> build(joined(join("users", null, "user_id", "id")), "total"));
+    }
+
+    private static ExportSpec renderedSpec() {
+        ExportSpec spec = spec(
+                filter("id", FilterOperator.BETWEEN, "1", "10"),
+                filter("city", FilterOperator.IN, "Berlin", "tab\there\\"),
+                filter("note", FilterOperator.EQ, "line\nbreak"),
+                filter("score", FilterOperator.IS_NOT_NULL));
+        spec.getOrderBy().add(order("id", true));
+        spec.getOrderBy().add(order("name", false));
+        spec.setLimit(5L);
+        return spec;
+    }
+
+    private static ExportQuery build(ExportSpec spec, String... columns) {
+        return build("db", spec, columns);
+    }
+
+    private static ExportQuery build(String database, ExportSpec spec, String... columns) {
+        return ExportQuery.build(database, spec, table -> {
+            List<ColumnMetadata> tableColumns = SCHEMA.get(table);
+            if (tableColumns == null) {
+                // As the schema cache reports a table that does not exist
+                throw new DataSourceException("Table " + database + "." + table + " not found in ClickHouse");
+            }
+            return tableColumns;
+        }, List.of(columns));
+    }
+
+    private static ExportSpec spec(ExportFilter... filters) {
+        ExportSpec spec = new ExportSpec();
+        spec.getFilters().addAll(List.of(filters));
+        return spec;
+    }
+
+    /**
+     * Spec exporting orders with the given joins
+     */
+    private static ExportSpec joined(ExportJoin... joins) {
+        ExportSpec spec = new ExportSpec();
+        spec.setTable("orders");
+        spec.getJoins().addAll(List.of(joins));
+        return spec;
+    }
+
+    /**
+     * Join on alternating left and right key columns
+     */
+    private static ExportJoin join(String table, JoinKind kind, String... leftAndRight) {
+        ExportJoin join = new ExportJoin();
+        join.setTable(table);
+        join.setKind(kind);
+        for (int i = 0; i < leftAndRight.length; i += 2) {
+            ExportJoinKey key = new ExportJoinKey();
+            key.setLeft(leftAndRight[i]);
+            key.setRight(leftAndRight[i + 1]);
+            join.getOn().add(key);
+        }
+        return join;
+    }
+
+    private static ExportFilter filter(String column, FilterOperator operator, String... values) {
+        ExportFilter filter = new ExportFilter();
+        filter.setColumn(column);
+        filter.setOperator(operator);
+        filter.setValues(new ArrayList<>(Arrays.asList(values)));
+        return filter;
+    }
+
+    private static ExportOrder order(String column, boolean descending) {
+        ExportOrder order = new ExportOrder();
+        order.setColumn(column);
+        order.setDescending(descending);
+        return order;
+    }
+
+    /**
+     * Columns from alternating names and types
+     */
+    private static List<ColumnMetadata> columns(String... namesAndTypes) {
+        List<ColumnMetadata> columns = new ArrayList<>();
+        for (int i = 0; i < namesAndTypes.length; i += 2) {
+            columns.add(new ColumnMetadata(namesAndTypes[i], namesAndTypes[i + 1], i / 2 + 1));
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,108 @@
+package com.student.backend.service.impl;
+
+import com.student.backend.ingest.RowSample;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Infers schemas from small samples, both of a whole file and of its first rows only
+ */
+class InferredSchemaTest {
+
+    private static final int LOW_CARDINALITY_MAX_DISTINCT = 10_000;
+
+    @Test
+    void narrowsIntegersToTheRangeOfAWholeFile() {
+        assertEquals("UInt8", typeOf(true, "0", "255"));
+        assertEquals("UInt16", typeOf(true, "0", "256"));
+        assertEquals("UInt32", typeOf(true, "1", "4294967295"));
+        assertEquals("Int8", typeOf(true, "-1", "127"));
+        assertEquals("Int16", typeOf(true, "-129", "0"));
+        assertEquals("Int64", typeOf(true, "-1", "4294967296"));
+        assertEquals("Nullable(UInt8)", typeOf(true, "1", "", "\\N"));
+    }
+
+    @Test
+    void keepsIntegersOfAPartialSampleSignedWithHeadroom() {
+        // 100 * 256 = 25600
+        assertEquals("Int16", typeOf(false, "1", "100"));
+        assertEquals("Int16", typeOf(false, "0", "127"));
+        assertEquals("Int32", typeOf(false, "0", "128"));
+        assertEquals("Int16", typeOf(false, "-1", "1"));
+        assertEquals("Int32", typeOf(false, "-129", "0"));
+        assertEquals("Int64", typeOf(false, "0", "36028797018963968"));
+        assertEquals("Nullable(Int16)", typeOf(false, "", "7"));
+    }
+
+    @Test
+    void widensDatesAndTimesOnlyOutsideTheirRange() {
+        assertEquals("Date", typeOf(false, "1970-01-01", "2149-06-05"));
+        assertEquals("Date32", typeOf(false, "1969-12-31", "2024-01-01"));
+        assertEquals("Date32", typeOf(false, "2024-01-01", "2149-06-06"));
+        assertEquals("DateTime", typeOf(false, "2024-01-01 00:00:00", "2106-02-06 23:59:59"));
+        assertEquals("DateTime64(0)", typeOf(false, "1960-01-01 00:00:00", "2024-01-01 00:00:00"));
+        assertEquals("DateTime64(3)", typeOf(false, "2024-01-01 00:00:00.123", "2024-01-01 00:00:01"));
+    }
+
+    @Test
+    void rendersTheCreateTableStatement() {
+        InferredSchema schema = infer(false, "id,country,day,amount,note",
+                "1,DE,2024-05-01,1.5,",
+                "2,US,2024-05-02,2.5,x",
+                "3,DE,2024-05-03,-3,y",
+                "4,US,2024-05-04,4,z");
+
+        assertEquals(List.of("country", "day"), schema.orderBy());
+        assertEquals(4, schema.sampledRows());
+        assertEquals("CREATE TABLE IF NOT EXISTS `db`.`events`\n"
+                + "(\n"
+                + "    `id` Int16,\n"
+                + "    `country` LowCardinality(String),\n"
+                + "    `day` Date,\n"
+                + "    `amount` Float64,\n"
+                + "    `note` Nullable(String)\n"
+                + ")\n"
+                + "ENGINE = MergeTree\n"
+                + "ORDER BY (`country`, `day`)\n"
+                + "SETTINGS non_replicated_deduplication_window = 1000", schema.createTableSql("db", "events", 1000));
+    }
+
+    @Test
+    void ordersByTupleWithoutAKeyColumn() {
+        // The repeating column is Nullable, so it cannot be a key
+        InferredSchema schema = infer(true, "we`ird,kind", "1,a", "2,a", "3,", "4,a");
+        assertEquals("CREATE TABLE IF NOT EXISTS `db`.`t`\n"
+                + "(\n"
+                + "    `we\\`ird` UInt8,\n"
+                + "    `kind` LowCardinality(Nullable(String))\n"
+                + ")\n"
+                + "ENGINE = MergeTree\n"
+                + "ORDER BY tuple()\n"
+                + "SETTINGS non_replicated_deduplication_window = 0", schema.createTableSql("db", "t", 0));
+    }
+
+    /**
+     * Type inferred for a single column holding the given values
+     */
+    private static String typeOf(boolean wholeFile, String... values) {
+        List<String[]> rows = new ArrayList<>();
+        for (String value : values) {
+            rows.add(new String[] {value});
+        }
+        RowSample sample = new RowSample(List.of("c"), null, rows, wholeFile, "HEAD");
+        return InferredSchema.infer(sample, LOW_CARDINALITY_MAX_DISTINCT).columns().get(0).type();
+    }
+
+    private static InferredSchema infer(boolean wholeFile, String header, String... lines) {
+        List<String[]> rows = new ArrayList<>();
+        for (String line : lines) {
+            rows.add(line.split(",", -1));
+        }
+        RowSample sample = new RowSample(List.of(header.split(",")), null, rows, wholeFile, "HEAD");
+        return InferredSchema.infer(sample, LOW_CARDINALITY_MAX_DISTINCT);
+    }
+}
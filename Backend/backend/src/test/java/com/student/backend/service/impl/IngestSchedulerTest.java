@@ -0,0 +1,136 @@
+package com.student.backend.service.impl;
+
+import com.student.backend.config.JobProperties;
+import com.student.backend.exception.DataSourceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Drives the scheduler by enqueueing and releasing tickets on one thread and records the order in
+ * which they are admitted; no ingest runs and nothing waits
+ */
+class IngestSchedulerTest {
+
+    private static final long SMALL = 1024;
+    private static final long LARGE = 1024L * 1024 * 1024;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> admitted = new ArrayList<>();
+
+    @Test
+    void admitsTheLeastRecentlyAdmittedUserFirst() {
+        IngestScheduler scheduler = scheduler(1, 4, 64, 60_000);
+        IngestScheduler.Ticket a1 = enqueue(scheduler, "a1", "alice", "ch:8123", SMALL);
+        enqueue(scheduler, "a2", "alice", "ch:8123", SMALL);
+        enqueue(scheduler, "a3", "alice", "ch:8123", SMALL);
+        IngestScheduler.Ticket b1 = enqueue(scheduler, "b1", "bob", "ch:8123", SMALL);
+        assertEquals(List.of("a1"), admitted);
+
+        scheduler.release(a1);
+        assertEquals(List.of("a1", "b1"), admitted);
+
+        // Carol queued after alice but has never been admitted, so she goes first
+        IngestScheduler.Ticket c1 = enqueue(scheduler, "c1", "carol", "ch:8123", SMALL);
+        scheduler.release(b1);
+        assertEquals(List.of("a1", "b1", "c1"), admitted);
+
+        scheduler.release(c1);
+        assertEquals(List.of("a1", "b1", "c1", "a2"), admitted);
+        assertEquals(Map.of("alice", 1), scheduler.getStats().getQueuedByUser());
+    }
+
+    @Test
+    void admitsSmallIngestsBeforeLargeOnesUntilTheseArePromoted() {
+        IngestScheduler waiting = scheduler(1, 4, 64, 60_000);
+        IngestScheduler.Ticket running = enqueue(waiting, "running", "alice", "ch:8123", SMALL);
+        enqueue(waiting, "large", "alice", "ch:8123", LARGE);
+        enqueue(waiting, "unknown", "alice", "ch:8123", -1);
+        enqueue(waiting, "small", "alice", "ch:8123", SMALL);
+        waiting.release(running);
+        assertEquals(List.of("running", "small"), admitted);
+
+        // With no promotion delay, a large ingest counts as small at once and keeps its place
+        admitted.clear();
+        IngestScheduler promoted = scheduler(1, 4, 64, 0);
+        running = enqueue(promoted, "running", "alice", "ch:8123", SMALL);
+        enqueue(promoted, "large", "alice", "ch:8123", LARGE);
+        enqueue(promoted, "small", "alice", "ch:8123", SMALL);
+        promoted.release(running);
+        assertEquals(List.of("running", "large"), admitted);
+
+        long largeWaits = meterRegistry.get("ingest.scheduler.wait").tag("class", "large").timer().count();
+        assertEquals(1, largeWaits);
+    }
+
+    @Test
+    void skipsIngestsWhoseHostIsAtItsLimit() {
+        IngestScheduler scheduler = scheduler(4, 1, 64, 60_000);
+        IngestScheduler.Ticket first = enqueue(scheduler, "a1", "alice", "ch1:8123", SMALL);
+        enqueue(scheduler, "a2", "alice", "ch1:8123", SMALL);
+        enqueue(scheduler, "b1", "bob", "ch2:8123", SMALL);
+        assertEquals(List.of("a1", "b1"), admitted);
+        assertEquals(Map.of("ch1:8123", 1, "ch2:8123", 1), scheduler.getStats().getRunningByHost());
+        assertEquals(1, scheduler.getStats().getQueued());
+
+        scheduler.release(first);
+        assertEquals(List.of("a1", "b1", "a2"), admitted);
+    }
+
+    @Test
+    void releasesAQueuedTicketWithoutAdmittingIt() {
+        IngestScheduler scheduler = scheduler(1, 4, 64, 60_000);
+        scheduler.registerMetrics();
+        IngestScheduler.Ticket running = enqueue(scheduler, "running", "alice", "ch:8123", SMALL);
+        IngestScheduler.Ticket queued = enqueue(scheduler, "queued", "bob", "ch:8123", SMALL);
+        assertEquals(1.0, meterRegistry.get("ingest.scheduler.queued").gauge().value());
+
+        scheduler.release(queued);
+        scheduler.release(queued);
+        assertEquals(0.0, meterRegistry.get("ingest.scheduler.queued").gauge().value());
+        scheduler.release(running);
+        scheduler.release(running);
+
+        assertEquals(List.of("running"), admitted);
+        assertEquals(0, scheduler.getStats().getRunning());
+        assertEquals(0, scheduler.getStats().getQueued());
+        assertEquals(Map.of(), scheduler.getStats().getRunningByUser());
+    }
+
+    @Test
+    void rejectsIngestsOnceTheQueueIsFull() {
+        IngestScheduler scheduler = scheduler(1, 4, 2, 60_000);
+        enqueue(scheduler, "running", "alice", "ch:8123", SMALL);
+        IngestScheduler.Ticket first = enqueue(scheduler, "q1", "alice", "ch:8123", SMALL);
+        enqueue(scheduler, "q2", "bob", "ch:8123", SMALL);
+        assertThrows(DataSourceException.class, () -> enqueue(scheduler, "q3", "carol", "ch:8123", SMALL));
+
+        scheduler.release(first);
+        enqueue(scheduler, "q3", "carol", "ch:8123", SMALL);
+        assertEquals(2, scheduler.getStats().getQueued());
+        assertEquals(List.of("running"), admitted);
+    }
+
+    private IngestScheduler scheduler(int maxConcurrent, int maxConcurrentPerHost, int queueCapacity,
+                                      long largeJobPromotionMs) {
+        JobProperties properties = new JobProperties();
+        properties.setMaxConcurrent(maxConcurrent);
+        properties.setMaxConcurrentPerHost(maxConcurrentPerHost);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setSmallJobBytes(64L * 1024 * 1024);
+        properties.setLargeJobPromotionMs(largeJobPromotionMs);
+        return new IngestScheduler(properties, meterRegistry);
+    }
+
+    private IngestScheduler.Ticket enqueue(IngestScheduler scheduler, String name, String user, String host,
+                                           long sizeBytes) {
+        return scheduler.enqueue(new IngestScheduler.Admission(user, host, sizeBytes),
+                admittedTicket -> admitted.add(name));
+    }
+}
@@ -0,0 +1,401 @@
+"""
+Writes the Parquet and Arrow fixtures of FileSchemaTest, following the file format specs:
+sample.parquet with one uncompressed, PLAIN-encoded row group, and sample.arrow as an Arrow IPC
+file with two record batches. Both hold the same three rows.
+
+    python3 generate_fixtures.py src/test/resources/fixtures
+"""
+import os
+import struct
+import sys
+
+OUT = sys.argv[1]
+
+# ---------------- Thrift compact protocol ----------------
+BOOL_TRUE, BOOL_FALSE, BYTE, I16, I32, I64, DOUBLE, BINARY, LIST, SET, MAP, STRUCT = range(1, 13)
+
+def varint(n):
+    out = bytearray()
+    while True:
+        b = n & 0x7F
+        n >>= 7
+        if n:
+            out.append(b | 0x80)
+        else:
+            out.append(b)
+            return bytes(out)
+
+def zigzag(n):
+    return (n << 1) ^ (n >> 63)
+
+class Struct:
+    def __init__(self, *fields):
+        # fields: (id, type, value)
+        self.fields = fields
+
+def enc_value(t, v):
+    if t in (I16, I32, I64):
+        return varint(zigzag(v))
+    if t == BINARY:
+        b = v.encode() if isinstance(v, str) else v
+        return varint(len(b)) + b
+    if t == DOUBLE:
+        return struct.pack('<d', v)
+    if t == STRUCT:
+        return enc_struct(v)
+    if t == LIST:
+        et, items = v
+        n = len(items)
+        head = bytes([(n << 4) | et]) if n < 15 else bytes([0xF0 | et]) + varint(n)
+        return head + b''.join(enc_value(et, x) for x in items)
+    raise ValueError(t)
+
+def enc_struct(s):
+    out = bytearray()
+    last = 0
+    for fid, t, v in s.fields:
+        if v is None:
+            continue
+        if t == 'bool':
+            t = BOOL_TRUE if v else BOOL_FALSE
+            body = b''
+        else:
+            body = enc_value(t, v)
+        delta = fid - last
+        if 0 < delta <= 15:
+            out.append((delta << 4) | t)
+        else:
+            out.append(t)
+            out += varint(zigzag(fid))
+        out += body
+        last = fid
+    out.append(0)
+    return bytes(out)
+
+# ---------------- Parquet ----------------
+# Physical types
+BOOLEAN, INT32, INT64, INT96, FLOAT, DOUBLE_T, BYTE_ARRAY, FLBA = range(8)
+REQUIRED, OPTIONAL, REPEATED = range(3)
+UTF8, LIST_CT, DECIMAL_CT, DATE_CT = 0, 3, 5, 6
+PLAIN, RLE = 0, 3
+
+def rle_levels(levels, bit_width):
+    # Runs of equal values, each as an RLE run; prefixed with its 4-byte length
+    out = bytearray()
+    i = 0
+    width = (bit_width + 7) // 8
+    while i < len(levels):
+        j = i
+        while j < len(levels) and levels[j] == levels[i]:
+            j += 1
+        out += varint((j - i) << 1)
+        out += levels[i].to_bytes(width, 'little')
+        i = j
+    return struct.pack('<i', len(out)) + bytes(out)
+
+def plain(ptype, values):
+    if ptype == INT64:
+        return b''.join(struct.pack('<q', v) for v in values)
+    if ptype == INT32:
+        return b''.join(struct.pack('<i', v) for v in values)
+    if ptype == DOUBLE_T:
+        return b''.join(struct.pack('<d', v) for v in values)
+    if ptype == BYTE_ARRAY:
+        return b''.join(struct.pack('<i', len(v.encode())) + v.encode() for v in values)
+    if ptype == FLBA:
+        return b''.join(values)
+    raise ValueError(ptype)
+
+def write_parquet(path):
+    rows = 3
+    # (path_in_schema, physical type, max_rep, max_def, rep levels, def levels, values)
+    chunks = [
+        (['id'], INT64, 0, 0, None, None, [1, 2, 3]),
+        (['name'], BYTE_ARRAY, 0, 1, None, [1, 0, 1], ['alice', 'carol']),
+        (['score'], DOUBLE_T, 0, 0, None, None, [0.5, 1.25, -3.0]),
+        (['day'], INT32, 0, 1, None, [1, 1, 1], [19723, 19724, 19725]),
+        (['price'], INT64, 0, 0, None, None, [1999, 250, 100000]),
+        (['tags', 'list', 'element'], BYTE_ARRAY, 1, 3, [0, 1, 0, 0], [3, 3, 1, 0], ['a', 'b']),
+    ]
+    schema = [
+        Struct((4, BINARY, 'schema'), (5, I32, 6)),
+        Struct((1, I32, INT64), (3, I32, REQUIRED), (4, BINARY, 'id')),
+        Struct((1, I32, BYTE_ARRAY), (3, I32, OPTIONAL), (4, BINARY, 'name'), (6, I32, UTF8)),
+        Struct((1, I32, DOUBLE_T), (3, I32, REQUIRED), (4, BINARY, 'score')),
+        Struct((1, I32, INT32), (3, I32, OPTIONAL), (4, BINARY, 'day'), (6, I32, DATE_CT)),
+        Struct((1, I32, INT64), (3, I32, REQUIRED), (4, BINARY, 'price'), (6, I32, DECIMAL_CT),
+               (7, I32, 2), (8, I32, 12)),
+        Struct((3, I32, OPTIONAL), (4, BINARY, 'tags'), (5, I32, 1), (6, I32, LIST_CT)),
+        Struct((3, I32, REPEATED), (4, BINARY, 'list'), (5, I32, 1)),
+        Struct((1, I32, BYTE_ARRAY), (3, I32, OPTIONAL), (4, BINARY, 'element'), (6, I32, UTF8)),
+    ]
+    body = bytearray(b'PAR1')
+    column_chunks = []
+    total = 0
+    for path_in_schema, ptype, max_rep, max_def, reps, defs, values in chunks:
+        data = bytearray()
+        if max_rep > 0:
+            data += rle_levels(reps, max_rep.bit_length())
+        if max_def > 0:
+            data += rle_levels(defs, max_def.bit_length())
+        data += plain(ptype, values)
+        num_values = len(defs) if defs is not None else len(values)
+        header = enc_struct(Struct(
+            (1, I32, 0),                      # DATA_PAGE
+            (2, I32, len(data)),
+            (3, I32, len(data)),
+            (5, STRUCT, Struct((1, I32, num_values), (2, I32, PLAIN), (3, I32, RLE), (4, I32, RLE))),
+        ))
+        offset = len(body)
+        body += header + data
+        size = len(header) + len(data)
+        total += size
+        meta = Struct(
+            (1, I32, ptype),
+            (2, LIST, (I32, [PLAIN, RLE])),
+            (3, LIST, (BINARY, path_in_schema)),
+            (4, I32, 0),                      # UNCOMPRESSED
+            (5, I64, num_values),
+            (6, I64, size),
+            (7, I64, size),
+            (9, I64, offset),
+        )
+        column_chunks.append(Struct((2, I64, offset), (3, STRUCT, meta)))
+    row_group = Struct((1, LIST, (STRUCT, column_chunks)), (2, I64, total), (3, I64, rows))
+    metadata = enc_struct(Struct(
+        (1, I32, 1),
+        (2, LIST, (STRUCT, schema)),
+        (3, I64, rows),
+        (4, LIST, (STRUCT, [row_group])),
+        (6, BINARY, 'fixture writer'),
+    ))
+    body += metadata + struct.pack('<i', len(metadata)) + b'PAR1'
+    open(path, 'wb').write(body)
+
+# ---------------- FlatBuffers, laid out front to back ----------------
+class Table:
+    def __init__(self, fields):
+        # fields: {index: (kind, value)}; kind in byte, bool, short, int, long, or an object
+        self.fields = fields
+
+class String:
+    def __init__(self, s):
+        self.s = s
+
+class Vector:
+    def __init__(self, items):
+        self.items = items  # objects
+
+class StructVector:
+    def __init__(self, elements, size, align):
+        self.elements = elements  # bytes of each struct
+        self.size = size
+        self.align = align
+
+SCALARS = {'byte': ('<B', 1), 'bool': ('<B', 1), 'short': ('<h', 2), 'int': ('<i', 4), 'long': ('<q', 8)}
+
+class Builder:
+    def __init__(self):
+        self.buf = bytearray(b'\0\0\0\0')  # root offset
+
+    def pad(self, align, phase=0):
+        while len(self.buf) % align != phase:
+            self.buf.append(0)
+
+    def patch(self, position, target):
+        struct.pack_into('<I', self.buf, position, target - position)
+
+    def finish(self, root):
+        self.patch(0, self.emit(root))
+        self.pad(8)
+        return bytes(self.buf)
+
+    def emit(self, obj):
+        if isinstance(obj, String):
+            self.pad(4)
+            pos = len(self.buf)
+            b = obj.s.encode()
+            self.buf += struct.pack('<I', len(b)) + b + b'\0'
+            return pos
+        if isinstance(obj, StructVector):
+            # Elements aligned after the 4-byte length
+            self.pad(max(4, obj.align), (max(4, obj.align) - 4) % max(4, obj.align))
+            pos = len(self.buf)
+            self.buf += struct.pack('<I', len(obj.elements))
+            for e in obj.elements:
+                assert len(e) == obj.size
+                self.buf += e
+            return pos
+        if isinstance(obj, Vector):
+            self.pad(4)
+            pos = len(self.buf)
+            self.buf += struct.pack('<I', len(obj.items))
+            slots = []
+            for _ in obj.items:
+                slots.append(len(self.buf))
+                self.buf += b'\0\0\0\0'
+            for slot, item in zip(slots, obj.items):
+                self.patch(slot, self.emit(item))
+            return pos
+        if isinstance(obj, Table):
+            # Inline layout: soffset, then fields by descending size, each aligned
+            layout = []
+            offset = 4
+            items = sorted(obj.fields.items(), key=lambda kv: -self.size(kv[1][0]))
+            for index, (kind, value) in items:
+                size = self.size(kind)
+                while offset % size:
+                    offset += 1
+                layout.append((index, kind, value, offset))
+                offset += size
+            inline_size = offset
+            count = max(obj.fields) + 1 if obj.fields else 0
+            vtable = bytearray(struct.pack('<HH', 4 + 2 * count, inline_size))
+            slots = [0] * count
+            for index, kind, value, off in layout:
+                slots[index] = off
+            for s in slots:
+                vtable += struct.pack('<H', s)
+            self.pad(2)
+            vtable_pos = len(self.buf)
+            self.buf += vtable
+            self.pad(8)
+            pos = len(self.buf)
+            self.buf += b'\0' * inline_size
+            struct.pack_into('<i', self.buf, pos, pos - vtable_pos)
+            children = []
+            for index, kind, value, off in layout:
+                if kind in SCALARS:
+                    struct.pack_into(SCALARS[kind][0], self.buf, pos + off, value)
+                else:
+                    children.append((pos + off, value))
+            for slot, child in children:
+                self.patch(slot, self.emit(child))
+            return pos
+        raise ValueError(obj)
+
+    @staticmethod
+    def size(kind):
+        return SCALARS[kind][1] if kind in SCALARS else 4
+
+def obj(value):
+    return ('obj', value)
+
+def fb(root):
+    return Builder().finish(root)
+
+# ---------------- Arrow IPC file ----------------
+V5 = 4
+SCHEMA_HEADER, RECORD_BATCH_HEADER = 1, 3
+T_INT, T_FLOAT, T_UTF8, T_BOOL, T_DATE, T_TIMESTAMP, T_STRUCT = 2, 3, 5, 6, 8, 10, 13
+
+def field(name, type_tag, type_table, children=()):
+    return Table({
+        0: obj(String(name)),
+        1: ('bool', 1),
+        2: ('byte', type_tag),
+        3: obj(type_table),
+        5: obj(Vector(list(children))),
+    })
+
+def schema_table():
+    return Table({
+        0: ('short', 0),  # little endian
+        1: obj(Vector([
+            field('id', T_INT, Table({0: ('int', 64), 1: ('bool', 1)})),
+            field('code', T_INT, Table({0: ('int', 8)})),  # is_signed left at its default, false
+            field('score', T_FLOAT, Table({0: ('short', 2)})),
+            field('name', T_UTF8, Table({})),
+            field('flag', T_BOOL, Table({})),
+            field('day', T_DATE, Table({0: ('short', 0)})),
+            field('ts', T_TIMESTAMP, Table({0: ('short', 2)})),
+            field('point', T_STRUCT, Table({}), [
+                field('x', T_INT, Table({0: ('int', 32), 1: ('bool', 1)})),
+            ]),
+        ])),
+    })
+
+def pad8(b):
+    return b + b'\0' * (-len(b) % 8)
+
+def message(header_type, header, body_length):
+    m = fb(Table({
+        0: ('short', V5),
+        1: ('byte', header_type),
+        2: obj(header),
+        3: ('long', body_length),
+    }))
+    m = pad8(m)
+    return struct.pack('<Ii', 0xFFFFFFFF, len(m)) + m
+
+def record_batch(rows):
+    n = len(rows)
+    ids = [r[0] for r in rows]
+    buffers = []
+    nodes = []
+
+    def add(*bufs):
+        for b in bufs:
+            buffers.append(b)
+
+    # Columns in schema order, children after their parent
+    nodes += [(n, 0)] * 9
+    add(b'', struct.pack('<%dq' % n, *ids))                                   # id
+    add(b'', bytes(r[1] for r in rows))                                         # code
+    add(b'', struct.pack('<%dd' % n, *[r[2] for r in rows]))                   # score
+    names = [r[3].encode() for r in rows]
+    offsets = [0]
+    for s in names:
+        offsets.append(offsets[-1] + len(s))
+    add(b'', struct.pack('<%di' % (n + 1), *offsets), b''.join(names))          # name
+    bits = 0
+    for i, r in enumerate(rows):
+        bits |= (1 if r[4] else 0) << i
+    add(b'', bytes([bits]))                                                    # flag
+    add(b'', struct.pack('<%di' % n, *[r[5] for r in rows]))                   # day
+    add(b'', struct.pack('<%dq' % n, *[r[6] for r in rows]))                   # ts
+    add(b'')                                                                   # point
+    add(b'', struct.pack('<%di' % n, *[r[7] for r in rows]))                   # point.x
+
+    # Buffer lengths are the unpadded sizes, offsets into the padded body
+    raw = []
+    for b in buffers:
+        raw.append(b)
+    body = bytearray()
+    buffer_structs = []
+    for b in raw:
+        buffer_structs.append(struct.pack('<qq', len(body), len(b)))
+        body += pad8(b)
+    node_structs = [struct.pack('<qq', length, nulls) for length, nulls in nodes]
+    header = Table({
+        0: ('long', n),
+        1: obj(StructVector(node_structs, 16, 8)),
+        2: obj(StructVector(buffer_structs, 16, 8)),
+    })
+    return message(RECORD_BATCH_HEADER, header, len(body)), bytes(body)
+
+def write_arrow(path):
+    out = bytearray(b'ARROW1\0\0')
+    out += message(SCHEMA_HEADER, schema_table(), 0)
+    blocks = []
+    batches = [
+        [(1, 7, 0.5, 'alice', True, 19723, 1704067200000000, 10),
+         (2, 200, 1.25, 'bob', False, 19724, 1704153600000000, 20)],
+        [(3, 255, -3.0, 'carol', True, 19725, 1704240000000000, 30)],
+    ]
+    for rows in batches:
+        meta, body = record_batch(rows)
+        blocks.append(struct.pack('<qi4xq', len(out), len(meta), len(body)))
+        out += meta + body
+    footer = fb(Table({
+        0: ('short', V5),
+        1: obj(schema_table()),
+        2: obj(StructVector([], 24, 8)),
+        3: obj(StructVector(blocks, 24, 8)),
+    }))
+    out += footer + struct.pack('<i', len(footer)) + b'ARROW1'
+    open(path, 'wb').write(out)
+
+os.makedirs(OUT, exist_ok=True)
+write_parquet(os.path.join(OUT, 'sample.parquet'))
+write_arrow(os.path.join(OUT, 'sample.arrow'))
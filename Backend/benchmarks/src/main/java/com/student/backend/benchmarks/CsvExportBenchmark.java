@@ -0,0 +1,124 @@
+package com.student.backend.benchmarks;
+
+import com.student.backend.ingest.ClickHouseHttpClient;
+import com.student.backend.ingest.ExportFormat;
+import com.student.backend.ingest.ProgressTracker;
+import com.student.backend.ingest.ResultSetCsvWriter;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClickHouse to Flat File hot paths: the RESULT_SET loop that formats every value with a CSV
+ * printer, and the PASS_THROUGH copy of a server-formatted body served by a local stub server.
+ * Both write to a real file. Scores are rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(CsvExportBenchmark.ROWS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvExportBenchmark {
+
+    static final int ROWS = 20_000;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    @Param({"4", "16", "64"})
+    public int columnCount;
+
+    /**
+     * Length of String values
+     */
+    @Param({"8", "64"})
+    public int fieldWidth;
+
+    @Param({"comma", "tab"})
+    public String delimiter;
+
+    /**
+     * Whether String values contain characters that force them to be quoted
+     */
+    @Param({"false", "true"})
+    public boolean quoted;
+
+    private Path directory;
+    private Path output;
+    private List<String> columns;
+    private List<Object[]> rows;
+    private StubClickHouseServer server;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        char delimiterChar = CsvFixtures.delimiter(delimiter);
+        columns = CsvFixtures.columnNames(columnCount);
+        rows = CsvFixtures.rows(ROWS, CsvFixtures.columnTypes(columnCount), fieldWidth, quoted, delimiterChar);
+
+        directory = Files.createTempDirectory("export-benchmark");
+        output = directory.resolve("output.csv");
+        server = new StubClickHouseServer();
+        server.setExport(CsvFixtures.csvBytes(columns, rows, delimiterChar), ROWS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.close();
+        Files.deleteIfExists(output);
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Read every value from the result set and print it, as ClickHouseService does in RESULT_SET mode
+     */
+    @Benchmark
+    public long resultSetToCsvPrinter() throws IOException, SQLException {
+        CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setHeader(columns.toArray(new String[0]))
+                .setDelimiter(CsvFixtures.delimiter(delimiter))
+                .build();
+        try (FileWriter writer = new FileWriter(output.toFile());
+             CSVPrinter printer = new CSVPrinter(writer, format)) {
+            return new ResultSetCsvWriter(columns).write(JdbcStubs.resultSet(columns, rows), printer,
+                    new ProgressTracker());
+        }
+    }
+
+    /**
+     * Copy the server-formatted body into the file, as ClickHouseService does in PASS_THROUGH mode
+     */
+    @Benchmark
+    public long passThrough() throws IOException {
+        ExportFormat format = ExportFormat.forDelimiter(String.valueOf(CsvFixtures.delimiter(delimiter)));
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return new ClickHouseHttpClient(server.config())
+                    .export("SELECT * FROM bench.source FORMAT " + format.formatName(true), format, true, channel,
+                            BUFFER_SIZE, new ProgressTracker())
+                    .rows();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.student.backend.benchmarks;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generated data for the benchmarks. The same parameters always produce the same
+ * rows, so results are comparable across commits and machines.
+ */
+public final class CsvFixtures {
+
+    /**
+     * Column types, repeated in this order for as many columns as requested
+     */
+    private static final List<String> TYPES = List.of(
+            "Int64", "String", "Float64", "DateTime", "String", "UInt32", "Decimal(18, 4)", "Date");
+
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ".toCharArray();
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final long SEED = 42;
+
+    private CsvFixtures() {
+    }
+
+    /**
+     * Named delimiter parameter ("comma", "tab", "pipe") to its character
+     */
+    public static char delimiter(String name) {
+        return switch (name) {
+            case "comma" -> ',';
+            case "tab" -> '\t';
+            case "pipe" -> '|';
+            default -> throw new IllegalArgumentException("Unknown delimiter: " + name);
+        };
+    }
+
+    public static List<String> columnNames(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add("c" + i);
+        }
+        return names;
+    }
+
+    public static List<String> columnTypes(int count) {
+        List<String> types = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            types.add(TYPES.get(i % TYPES.size()));
+        }
+        return types;
+    }
+
+    /**
+     * Generate rows as the JDBC driver would return them
+     *
+     * @param rows Number of rows
+     * @param types Column types
+     * @param width Length of String values
+     * @param quoted Whether String values contain the delimiter, double quotes and line breaks,
+     *               so that every one of them needs quoting
+     * @param delimiter Delimiter the values are meant for
+     */
+    public static List<Object[]> rows(int rows, List<String> types, int width, boolean quoted, char delimiter) {
+        Random random = new Random(SEED);
+        List<Object[]> result = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            Object[] row = new Object[types.size()];
+            for (int c = 0; c < row.length; c++) {
+                row[c] = value(types.get(c), random, width, quoted, delimiter);
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    /**
+     * Write rows with a header line, with values formatted as ClickHouse formats them in CSV output
+     */
+    public static void writeCsv(Writer writer, List<String> columns, List<Object[]> rows, char delimiter)
+            throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setHeader(columns.toArray(new String[0]))
+                .setDelimiter(delimiter)
+                .build();
+        try (CSVPrinter printer = new CSVPrinter(writer, format)) {
+            Object[] record = new Object[columns.size()];
+            for (Object[] row : rows) {
+                for (int c = 0; c < row.length; c++) {
+                    record[c] = row[c] instanceof LocalDateTime dateTime ? DATE_TIME.format(dateTime) : row[c];
+                }
+                printer.printRecord(record);
+            }
+        }
+    }
+
+    public static Path writeCsvFile(Path file, List<String> columns, List<Object[]> rows, char delimiter)
+            throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeCsv(writer, columns, rows, delimiter);
+        }
+        return file;
+    }
+
+    public static byte[] csvBytes(List<String> columns, List<Object[]> rows, char delimiter) throws IOException {
+        StringWriter writer = new StringWriter();
+        writeCsv(writer, columns, rows, delimiter);
+        return writer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Object value(String type, Random random, int width, boolean quoted, char delimiter) {
+        return switch (type) {
+            case "Int64" -> random.nextLong();
+            case "UInt32" -> (long) random.nextInt(Integer.MAX_VALUE);
+            case "Float64" -> random.nextDouble() * 1e6;
+            case "Decimal(18, 4)" -> BigDecimal.valueOf(random.nextLong() % 100_000_000_000L, 4);
+            case "Date" -> LocalDate.ofEpochDay(18_000 + random.nextInt(3_000));
+            case "DateTime" -> EPOCH.plusSeconds(random.nextInt(200_000_000));
+            default -> text(random, width, quoted, delimiter);
+        };
+    }
+
+    private static String text(Random random, int width, boolean quoted, char delimiter) {
+        char[] chars = new char[width];
+        for (int i = 0; i < width; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        if (quoted && width >= 4) {
+            chars[width / 4] = delimiter;
+            chars[width / 2] = '"';
+            chars[3 * width / 4] = '\n';
+        }
+        return new String(chars);
+    }
+}
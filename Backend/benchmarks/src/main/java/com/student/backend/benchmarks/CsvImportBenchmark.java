@@ -0,0 +1,234 @@
+package com.student.backend.benchmarks;
+
+import com.student.backend.ingest.BlockReader;
+import com.student.backend.ingest.ByteCsvBlockReader;
+import com.student.backend.ingest.ClickHouseHttpClient;
+import com.student.backend.ingest.ColumnConverter;
+import com.student.backend.ingest.ColumnConverters;
+import com.student.backend.ingest.ConversionErrors;
+import com.student.backend.ingest.CountingInputStream;
+import com.student.backend.ingest.CsvBlockReader;
+import com.student.backend.ingest.JdbcBlockSink;
+import com.student.backend.ingest.MappedCsvReader;
+import com.student.backend.ingest.ProgressTracker;
+import com.student.backend.ingest.RowBinaryBlockSink;
+import com.student.backend.ingest.RowBinaryEncoder;
+import com.student.backend.ingest.RowBinaryOutput;
+import com.student.backend.ingest.RowBlock;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Flat File to ClickHouse hot paths, run the way FlatFileService runs them but on one thread:
+ * parsing the file into blocks, then binding each block to a JDBC statement or encoding it as
+ * RowBinary, optionally sending it to a local stub server. Scores are rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(CsvImportBenchmark.ROWS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvImportBenchmark {
+
+    static final int ROWS = 20_000;
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"4", "16", "64"})
+    public int columnCount;
+
+    /**
+     * Length of String values
+     */
+    @Param({"8", "64"})
+    public int fieldWidth;
+
+    @Param({"comma", "tab"})
+    public String delimiter;
+
+    /**
+     * Whether String values contain characters that force them to be quoted
+     */
+    @Param({"false", "true"})
+    public boolean quoted;
+
+    private Path directory;
+    private Path file;
+    private List<String> columns;
+    private List<String> types;
+    private List<ColumnConverter> converters;
+    private StubClickHouseServer server;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        char delimiterChar = CsvFixtures.delimiter(delimiter);
+        columns = CsvFixtures.columnNames(columnCount);
+        types = CsvFixtures.columnTypes(columnCount);
+        converters = types.stream()
+                .map(type -> ColumnConverters.forType(type, ZoneOffset.UTC))
+                .collect(Collectors.toList());
+
+        directory = Files.createTempDirectory("import-benchmark");
+        file = CsvFixtures.writeCsvFile(directory.resolve("input.csv"), columns,
+                CsvFixtures.rows(ROWS, types, fieldWidth, quoted, delimiterChar), delimiterChar);
+        server = new StubClickHouseServer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) throws IOException {
+        try (BlockReader reader = openReader(new ProgressTracker())) {
+            RowBlock block;
+            while ((block = reader.nextBlock()) != null) {
+                blackhole.consume(block);
+            }
+        }
+    }
+
+    /**
+     * Tokenize into blocks of bytes, as for RowBinary inserts
+     */
+    @Benchmark
+    public void parseBytes(Blackhole blackhole) throws IOException {
+        try (BlockReader reader = openByteReader(new ProgressTracker())) {
+            RowBlock block;
+            while ((block = reader.nextBlock()) != null) {
+                blackhole.consume(block);
+            }
+        }
+    }
+
+    /**
+     * Parse with the memory-mapped reader on four threads, as used for large files
+     */
+    @Benchmark
+    public void parseMapped(Blackhole blackhole) throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setDelimiter(CsvFixtures.delimiter(delimiter))
+                .build();
+        try (BlockReader reader = new MappedCsvReader(file, format, columns, BATCH_SIZE, 4,
+                Files.size(file) / 4 + 1, new ProgressTracker())) {
+            RowBlock block;
+            while ((block = reader.nextBlock()) != null) {
+                blackhole.consume(block);
+            }
+        }
+    }
+
+    /**
+     * Parse and bind every value with its typed setter, as in the JDBC insert mode
+     */
+    @Benchmark
+    public void parseAndBindJdbc() throws IOException, SQLException {
+        ConversionErrors errors = new ConversionErrors(0, 0);
+        try (BlockReader reader = openReader(new ProgressTracker());
+             JdbcBlockSink sink = new JdbcBlockSink(JdbcStubs.connection(), "INSERT", columns, converters, errors)) {
+            RowBlock block;
+            while ((block = reader.nextBlock()) != null) {
+                sink.write(block);
+            }
+        }
+    }
+
+    /**
+     * Parse and encode every block, as in the RowBinary insert mode
+     */
+    @Benchmark
+    public void parseAndEncodeRowBinary(Blackhole blackhole) throws IOException {
+        RowBinaryEncoder encoder = new RowBinaryEncoder(columns, types, converters, new ConversionErrors(0, 0));
+        try (BlockReader reader = openReader(new ProgressTracker())) {
+            RowBlock block;
+            while ((block = reader.nextBlock()) != null) {
+                blackhole.consume(encoder.encode(block));
+            }
+        }
+    }
+
+    /**
+     * Tokenize and encode every block from its bytes, as in the RowBinary insert mode with
+     * "ingest.byte-tokenizer"; compare with {@link #parseAndEncodeRowBinary}
+     */
+    @Benchmark
+    public void parseBytesAndEncodeRowBinary(Blackhole blackhole) throws IOException {
+        RowBinaryEncoder encoder = new RowBinaryEncoder(columns, types, converters, new ConversionErrors(0, 0));
+        try (BlockReader reader = openByteReader(new ProgressTracker())) {
+            RowBlock block;
+            while ((block = reader.nextBlock()) != null) {
+                blackhole.consume(encoder.encode(block));
+            }
+        }
+    }
+
+    /**
+     * Tokenize, encode and send every block to the stub server over HTTP
+     */
+    @Benchmark
+    public void rowBinaryInsert() throws IOException, SQLException {
+        RowBinaryEncoder encoder = new RowBinaryEncoder(columns, types, converters, new ConversionErrors(0, 0));
+        try (RowBinaryBlockSink sink = new RowBinaryBlockSink(new ClickHouseHttpClient(server.config()),
+                "INSERT INTO bench.target FORMAT RowBinary");
+             BlockReader reader = openByteReader(new ProgressTracker())) {
+            RowBlock block;
+            while ((block = reader.nextBlock()) != null) {
+                RowBinaryOutput payload = encoder.encode(block);
+                sink.write(payload);
+            }
+        }
+    }
+
+    /**
+     * Open the streaming reader exactly as FlatFileService does for files below the parallel threshold
+     */
+    private BlockReader openReader(ProgressTracker progress) throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setDelimiter(CsvFixtures.delimiter(delimiter))
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .build();
+        CSVParser parser = new CSVParser(new InputStreamReader(
+                new CountingInputStream(new FileInputStream(file.toFile()), progress), StandardCharsets.UTF_8), format);
+        return new CsvBlockReader(parser, columns, BATCH_SIZE, progress);
+    }
+
+    /**
+     * Open the byte-level reader as FlatFileService does for RowBinary inserts
+     */
+    private BlockReader openByteReader(ProgressTracker progress) throws IOException {
+        return new ByteCsvBlockReader(new CountingInputStream(new FileInputStream(file.toFile()), progress),
+                CsvFixtures.delimiter(delimiter), columns, () -> BATCH_SIZE, progress);
+    }
+}
@@ -0,0 +1,99 @@
+package com.student.backend.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory JDBC objects. The prepared statement accepts and discards every bound value, so a
+ * bind benchmark measures conversion and the typed setter calls rather than the driver's
+ * serialization. The result set replays generated rows.
+ * Both are dynamic proxies; their dispatch cost is the same in every run.
+ */
+final class JdbcStubs {
+
+    private JdbcStubs() {
+    }
+
+    /**
+     * Connection whose prepared statements discard their parameters
+     */
+    static Connection connection() {
+        PreparedStatement statement = proxy(PreparedStatement.class, (method, args) -> switch (method) {
+            case "executeBatch" -> new int[0];
+            default -> null;
+        });
+        return proxy(Connection.class, (method, args) -> switch (method) {
+            case "prepareStatement" -> statement;
+            default -> null;
+        });
+    }
+
+    /**
+     * Result set over the given rows; values are looked up by column name
+     */
+    static ResultSet resultSet(List<String> columns, List<Object[]> rows) {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            indexes.put(columns.get(i), i);
+        }
+        int[] position = {-1};
+        return proxy(ResultSet.class, (method, args) -> switch (method) {
+            case "next" -> ++position[0] < rows.size();
+            case "getObject" -> args[0] instanceof String name
+                    ? rows.get(position[0])[indexes.get(name)]
+                    : rows.get(position[0])[(Integer) args[0] - 1];
+            case "wasNull" -> false;
+            default -> null;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        Object proxy = Proxy.newProxyInstance(JdbcStubs.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> {
+                    Object result = handler.invoke(method.getName(), args);
+                    if (result == null && method.getReturnType().isPrimitive()) {
+                        return defaultValue(method.getReturnType());
+                    }
+                    return result;
+                });
+        return type.cast(proxy);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == void.class) {
+            return null;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == char.class) {
+            return (char) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,85 @@
+package com.student.backend.benchmarks;
+
+import com.student.backend.model.request.ClickHouseConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for ClickHouse's HTTP interface, so the HTTP paths can be measured without a
+ * server. POST requests (inserts) have their body drained and discarded; GET requests
+ * (exports) are answered with a fixed pre-formatted body and a summary header carrying its row count.
+ */
+public class StubClickHouseServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "stub-clickhouse");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile byte[] exportBody = new byte[0];
+    private volatile long exportRows;
+
+    public StubClickHouseServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Set the body returned for every export
+     *
+     * @param body Formatted result, including any header line
+     * @param rows Data rows in the body, reported in X-ClickHouse-Summary
+     */
+    public void setExport(byte[] body, long rows) {
+        this.exportBody = body;
+        this.exportRows = rows;
+    }
+
+    /**
+     * Connection settings pointing at this server
+     */
+    public ClickHouseConfig config() {
+        ClickHouseConfig config = new ClickHouseConfig();
+        config.setDataSource("ClickHouse");
+        config.setHost(server.getAddress().getHostString());
+        config.setPort(String.valueOf(server.getAddress().getPort()));
+        config.setDatabase("bench");
+        return config;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                try (InputStream in = exchange.getRequestBody()) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                }
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            byte[] body = exportBody;
+            exchange.getResponseHeaders().add("X-ClickHouse-Summary",
+                    "{\"read_rows\":\"" + exportRows + "\",\"result_rows\":\"" + exportRows + "\"}");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
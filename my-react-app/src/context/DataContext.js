@@ -21,7 +21,9 @@ export const DataProvider = ({ children }) => {
       jwtToken: '',
       // Default Flat File config
       fileName: '',
-      delimiter: ','
+      delimiter: ',',
+      tableName: '',
+      createTable: false
     };
   });
   
@@ -62,7 +64,9 @@ export const DataProvider = ({ children }) => {
       username: '',
       jwtToken: '',
       fileName: '',
-      delimiter: ','
+      delimiter: ',',
+      tableName: '',
+      createTable: false
     });
     setSelectedColumns([]);
     setAvailableColumns([]);
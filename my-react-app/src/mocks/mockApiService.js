@@ -155,6 +155,46 @@ const MockApiService = {
     });
   },
 
+  /**
+   * Simulates previewing the first rows of a data source
+   * @param {string} dataSource - The data source type ('ClickHouse' or 'Flat File')
+   * @param {object} config - Connection configuration
+   * @param {array} columns - The columns to preview
+   * @param {number} rows - Number of rows to preview
+   * @returns {Promise} - Promise with mock preview results
+   */
+  previewData: (dataSource, config, columns, rows) => {
+    return new Promise((resolve) => {
+      setTimeout(() => {
+        const names = columns.length > 0 ? columns : ['id', 'name', 'value'];
+        const count = Math.min(rows || 10, 10);
+        const data = Array.from({ length: count }, (_, row) =>
+          names.map((name, index) => (index === 0 ? String(row + 1) : `${name}_${row + 1}`)));
+        resolve({
+          data: {
+            dataSource,
+            method: dataSource === 'ClickHouse' ? 'LIMIT' : 'HEAD',
+            columns: names.map((name, index) => ({
+              name,
+              type: index === 0 ? 'Int64' : 'String',
+              typeInferred: dataSource !== 'ClickHouse',
+              nullCount: 0,
+              distinctCount: count,
+              min: index === 0 ? '1' : `${name}_1`,
+              max: index === 0 ? String(count) : `${name}_${count}`,
+              maxLength: index === 0 ? String(count).length : `${name}_${count}`.length
+            })),
+            rows: data,
+            rowCount: count,
+            exhausted: false,
+            cached: false,
+            readAt: new Date().toISOString()
+          }
+        });
+      }, 500);
+    });
+  },
+
   /**
    * Simulates ingesting data with selected columns
    * @param {string} dataSource - The data source type ('ClickHouse' or 'Flat File')
@@ -184,6 +224,42 @@ const MockApiService = {
         });
       }, 2000); // Longer delay to simulate data processing
     });
+  },
+
+  /**
+   * Simulates uploading a local file and ingesting it into ClickHouse
+   * @param {File} file - The file selected by the user
+   * @param {object} config - Flat File configuration
+   * @param {array} columns - The columns selected for ingestion
+   * @param {function} onProgress - Called with the percentage of the file sent so far
+   * @returns {Promise} - Promise with mock ingestion results
+   */
+  uploadData: (file, config, columns, onProgress) => {
+    return new Promise((resolve, reject) => {
+      if (columns.length === 0) {
+        reject({ response: { data: { message: 'No columns selected for ingestion' } } });
+        return;
+      }
+
+      // Report progress in steps to simulate the upload
+      let percent = 0;
+      const timer = setInterval(() => {
+        percent += 20;
+        if (onProgress) {
+          onProgress(percent);
+        }
+        if (percent >= 100) {
+          clearInterval(timer);
+          resolve({
+            data: {
+              recordsCount: Math.floor(Math.random() * 10000) + 1000,
+              message: `Successfully ingested data from upload ${file.name} to ClickHouse`,
+              timestamp: new Date().toISOString()
+            }
+          });
+        }
+      }, 400);
+    });
   }
 };
 
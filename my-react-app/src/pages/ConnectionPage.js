@@ -20,7 +20,7 @@ function ConnectionPage() {
   const handleInputChange = (e) => {
     setConnectionConfig({ 
       ...connectionConfig, 
-      [e.target.name]: e.target.value 
+      [e.target.name]: e.target.type === 'checkbox' ? e.target.checked : e.target.value 
     });
   };
 
@@ -129,7 +129,7 @@ function ConnectionPage() {
               <input 
                 name="fileName" 
                 value={connectionConfig.fileName}
-                placeholder="File Name" 
+                placeholder="File, directory or glob pattern (e.g. data/*.csv)" 
                 onChange={handleInputChange}
                 required 
               />
@@ -143,6 +143,26 @@ function ConnectionPage() {
                 onChange={handleInputChange} 
               />
             </div>
+            <div className="form-row">
+              <label>Target Table:</label>
+              <input 
+                name="tableName" 
+                value={connectionConfig.tableName || ''}
+                placeholder="ClickHouse table (default: target_table)" 
+                onChange={handleInputChange} 
+              />
+            </div>
+            <div className="form-row">
+              <label>
+                <input 
+                  type="checkbox"
+                  name="createTable" 
+                  checked={!!connectionConfig.createTable}
+                  onChange={handleInputChange} 
+                />
+                Create the table with types inferred from the file
+              </label>
+            </div>
           </div>
         )}
 
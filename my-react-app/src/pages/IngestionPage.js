@@ -20,6 +20,8 @@ function IngestionPage() {
   const [error, setError] = useState('');
   const [status, setStatus] = useState('Ready to ingest data');
   const [useMock, setUseMock] = useState(true); // Set to true to use mock service by default
+  const [uploadFile, setUploadFile] = useState(null); // Local file streamed to the backend instead of a server path
+  const [uploadProgress, setUploadProgress] = useState(0);
   
   // Redirect to connection page if no config or columns are found
   useEffect(() => {
@@ -39,11 +41,23 @@ function IngestionPage() {
       // Use mock service if useMock is true, otherwise use real service
       const service = useMock ? MockApiService : DataIngestionService;
       
-      const response = await service.ingestData(
-        dataSource, 
-        connectionConfig, 
-        selectedColumns
-      );
+      let response;
+      if (dataSource === 'Flat File' && uploadFile) {
+        setStatus(`Uploading ${uploadFile.name}...`);
+        setUploadProgress(0);
+        response = await service.uploadData(
+          uploadFile,
+          connectionConfig,
+          selectedColumns,
+          setUploadProgress
+        );
+      } else {
+        response = await service.ingestData(
+          dataSource, 
+          connectionConfig, 
+          selectedColumns
+        );
+      }
       
       if (response.isError) {
         setError(response.message);
@@ -66,6 +80,10 @@ function IngestionPage() {
     setUseMock(!useMock);
   };
   
+  const handleFileChange = (e) => {
+    setUploadFile(e.target.files.length > 0 ? e.target.files[0] : null);
+  };
+  
   const handleBackToSchema = () => {
     navigate('/schema');
   };
@@ -96,6 +114,21 @@ function IngestionPage() {
             <div className="summary-item">
               <strong>File:</strong> {connectionConfig.fileName} 
               <span>(Delimiter: {connectionConfig.delimiter || ','})</span>
+              <div style={{ marginTop: '10px' }}>
+                <label htmlFor="uploadFile">Or upload a file from this computer:</label>
+                <input 
+                  type="file" 
+                  id="uploadFile" 
+                  accept=".csv,.tsv,.txt,.gz,.zst,.lz4" 
+                  onChange={handleFileChange} 
+                  disabled={isLoading}
+                />
+                <p style={{ fontSize: '0.8rem', color: '#666', margin: '5px 0 0 0' }}>
+                  {uploadFile 
+                    ? `${uploadFile.name} (${(uploadFile.size / (1024 * 1024)).toFixed(1)} MB) is streamed straight into ClickHouse` 
+                    : "Without a file, the backend reads the file name above from its own disk"}
+                </p>
+              </div>
             </div>
           )}
           
@@ -136,7 +169,12 @@ function IngestionPage() {
         </div>
         
         {isLoading ? (
-          <Spinner message="Ingesting data... Please wait" size="large" />
+          <Spinner 
+            message={uploadFile && dataSource === 'Flat File' 
+              ? `Uploading and ingesting... ${uploadProgress}% sent` 
+              : "Ingesting data... Please wait"} 
+            size="large" 
+          />
         ) : !ingestResult ? (
           <div className="action-buttons">
             <button 
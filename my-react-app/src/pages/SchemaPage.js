@@ -20,6 +20,8 @@ function SchemaPage() {
   const [error, setError] = useState('');
   const [status, setStatus] = useState('');
   const [useMock, setUseMock] = useState(true); // Set to true to use mock service by default
+  const [preview, setPreview] = useState(null);
+  const [isPreviewLoading, setIsPreviewLoading] = useState(false);
   
   // Redirect to connection page if no config is found
   useEffect(() => {
@@ -61,9 +63,32 @@ function SchemaPage() {
     }
   };
   
+  // Preview the first rows of the selected columns, or of all columns if none are selected
+  const loadPreview = async () => {
+    try {
+      setIsPreviewLoading(true);
+      setError('');
+      
+      const service = useMock ? MockApiService : DataIngestionService;
+      const response = await service.previewData(dataSource, connectionConfig, selectedColumns, 20);
+      
+      if (response.isError) {
+        setError(response.message);
+        return;
+      }
+      
+      setPreview(response.data);
+    } catch (err) {
+      setError('Failed to preview data: ' + (err.message || 'Unknown error'));
+    } finally {
+      setIsPreviewLoading(false);
+    }
+  };
+  
   // Toggle between mock and real service
   const toggleMockService = () => {
     setUseMock(!useMock);
+    setPreview(null);
     // Reload columns with the new service setting
     setTimeout(loadColumns, 100);
   };
@@ -178,6 +203,52 @@ function SchemaPage() {
                 <div className="selected-count">
                   Selected: {selectedColumns.length} of {availableColumns.length} columns
                 </div>
+                
+                <div className="column-actions">
+                  <button 
+                    onClick={loadPreview} 
+                    className="btn btn-sm btn-outline"
+                    disabled={isPreviewLoading}
+                  >
+                    {isPreviewLoading ? 'Loading Preview...' : 'Preview Data'}
+                  </button>
+                </div>
+                
+                {preview && (
+                  <div className="preview" style={{ overflowX: 'auto', marginTop: '10px' }}>
+                    <p style={{ fontSize: '0.8rem', color: '#666' }}>
+                      {preview.rowCount} rows ({preview.method}{preview.exhausted ? ', whole source' : ''})
+                      {preview.cached ? ' from cache' : ''}, read at {preview.readAt}
+                    </p>
+                    <table className="preview-table">
+                      <thead>
+                        <tr>
+                          {preview.columns.map((column) => (
+                            <th key={column.name}>
+                              {column.name}
+                              <div style={{ fontWeight: 'normal', fontSize: '0.75rem' }}>
+                                {column.type}{column.typeInferred ? ' (inferred)' : ''}
+                              </div>
+                              <div style={{ fontWeight: 'normal', fontSize: '0.75rem', color: '#666' }}>
+                                {column.distinctCount} distinct, {column.nullCount} null
+                                {column.min != null ? `, ${column.min} to ${column.max}` : ''}
+                              </div>
+                            </th>
+                          ))}
+                        </tr>
+                      </thead>
+                      <tbody>
+                        {preview.rows.map((row, rowIndex) => (
+                          <tr key={rowIndex}>
+                            {row.map((value, index) => (
+                              <td key={index}>{value}</td>
+                            ))}
+                          </tr>
+                        ))}
+                      </tbody>
+                    </table>
+                  </div>
+                )}
               </>
             ) : (
               <div className="no-columns-message">
@@ -56,6 +56,27 @@ const DataIngestionService = {
     }
   },
 
+  /**
+   * Preview the first rows of the data source, with the type and statistics of each column.
+   * Only the first rows are read, and repeated previews are served from the backend's cache.
+   * @param {string} dataSource - The data source type ('ClickHouse' or 'Flat File')
+   * @param {object} config - Connection configuration for the data source
+   * @param {array} columns - Array of column names to preview; all columns if empty
+   * @param {number} rows - Number of rows to read; the backend default if omitted
+   * @returns {Promise} - Promise with the response data
+   */
+  previewData: async (dataSource, config, columns, rows) => {
+    try {
+      console.log(`Previewing ${rows || 'default'} rows from ${dataSource} with columns:`, columns);
+      
+      const response = await axios.post('/preview', { dataSource, config, columns, rows });
+      return { isSuccess: true, data: response.data };
+    } catch (error) {
+      console.error('Error previewing data:', error);
+      return handleApiError(error);
+    }
+  },
+
   /**
    * Ingest data with the selected columns
    * @param {string} dataSource - The data source type ('ClickHouse' or 'Flat File')
@@ -74,6 +95,42 @@ const DataIngestionService = {
       console.error('Error ingesting data:', error);
       return handleApiError(error);
     }
+  },
+
+  /**
+   * Upload a local file and ingest it into ClickHouse while it is being sent.
+   * The file is posted as the raw request body, so the browser streams it from disk
+   * and the backend inserts rows as they arrive without storing the file.
+   * @param {File} file - The file selected by the user; compressed files are detected by extension
+   * @param {object} config - Flat File configuration (delimiter)
+   * @param {array} columns - Array of column names to ingest
+   * @param {function} onProgress - Called with the percentage of the file sent so far
+   * @returns {Promise} - Promise with the response data
+   */
+  uploadData: async (file, config, columns, onProgress) => {
+    try {
+      console.log(`Uploading ${file.name} (${file.size} bytes) with columns:`, columns);
+      
+      const response = await axios.post('/ingest/upload', file, {
+        params: {
+          fileName: file.name,
+          delimiter: config.delimiter || ',',
+          columns: columns.join(',')
+        },
+        headers: { 'Content-Type': 'application/octet-stream' },
+        // Multi-GB uploads take a while; never time out while the file is still being sent
+        timeout: 0,
+        onUploadProgress: (event) => {
+          if (onProgress && event.total) {
+            onProgress(Math.round((event.loaded * 100) / event.total));
+          }
+        }
+      });
+      return { isSuccess: true, data: response.data };
+    } catch (error) {
+      console.error('Error uploading data:', error);
+      return handleApiError(error);
+    }
   }
 };
 